@@ -0,0 +1,343 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.TokenClaims;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.impl.TextCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 直接用HMAC-SHA512签发和校验令牌的实现，默认启用（security.token.codec=hmac）。
+ * <p>
+ * 密钥字节在构造时计算一次，每个线程复用一个已初始化的Mac和缓冲区；
+ * 签发时按固定顺序 {"sub","uid","role","ver","exp"} 拼接载荷，校验时直接在缓冲区上比对签名、解码和解析载荷，
+ * 只有手机号和角色两个字符串需要分配。载荷不是固定布局时（如jjwt签发的旧令牌）退回Jackson解析。
+ */
+@Component
+@ConditionalOnProperty(name = "security.token.codec", havingValue = "hmac", matchIfMissing = true)
+public class HmacTokenCodec implements TokenCodec {
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final int SIGNATURE_BYTES = 64;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    // {"alg":"HS512"}，与jjwt签发的头部相同
+    private static final String HEADER = ENCODER.encodeToString("{\"alg\":\"HS512\"}".getBytes(StandardCharsets.UTF_8));
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Signer> signers = ThreadLocal.withInitial(Signer::new);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public HmacTokenCodec(@Value("${security.token.secret:SecretKey}") String secret) {
+        // 与jjwt一致：配置的密钥字符串按Base64解码后作为HMAC密钥
+        this.key = new SecretKeySpec(TextCodec.BASE64.decode(secret), ALGORITHM);
+    }
+
+    @Override
+    public String sign(TokenClaims claims) {
+        StringBuilder json = new StringBuilder(128).append("{\"sub\":");
+        appendString(json, claims.getPhone());
+        json.append(",\"uid\":").append(claims.getUserId());
+        json.append(",\"role\":");
+        appendString(json, claims.getRole());
+        json.append(",\"ver\":").append(claims.getVersion());
+        json.append(",\"exp\":").append(claims.getExpiration().getTime() / 1000).append('}');
+
+        String signingInput = HEADER + '.' + ENCODER.encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+        Signer signer = signers.get();
+        signer.mac.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + ENCODER.encodeToString(signer.mac.doFinal());
+    }
+
+    @Override
+    public TokenClaims verify(String token) {
+        int headerEnd = HEADER.length();
+        int signatureStart = token.lastIndexOf('.') + 1;
+        if (!token.startsWith(HEADER) || token.indexOf('.') != headerEnd || signatureStart <= headerEnd + 1) {
+            return null; // 格式不对或使用了其他算法
+        }
+
+        Signer signer = signers.get();
+        byte[] input = signer.ascii(token, signatureStart - 1);
+        if (input == null) {
+            return null;
+        }
+        signer.mac.update(input, 0, signatureStart - 1);
+        try {
+            signer.mac.doFinal(signer.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!signatureMatches(signer.signature, token, signatureStart)) {
+            return null;
+        }
+
+        int length = signer.decode(token, headerEnd + 1, signatureStart - 1);
+        if (length < 0) {
+            return null;
+        }
+        TokenClaims claims = parseFixed(signer.payload, length);
+        if (claims == null) {
+            claims = parseJson(signer.payload, length);
+        }
+        if (claims == null || claims.getExpiration() != null && claims.getExpiration().getTime() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * 按签发时的固定顺序解析载荷，不符合时返回null。
+     */
+    private static TokenClaims parseFixed(byte[] json, int length) {
+        Cursor cursor = new Cursor(json, length);
+        TokenClaims claims = new TokenClaims();
+        if (!cursor.expect("{\"sub\":")) {
+            return null;
+        }
+        claims.setPhone(cursor.string());
+        if (claims.getPhone() == null || !cursor.expect(",\"uid\":")) {
+            return null;
+        }
+        long userId = cursor.number();
+        if (userId < 0 || userId > Integer.MAX_VALUE || !cursor.expect(",\"role\":")) {
+            return null;
+        }
+        claims.setUserId((int) userId);
+        claims.setRole(cursor.string());
+        if (claims.getRole() == null || !cursor.expect(",\"ver\":")) {
+            return null;
+        }
+        long version = cursor.number();
+        if (version < 0 || version > Integer.MAX_VALUE || !cursor.expect(",\"exp\":")) {
+            return null;
+        }
+        claims.setVersion((int) version);
+        long expiration = cursor.number();
+        if (expiration < 0 || !cursor.expect("}") || cursor.pos != length) {
+            return null;
+        }
+        claims.setExpiration(new Date(expiration * 1000));
+        return claims;
+    }
+
+    /**
+     * 通用解析，用于jjwt签发的令牌等字段顺序不同或含转义字符的载荷。
+     */
+    private TokenClaims parseJson(byte[] json, int length) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(new String(json, 0, length, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return null;
+        }
+        if (node == null || !node.isObject()) {
+            return null;
+        }
+        TokenClaims claims = new TokenClaims();
+        claims.setPhone(node.path("sub").isTextual() ? node.get("sub").asText() : null);
+        claims.setUserId(node.path("uid").isInt() ? node.get("uid").asInt() : null);
+        claims.setRole(node.path("role").isTextual() ? node.get("role").asText() : null);
+        claims.setVersion(node.path("ver").isInt() ? node.get("ver").asInt() : null);
+        claims.setExpiration(node.path("exp").isIntegralNumber() ? new Date(node.get("exp").asLong() * 1000) : null);
+        return claims;
+    }
+
+    /**
+     * 以恒定时间比较签名的Base64URL编码与令牌中的签名段，不分配编码结果。
+     */
+    private static boolean signatureMatches(byte[] signature, String token, int offset) {
+        if (token.length() - offset != (SIGNATURE_BYTES * 4 + 2) / 3) {
+            return false;
+        }
+        int diff = 0;
+        int pos = offset;
+        for (int i = 0; i < SIGNATURE_BYTES; i += 3) {
+            int remaining = Math.min(3, SIGNATURE_BYTES - i);
+            int bits = (signature[i] & 0xff) << 16;
+            if (remaining > 1) {
+                bits |= (signature[i + 1] & 0xff) << 8;
+            }
+            if (remaining > 2) {
+                bits |= signature[i + 2] & 0xff;
+            }
+            for (int c = 0; c <= remaining; c++) {
+                diff |= token.charAt(pos++) ^ ALPHABET[(bits >>> (18 - 6 * c)) & 0x3f];
+            }
+        }
+        return diff == 0;
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化HMAC失败", e);
+        }
+    }
+
+    /**
+     * 每个线程独占的Mac和缓冲区。
+     */
+    private final class Signer {
+        final Mac mac = newMac();
+        final byte[] signature = new byte[SIGNATURE_BYTES];
+        byte[] input = new byte[256];
+        byte[] payload = new byte[192];
+
+        /**
+         * 把令牌前length个字符写入输入缓冲区，含非ASCII字符时返回null。
+         */
+        byte[] ascii(String token, int length) {
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = token.charAt(i);
+                if (c > 0x7f) {
+                    return null;
+                }
+                input[i] = (byte) c;
+            }
+            return input;
+        }
+
+        /**
+         * 把令牌中[from, to)的Base64URL字符解码到载荷缓冲区，返回解码后的字节数，含非法字符时返回-1。
+         */
+        int decode(String token, int from, int to) {
+            int chars = to - from;
+            if (chars % 4 == 1) {
+                return -1;
+            }
+            int length = chars / 4 * 3 + Math.max(0, chars % 4 - 1);
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            int bits = 0;
+            int count = 0;
+            int out = 0;
+            for (int i = from; i < to; i++) {
+                char c = token.charAt(i);
+                int value = c < 128 ? DECODE[c] : -1;
+                if (value < 0) {
+                    return -1;
+                }
+                bits = bits << 6 | value;
+                if (++count == 4) {
+                    payload[out++] = (byte) (bits >> 16);
+                    payload[out++] = (byte) (bits >> 8);
+                    payload[out++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            }
+            if (count == 2) {
+                payload[out++] = (byte) (bits >> 4);
+            } else if (count == 3) {
+                payload[out++] = (byte) (bits >> 10);
+                payload[out++] = (byte) (bits >> 2);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * 在载荷字节上顺序读取固定布局的字段。
+     */
+    private static final class Cursor {
+        final byte[] json;
+        final int length;
+        int pos;
+
+        Cursor(byte[] json, int length) {
+            this.json = json;
+            this.length = length;
+        }
+
+        boolean expect(String literal) {
+            if (pos + literal.length() > length) {
+                return false;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (json[pos + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += literal.length();
+            return true;
+        }
+
+        /**
+         * 读取不含转义的字符串，遇到转义或未闭合时返回null。
+         */
+        String string() {
+            if (pos >= length || json[pos] != '"') {
+                return null;
+            }
+            int start = ++pos;
+            while (pos < length && json[pos] != '"') {
+                if (json[pos] == '\\') {
+                    return null;
+                }
+                pos++;
+            }
+            if (pos >= length) {
+                return null;
+            }
+            return new String(json, start, pos++ - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 读取非负整数，格式不对或超过18位时返回-1。
+         */
+        long number() {
+            int start = pos;
+            long value = 0;
+            while (pos < length && json[pos] >= '0' && json[pos] <= '9' && pos - start < 18) {
+                value = value * 10 + (json[pos++] - '0');
+            }
+            return pos == start ? -1 : value;
+        }
+    }
+}
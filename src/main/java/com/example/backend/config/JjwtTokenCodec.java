@@ -0,0 +1,53 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.TokenClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于jjwt的令牌实现，每次签发和校验都由字符串密钥重新构造签名密钥，并经过通用的JSON映射。
+ * 通过 security.token.codec=jjwt 启用。
+ */
+@Component
+@ConditionalOnProperty(name = "security.token.codec", havingValue = "jjwt")
+public class JjwtTokenCodec implements TokenCodec {
+    private final String secret;
+
+    public JjwtTokenCodec(@Value("${security.token.secret:SecretKey}") String secret) {
+        this.secret = secret;
+    }
+
+    @Override
+    public String sign(TokenClaims claims) {
+        return Jwts.builder()
+                .setSubject(claims.getPhone()) // JWT 中表示用户身份的字段，这里放的是手机号码
+                .claim("uid", claims.getUserId()) // 用户ID，授权时直接由claims构造用户身份，无需查询数据库
+                .claim("role", claims.getRole()) // 用户角色
+                .claim("ver", claims.getVersion()) // 令牌版本，修改密码或角色后旧令牌失效
+                .setExpiration(claims.getExpiration())
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+    }
+
+    @Override
+    public TokenClaims verify(String token) {
+        Claims body;
+        try {
+            body = Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        TokenClaims claims = new TokenClaims();
+        claims.setPhone(body.getSubject());
+        claims.setUserId(body.get("uid", Integer.class));
+        claims.setRole(body.get("role", String.class));
+        claims.setVersion(body.get("ver", Integer.class));
+        claims.setExpiration(body.getExpiration());
+        return claims;
+    }
+}
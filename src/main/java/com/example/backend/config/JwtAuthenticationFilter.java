@@ -1,12 +1,15 @@
 package com.example.backend.config;
 
+import com.example.backend.exception.BusinessException;
+import com.example.backend.service.ILoginThrottleService;
+import com.example.backend.service.ITokenVersionService;
 import com.example.backend.service.IUserService;
 import com.fasterxml.jackson.databind.ObjectMapper; // 导入Jackson库来解析JSON
+import com.example.backend.dto.TokenClaims;
 import com.example.backend.dto.UserLoginDTO; // 导入用户登录DTO
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager; // Spring Security的认证管理器
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken; // 用户名密码认证令牌
 import org.springframework.security.core.Authentication; // Spring Security的认证接口
 import org.springframework.security.core.AuthenticationException; // 认证异常
@@ -19,6 +22,7 @@ import javax.servlet.ServletException; // Servlet异常
 import javax.servlet.http.HttpServletRequest; // HTTP请求
 import javax.servlet.http.HttpServletResponse; // HTTP响应
 import java.io.IOException; // IO异常
+import java.io.UncheckedIOException;
 import java.util.Date; // 日期类
 import java.util.HashMap;
 import java.util.Map;
@@ -27,11 +31,19 @@ import com.example.backend.entity.User;
 public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
     private final AuthenticationManager authenticationManager; // 认证管理器，用于在Spring Security中进行认证操作
     private final IUserService userService;
+    private final ITokenVersionService tokenVersionService; // 令牌版本表，签发时写入当前版本
+    private final ILoginThrottleService loginThrottleService; // 登录限流，在查询用户和计算BCrypt之前执行
+    private final TokenCodec tokenCodec; // 令牌签发实现
 
     // 构造函数，通过参数注入AuthenticationManager
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, IUserService userService) {
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, IUserService userService,
+                                   ITokenVersionService tokenVersionService, ILoginThrottleService loginThrottleService,
+                                   TokenCodec tokenCodec) {
         this.authenticationManager = authenticationManager;
         this.userService = userService;
+        this.tokenVersionService = tokenVersionService;
+        this.loginThrottleService = loginThrottleService;
+        this.tokenCodec = tokenCodec;
         setFilterProcessesUrl("/api/users/login");
         setAuthenticationManager(authenticationManager); // 显式设置 AuthenticationManager
     }
@@ -53,6 +65,13 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
             UserLoginDTO credentials = new ObjectMapper()
                     .readValue(request.getInputStream(), UserLoginDTO.class);
 
+            // 按IP和手机号限流，超限时直接返回429，不查询用户也不计算哈希。
+            // 在反向代理之后getRemoteAddr()由server.forward-headers-strategy=native从受信任代理的X-Forwarded-For还原
+            if (!loginThrottleService.tryAcquire(credentials.getPhone(), request.getRemoteAddr())) {
+                writeError(response, new BusinessException(HttpStatus.TOO_MANY_REQUESTS, "登录尝试过于频繁，请稍后再试"));
+                return null;
+            }
+
             // 创建认证令牌，此令牌尚未认证
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                     credentials.getPhone(), // 使用用户提交的手机号作为认证主体（principal）
@@ -61,6 +80,17 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
             // 使用认证管理器完成认证过程，如果认证成功，返回一个已认证的Authentication实例
             return authenticationManager.authenticate(authenticationToken);
+        } catch (BusinessException e) {
+            // 密码哈希线程池已满，直接返回503，不再继续过滤链
+            writeError(response, e);
+            return null;
+        } catch (InternalAuthenticationServiceException e) {
+            // 用户不存在时的防时序攻击哈希同样可能被拒绝，此时异常被包装在内部认证异常中
+            if (e.getCause() instanceof BusinessException) {
+                writeError(response, (BusinessException) e.getCause());
+                return null;
+            }
+            throw e;
         } catch (IOException e) {
             // 在处理请求数据时发生IO异常，转换为运行时异常抛出
             throw new RuntimeException(e);
@@ -94,13 +124,13 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         }
 
         // 创建JWT
-        // 设置JWT主题(用户名), 权限信息, 过期时间, 签名算法和密钥
-        String token = Jwts.builder()
-                .setSubject(user.getPhone()) // JWT 中表示用户身份的字段，这里放的是手机号码
-                .claim("roles", authResult.getAuthorities()) // 包含用户的角色和权限信息。
-                .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // JWT 的有效期设置为当前时间之后的 24 小时
-                .signWith(SignatureAlgorithm.HS512, "SecretKey") // 使用 HS512 算法和 "SecretKey" 作为密钥进行签名。
-                .compact();
+        TokenClaims claims = new TokenClaims();
+        claims.setPhone(user.getPhone()); // JWT 中表示用户身份的字段，这里放的是手机号码
+        claims.setUserId(user.getUserId()); // 用户ID，授权时直接由claims构造用户身份，无需查询数据库
+        claims.setRole(user.getRole()); // 用户角色
+        claims.setVersion(tokenVersionService.currentVersion(user.getUserId())); // 令牌版本，修改密码或角色后旧令牌失效
+        claims.setExpiration(new Date(System.currentTimeMillis() + 86400000)); // JWT 的有效期设置为当前时间之后的 24 小时
+        String token = tokenCodec.sign(claims);
 
         // 允许跨域访问JWT头
         response.setHeader("Access-Control-Expose-Headers","Authorization");
@@ -131,4 +161,21 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         response.getWriter().write(jsonResponse);
     }
 
+    /**
+     * 以统一的响应格式写出业务错误。
+     */
+    private void writeError(HttpServletResponse response, BusinessException e) {
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("status", e.getStatus().value() + " " + e.getStatus().getReasonPhrase());
+        responseBody.put("message", e.getMessage());
+        responseBody.put("data", null);
+        try {
+            response.setStatus(e.getStatus().value());
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(new ObjectMapper().writeValueAsString(responseBody));
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
 }
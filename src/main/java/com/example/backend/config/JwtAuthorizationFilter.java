@@ -1,11 +1,14 @@
 package com.example.backend.config;
 
+import com.example.backend.dto.TokenClaims;
+import com.example.backend.service.ITokenCacheService;
+import com.example.backend.service.ITokenVersionService;
 import com.example.backend.service.IUserService;
 import com.example.backend.service.impl.UserServiceImpl; // 导入用户服务实现
-import io.jsonwebtoken.Claims; // JWT的Claims
-import io.jsonwebtoken.Jwts; // JWT的工具类
 import org.springframework.security.authentication.AuthenticationManager; // 认证管理器
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken; // 认证令牌
+import org.springframework.security.core.Authentication; // 认证信息
+import org.springframework.security.core.authority.SimpleGrantedAuthority; // 角色权限
 import org.springframework.security.core.context.SecurityContextHolder; // 安全上下文持有者
 import org.springframework.security.core.userdetails.UserDetails; // 用户详细信息
 import org.springframework.web.filter.OncePerRequestFilter; // 每请求一次过滤器
@@ -15,20 +18,28 @@ import javax.servlet.ServletException; // Servlet异常
 import javax.servlet.http.HttpServletRequest; // HTTP请求
 import javax.servlet.http.HttpServletResponse; // HTTP响应
 import java.io.IOException; // IO异常
+import java.util.Collections;
 
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
     private final IUserService userService; // 使用接口而非具体实现
+    private final ITokenCacheService tokenCacheService; // 已验证令牌缓存
+    private final ITokenVersionService tokenVersionService; // 令牌版本表，用于吊销旧令牌
+    private final TokenCodec tokenCodec; // 令牌校验实现
 
-    // 构造函数，注入用户服务
-    // 构造函数，注入用户服务
-    public JwtAuthorizationFilter(IUserService userService) {
+    // 构造函数，注入用户服务、令牌缓存、令牌版本表和令牌校验实现
+    public JwtAuthorizationFilter(IUserService userService, ITokenCacheService tokenCacheService,
+                                  ITokenVersionService tokenVersionService, TokenCodec tokenCodec) {
         this.userService = userService;
+        this.tokenCacheService = tokenCacheService;
+        this.tokenVersionService = tokenVersionService;
+        this.tokenCodec = tokenCodec;
     }
 
     /**
      * 处理过滤请求，用于JWT认证。
      * 从请求头中提取Authorization字段，验证其是否为Bearer类型的JWT令牌。
-     * 如果是，解析JWT以获取用户信息，并进行认证。
+     * 如果是，先查已验证令牌缓存，命中且令牌版本仍是用户当前版本时直接使用缓存的认证信息；
+     * 未命中时解析JWT以获取用户信息，进行认证并缓存到令牌过期为止。
      * 如果不是，或解析失败，则继续过滤链。
      *
      * @param request  HttpServletRequest对象，代表客户端的HTTP请求。
@@ -52,23 +63,54 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
         // 提取Bearer之后的token字符串
         String token = header.replace("Bearer ", "");
 
+        // 已验证过的令牌直接使用缓存的认证信息，不再验签和查询用户；命中时仍在内存中比较令牌版本
+        Authentication cached = tokenCacheService.get(token, tokenVersionService::currentVersion);
+        if (cached != null) {
+            SecurityContextHolder.getContext().setAuthentication(cached);
+            chain.doFilter(request, response);
+            return;
+        }
+
         try {
-            // 解析JWT token
-            Claims claims = Jwts.parser()
-                    .setSigningKey("SecretKey") // 使用预定义的密钥解析
-                    .parseClaimsJws(token) // 解析JWT并获取claims
-                    .getBody();
+            // 校验签名和有效期并解析JWT token，无效时返回null
+            TokenClaims claims = tokenCodec.verify(token);
+
+            if (claims == null) {
+                // 签名不匹配、格式错误或已过期，认证失败
+                SecurityContextHolder.clearContext();
+                chain.doFilter(request, response);
+                return;
+            }
 
             // 从JWT中提取用户姓名
-            String phone = claims.getSubject();
+            String phone = claims.getPhone();
             if (phone != null) {
-
-                UserDetails userDetails = userService.loadUserByUsername(phone); // 不得不叫这个名字，但是确实是手机号码
+                UserDetails userDetails;
+                Integer userId = claims.getUserId();
+                if (userId != null) {
+                    // 新令牌携带用户ID、角色和令牌版本，直接由claims构造用户身份，不查询数据库
+                    Integer version = claims.getVersion();
+                    if (version == null || version != tokenVersionService.currentVersion(userId)) {
+                        // 用户已修改密码或角色，令牌被吊销
+                        SecurityContextHolder.clearContext();
+                        chain.doFilter(request, response);
+                        return;
+                    }
+                    userDetails = new org.springframework.security.core.userdetails.User(phone, "",
+                            Collections.singletonList(new SimpleGrantedAuthority(claims.getRole())));
+                } else {
+                    // 旧令牌只有手机号，仍从数据库加载用户
+                    userDetails = userService.loadUserByUsername(phone); // 不得不叫这个名字，但是确实是手机号码
+                }
 
                 // 创建并设置认证信息到安全上下文
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                // 写入前再比较一次版本，缩小与吊销交错的窗口；交错写入的条目在下次命中时因版本不一致被删除
+                if (userId == null || claims.getVersion() == tokenVersionService.currentVersion(userId)) {
+                    tokenCacheService.put(token, phone, userId, claims.getVersion(), claims.getExpiration(), authentication);
+                }
             }
         } catch (Exception e) {
             // 认证失败，清除安全上下文
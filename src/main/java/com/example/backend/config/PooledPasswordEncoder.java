@@ -0,0 +1,174 @@
+package com.example.backend.config;
+
+import com.example.backend.exception.BusinessException;
+import com.example.backend.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 在专用线程池上执行BCrypt的密码编码器。
+ * 线程数默认等于CPU核数，排队数有上限，队列满时立即以503拒绝，
+ * 登录高峰时最多只有“线程数+队列长度”个请求线程在等待哈希，其余请求线程仍可处理订单。
+ * 启动时按目标耗时校准BCrypt的cost，已有密码哈希按其自身的cost校验，不受影响。
+ */
+@Component
+public class PooledPasswordEncoder implements PasswordEncoder {
+    private static final Logger log = LoggerFactory.getLogger(PooledPasswordEncoder.class);
+
+    private static final int MAX_STRENGTH = 16;
+
+    @Value("${security.bcrypt.threads:0}")
+    private int threads;
+    @Value("${security.bcrypt.queue-capacity:64}")
+    private int queueCapacity;
+    @Value("${security.bcrypt.strength:0}")
+    private int configuredStrength;
+    @Value("${security.bcrypt.min-strength:10}")
+    private int minStrength;
+    @Value("${security.bcrypt.target-ms:250}")
+    private long targetMs;
+
+    private ThreadPoolExecutor executor;
+    private BCryptPasswordEncoder delegate;
+    private int strength;
+    private long calibratedHashMs;
+
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+    private final LatencyHistogram matchesLatency = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "bcrypt-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        strength = configuredStrength > 0 ? configuredStrength : calibrate();
+        delegate = new BCryptPasswordEncoder(strength);
+        log.info("BCrypt cost={}，线程数={}，排队上限={}", strength, poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeLatency);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesLatency);
+    }
+
+    /**
+     * 以当前cost在调用线程上直接编码，不经过登录使用的线程池，也不受其排队上限约束。
+     * 供批量导入在自己的线程池上并行哈希。
+     */
+    public String encodeInline(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 获取当前cost、线程池状态、拒绝次数以及编码、校验和排队等待的延迟直方图。
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("strength", strength);
+        metrics.put("calibratedHashMs", calibratedHashMs);
+        metrics.put("poolSize", executor.getCorePoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("encode", encodeLatency.snapshot());
+        metrics.put("matches", matchesLatency.snapshot());
+        metrics.put("queueWait", queueWait.snapshot());
+        return metrics;
+    }
+
+    /**
+     * 提交到线程池并等待结果，队列已满时抛出503。
+     */
+    private <T> T run(Supplier<T> task, LatencyHistogram latency) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitted));
+                return task.get();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusinessException(HttpStatus.SERVICE_UNAVAILABLE, "服务繁忙，请稍后重试");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(HttpStatus.SERVICE_UNAVAILABLE, "服务繁忙，请稍后重试");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitted));
+        }
+    }
+
+    /**
+     * 在最低cost下测量一次哈希耗时，cost每加一耗时翻倍，据此选出不超过目标耗时的最大cost。
+     */
+    private int calibrate() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("calibration"); // 预热
+        long start = System.nanoTime();
+        probe.encode("calibration");
+        calibratedHashMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        int chosen = minStrength;
+        long estimated = calibratedHashMs;
+        while (chosen < MAX_STRENGTH && estimated * 2 <= targetMs) {
+            chosen++;
+            estimated *= 2;
+        }
+        log.info("BCrypt校准：cost={}耗时{}ms，目标{}ms，选用cost={}", minStrength, calibratedHashMs, targetMs, chosen);
+        return chosen;
+    }
+}
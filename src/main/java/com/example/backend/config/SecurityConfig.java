@@ -1,5 +1,8 @@
 package com.example.backend.config;
 
+import com.example.backend.service.ILoginThrottleService;
+import com.example.backend.service.ITokenCacheService;
+import com.example.backend.service.ITokenVersionService;
 import com.example.backend.service.IUserService;
 import com.example.backend.service.impl.UserServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -27,10 +28,14 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private IUserService userService;
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    @Autowired
+    private ITokenCacheService tokenCacheService;
+    @Autowired
+    private ITokenVersionService tokenVersionService;
+    @Autowired
+    private ILoginThrottleService loginThrottleService;
+    @Autowired
+    private TokenCodec tokenCodec;
     @Bean
     @Override
     public AuthenticationManager authenticationManagerBean() throws Exception {
@@ -46,7 +51,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
      */
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() throws Exception {
-        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(authenticationManagerBean(), userService);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(authenticationManagerBean(), userService, tokenVersionService, loginThrottleService, tokenCodec);
         filter.setFilterProcessesUrl("/api/users/login"); // 设置过滤器处理的特定URL，用于用户登录验证
         return filter;
     }
@@ -76,7 +81,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .and()
                 .addFilter(jwtAuthenticationFilter())
                 // 在UsernamePasswordAuthenticationFilter之前添加JWT授权过滤器
-                .addFilterBefore(new JwtAuthorizationFilter(userService), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(new JwtAuthorizationFilter(userService, tokenCacheService, tokenVersionService, tokenCodec), UsernamePasswordAuthenticationFilter.class);
 
         // 配置HTTP头，允许同源策略，支持CORS
         http.headers().frameOptions().sameOrigin();
@@ -0,0 +1,22 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.TokenClaims;
+
+/**
+ * 访问令牌的签发与校验。
+ * 两种实现签发的都是以HS512签名的标准JWT，互相可以校验，切换实现不会使已签发的令牌失效。
+ */
+public interface TokenCodec {
+
+    /**
+     * 签发令牌。
+     */
+    String sign(TokenClaims claims);
+
+    /**
+     * 校验签名和有效期并解析声明。
+     *
+     * @return 令牌格式错误、签名不匹配或已过期时返回null
+     */
+    TokenClaims verify(String token);
+}
@@ -1,10 +1,19 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.MenuChangesDTO;
+import com.example.backend.dto.MenuPayload;
 import com.example.backend.entity.MenuItem;
+import com.example.backend.service.IMenuCatalogService;
+import com.example.backend.service.IMenuChangeService;
 import com.example.backend.service.IMenuItemService;
+import com.example.backend.service.IMenuPayloadService;
+import com.example.backend.service.IMenuSuggestService;
 import com.example.backend.service.IOrderDetailService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,6 +22,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import com.example.backend.entity.OrderDetail;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +43,16 @@ public class MenuItemController {
     IMenuItemService menuItemService;
     @Autowired
     IOrderDetailService orderDetailService;  // 注入订单详情服务
+    @Autowired
+    IMenuCatalogService menuCatalogService;  // 内存菜单目录，读取不访问数据库
+    @Autowired
+    IMenuSuggestService menuSuggestService;
+    @Autowired
+    IMenuPayloadService menuPayloadService;  // 店铺菜单响应的序列化缓存
+    @Autowired
+    IMenuChangeService menuChangeService;    // 店铺菜单变更日志，用于增量同步
+
+    private static final int MAX_SEARCH_LIMIT = 500; // 搜索单次最多返回的条数
 
     private ResponseEntity<Map<String, Object>> createResponse(HttpStatus status, String message, Object data) {
         Map<String, Object> responseBody = new HashMap<>();
@@ -54,7 +74,7 @@ public class MenuItemController {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
 
-        List<MenuItem> items = menuItemService.list();
+        List<MenuItem> items = menuCatalogService.current().getItems();
         return createResponse(HttpStatus.OK, "获取所有菜单项成功", items);
     }
 
@@ -71,26 +91,65 @@ public class MenuItemController {
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
-        MenuItem item = menuItemService.getById(itemId);
+        MenuItem item = menuCatalogService.current().getItem(itemId.intValue());
         return item != null ? createResponse(HttpStatus.OK, "获取菜单项成功", item) : createResponse(HttpStatus.NOT_FOUND, "菜单项不存在", null);
     }
 
     /**
      * 获取某店铺的所有菜单项。
+     * 响应字节按店铺版本缓存，直接写出不再经过序列化；带强ETag，If-None-Match命中时返回304，
+     * 客户端声明支持gzip且响应较大时返回压缩后的字节。
      *
      * @param storeId 店铺ID，通过路径变量传递。
+     * @param ifNoneMatch 客户端缓存的ETag，可选。
+     * @param acceptEncoding 客户端支持的内容编码，可选。
      * @param authentication 用户的认证信息，用于验证用户身份。
-     * @return 返回一个响应实体，包含该店铺所有菜单项的列表。如果用户未认证，返回401状态码。
+     * @return 返回一个响应实体，包含该店铺所有菜单项的列表；内容未变化时返回304。如果用户未认证，返回401状态码。
      */
     @GetMapping("/store/{storeId}")
-    public ResponseEntity<?> getMenuItemsByStore(@PathVariable Integer storeId, Authentication authentication) {
+    public ResponseEntity<?> getMenuItemsByStore(@PathVariable Integer storeId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                 Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
+        }
+
+        MenuPayload payload = menuPayloadService.storeMenu(storeId);
+        boolean gzip = payload.getGzipped() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(gzip ? payload.getGzipEtag() : payload.getEtag());
+        headers.setCacheControl(CacheControl.noCache()); // 可以缓存，但每次使用前需要用ETag确认
+        headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING));
+        if (payload.matches(ifNoneMatch)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(gzip ? payload.getGzipped() : payload.getBody(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * 获取某店铺自某一版本以来变化的菜单项，客户端据此增量更新本地菜单。
+     * 返回的version在下次请求时作为since传回；full为true时items是完整菜单，客户端应整体替换。
+     *
+     * @param storeId 店铺ID，通过路径变量传递。
+     * @param since 客户端上次同步得到的版本，可选，缺省时返回完整菜单。
+     * @param authentication 用户的认证信息，用于验证用户身份。
+     * @return 返回一个响应实体，包含新增或修改的菜单项和已删除的菜单项ID。如果用户未认证，返回401状态码。
+     */
+    @GetMapping("/store/{storeId}/changes")
+    public ResponseEntity<?> getMenuChanges(@PathVariable Integer storeId,
+                                            @RequestParam(required = false) Long since,
+                                            Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
 
-        // 查询某店铺的所有菜单项
-        List<MenuItem> items = menuItemService.lambdaQuery().eq(MenuItem::getStoreId, storeId).list();
-        return createResponse(HttpStatus.OK, "获取店铺菜单项成功", items);
+        MenuChangesDTO changes = menuChangeService.changesSince(storeId, since);
+        return createResponse(HttpStatus.OK, "获取店铺菜单变化成功", changes);
     }
 
     /**
@@ -123,30 +182,59 @@ public class MenuItemController {
 
     /**
      * 搜索菜单项信息。
+     * 在内存目录的倒排索引中按名称、分类和描述检索，名称命中的排在前面。
      *
      * @param query 搜索关键词，通过URL查询参数传递。
+     * @param storeId 可选，只搜索该店铺的菜单项。
+     * @param limit 最多返回的条数，默认100。
      * @param authentication 当前请求的认证信息，用于权限验证。
      * @return 返回包含搜索结果的ResponseEntity，如果没有找到，则返回空列表。
      *         如果用户未认证，返回401状态码。
      */
     @GetMapping("/search")
-    public ResponseEntity<?> searchMenuItems(@RequestParam String query, Authentication authentication) {
+    public ResponseEntity<?> searchMenuItems(@RequestParam String query,
+                                             @RequestParam(required = false) Integer storeId,
+                                             @RequestParam(defaultValue = "100") int limit,
+                                             Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
+        if (limit <= 0) {
+            return createResponse(HttpStatus.BAD_REQUEST, "limit必须大于0", null);
+        }
 
-        // 使用MyBatis-Plus的lambda查询构建器进行模糊查询
-        List<MenuItem> items = menuItemService.lambdaQuery()
-                .like(MenuItem::getName, query)
-                .or()
-                .like(MenuItem::getDescription, query)
-                .or()
-                .like(MenuItem::getCategory, query)
-                .list();
+        List<MenuItem> items = menuCatalogService.current().search(query, storeId, Math.min(limit, MAX_SEARCH_LIMIT));
 
         return createResponse(HttpStatus.OK, "搜索菜单项成功", items);
     }
 
+    /**
+     * 菜名联想，输入框每输入一个字符调用一次。
+     * 前缀可以是菜名开头的汉字、全拼或拼音首字母，结果按销量从高到低排列，不访问数据库。
+     *
+     * @param prefix 输入的前缀，通过URL查询参数传递。
+     * @param storeId 可选，只联想该店铺的菜单项。
+     * @param limit 最多返回的条数，默认10，最多20。
+     * @param authentication 当前请求的认证信息，用于权限验证。
+     * @return 返回包含联想结果的ResponseEntity，如果没有匹配，则返回空列表。
+     *         如果用户未认证，返回401状态码。
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestMenuItems(@RequestParam String prefix,
+                                              @RequestParam(required = false) Integer storeId,
+                                              @RequestParam(defaultValue = "10") int limit,
+                                              Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
+        }
+        if (limit <= 0) {
+            return createResponse(HttpStatus.BAD_REQUEST, "limit必须大于0", null);
+        }
+
+        List<MenuItem> items = menuSuggestService.suggest(prefix, storeId, limit);
+        return createResponse(HttpStatus.OK, "菜名联想成功", items);
+    }
+
     /**
      * 通过POST请求添加新的菜单项。
      * 该操作需要用户认证，仅管理员角色有权限执行。
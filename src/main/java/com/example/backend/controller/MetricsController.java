@@ -0,0 +1,239 @@
+package com.example.backend.controller;
+
+import com.example.backend.config.PooledPasswordEncoder;
+import com.example.backend.service.IBalanceLedgerService;
+import com.example.backend.service.IIdempotencyService;
+import com.example.backend.service.IMenuCatalogService;
+import com.example.backend.service.IMenuChangeService;
+import com.example.backend.service.IMenuPayloadService;
+import com.example.backend.service.IMenuSuggestService;
+import com.example.backend.service.ILoginThrottleService;
+import com.example.backend.service.IOrderExpiryService;
+import com.example.backend.service.IOrderStateMachine;
+import com.example.backend.service.IPhoneFilterService;
+import com.example.backend.service.ITokenCacheService;
+import com.example.backend.service.ITokenVersionService;
+import com.example.backend.service.IUserCacheService;
+import com.example.backend.service.IUserImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.backend.entity.Roles.ADMIN;
+
+/**
+ * 运行指标控制器，供管理员查看各组件的计数器
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    @Autowired
+    IOrderStateMachine orderStateMachine;
+    @Autowired
+    IOrderExpiryService orderExpiryService;
+    @Autowired
+    IIdempotencyService idempotencyService;
+    @Autowired
+    ITokenCacheService tokenCacheService;
+    @Autowired
+    ITokenVersionService tokenVersionService;
+    @Autowired
+    PooledPasswordEncoder passwordEncoder;
+    @Autowired
+    ILoginThrottleService loginThrottleService;
+    @Autowired
+    IUserCacheService userCacheService;
+    @Autowired
+    IPhoneFilterService phoneFilterService;
+    @Autowired
+    IBalanceLedgerService balanceLedgerService;
+    @Autowired
+    IUserImportService userImportService;
+    @Autowired
+    IMenuCatalogService menuCatalogService;
+    @Autowired
+    IMenuSuggestService menuSuggestService;
+    @Autowired
+    IMenuPayloadService menuPayloadService;
+    @Autowired
+    IMenuChangeService menuChangeService;
+
+    /**
+     * 创建一个包含状态码、消息和数据的响应实体。
+     *
+     * @param status HTTP状态码，代表响应的状态。
+     * @param message 响应消息，用于描述响应的详细信息。
+     * @param data 响应数据，实际返回给客户端的内容。
+     * @return ResponseEntity<Map<String, Object>> 一个包含状态码、消息和数据的响应实体。
+     */
+    private ResponseEntity<Map<String, Object>> createResponse(HttpStatus status, String message, Object data) {
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("status", status.value() + " " + status.getReasonPhrase());
+        responseBody.put("message", message);
+        responseBody.put("data", data);
+        return new ResponseEntity<>(responseBody, status);
+    }
+
+    /**
+     * 获取订单状态机指标：每种状态转换的成功次数，每个事件的CAS冲突次数和因状态不允许被拒绝的次数。
+     *
+     * @return 包含状态机指标的响应实体
+     */
+    @GetMapping("/order-transitions")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getOrderTransitionMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取订单状态转换指标", orderStateMachine.metrics());
+    }
+
+    /**
+     * 获取未确认订单超时取消的指标：等待到期的订单数、已自动取消的订单数和失败批次数。
+     *
+     * @return 包含超时取消指标的响应实体
+     */
+    @GetMapping("/order-expiry")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getOrderExpiryMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取订单超时取消指标", orderExpiryService.metrics());
+    }
+
+    /**
+     * 获取幂等键指标：实际执行、直接返回已有结果、等待进行中请求的次数以及缓存的结果数。
+     *
+     * @return 包含幂等键指标的响应实体
+     */
+    @GetMapping("/idempotency")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getIdempotencyMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取幂等键指标", idempotencyService.metrics());
+    }
+
+    /**
+     * 获取已验证令牌缓存的指标：命中次数、未命中次数、命中率和缓存数量，以及令牌版本表的大小。
+     *
+     * @return 包含令牌缓存指标的响应实体
+     */
+    @GetMapping("/token-cache")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getTokenCacheMetrics() {
+        Map<String, Object> data = new HashMap<>(tokenCacheService.metrics());
+        data.put("tokenVersions", tokenVersionService.metrics());
+        return createResponse(HttpStatus.OK, "成功获取令牌缓存指标", data);
+    }
+
+    /**
+     * 获取密码哈希线程池的指标：BCrypt cost、排队数、拒绝次数以及编码、校验和排队等待的延迟直方图。
+     *
+     * @return 包含密码哈希指标的响应实体
+     */
+    @GetMapping("/password-hashing")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getPasswordHashingMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取密码哈希指标", passwordEncoder.metrics());
+    }
+
+    /**
+     * 获取登录限流的指标：按手机号和按IP的限制、容量、放行、拒绝和淘汰次数。
+     *
+     * @return 包含登录限流指标的响应实体
+     */
+    @GetMapping("/login-throttle")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getLoginThrottleMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取登录限流指标", loginThrottleService.metrics());
+    }
+
+    /**
+     * 获取用户缓存的指标：命中次数、未命中次数、命中率、淘汰次数和当前缓存数量。
+     *
+     * @return 包含用户缓存指标的响应实体
+     */
+    @GetMapping("/user-cache")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getUserCacheMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取用户缓存指标", userCacheService.metrics());
+    }
+
+    /**
+     * 获取注册手机号布隆过滤器的指标：位数组大小、内存占用、哈希函数个数、跳过的计数查询次数和当前估算误判率。
+     *
+     * @return 包含布隆过滤器指标的响应实体
+     */
+    @GetMapping("/phone-filter")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getPhoneFilterMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取手机号过滤器指标", phoneFilterService.metrics());
+    }
+
+    /**
+     * 获取余额流水的指标：入账、扣款、透支拒绝、事务回滚、已结算和待结算用户数以及余额缓存情况。
+     *
+     * @return 包含余额流水指标的响应实体
+     */
+    @GetMapping("/balance-ledger")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getBalanceLedgerMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取余额流水指标", balanceLedgerService.metrics());
+    }
+
+    /**
+     * 获取批量导入用户的指标：是否在进行、哈希线程数以及当前或最近一次导入的进度和速度。
+     *
+     * @return 包含用户导入指标的响应实体
+     */
+    @GetMapping("/user-import")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getUserImportMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取用户导入指标", userImportService.metrics());
+    }
+
+    /**
+     * 获取菜单目录的指标：快照版本、菜品数、店铺数、搜索索引的词数和倒排表长度、快照年龄以及读取、增量更新和全量刷新次数。
+     *
+     * @return 包含菜单目录指标的响应实体
+     */
+    @GetMapping("/menu-catalog")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getMenuCatalogMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取菜单目录指标", menuCatalogService.metrics());
+    }
+
+    /**
+     * 获取菜名联想的指标：对应的菜单目录版本、键数、店铺数、销量统计的年龄以及查询、增量更新和重建次数。
+     *
+     * @return 包含菜名联想指标的响应实体
+     */
+    @GetMapping("/menu-suggest")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getMenuSuggestMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取菜名联想指标", menuSuggestService.metrics());
+    }
+
+    /**
+     * 获取店铺菜单响应缓存的指标：缓存的店铺数、原始和压缩后的字节数以及命中和序列化次数。
+     *
+     * @return 包含店铺菜单响应缓存指标的响应实体
+     */
+    @GetMapping("/menu-payload")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getMenuPayloadMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取店铺菜单响应缓存指标", menuPayloadService.metrics());
+    }
+
+    /**
+     * 获取菜单变更日志的指标：对应的菜单目录版本、有日志的店铺数、日志条数以及增量和完整响应次数。
+     *
+     * @return 包含菜单变更日志指标的响应实体
+     */
+    @GetMapping("/menu-changes")
+    @Secured(ADMIN)
+    public ResponseEntity<?> getMenuChangeMetrics() {
+        return createResponse(HttpStatus.OK, "成功获取菜单变更日志指标", menuChangeService.metrics());
+    }
+}
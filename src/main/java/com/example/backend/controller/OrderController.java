@@ -1,23 +1,40 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.BatchOrderDTO;
+import com.example.backend.dto.OrderCursor;
+import com.example.backend.dto.OrderPageDTO;
 import com.example.backend.dto.OrderStatusDTO;
+import com.example.backend.dto.OrderTotalDriftDTO;
 import com.example.backend.entity.*;
+import com.example.backend.exception.BusinessException;
 import com.example.backend.service.*;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static com.example.backend.entity.Roles.ADMIN;
+
 /**
  * @author zhouhaoran
  * @date 2024/3/29
@@ -39,6 +56,28 @@ public class OrderController {
 
     @Autowired
     IUserCouponService userCouponService;
+    @Autowired
+    IOrderGraphService orderGraphService;
+    @Autowired
+    ICheckoutService checkoutService;
+    @Autowired
+    IKitchenFeedService kitchenFeedService;
+    @Autowired
+    IOrderStatsService orderStatsService;
+    @Autowired
+    IOrderStateMachine orderStateMachine;
+    @Autowired
+    IOrderIntakeService orderIntakeService;
+    @Autowired
+    IOrderExpiryService orderExpiryService;
+    @Autowired
+    IIdempotencyService idempotencyService;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_FLUSH_ROWS = 500; // 流式输出时每写出多少行刷新一次
+    private static final int MAX_BATCH_ORDERS = 20000; // 批量下单单次最多订单数
     private ResponseEntity<Map<String, Object>> createResponse(HttpStatus status, String message, Object data) {
         Map<String, Object> responseBody = new HashMap<>();
         responseBody.put("status", status.value() + " " + status.getReasonPhrase());
@@ -50,38 +89,94 @@ public class OrderController {
      * 创建订单。
      *
      * @param order 包含订单信息的对象，通过请求体传入。订单信息包括用户ID、商品信息、总价格等。
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
      * @param authentication 当前用户的认证信息，用于权限验证。确保只有已认证的用户才能创建订单。
      * @return 如果认证失败，返回未授权的状态码（401）；否则，返回创建成功的订单信息，包括订单ID、用户ID、状态、总价格、下单时间等。
      */
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody Order order, Authentication authentication) {
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         Authentication authentication) {
         // 权限验证：判断用户是否已认证，未认证返回401
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
 
-        // 初始化订单状态和时间
-        order.setTotalPrice(BigDecimal.ZERO);  // 初始金额设置为0
-        order.setStatus(OrderStatus.CREATED.toString());  // 订单状态设置为已创建
-        order.setUpdateTime(new Timestamp(System.currentTimeMillis()));  // 设置订单更新时间为当前时间
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "create", () -> {
+            // 初始化订单状态和时间
+            order.setTotalPrice(BigDecimal.ZERO);  // 初始金额设置为0
+            order.setStatus(OrderStatus.CREATED.toString());  // 订单状态设置为已创建
+            order.setUpdateTime(new Timestamp(System.currentTimeMillis()));  // 设置订单更新时间为当前时间
+
+            // 保存订单到数据库
+            orderService.save(order);
+            orderStatsService.recordCreated(OrderStatus.CREATED, 1);
+            orderExpiryService.track(order); // 超时未确认时自动取消
+
+            // 准备订单创建成功后返回的数据
+            Map<String, Object> data = new HashMap<>();
+            data.put("orderId", order.getOrderId());
+            data.put("userId", order.getUserId());
+            data.put("storeId", order.getStoreId());
+            data.put("status", order.getStatus());
+            data.put("totalPrice", order.getTotalPrice());
+            data.put("orderTime", order.getOrderTime());
+            data.put("notes", order.getNotes());
+            data.put("dineOption", order.getDineOption());
+            data.put("updateTime", order.getUpdateTime());
+
+            // 返回订单创建成功的响应，包含订单详细信息
+            return createResponse(HttpStatus.OK, "订单创建成功", data);
+        });
+    }
 
-        // 保存订单到数据库
-        orderService.save(order);
 
-        // 准备订单创建成功后返回的数据
-        Map<String, Object> data = new HashMap<>();
-        data.put("orderId", order.getOrderId());
-        data.put("userId", order.getUserId());
-        data.put("storeId", order.getStoreId());
-        data.put("status", order.getStatus());
-        data.put("totalPrice", order.getTotalPrice());
-        data.put("orderTime", order.getOrderTime());
-        data.put("notes", order.getNotes());
-        data.put("dineOption", order.getDineOption());
-        data.put("updateTime", order.getUpdateTime());
+    /**
+     * 批量创建订单及其订单详情，供收银终端一次同步一个班次的订单。
+     * 菜品价格由服务端按菜单计算，用户和店铺必须存在、菜品必须属于订单的店铺；整批在一个事务中写入，任一订单校验失败则整批回滚。
+     *
+     * @param batch 订单列表，每个订单包含其订单详情
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
+     * @param authentication 当前用户的认证信息，用于权限验证。
+     * @return 按请求顺序返回生成的订单ID和总价；批量为空或过大返回400；校验失败返回对应错误信息。
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrdersBatch(@RequestBody List<BatchOrderDTO> batch,
+                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                               Authentication authentication) {
+        // 权限验证：判断用户是否已认证，未认证返回401
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
+        }
+
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "batch", () -> {
+            if (batch == null || batch.isEmpty()) {
+                return createResponse(HttpStatus.BAD_REQUEST, "订单列表不能为空", null);
+            }
+            if (batch.size() > MAX_BATCH_ORDERS) {
+                return createResponse(HttpStatus.BAD_REQUEST, "单次最多提交" + MAX_BATCH_ORDERS + "个订单", null);
+            }
+
+            List<Order> orders;
+            try {
+                orders = orderIntakeService.createOrders(batch);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
 
-        // 返回订单创建成功的响应，包含订单详细信息
-        return createResponse(HttpStatus.OK, "订单创建成功", data);
+            // 只返回生成的ID和总价，避免大批量时响应体过大
+            List<Map<String, Object>> data = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                orderExpiryService.track(order); // 超时未确认时自动取消
+                Map<String, Object> orderData = new HashMap<>();
+                orderData.put("orderId", order.getOrderId());
+                orderData.put("totalPrice", order.getTotalPrice());
+                data.add(orderData);
+            }
+            return createResponse(HttpStatus.OK, "批量创建订单成功", data);
+        });
     }
 
 
@@ -124,87 +219,202 @@ public class OrderController {
 
 
     /**
-     * 获取指定用户的所有订单。
+     * 获取指定用户的订单，按订单ID倒序（即创建顺序）键集分页。
      *
      * @param userId 用户ID，通过URL路径变量传递。表示需要查询订单的用户ID。
+     * @param cursor 上一页返回的next游标，不传则从第一页开始。
+     * @param size 每页条数，默认50，最大500。
      * @param authentication 当前请求的认证信息，用于权限验证。
-     * @return 返回一个包含该用户所有订单的响应实体。如果用户没有订单，则返回空列表。
+     * @return 返回一个包含当前页订单和next游标的响应实体。如果没有更多订单，next为null。
      *         如果用户未进行认证，返回401未授权状态。
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getUserOrders(@PathVariable Integer userId, Authentication authentication) {
+    public ResponseEntity<?> getUserOrders(@PathVariable Integer userId,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "50") int size,
+                                           Authentication authentication) {
         // 验证用户是否认证
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
-        // 根据用户ID查询订单
-        List<Order> orders = orderService.lambdaQuery().eq(Order::getUserId, userId).list();
-
-        // 将订单信息转换为简洁的Map格式
-        List<Map<String, Object>> orderDetails = orders.stream().map(order -> {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("orderId", order.getOrderId());
-            detail.put("userId", order.getUserId());
-            detail.put("storeId", order.getStoreId());
-            detail.put("status", order.getStatus());
-            detail.put("totalPrice", order.getTotalPrice());
-            detail.put("orderTime", order.getOrderTime());
-            detail.put("notes", order.getNotes());
-            detail.put("dineOption", order.getDineOption());
-            detail.put("updateTime", order.getUpdateTime());
-            return detail;
-        }).collect(Collectors.toList());
+        return pageOrders(userId, cursor, size, "用户订单列表获取成功");
+    }
 
-        // 准备返回的数据结构
-        Map<String, Object> data = new HashMap<>();
-        data.put("orders", orderDetails);
-        // 构造成功返回的响应实体
-        return createResponse(HttpStatus.OK, "用户订单列表获取成功", data);
+    /**
+     * 传入stream=true时忽略分页参数，以流式方式逐行输出指定用户的全部订单。
+     * 返回类型必须声明为StreamingResponseBody才会交给异步流式处理，因此与分页接口分开映射。
+     *
+     * @param userId 用户ID，通过URL路径变量传递。
+     * @param authentication 当前请求的认证信息，用于权限验证。
+     * @return 流式响应实体，格式与分页接口一致，next始终为null；未认证时返回无响应体的401。
+     */
+    @GetMapping(value = "/user/{userId}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUserOrders(@PathVariable Integer userId,
+                                                                  Authentication authentication) {
+        // 项目中没有全局异常处理器，抛出BusinessException会变成500，这里直接返回401
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return streamOrders(userId, "用户订单列表获取成功");
     }
 
 
     /**
-     * 获取所有订单的详细信息列表。
+     * 获取所有订单，按订单ID倒序（即创建顺序）键集分页。
      *
-     * 该接口不接受任何参数，返回所有订单的详细信息集合。订单信息以Map的形式返回，包括订单的各种属性，如订单ID、用户ID、商店ID等。
+     * 订单信息以Map的形式返回，包括订单的各种属性，如订单ID、用户ID、商店ID等。
      *
-     * @return ResponseEntity<?> 包含订单详情列表的响应实体，其中?为Map类型，包含"orders"键，其值为订单详情列表。
+     * @param cursor 上一页返回的next游标，不传则从第一页开始。
+     * @param size 每页条数，默认50，最大500。
+     * @return ResponseEntity<?> 包含订单详情列表的响应实体，其中data包含"orders"和"next"两个键。
      */
     @GetMapping
-    public ResponseEntity<?> getAllOrders() {
-        // 从订单服务获取所有订单列表
-        List<Order> orders = orderService.list();
-
-        // 将订单列表映射转换为订单详情列表，每个详情为一个Map，包含订单的各种属性
-        List<Map<String, Object>> orderDetails = orders.stream().map(order -> {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("orderId", order.getOrderId());
-            detail.put("userId", order.getUserId());
-            detail.put("storeId", order.getStoreId());
-            detail.put("status", order.getStatus());
-            detail.put("totalPrice", order.getTotalPrice());
-            detail.put("orderTime", order.getOrderTime());
-            detail.put("notes", order.getNotes());
-            detail.put("dineOption", order.getDineOption());
-            detail.put("updateTime", order.getUpdateTime());
-            return detail;
-        }).collect(Collectors.toList());
-
-        // 将订单详情列表封装到一个大Map中，作为数据部分返回
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int size) {
+        return pageOrders(null, cursor, size, "所有订单列表获取成功");
+    }
+
+    /**
+     * 传入stream=true时以流式方式输出全部订单，服务端内存占用与订单表大小无关。
+     *
+     * @return 流式响应实体，格式与分页接口一致，next始终为null。
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        return streamOrders(null, "所有订单列表获取成功");
+    }
+
+    /**
+     * 按键集分页查询订单并构造响应。
+     *
+     * @param userId 只查询该用户的订单，为null时查询全部订单
+     * @param cursor 上一页返回的游标
+     * @param size 每页条数
+     * @param message 成功时的响应消息
+     * @return 包含orders和next的响应实体；游标或分页参数非法时返回400
+     */
+    private ResponseEntity<?> pageOrders(Integer userId, String cursor, int size, String message) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            return createResponse(HttpStatus.BAD_REQUEST, "每页条数必须在1到" + MAX_PAGE_SIZE + "之间", null);
+        }
+        OrderCursor orderCursor;
+        try {
+            orderCursor = cursor == null || cursor.isEmpty() ? null : OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return createResponse(HttpStatus.BAD_REQUEST, "无效的游标", null);
+        }
+
+        OrderPageDTO page = orderService.listPage(userId, orderCursor, size);
+        List<Map<String, Object>> orderDetails = page.getOrders().stream()
+                .map(this::toOrderMap)
+                .collect(Collectors.toList());
+
         Map<String, Object> data = new HashMap<>();
         data.put("orders", orderDetails);
+        data.put("next", page.getNext());
+        return createResponse(HttpStatus.OK, message, data);
+    }
 
-        // 创建并返回一个包含状态码、消息和数据的响应实体
-        return createResponse(HttpStatus.OK, "所有订单列表获取成功", data);
+    /**
+     * 以流式方式输出订单。
+     * 响应格式与分页接口一致，但订单是逐批按键集读取、逐行写出的，不会在内存中累积。
+     *
+     * @param userId 只输出该用户的订单，为null时输出全部订单
+     * @param message 响应消息
+     * @return 流式响应实体
+     */
+    private ResponseEntity<StreamingResponseBody> streamOrders(Integer userId, String message) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeStringField("status", HttpStatus.OK.value() + " " + HttpStatus.OK.getReasonPhrase());
+                generator.writeStringField("message", message);
+                generator.writeObjectFieldStart("data");
+                generator.writeArrayFieldStart("orders");
+                int[] written = {0};
+                orderService.streamOrders(userId, order -> {
+                    try {
+                        generator.writeObject(toOrderMap(order));
+                        // 定期刷新，让客户端尽早收到数据
+                        if (++written[0] % STREAM_FLUSH_ROWS == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeNullField("next");
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
+    /**
+     * 订单是否冻结着资金。
+     */
+    private static boolean isHeld(Order order) {
+        return order.getHeldAmount() != null && order.getHeldAmount().signum() > 0;
+    }
 
     /**
-     * 删除订单。
+     * 按状态字符串更新状态计数，无法识别的历史状态交给定时对账处理。
+     *
+     * @param from 原状态，为null表示新建
+     * @param to 新状态，为null表示删除
+     */
+    private void recordStatusChange(String from, String to) {
+        OrderStatus fromStatus = parseStatus(from);
+        OrderStatus toStatus = parseStatus(to);
+        if (fromStatus != null && toStatus != null) {
+            if (fromStatus != toStatus) {
+                orderStatsService.recordTransition(fromStatus, toStatus, 1);
+            }
+        } else if (fromStatus != null) {
+            orderStatsService.recordRemoved(fromStatus);
+        } else if (toStatus != null) {
+            orderStatsService.recordCreated(toStatus, 1);
+        }
+    }
+
+    private OrderStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return OrderStatus.fromString(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 将订单转换为接口统一使用的Map格式。
+     */
+    private Map<String, Object> toOrderMap(Order order) {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("orderId", order.getOrderId());
+        detail.put("userId", order.getUserId());
+        detail.put("storeId", order.getStoreId());
+        detail.put("status", order.getStatus());
+        detail.put("totalPrice", order.getTotalPrice());
+        detail.put("orderTime", order.getOrderTime());
+        detail.put("notes", order.getNotes());
+        detail.put("dineOption", order.getDineOption());
+        detail.put("updateTime", order.getUpdateTime());
+        return detail;
+    }
+
+
+    /**
+     * 删除订单。仍冻结着资金的订单先经结算服务取消，退回冻结资金后再删除。
      *
      * @param orderId 订单ID，通过URL路径变量传递。
      * @param authentication 当前请求的认证信息，用于权限验证。
-     * @return 如果删除成功，则返回200 OK的响应实体；如果找不到对应的订单，则返回404 Not Found的响应实体。
+     * @return 如果删除成功，则返回200 OK的响应实体；如果找不到对应的订单，则返回404 Not Found的响应实体；
+     *         删除前订单被并发冻结资金时返回409。
      */
     @DeleteMapping("/{orderId}")
     public ResponseEntity<?> deleteOrder(@PathVariable Integer orderId, Authentication authentication) {
@@ -213,10 +423,29 @@ public class OrderController {
             return createResponse(HttpStatus.UNAUTHORIZED, "用户未认证", null);
         }
 
-        // 尝试删除订单
-        boolean removed = orderService.removeById(orderId);
+        // 先读取订单状态，用于更新状态计数
+        Order order = orderService.getById(orderId);
+        if (order == null) {
+            return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
+        }
+
+        // 冻结的资金只有订单上的记录能释放，删除前先取消订单退回冻结资金和占用的优惠券
+        if (isHeld(order)) {
+            try {
+                order = checkoutService.cancel(orderId);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
+        }
+
+        // 连同订单详情一起删除，只删除没有冻结资金的订单，避免与并发的冻结交错
+        boolean removed = orderService.removeUnheld(orderId);
         if (removed) {
+            recordStatusChange(order.getStatus(), null);
+            kitchenFeedService.orderDeleted(order); // 从店铺后厨的进行中订单中移除
             return createResponse(HttpStatus.OK, "订单删除成功", null);
+        } else if (orderService.getById(orderId) != null) {
+            return createResponse(HttpStatus.CONFLICT, "订单已冻结资金，请重试", null);
         } else {
             return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
         }
@@ -225,114 +454,94 @@ public class OrderController {
 
     /**
      * 获取订单统计信息。
+     * 各状态的订单数来自内存计数器，由订单状态变化增量维护并定期与数据库对账，不扫描订单表。
      *
-     * @return 返回包含订单总数、各状态订单数量的统计信息。
+     * @return 返回包含订单总数、各状态订单数量的统计信息，以及最近一次对账时计数器与数据库的偏差（drift）和对账时间。
      */
     @GetMapping("/stats")
     public ResponseEntity<?> getOrderStats() {
-        // 从订单服务获取所有订单列表
-        List<Order> orders = orderService.list();
-
-        // 统计各状态订单数量
-        Map<String, Long> stats = orders.stream()
-                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
+        // 返回统计信息
+        return createResponse(HttpStatus.OK, "订单统计信息获取成功", orderStatsService.snapshot());
+    }
 
-        // 添加总订单数
-        stats.put("总共", (long) orders.size());
 
-        // 返回统计信息
-        return createResponse(HttpStatus.OK, "订单统计信息获取成功", stats);
+    /**
+     * 核对已创建订单的总价与订单详情合计，报告不一致的订单。
+     * 订单总价由订单详情的增删改按增量维护，此接口用于离线发现并修正漂移。
+     *
+     * @param repair 为true时用订单详情合计修正不一致的订单，默认只报告
+     * @return 不一致订单的数量和明细（修正前的值）
+     */
+    @GetMapping("/totals/check")
+    @Secured(ADMIN)
+    public ResponseEntity<?> checkOrderTotals(@RequestParam(defaultValue = "false") boolean repair) {
+        List<OrderTotalDriftDTO> drift = orderDetailService.checkTotals(repair);
+        Map<String, Object> data = new HashMap<>();
+        data.put("driftCount", drift.size());
+        data.put("repaired", repair);
+        data.put("drift", drift);
+        return createResponse(HttpStatus.OK, drift.isEmpty() ? "订单总价一致" : "发现总价不一致的订单", data);
     }
 
+    /**
+     * 为已创建的订单冻结资金。冻结金额按当前菜品原价计算，确认订单时转为支付，取消或超时未确认时退回。
+     *
+     * @param orderId 订单ID，路径变量。
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
+     * @param authentication 用户认证信息，用于验证用户是否已认证。
+     * @return 冻结成功返回订单信息；订单不存在返回404；金额为0、状态不允许、已冻结过或余额不足返回400。
+     */
+    @PutMapping("/hold/{orderId}")
+    public ResponseEntity<?> holdOrder(@PathVariable Integer orderId,
+                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                       Authentication authentication) {
+        // 验证用户是否已认证，未认证返回401
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return createResponse(HttpStatus.UNAUTHORIZED, "未认证的用户", null);
+        }
+
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "hold:" + orderId, () -> {
+            try {
+                Order order = checkoutService.hold(orderId);
+                return createResponse(HttpStatus.OK, "资金冻结成功", order);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
+        });
+    }
 
     /**
      * 确认订单操作。
      *
      * @param orderId 订单ID，路径变量。用于确定要确认的订单。
      * @param userCouponId 优惠券ID，可选查询参数，用于应用优惠券折扣。
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
      * @param authentication 用户认证信息，用于验证用户是否已认证。
      * @return ResponseEntity<?> 返回HTTP响应实体，包含订单确认结果。
      *         通过不同的HTTP状态码和消息体，告知客户端订单确认的结果。
      */
     @PutMapping("/confirm/{orderId}")
-    public ResponseEntity<?> confirmOrder(@PathVariable Integer orderId, @RequestParam(required = false) Integer userCouponId, Authentication authentication) {
+    public ResponseEntity<?> confirmOrder(@PathVariable Integer orderId, @RequestParam(required = false) Integer userCouponId,
+                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                          Authentication authentication) {
         // 验证用户是否已认证，未认证返回401
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "未认证的用户", null);
         }
 
-        // 根据订单ID获取订单，不存在返回404
-        Order order = orderService.getById(orderId);
-        if (order == null) {
-            return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
-        }
-
-        // 检查订单状态是否允许更新为进行中，不允许返回400
-        if (!OrderStatus.CREATED.toString().equals(order.getStatus())) {
-            return createResponse(HttpStatus.BAD_REQUEST, "订单状态不允许此操作", null);
-        }
-
-        // 获取用户信息
-        User user = userService.getById(order.getUserId());
-        if (user == null) {
-            return createResponse(HttpStatus.BAD_REQUEST, "用户不存在", null);
-        }
-
-        // 计算订单的初始总价格
-        BigDecimal totalOrderPrice = calculateTotalPrice(order);
-
-        // 如果提供了优惠券ID，则尝试应用优惠券折扣
-        BigDecimal discount = BigDecimal.ZERO;
-        if (userCouponId != null) {
-            // 验证优惠券有效性并计算折扣
-            UserCoupon userCoupon = userCouponService.getById(userCouponId);
-            if (userCoupon == null || userCoupon.getIsUsed()) {
-                return createResponse(HttpStatus.BAD_REQUEST, "无效的用户优惠券", null);
-            }
-
-            Coupon coupon = couponService.getById(userCoupon.getCouponId());
-            if (coupon == null || !coupon.getIsActive() || coupon.getExpirationDate().before(new Date())) {
-                return createResponse(HttpStatus.BAD_REQUEST, "无效或过期的优惠券", null);
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "confirm:" + orderId, () -> {
+            // 在同一事务中以条件更新扣减库存、扣除余额并修改订单状态，任一条件不满足则整体回滚
+            try {
+                Order order = checkoutService.confirm(orderId, userCouponId);
+                kitchenFeedService.orderAdded(order); // 推送给店铺后厨
+                // 订单确认成功，返回200
+                return createResponse(HttpStatus.OK, "订单确认成功", order);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
             }
-
-            // 检查订单总价是否满足优惠券的最低消费金额
-            if (totalOrderPrice.compareTo(coupon.getMinPurchase()) < 0) {
-                return createResponse(HttpStatus.BAD_REQUEST, "订单总价未达到优惠券的最低消费金额", null);
-            }
-
-            // 应用优惠券折扣
-            discount = coupon.getDiscount();
-        }
-
-        // 计算折扣后的订单总价格
-        BigDecimal newTotalPrice = totalOrderPrice.subtract(discount);
-
-        // 检查用户余额是否足够支付折扣后的订单总价格
-        if (user.getBalance().compareTo(newTotalPrice) < 0) {
-            return createResponse(HttpStatus.BAD_REQUEST, "用户余额不足", null);
-        }
-
-        // 如果提供了优惠券ID并且用户余额足够，则标记用户优惠券为已使用并记录订单ID
-        if (userCouponId != null) {
-            UserCoupon userCoupon = userCouponService.getById(userCouponId);
-            userCoupon.setIsUsed(true);
-            userCoupon.setOrderId(orderId);
-            userCouponService.updateById(userCoupon);
-        }
-
-        // 更新订单总价格
-        order.setTotalPrice(newTotalPrice);
-
-        // 更新订单状态为进行中，减少库存并扣除用户余额（考虑优惠券折扣）
-        updateInventory(order, false);
-        deductUserBalance(order);
-        order.setStatus(OrderStatus.IN_PROGRESS.toString());
-        order.setUpdateTime(new Timestamp(System.currentTimeMillis())); // 更新订单的更新时间
-        order.setOrderTime(new Timestamp(System.currentTimeMillis()));  // 设置订单时间为当前时间
-        orderService.updateById(order);
-
-        // 订单确认成功，返回200
-        return createResponse(HttpStatus.OK, "订单确认成功", order);
+        });
     }
 
 
@@ -341,67 +550,64 @@ public class OrderController {
      * 完成指定订单的操作。
      *
      * @param orderId 订单的ID，通过URL路径变量传递。
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
      * @param authentication 当前用户的认证信息，用于权限验证。
      * @return 根据操作结果返回不同的响应实体，包括订单完成成功、未认证、订单不存在或订单状态不允许完成操作的情况。
      */
     @PutMapping("/complete/{orderId}")
-    public ResponseEntity<?> completeOrder(@PathVariable Integer orderId, Authentication authentication) {
+    public ResponseEntity<?> completeOrder(@PathVariable Integer orderId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           Authentication authentication) {
         // 验证用户是否已认证，未认证返回401
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "未认证的用户", null);
         }
 
-        // 根据订单ID获取订单，不存在返回404
-        Order order = orderService.getById(orderId);
-        if (order == null) {
-            return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
-        }
-
-        // 检查订单状态是否允许完成操作，不允许返回400
-        if (!OrderStatus.IN_PROGRESS.toString().equals(order.getStatus())) {
-            return createResponse(HttpStatus.BAD_REQUEST, "订单状态不允许此操作", null);
-        }
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "complete:" + orderId, () -> {
+            // 由状态机以条件更新将进行中改为已完成，订单不存在返回404，状态不允许返回400
+            try {
+                orderStateMachine.fire(orderId, OrderEvent.COMPLETE);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
 
-        order.setStatus(OrderStatus.COMPLETED.toString());
-        order.setUpdateTime(new Timestamp(System.currentTimeMillis())); // 更新订单的更新时间
-        orderService.updateById(order);
-        // 返回订单完成成功的响应，包含订单信息
-        return createResponse(HttpStatus.OK, "订单已完成", order);
+            Order order = orderService.getById(orderId);
+            kitchenFeedService.orderCompleted(order); // 从店铺后厨的进行中订单中移除
+            // 返回订单完成成功的响应，包含订单信息
+            return createResponse(HttpStatus.OK, "订单已完成", order);
+        });
     }
 
     /**
      * 取消订单的处理。
      *
      * @param orderId 通过URL路径变量传递的订单ID，用于标识需要取消的订单。
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
      * @param authentication 用户的认证信息，用于验证请求者的身份。
      * @return 根据操作的结果返回不同的响应实体，包括订单未找到、用户未认证、订单状态不允许取消或取消成功的情况。
      */
     @PutMapping("/cancel/{orderId}")
-    public ResponseEntity<?> cancelOrder(@PathVariable Integer orderId, Authentication authentication) {
+    public ResponseEntity<?> cancelOrder(@PathVariable Integer orderId,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         Authentication authentication) {
         // 检查用户是否已认证，未认证返回401
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "未认证的用户", null);
         }
 
-        // 根据订单ID获取订单，订单不存在返回404
-        Order order = orderService.getById(orderId);
-        if (order == null) {
-            return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
-        }
-
-        // 检查订单状态是否允许取消，不允许则返回400
-        if (!OrderStatus.CREATED.toString().equals(order.getStatus()) && !OrderStatus.IN_PROGRESS.toString().equals(order.getStatus())) {
-            return createResponse(HttpStatus.BAD_REQUEST, "订单状态不允许此操作", null);
-        }
-
-        updateInventory(order, true); // 退还库存
-        refundUserBalance(order); // 退还用户余额
-        resetUserCoupon(orderId); // 重置优惠券状态为未使用
-        order.setStatus(OrderStatus.CANCELLED.toString());
-        order.setUpdateTime(new Timestamp(System.currentTimeMillis())); // 更新订单的更新时间
-        orderService.updateById(order);
-        // 返回订单取消成功的响应
-        return createResponse(HttpStatus.OK, "订单已取消", order);
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "cancel:" + orderId, () -> {
+            // 以条件更新取消订单，并退还库存、余额，重置优惠券状态为未使用
+            try {
+                Order order = checkoutService.cancel(orderId);
+                kitchenFeedService.orderCancelled(order); // 从店铺后厨的进行中订单中移除
+                // 返回订单取消成功的响应
+                return createResponse(HttpStatus.OK, "订单已取消", order);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
+        });
     }
 
 
@@ -409,45 +615,41 @@ public class OrderController {
      * 处理订单退款请求。
      *
      * @param orderId  需要退款的订单ID，通过URL路径变量传递。
+     * @param idempotencyKey 可选的幂等键请求头，客户端超时重试时携带相同的值
      * @param authentication  当前请求的认证信息，用于验证用户身份。
      * @return  根据操作结果返回不同的响应实体，包括订单退款成功、订单未找到、用户未认证、订单状态不允许退款等不同的状态码和消息。
      */
     @PutMapping("/refund/{orderId}")
-    public ResponseEntity<?> refundOrder(@PathVariable Integer orderId, Authentication authentication) {
+    public ResponseEntity<?> refundOrder(@PathVariable Integer orderId,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         Authentication authentication) {
         // 检查用户是否已认证，未认证返回401
         if (authentication == null || !authentication.isAuthenticated()) {
             return createResponse(HttpStatus.UNAUTHORIZED, "未认证的用户", null);
         }
 
-        // 根据订单ID查询订单，未找到返回404
-        Order order = orderService.getById(orderId);
-        if (order == null) {
-            return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
-        }
-
-        // 检查订单状态是否允许退款，不允许返回400
-        if (!OrderStatus.COMPLETED.toString().equals(order.getStatus())) {
-            return createResponse(HttpStatus.BAD_REQUEST, "订单状态不允许此操作", null);
-        }
-
-        updateInventory(order, true); // 退还库存
-        refundUserBalance(order); // 实际退款
-        resetUserCoupon(orderId); // 重置优惠券状态为未使用
-        order.setStatus(OrderStatus.REFUNDED.toString());
-        order.setUpdateTime(new Timestamp(System.currentTimeMillis())); // 更新订单的更新时间
-        orderService.updateById(order);
-
-        // 退款成功，返回200和订单信息
-        return createResponse(HttpStatus.OK, "订单已退款", order);
+        // 携带相同幂等键的重试直接返回第一次的结果
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "refund:" + orderId, () -> {
+            // 以条件更新退款，并退还库存、按实付金额退还余额，重置优惠券状态为未使用
+            try {
+                Order order = checkoutService.refund(orderId);
+                // 退款成功，返回200和订单信息
+                return createResponse(HttpStatus.OK, "订单已退款", order);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
+        });
     }
 
     /**
      * 更新订单信息。
+     * 冻结着资金的订单只能改为已取消，由结算服务取消并退回冻结资金；改为其他状态需先通过确认接口把冻结转为支付。
      *
      * @param orderId 订单ID，通过路径变量传递。
      * @param updatedOrder 包含更新后的订单信息的对象，通过请求体传入。
      * @param authentication 当前用户的认证信息，用于权限验证。
-     * @return 返回包含更新后订单信息的ResponseEntity；如果订单未找到，返回一个订单未找到的ResponseEntity；如果用户未认证，返回未授权的ResponseEntity。
+     * @return 返回包含更新后订单信息的ResponseEntity；如果订单未找到，返回一个订单未找到的ResponseEntity；如果用户未认证，返回未授权的ResponseEntity；
+     *         冻结着资金的订单改为已取消以外的状态时返回409。
      */
     @PutMapping("/{orderId}")
     public ResponseEntity<?> updateOrder(@PathVariable Integer orderId, @RequestBody Order updatedOrder, Authentication authentication) {
@@ -463,7 +665,23 @@ public class OrderController {
             return createResponse(HttpStatus.NOT_FOUND, "订单未找到", null);
         }
 
+        String previousStatus = existingOrder.getStatus();
+        boolean statusChanged = updatedOrder.getStatus() != null && !updatedOrder.getStatus().equals(previousStatus);
+        if (statusChanged && isHeld(existingOrder)) {
+            if (!OrderStatus.CANCELLED.toString().equals(updatedOrder.getStatus())) {
+                return createResponse(HttpStatus.CONFLICT, "订单已冻结资金，请通过确认或取消接口修改状态", null);
+            }
+            // 经结算服务取消以退回冻结资金，状态机已计入这次状态变化
+            try {
+                existingOrder = checkoutService.cancel(orderId);
+            } catch (BusinessException e) {
+                return createResponse(e.getStatus(), e.getMessage(), null);
+            }
+            previousStatus = existingOrder.getStatus();
+        }
+
         // 更新订单信息
+        Integer previousStoreId = existingOrder.getStoreId();
         existingOrder.setUserId(updatedOrder.getUserId());
         existingOrder.setStoreId(updatedOrder.getStoreId());
         existingOrder.setStatus(updatedOrder.getStatus());
@@ -474,11 +692,23 @@ public class OrderController {
         existingOrder.setUpdateTime(new Timestamp(System.currentTimeMillis())); // 更新订单的更新时间
 
 
-        // 保存更新后的订单到数据库
-        orderService.updateById(existingOrder);
+        // 保存更新后的订单到数据库；修改状态时要求订单没有冻结资金，避免与并发的冻结交错
+        if (statusChanged) {
+            boolean updated = orderService.lambdaUpdate()
+                    .eq(Order::getOrderId, orderId)
+                    .eq(Order::getHeldAmount, BigDecimal.ZERO)
+                    .update(existingOrder);
+            if (!updated) {
+                return createResponse(HttpStatus.CONFLICT, "订单已冻结资金，请重试", null);
+            }
+        } else {
+            orderService.updateById(existingOrder);
+        }
+        recordStatusChange(previousStatus, existingOrder.getStatus());
 
         // 根据订单ID重新获取更新后的订单
         Order newOrder = orderService.getById(orderId);
+        kitchenFeedService.orderUpdated(newOrder, previousStoreId); // 按新的状态和店铺更新后厨的进行中订单
 
 
         // 构建更新后订单信息的响应体
@@ -497,104 +727,6 @@ public class OrderController {
         return createResponse(HttpStatus.OK, "订单信息更新成功", data);
     }
 
-    /**
-     * 更新库存信息。
-     * 该方法根据订单中的商品详情，更新对应商品的库存数量。
-     * 如果是退款操作，则增加库存；否则减少库存。
-     *
-     * @param order 表示一个订单对象，用于获取订单详情和订单ID。
-     * @param isRefund 表示操作类型，true代表退款操作，false代表非退款操作（如正常购买）。
-     */
-    private void updateInventory(Order order, boolean isRefund) {
-        // 根据订单ID查询所有的订单详情
-        List<OrderDetail> orderDetails = orderDetailService.lambdaQuery().eq(OrderDetail::getOrderId, order.getOrderId()).list();
-        for (OrderDetail detail : orderDetails) {
-            // 尝试获取订单详情对应的菜单项
-            MenuItem item = menuItemService.getById(detail.getItemId());
-            if (item != null) {
-                // 根据操作类型计算新的库存数量
-                int newStock = isRefund ? item.getSizeStock() + detail.getQuantity() : item.getSizeStock() - detail.getQuantity();
-                // 更新菜单项的库存数量
-                item.setSizeStock(newStock);
-                // 保存更新后的菜单项信息
-                menuItemService.updateById(item);
-            }
-        }
-    }
-
-    /**
-     * 从用户余额中扣除订单费用。
-     * @param order 包含订单信息的对象，需要有用户ID和订单商品等信息。
-     * 该方法不返回任何值。
-     */
-    private void deductUserBalance(Order order) {
-        // 根据订单中的用户ID获取用户信息
-        User user = userService.getById(order.getUserId());
-        if (user != null) {
-            // 直接使用订单的总价格
-            BigDecimal totalPrice = order.getTotalPrice();
-            // 从用户余额中扣除订单总价
-            user.setBalance(user.getBalance().subtract(totalPrice));
-            // 更新用户信息，将扣除余额后的余额保存
-            userService.updateById(user);
-        }
-    }
-
-    /**
-     * 重置订单中使用的优惠券状态为未使用。
-     * 该方法通过订单ID找出所有已使用的用户优惠券，并将它们的状态重置为未使用，同时清除它们与订单的关联。
-     *
-     * @param orderId 订单ID，用于获取相关的用户优惠券信息。
-     */
-    private void resetUserCoupon(Integer orderId) {
-        // 查询当前订单中所有已使用的用户优惠券
-        List<UserCoupon> userCoupons = userCouponService.lambdaQuery()
-                .eq(UserCoupon::getOrderId, orderId)
-                .eq(UserCoupon::getIsUsed, true)
-                .list();
-
-        // 遍历查询结果，将优惠券状态重置，并清除与订单的关联
-        for (UserCoupon userCoupon : userCoupons) {
-            userCoupon.setIsUsed(false);
-            userCoupon.setOrderId(null); // 清除关联的订单ID
-            userCouponService.updateById(userCoupon);
-        }
-    }
-
-
-    /**
-     * 为用户办理退款手续，将订单金额退还至用户余额。
-     * @param order 退款订单，包含用户ID和订单详情。
-     */
-    private void refundUserBalance(Order order) {
-        // 根据订单获取用户信息
-        User user = userService.getById(order.getUserId());
-        if (user != null) {
-            // 计算订单的总价格
-            BigDecimal totalPrice = calculateTotalPrice(order);
-            // 将订单总价格加到用户余额上，实现退款
-            user.setBalance(user.getBalance().add(totalPrice));
-            // 更新用户信息
-            userService.updateById(user);
-        }
-    }
-
-
-    /**
-     * 计算订单的总价格。
-     *
-     * @param order 订单对象，不可为null。
-     * @return 订单的总价格，返回一个BigDecimal类型，保证精确度。
-     */
-    private BigDecimal calculateTotalPrice(Order order) {
-        // 通过订单ID查询订单详情列表
-        List<OrderDetail> orderDetails = orderDetailService.lambdaQuery().eq(OrderDetail::getOrderId, order.getOrderId()).list();
-        // 细节：通过流处理订单详情，计算每项商品的价格乘以数量，然后累加得到订单总价
-        return orderDetails.stream()
-                .map(detail -> detail.getPrice().multiply(new BigDecimal(detail.getQuantity()))) // 计算商品总价
-                .reduce(BigDecimal.ZERO, BigDecimal::add); // 累加所有商品总价
-    }
-
     /**
      * 获取指定用户的已完成订单。
      *
@@ -616,66 +748,8 @@ public class OrderController {
                 .eq(Order::getStatus, OrderStatus.COMPLETED.toString())
                 .list();
 
-        // 将订单信息转换为包含用户信息、订单详情和菜单项信息的Map格式
-        List<Map<String, Object>> orderDetails = completedOrders.stream().map(order -> {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("orderId", order.getOrderId());
-            detail.put("userId", order.getUserId());
-            detail.put("storeId", order.getStoreId());
-            detail.put("status", order.getStatus());
-            detail.put("totalPrice", order.getTotalPrice());
-            detail.put("orderTime", order.getOrderTime());
-            detail.put("notes", order.getNotes());
-            detail.put("dineOption", order.getDineOption());
-            detail.put("updateTime", order.getUpdateTime());
-
-            // 获取用户信息
-            User user = userService.getById(order.getUserId());
-            if (user != null) {
-                Map<String, Object> userInfo = new HashMap<>();
-                userInfo.put("userId", user.getUserId());
-                userInfo.put("name", user.getName());
-                userInfo.put("phone", user.getPhone());
-                userInfo.put("registrationDate", user.getRegistrationDate());
-                userInfo.put("balance", user.getBalance());
-                userInfo.put("role", user.getRole());
-                detail.put("userInfo", userInfo);
-            }
-
-            // 获取订单详情信息
-            List<OrderDetail> orderDetailsList = orderDetailService.lambdaQuery().eq(OrderDetail::getOrderId, order.getOrderId()).list();
-            List<Map<String, Object>> orderDetailsInfo = orderDetailsList.stream().map(orderDetail -> {
-                Map<String, Object> detailInfo = new HashMap<>();
-                detailInfo.put("detailId", orderDetail.getDetailId());
-                detailInfo.put("orderId", orderDetail.getOrderId());
-                detailInfo.put("itemId", orderDetail.getItemId());
-                detailInfo.put("quantity", orderDetail.getQuantity());
-                detailInfo.put("price", orderDetail.getPrice());
-                detailInfo.put("size", orderDetail.getSize());
-                detailInfo.put("specialRequests", orderDetail.getSpecialRequests());
-
-                // 获取菜单项信息
-                MenuItem menuItem = menuItemService.getById(orderDetail.getItemId());
-                if (menuItem != null) {
-                    Map<String, Object> menuItemInfo = new HashMap<>();
-                    menuItemInfo.put("itemId", menuItem.getItemId());
-                    menuItemInfo.put("storeId", menuItem.getStoreId());
-                    menuItemInfo.put("name", menuItem.getName());
-                    menuItemInfo.put("description", menuItem.getDescription());
-                    menuItemInfo.put("imageUrl", menuItem.getImageUrl());
-                    menuItemInfo.put("category", menuItem.getCategory());
-                    menuItemInfo.put("smallSizePrice", menuItem.getSmallSizePrice());
-                    menuItemInfo.put("largeSizePrice", menuItem.getLargeSizePrice());
-                    menuItemInfo.put("sizeStock", menuItem.getSizeStock());
-                    detailInfo.put("menuItemInfo", menuItemInfo);
-                }
-
-                return detailInfo;
-            }).collect(Collectors.toList());
-            detail.put("orderDetails", orderDetailsInfo);
-
-            return detail;
-        }).collect(Collectors.toList());
+        // 批量装配订单关系图（用户、订单详情、菜单项），查询次数不随订单数量增长
+        List<Map<String, Object>> orderDetails = orderGraphService.loadOrderGraphs(completedOrders);
 
         // 准备返回的数据结构
         Map<String, Object> data = new HashMap<>();
@@ -707,66 +781,8 @@ public class OrderController {
                 .eq(Order::getStatus, OrderStatus.IN_PROGRESS.toString())
                 .list();
 
-        // 将订单信息转换为包含用户信息、订单详情和菜单项信息的Map格式
-        List<Map<String, Object>> orderDetails = inProgressOrders.stream().map(order -> {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("orderId", order.getOrderId());
-            detail.put("userId", order.getUserId());
-            detail.put("storeId", order.getStoreId());
-            detail.put("status", order.getStatus());
-            detail.put("totalPrice", order.getTotalPrice());
-            detail.put("orderTime", order.getOrderTime());
-            detail.put("notes", order.getNotes());
-            detail.put("dineOption", order.getDineOption());
-            detail.put("updateTime", order.getUpdateTime());
-
-            // 获取用户信息
-            User user = userService.getById(order.getUserId());
-            if (user != null) {
-                Map<String, Object> userInfo = new HashMap<>();
-                userInfo.put("userId", user.getUserId());
-                userInfo.put("name", user.getName());
-                userInfo.put("phone", user.getPhone());
-                userInfo.put("registrationDate", user.getRegistrationDate());
-                userInfo.put("balance", user.getBalance());
-                userInfo.put("role", user.getRole());
-                detail.put("userInfo", userInfo);
-            }
-
-            // 获取订单详情信息
-            List<OrderDetail> orderDetailsList = orderDetailService.lambdaQuery().eq(OrderDetail::getOrderId, order.getOrderId()).list();
-            List<Map<String, Object>> orderDetailsInfo = orderDetailsList.stream().map(orderDetail -> {
-                Map<String, Object> detailInfo = new HashMap<>();
-                detailInfo.put("detailId", orderDetail.getDetailId());
-                detailInfo.put("orderId", orderDetail.getOrderId());
-                detailInfo.put("itemId", orderDetail.getItemId());
-                detailInfo.put("quantity", orderDetail.getQuantity());
-                detailInfo.put("price", orderDetail.getPrice());
-                detailInfo.put("size", orderDetail.getSize());
-                detailInfo.put("specialRequests", orderDetail.getSpecialRequests());
-
-                // 获取菜单项信息
-                MenuItem menuItem = menuItemService.getById(orderDetail.getItemId());
-                if (menuItem != null) {
-                    Map<String, Object> menuItemInfo = new HashMap<>();
-                    menuItemInfo.put("itemId", menuItem.getItemId());
-                    menuItemInfo.put("storeId", menuItem.getStoreId());
-                    menuItemInfo.put("name", menuItem.getName());
-                    menuItemInfo.put("description", menuItem.getDescription());
-                    menuItemInfo.put("imageUrl", menuItem.getImageUrl());
-                    menuItemInfo.put("category", menuItem.getCategory());
-                    menuItemInfo.put("smallSizePrice", menuItem.getSmallSizePrice());
-                    menuItemInfo.put("largeSizePrice", menuItem.getLargeSizePrice());
-                    menuItemInfo.put("sizeStock", menuItem.getSizeStock());
-                    detailInfo.put("menuItemInfo", menuItemInfo);
-                }
-
-                return detailInfo;
-            }).collect(Collectors.toList());
-            detail.put("orderDetails", orderDetailsInfo);
-
-            return detail;
-        }).collect(Collectors.toList());
+        // 批量装配订单关系图（用户、订单详情、菜单项），查询次数不随订单数量增长
+        List<Map<String, Object>> orderDetails = orderGraphService.loadOrderGraphs(inProgressOrders);
 
         // 准备返回的数据结构
         Map<String, Object> data = new HashMap<>();
@@ -776,4 +792,29 @@ public class OrderController {
         return createResponse(HttpStatus.OK, "店铺进行中订单列表获取成功", data);
     }
 
+    /**
+     * 订阅某家店铺的后厨订单推送（Server-Sent Events）。
+     * 连接建立后先收到一个snapshot事件（当前进行中的订单列表），之后实时收到
+     * order-added、order-updated、order-completed、order-cancelled、order-removed事件。每个事件的ID即续传令牌，
+     * 断线重连时通过Last-Event-ID请求头（或resumeToken参数）带回，服务端只补发错过的事件。
+     *
+     * @param storeId 店铺ID，通过路径变量传递。
+     * @param lastEventId 浏览器EventSource重连时自动携带的最后事件ID。
+     * @param resumeToken 无法设置请求头的客户端可通过该参数传递续传令牌。
+     * @param authentication 当前请求的认证信息，用于权限验证。
+     * @return SSE连接；如果用户未进行认证，返回401未授权状态。
+     */
+    @GetMapping(value = "/store/{storeId}/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeKitchenFeed(@PathVariable Integer storeId,
+                                                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                           @RequestParam(required = false) String resumeToken,
+                                                           Authentication authentication) {
+        // 验证用户是否认证
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String token = lastEventId != null ? lastEventId : resumeToken;
+        return ResponseEntity.ok(kitchenFeedService.subscribe(storeId, token));
+    }
+
 }
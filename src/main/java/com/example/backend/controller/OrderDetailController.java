@@ -1,7 +1,8 @@
 package com.example.backend.controller;
 
 import com.example.backend.entity.*;
-import com.example.backend.service.IMenuItemService;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.service.IMenuCatalogService;
 import com.example.backend.service.IOrderDetailService;
 import com.example.backend.service.IOrderService;
 import com.example.backend.service.IUserService;
@@ -30,7 +31,7 @@ public class OrderDetailController {
     @Autowired
     IOrderService orderService; // 注入订单服务
     @Autowired
-    IMenuItemService menuItemService;
+    IMenuCatalogService menuCatalogService;
     @Autowired
     IUserService userService;
     /**
@@ -103,8 +104,8 @@ public class OrderDetailController {
             return createResponse(HttpStatus.BAD_REQUEST, "订单状态不允许此操作", null);
         }
 
-        // 检查菜品是否存在
-        MenuItem item = menuItemService.getById(orderDetail.getItemId());
+        // 检查菜品是否存在，价格和库存预检查读取菜单目录快照，最终库存以确认订单时的条件更新为准
+        MenuItem item = menuCatalogService.current().getItem(orderDetail.getItemId());
         if (item == null) {
             return createResponse(HttpStatus.BAD_REQUEST, "菜品不存在", null);
         }
@@ -130,10 +131,12 @@ public class OrderDetailController {
 //        }
 
 
-        // 保存订单详情信息
-        orderDetailService.save(orderDetail);
-        // 更新订单总价格
-        updateOrderTotalPrice(orderDetail.getOrderId());
+        // 保存订单详情信息，并按该行金额增量更新订单总价格
+        try {
+            orderDetailService.addLine(orderDetail);
+        } catch (BusinessException e) {
+            return createResponse(e.getStatus(), e.getMessage(), null);
+        }
 
         // 准备响应数据
         Map<String, Object> data = new HashMap<>();
@@ -185,11 +188,12 @@ public class OrderDetailController {
             return createResponse(HttpStatus.BAD_REQUEST, "订单详情不属于该订单", null);
         }
 
-        // 删除订单详情
-        orderDetailService.removeById(orderDetailId);
-
-        // 更新订单总价格
-        updateOrderTotalPrice(orderId);
+        // 删除订单详情，并从订单总价格中扣除该行金额
+        try {
+            orderDetailService.removeLine(orderDetail);
+        } catch (BusinessException e) {
+            return createResponse(e.getStatus(), e.getMessage(), null);
+        }
 
         // 返回成功响应
         return createResponse(HttpStatus.OK, "订单详情删除成功", null);
@@ -226,9 +230,13 @@ public class OrderDetailController {
         if (existingOrderDetail == null) {
             return createResponse(HttpStatus.NOT_FOUND, "订单详情不存在", null);
         }
+        // 确认订单详情属于正确的订单，否则增量会记到错误的订单上
+        if (!existingOrderDetail.getOrderId().equals(orderId)) {
+            return createResponse(HttpStatus.BAD_REQUEST, "订单详情不属于该订单", null);
+        }
 
         // 设置订单详情中的价格为菜品价格，根据大小份设置正确的价格
-        MenuItem item = menuItemService.getById(orderDetail.getItemId());
+        MenuItem item = menuCatalogService.current().getItem(orderDetail.getItemId());
         if (item == null) {
             return createResponse(HttpStatus.BAD_REQUEST, "菜品不存在", null);
         }
@@ -251,44 +259,18 @@ public class OrderDetailController {
 //            return createResponse(HttpStatus.BAD_REQUEST, "用户余额不足", null);
 //        }
 
-        // 更新订单详情信息
-        orderDetail.setDetailId(orderDetailId);
-        orderDetailService.updateById(orderDetail);
-
-        // 更新订单总价格
-        updateOrderTotalPrice(orderId);
+        // 更新订单详情信息，并按新旧两行金额之差更新订单总价格
+        try {
+            orderDetailService.replaceLine(existingOrderDetail, orderDetail);
+        } catch (BusinessException e) {
+            return createResponse(e.getStatus(), e.getMessage(), null);
+        }
 
         // 创建并返回响应实体
         return createResponse(HttpStatus.OK, "订单详情更新成功", orderDetail);
     }
 
 
-    /**
-     * 更新指定订单的总价格。
-     *
-     * @param orderId 订单ID，用于标识需要更新总价格的订单。
-     *
-     * 本方法通过查询指定订单的所有订单详情，计算新总价格，并更新订单的总价格。
-     */
-    private void updateOrderTotalPrice(Integer orderId) {
-        // 根据订单ID查询订单详情列表
-        List<OrderDetail> details = orderDetailService.lambdaQuery().eq(OrderDetail::getOrderId, orderId).list();
-
-        // 通过 stream 对订单详情进行遍历，计算每个订单详情的总价（单价乘以数量），
-        // 然后通过 reduce 方法累加所有订单详情的总价，得到新的订单总价格。
-        BigDecimal newTotalPrice = details.stream()
-                .map(detail -> detail.getPrice().multiply(new BigDecimal(detail.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // 通过订单ID从数据库中查询订单对象。
-        Order order = orderService.getById(orderId);
-        if (order != null) {
-            // 如果订单存在，则更新订单的总价格
-            order.setTotalPrice(newTotalPrice);
-            orderService.updateById(order);
-        }
-    }
-
     /**
      * 检查库存是否充足。
      *
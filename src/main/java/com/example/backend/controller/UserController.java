@@ -1,9 +1,13 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.UserImportResultDTO;
 import com.example.backend.dto.UserLoginDTO;
 import com.example.backend.dto.UserRegisterDTO;
 import com.example.backend.entity.Roles;
 import com.example.backend.entity.User;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.service.IBalanceLedgerService;
+import com.example.backend.service.IUserImportService;
 import com.example.backend.service.IUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,10 +18,13 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.example.backend.entity.Roles.ADMIN;
 import static com.example.backend.entity.Roles.CUSTOMER;
@@ -35,6 +42,10 @@ import static com.example.backend.entity.Roles.CUSTOMER;
 public class UserController {
     @Autowired
     IUserService userService;
+    @Autowired
+    IBalanceLedgerService balanceLedgerService;
+    @Autowired
+    IUserImportService userImportService;
     /**
      * 创建一个包含状态码、消息和数据的响应实体。
      *
@@ -69,7 +80,12 @@ public class UserController {
     public ResponseEntity<Map<String, Object>> registerUser(@RequestBody UserRegisterDTO userRegisterDTO) {
         // 设置默认角色为 customer
         // 调用userService完成用户注册逻辑，并根据结果返回相应的响应实体
-        boolean isRegistered = userService.register(userRegisterDTO, CUSTOMER);
+        boolean isRegistered;
+        try {
+            isRegistered = userService.register(userRegisterDTO, CUSTOMER);
+        } catch (BusinessException e) {
+            return createResponse(e.getStatus(), e.getMessage(), null); // 密码哈希繁忙时返回503
+        }
 
         if (isRegistered) {
             return createResponse(HttpStatus.OK, "用户注册成功", null);
@@ -99,7 +115,6 @@ public class UserController {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String phone = userDetails.getUsername();
         User user = userService.findByPhone(phone);
-        System.out.println(user);
         if (user != null) {
             return createResponse(HttpStatus.OK, "用户信息获取成功", user);
         } else {
@@ -184,7 +199,12 @@ public class UserController {
         // 将认证信息中的UserDetails转换成具体的用户详情对象
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         // 调用服务层方法，尝试重置密码
-        boolean success = userService.resetPassword(userDetails.getUsername(), newPassword);
+        boolean success;
+        try {
+            success = userService.resetPassword(userDetails.getUsername(), newPassword);
+        } catch (BusinessException e) {
+            return createResponse(e.getStatus(), e.getMessage(), null); // 密码哈希繁忙时返回503
+        }
         // 根据重置密码的结果，返回相应的ResponseEntity
         return success ? createResponse(HttpStatus.OK, "密码重置成功", null) : createResponse(HttpStatus.BAD_REQUEST, "密码重置失败", null);
     }
@@ -204,6 +224,10 @@ public class UserController {
         }
 
         List<User> users = userService.list();
+        // 用包含未结算流水的当前余额覆盖已结算余额
+        Map<Integer, BigDecimal> balances = balanceLedgerService.balancesOf(
+                users.stream().map(User::getUserId).collect(Collectors.toList()));
+        users.forEach(user -> user.setBalance(balances.getOrDefault(user.getUserId(), user.getBalance())));
         return createResponse(HttpStatus.OK, "获取所有用户成功", users);
     }
 
@@ -239,5 +263,22 @@ public class UserController {
         return createResponse(HttpStatus.OK, "用户信息获取成功", user);
     }
 
-
+    /**
+     * 批量导入用户，仅管理员可用。
+     * 请求体为UTF-8编码的CSV（姓名,手机号,密码），按行流式读取，不整体载入内存；
+     * 首行第二列为phone时视为表头。导入的用户角色均为顾客，密码列已是BCrypt哈希时原样保存。
+     *
+     * @param request HTTP请求，从中读取CSV请求体
+     * @return 导入结果统计；已有导入任务在进行时返回409
+     */
+    @Secured(ADMIN)
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<Map<String, Object>> importUsers(HttpServletRequest request) throws IOException {
+        try {
+            UserImportResultDTO result = userImportService.importCsv(request.getInputStream());
+            return createResponse(HttpStatus.OK, "用户导入完成", result);
+        } catch (BusinessException e) {
+            return createResponse(e.getStatus(), e.getMessage(), null);
+        }
+    }
 }
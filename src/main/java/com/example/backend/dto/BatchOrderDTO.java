@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import com.example.backend.entity.OrderDetail;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量下单中的一个订单：订单信息及其全部订单详情。
+ * 订单详情只需提供菜品ID、数量、规格和特殊要求，价格由服务端按菜单计算。
+ */
+@Data
+public class BatchOrderDTO {
+    private Integer userId;
+    private Integer storeId;
+    private String notes;
+    private String dineOption;
+    private List<OrderDetail> details;
+}
@@ -0,0 +1,12 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 按菜品汇总的销量。
+ */
+@Data
+public class ItemSalesDTO {
+    private Integer itemId;
+    private Long sold;
+}
@@ -0,0 +1,12 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 用户尚未结算进users.balance的流水条数。
+ */
+@Data
+public class LedgerBacklogDTO {
+    private Integer userId;
+    private Integer pendingRows;
+}
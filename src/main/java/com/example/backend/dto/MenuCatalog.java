@@ -0,0 +1,231 @@
+package com.example.backend.dto;
+
+import com.example.backend.entity.MenuItem;
+import com.example.backend.util.CjkTokenizer;
+import com.example.backend.util.InvertedIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 菜单目录的不可变快照。
+ * 全部菜品按ID排序保存，另有按店铺分组的数组和按ID的索引，构造后不再修改，可以被任意线程无锁读取。
+ * 快照中的MenuItem对象只属于快照，调用方不得修改；变更时构造新的快照替换旧的。
+ * 快照附带名称、分类和描述的倒排索引，由上一个快照的索引增量更新而来，只重建文本有变化的菜品涉及的词。
+ * 每个店铺另有店铺版本，即该店铺菜品最后一次变化时的快照版本，其他店铺的修改不会改变它。
+ */
+public final class MenuCatalog {
+    private static final MenuItem[] NO_ITEMS = new MenuItem[0];
+    // 字段序号即字段位的位置，字段位越大排名越靠前：名称 > 分类 > 描述
+    private static final int DESCRIPTION = 0;
+    private static final int CATEGORY = 1;
+    private static final int NAME = 2;
+
+    private final long version;
+    private final long builtAt;
+    private final List<MenuItem> items;
+    private final Map<Integer, MenuItem> byId;
+    private final Map<Integer, List<MenuItem>> byStore;
+    private final Map<Integer, Long> storeVersions;
+    private final InvertedIndex index;
+
+    public MenuCatalog(long version, Collection<MenuItem> source) {
+        this(version, source, null);
+    }
+
+    /**
+     * 以previous的搜索索引为基础构造快照，只对新增、删除和文本有变化的菜品更新索引。
+     */
+    public MenuCatalog(long version, Collection<MenuItem> source, MenuCatalog previous) {
+        MenuItem[] sorted = source.toArray(NO_ITEMS);
+        Arrays.sort(sorted, Comparator.comparing(MenuItem::getItemId));
+        Map<Integer, MenuItem> index = new HashMap<>(sorted.length * 2);
+        Map<Integer, List<MenuItem>> grouped = new HashMap<>();
+        for (MenuItem item : sorted) {
+            index.put(item.getItemId(), item);
+            grouped.computeIfAbsent(item.getStoreId(), storeId -> new ArrayList<>()).add(item);
+        }
+        Map<Integer, List<MenuItem>> stores = new HashMap<>(grouped.size() * 2);
+        for (Map.Entry<Integer, List<MenuItem>> entry : grouped.entrySet()) {
+            // 每个店铺的菜品保存为定长数组
+            stores.put(entry.getKey(), Collections.unmodifiableList(Arrays.asList(entry.getValue().toArray(NO_ITEMS))));
+        }
+        this.version = version;
+        this.builtAt = System.currentTimeMillis();
+        this.items = Collections.unmodifiableList(Arrays.asList(sorted));
+        this.byId = index;
+        this.byStore = stores;
+        this.storeVersions = storeVersions(version, stores, previous);
+        this.index = previous != null ? updateIndex(previous, sorted, index) : buildIndex(sorted);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 全部菜品，按ID排序。
+     */
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    /**
+     * 按ID查找菜品，不存在时返回null。
+     */
+    public MenuItem getItem(Integer itemId) {
+        return byId.get(itemId);
+    }
+
+    /**
+     * 某店铺的全部菜品，按ID排序；店铺没有菜品时返回空列表。
+     */
+    public List<MenuItem> getStoreItems(Integer storeId) {
+        return byStore.getOrDefault(storeId, Collections.emptyList());
+    }
+
+    public int getStoreCount() {
+        return byStore.size();
+    }
+
+    /**
+     * 有过菜品的店铺，包括菜品已被删光的店铺。
+     */
+    public Set<Integer> getStoreIds() {
+        return Collections.unmodifiableSet(storeVersions.keySet());
+    }
+
+    /**
+     * 店铺菜品最后一次变化时的快照版本，从未有过菜品的店铺返回0。
+     */
+    public long getStoreVersion(Integer storeId) {
+        return storeVersions.getOrDefault(storeId, 0L);
+    }
+
+    public InvertedIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 在名称、分类和描述中搜索菜品：汉字按双字、拉丁文按词匹配，查询中的所有词都须命中。
+     * 结果按命中的字段排序，查询词都在名称中的排在最前，其次是分类、描述，同级按菜品ID排序。
+     *
+     * @param storeId 只搜索该店铺的菜品，为null时搜索全部
+     * @param limit 最多返回的条数
+     */
+    public List<MenuItem> search(String query, Integer storeId, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            List<MenuItem> all = storeId != null ? getStoreItems(storeId) : items;
+            return all.subList(0, Math.min(limit, all.size()));
+        }
+        int[] matches = index.search(CjkTokenizer.queryTerms(query));
+        long[] ranked = new long[matches.length];
+        int count = 0;
+        for (int entry : matches) {
+            int itemId = InvertedIndex.docId(entry);
+            if (storeId == null || storeId.equals(byId.get(itemId).getStoreId())) {
+                ranked[count++] = (long) (7 - InvertedIndex.fields(entry)) << 32 | itemId;
+            }
+        }
+        Arrays.sort(ranked, 0, count);
+        List<MenuItem> result = new ArrayList<>(Math.min(limit, count));
+        for (int i = 0; i < count && result.size() < limit; i++) {
+            result.add(byId.get((int) ranked[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 以新增或修改后的菜品构造下一个版本的快照。
+     */
+    public MenuCatalog with(long nextVersion, MenuItem changed) {
+        Map<Integer, MenuItem> next = new HashMap<>(byId);
+        next.put(changed.getItemId(), changed);
+        return new MenuCatalog(nextVersion, next.values(), this);
+    }
+
+    /**
+     * 去掉一个菜品后构造下一个版本的快照。
+     */
+    public MenuCatalog without(long nextVersion, Integer itemId) {
+        Map<Integer, MenuItem> next = new HashMap<>(byId);
+        next.remove(itemId);
+        return new MenuCatalog(nextVersion, next.values(), this);
+    }
+
+    /**
+     * 菜品列表与上一个快照相同的店铺沿用原来的店铺版本，有变化或菜品被删光的店铺取本快照的版本。
+     */
+    private static Map<Integer, Long> storeVersions(long version, Map<Integer, List<MenuItem>> stores, MenuCatalog previous) {
+        Map<Integer, Long> versions = new HashMap<>(stores.size() * 2);
+        for (Map.Entry<Integer, List<MenuItem>> entry : stores.entrySet()) {
+            List<MenuItem> before = previous != null ? previous.byStore.get(entry.getKey()) : null;
+            // 未变化的菜品是同一个对象，equals先比较引用
+            boolean unchanged = before != null && before.equals(entry.getValue());
+            versions.put(entry.getKey(), unchanged ? previous.storeVersions.get(entry.getKey()) : version);
+        }
+        if (previous != null) {
+            for (Map.Entry<Integer, Long> entry : previous.storeVersions.entrySet()) {
+                if (!versions.containsKey(entry.getKey())) {
+                    versions.put(entry.getKey(), previous.byStore.containsKey(entry.getKey()) ? version : entry.getValue());
+                }
+            }
+        }
+        return versions;
+    }
+
+    private static InvertedIndex buildIndex(MenuItem[] sorted) {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        for (MenuItem item : sorted) {
+            builder.add(item.getItemId(), NAME, item.getName())
+                    .add(item.getItemId(), CATEGORY, item.getCategory())
+                    .add(item.getItemId(), DESCRIPTION, item.getDescription());
+        }
+        return builder.build();
+    }
+
+    private static InvertedIndex updateIndex(MenuCatalog previous, MenuItem[] sorted, Map<Integer, MenuItem> byId) {
+        InvertedIndex.Updater updater = previous.index.updater();
+        for (MenuItem item : sorted) {
+            MenuItem old = previous.byId.get(item.getItemId());
+            if (old != item && (old == null || !sameText(old, item))) {
+                if (old != null) {
+                    remove(updater, old);
+                }
+                updater.add(item.getItemId(), NAME, item.getName())
+                        .add(item.getItemId(), CATEGORY, item.getCategory())
+                        .add(item.getItemId(), DESCRIPTION, item.getDescription());
+            }
+        }
+        for (MenuItem old : previous.items) {
+            if (!byId.containsKey(old.getItemId())) {
+                remove(updater, old);
+            }
+        }
+        return updater.apply();
+    }
+
+    private static void remove(InvertedIndex.Updater updater, MenuItem item) {
+        updater.remove(item.getItemId(), NAME, item.getName())
+                .remove(item.getItemId(), CATEGORY, item.getCategory())
+                .remove(item.getItemId(), DESCRIPTION, item.getDescription());
+    }
+
+    private static boolean sameText(MenuItem a, MenuItem b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getCategory(), b.getCategory())
+                && Objects.equals(a.getDescription(), b.getDescription());
+    }
+}
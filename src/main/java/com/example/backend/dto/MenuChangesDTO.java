@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import com.example.backend.entity.MenuItem;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 店铺菜单自某一版本以来的变化。
+ */
+@Data
+public class MenuChangesDTO {
+    private final Integer storeId;
+    private final long version;             // 店铺当前版本，下次请求作为since传回
+    private final boolean full;             // 为true时items是完整菜单，客户端应替换本地菜单
+    private final List<MenuItem> items;     // 新增或修改的菜品
+    private final List<Integer> deletedItemIds;
+}
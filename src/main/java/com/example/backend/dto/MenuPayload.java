@@ -0,0 +1,63 @@
+package com.example.backend.dto;
+
+/**
+ * 某一店铺版本的菜单响应，已序列化为UTF-8 JSON，较大时另存一份gzip压缩的字节。
+ * 实体标签由内容哈希得出，重启后同样的内容仍得到同样的标签；两种编码的字节不同，标签也不同。
+ */
+public final class MenuPayload {
+    private final long version;
+    private final String etag;
+    private final byte[] body;
+    private final String gzipEtag;
+    private final byte[] gzipped;
+
+    public MenuPayload(long version, String etag, byte[] body, String gzipEtag, byte[] gzipped) {
+        this.version = version;
+        this.etag = etag;
+        this.body = body;
+        this.gzipEtag = gzipEtag;
+        this.gzipped = gzipped;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    /**
+     * gzip压缩后的字节，响应较小不值得压缩时为null。
+     */
+    public byte[] getGzipped() {
+        return gzipped;
+    }
+
+    /**
+     * If-None-Match中是否有与本响应任一编码相同的标签。按RFC 7232对If-None-Match使用弱比较，忽略W/前缀。
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 订单详情汇总结果：订单原价以及涉及的不同菜品数量。
+ */
+@Data
+public class OrderAmountDTO {
+    private BigDecimal total;   // 订单详情的单价乘数量之和
+    private Integer itemCount;  // 订单中不同菜品的数量
+}
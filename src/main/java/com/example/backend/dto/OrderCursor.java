@@ -0,0 +1,44 @@
+package com.example.backend.dto;
+
+import com.example.backend.entity.Order;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 订单列表的键集分页游标，定位到一条订单ID。
+ * 订单ID自增且不会被修改，按它分页时确认、修改订单不会让订单在页之间移动。
+ * 对外以URL安全的Base64字符串传递，客户端应将其视为不透明值。
+ */
+@Data
+public class OrderCursor {
+    private final Integer orderId;
+
+    /**
+     * 以订单ID生成游标字符串。
+     *
+     * @param order 当前页的最后一条订单
+     * @return 编码后的游标
+     */
+    public static String encode(Order order) {
+        String raw = String.valueOf(order.getOrderId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串。
+     *
+     * @param cursor 客户端传回的游标
+     * @return 游标对象
+     * @throws IllegalArgumentException 如果游标格式不正确
+     */
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new OrderCursor(Integer.parseInt(raw));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的游标: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.backend.dto;
+
+import com.example.backend.entity.Order;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 键集分页查询的一页订单。
+ */
+@Data
+public class OrderPageDTO {
+    private final List<Order> orders;
+    private final String next; // 下一页游标，没有更多数据时为null
+}
@@ -0,0 +1,15 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 订单总价与订单详情合计不一致的记录。
+ */
+@Data
+public class OrderTotalDriftDTO {
+    private Integer orderId;
+    private BigDecimal totalPrice;   // 订单表中维护的总价
+    private BigDecimal detailTotal;  // 由订单详情重新计算的合计
+}
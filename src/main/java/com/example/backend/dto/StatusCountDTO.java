@@ -0,0 +1,12 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 按订单状态分组的计数结果。
+ */
+@Data
+public class StatusCountDTO {
+    private String status;
+    private Long count;
+}
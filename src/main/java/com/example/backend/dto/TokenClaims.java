@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 访问令牌中携带的声明。
+ * 旧令牌只有手机号，此时userId、role和version为null。
+ */
+@Data
+public class TokenClaims {
+    private String phone;
+    private Integer userId;
+    private String role;
+    private Integer version;
+    private Date expiration;
+}
@@ -0,0 +1,13 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 用户的令牌版本。
+ */
+@Data
+public class TokenVersionDTO {
+    private Integer userId;
+    private String phone;
+    private Integer tokenVersion;
+}
@@ -0,0 +1,14 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 用户当前余额（已结算余额加未结算流水）。
+ */
+@Data
+public class UserBalanceDTO {
+    private Integer userId;
+    private BigDecimal balance;
+}
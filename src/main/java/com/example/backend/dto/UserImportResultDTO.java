@@ -0,0 +1,16 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 批量导入用户的结果统计。
+ */
+@Data
+public class UserImportResultDTO {
+    private long processed;   // 读取的数据行数，不含表头和空行
+    private long imported;    // 成功写入的用户数
+    private long duplicates;  // 文件内重复的手机号
+    private long existing;    // 数据库中已注册的手机号
+    private long invalid;     // 缺少字段或字段超长的行
+    private long elapsedMs;
+}
@@ -0,0 +1,24 @@
+package com.example.backend.entity;
+
+/**
+ * 余额流水的变动类型。
+ */
+public enum BalanceChangeType {
+    RECHARGE("充值"),        // 用户充值，入账
+    PURCHASE("消费"),        // 直接扣款消费，出账
+    ORDER_PAYMENT("订单支付"), // 确认订单时扣款，出账
+    ORDER_REFUND("订单退款"),  // 取消进行中的订单或退款时退还实付金额，入账
+    HOLD("预授权冻结"),        // 为未确认订单冻结资金，出账
+    HOLD_RELEASE("预授权释放"); // 订单取消、超时或实付少于冻结金额时退回冻结资金，入账
+
+    private final String type;
+
+    BalanceChangeType(String type) {
+        this.type = type;
+    }
+
+    @Override
+    public String toString() {
+        return this.type;
+    }
+}
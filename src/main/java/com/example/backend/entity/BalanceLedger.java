@@ -0,0 +1,24 @@
+package com.example.backend.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * 余额流水，只追加不修改。
+ */
+@Data
+@TableName("balance_ledger")
+public class BalanceLedger {
+    @TableId(type = IdType.AUTO)
+    private Long ledgerId;
+    private Integer userId;
+    private BigDecimal amount; // 入账为正，扣款为负
+    private String type; // BalanceChangeType的中文描述
+    private Integer orderId;
+    private Timestamp createdAt;
+}
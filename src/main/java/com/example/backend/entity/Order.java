@@ -1,6 +1,8 @@
 package com.example.backend.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
@@ -17,6 +19,9 @@ public class Order {
     private Integer storeId;
     private String status;  // 改为String类型，存储中文状态描述
     private BigDecimal totalPrice;
+    // 为该订单冻结的金额，由预授权冻结和释放维护，不随实体写入
+    @TableField(insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private BigDecimal heldAmount;
     private Timestamp orderTime;
     private String notes;
     private String dineOption;
@@ -0,0 +1,23 @@
+package com.example.backend.entity;
+
+/**
+ * 触发订单状态变化的事件。
+ */
+public enum OrderEvent {
+    CONFIRM("确认"),   // 已创建 -> 进行中
+    COMPLETE("完成"),  // 进行中 -> 已完成
+    CANCEL("取消"),    // 进行中/已创建 -> 已取消
+    REFUND("退款"),    // 已完成 -> 已退款
+    EXPIRE("超时取消"); // 已创建 -> 已取消（未确认订单超时）
+
+    private final String description;
+
+    OrderEvent(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String toString() {
+        return this.description;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.backend.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -21,7 +23,12 @@ public class User{
     @JsonIgnore // 这会阻止密码被序列化到JSON
     private String password;
     private Timestamp registrationDate;
+    // 已结算余额，只由余额流水结算写入；updateById不更新该列，当前余额见IBalanceLedgerService
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private BigDecimal balance;
+    // 为未确认订单冻结的金额，由预授权冻结和释放维护，不随实体写入
+    @TableField(insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private BigDecimal heldBalance;
     private String role; // 新增角色字段
 
 }
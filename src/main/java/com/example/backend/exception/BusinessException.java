@@ -0,0 +1,20 @@
+package com.example.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * 业务异常，携带应返回给客户端的HTTP状态码和提示信息。
+ * 在事务方法中抛出时会触发回滚。
+ */
+public class BusinessException extends RuntimeException {
+    private final HttpStatus status;
+
+    public BusinessException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
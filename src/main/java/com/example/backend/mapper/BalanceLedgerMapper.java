@@ -0,0 +1,62 @@
+package com.example.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.backend.dto.LedgerBacklogDTO;
+import com.example.backend.dto.UserBalanceDTO;
+import com.example.backend.entity.BalanceLedger;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 余额流水Mapper。
+ */
+public interface BalanceLedgerMapper extends BaseMapper<BalanceLedger> {
+
+    /**
+     * 查询用户当前余额：已结算余额加上水位线之后的流水之和，一条语句读取保证两部分一致。
+     * 用户不存在时返回null。
+     */
+    @Select("SELECT u.balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l"
+            + " WHERE l.user_id = u.user_id AND l.ledger_id > u.ledger_watermark), 0)"
+            + " FROM users u WHERE u.user_id = #{userId}")
+    BigDecimal selectBalance(@Param("userId") Integer userId);
+
+    /**
+     * 余额足以承担扣款时追加一条流水（amount为负），透支检查与写入在同一条语句中完成。
+     * 调用方须先锁住用户行，使同一用户的并发扣款依次看到彼此已提交的流水。
+     *
+     * @return 写入的行数，余额不足或用户不存在时为0
+     */
+    @Insert("INSERT INTO balance_ledger (user_id, amount, type, order_id, created_at)"
+            + " SELECT u.user_id, #{amount}, #{type}, #{orderId}, #{createdAt} FROM users u WHERE u.user_id = #{userId}"
+            + " AND u.balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l"
+            + " WHERE l.user_id = u.user_id AND l.ledger_id > u.ledger_watermark), 0) + #{amount} >= 0")
+    int insertIfCovered(BalanceLedger entry);
+
+    /**
+     * 批量查询用户当前余额。
+     */
+    @Select("<script>SELECT u.user_id, u.balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l"
+            + " WHERE l.user_id = u.user_id AND l.ledger_id > u.ledger_watermark), 0) AS balance"
+            + " FROM users u WHERE u.user_id IN"
+            + "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<UserBalanceDTO> selectBalances(@Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * 查询用户最新一条流水的ID，没有流水时返回null。
+     */
+    @Select("SELECT MAX(ledger_id) FROM balance_ledger WHERE user_id = #{userId}")
+    Long selectMaxLedgerId(@Param("userId") Integer userId);
+
+    /**
+     * 查询每个用户未结算的流水条数，启动时用于恢复待结算列表。
+     */
+    @Select("SELECT l.user_id, COUNT(*) AS pending_rows FROM balance_ledger l JOIN users u ON u.user_id = l.user_id"
+            + " WHERE l.ledger_id > u.ledger_watermark GROUP BY l.user_id")
+    List<LedgerBacklogDTO> selectBacklog();
+}
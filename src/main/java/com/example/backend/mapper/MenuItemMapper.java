@@ -2,6 +2,8 @@ package com.example.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.backend.entity.MenuItem;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * @author zhouhaoran
@@ -10,4 +12,22 @@ import com.example.backend.entity.MenuItem;
  */
 public interface MenuItemMapper extends BaseMapper<MenuItem> {
 
+    /**
+     * 按订单详情一次性扣减所有菜品库存，只扣减库存充足的菜品。
+     * 返回值小于订单中不同菜品的数量时说明有菜品库存不足，调用方应回滚事务。
+     */
+    @Update("UPDATE menu_items SET size_stock = size_stock - "
+            + "(SELECT SUM(d.quantity) FROM order_details d WHERE d.order_id = #{orderId} AND d.item_id = menu_items.item_id)"
+            + " WHERE item_id IN (SELECT item_id FROM order_details WHERE order_id = #{orderId})"
+            + " AND size_stock >= "
+            + "(SELECT SUM(d.quantity) FROM order_details d WHERE d.order_id = #{orderId} AND d.item_id = menu_items.item_id)")
+    int deductStockByOrder(@Param("orderId") Integer orderId);
+
+    /**
+     * 按订单详情一次性退还所有菜品库存。
+     */
+    @Update("UPDATE menu_items SET size_stock = size_stock + "
+            + "(SELECT SUM(d.quantity) FROM order_details d WHERE d.order_id = #{orderId} AND d.item_id = menu_items.item_id)"
+            + " WHERE item_id IN (SELECT item_id FROM order_details WHERE order_id = #{orderId})")
+    int restoreStockByOrder(@Param("orderId") Integer orderId);
 }
@@ -1,8 +1,13 @@
 package com.example.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.example.backend.entity.Order;
+import com.example.backend.dto.ItemSalesDTO;
+import com.example.backend.dto.OrderAmountDTO;
 import com.example.backend.entity.OrderDetail;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * @author zhouhaoran
@@ -10,4 +15,18 @@ import com.example.backend.entity.OrderDetail;
  * @project Backend
  */
 public interface OrderDetailMapper extends BaseMapper<OrderDetail> {
+
+    /**
+     * 一次查询汇总订单原价和涉及的不同菜品数量。
+     */
+    @Select("SELECT COALESCE(SUM(price * quantity), 0) AS total, COUNT(DISTINCT item_id) AS item_count"
+            + " FROM order_details WHERE order_id = #{orderId}")
+    OrderAmountDTO sumByOrder(@Param("orderId") Integer orderId);
+
+    /**
+     * 汇总每个菜品在进行中和已完成订单中的销量，已取消和已退款的订单不计入。
+     */
+    @Select("SELECT d.item_id, SUM(d.quantity) AS sold FROM order_details d JOIN orders o ON o.order_id = d.order_id"
+            + " WHERE o.status IN ('进行中', '已完成') GROUP BY d.item_id")
+    List<ItemSalesDTO> selectItemSales();
 }
@@ -1,7 +1,16 @@
 package com.example.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.backend.dto.OrderTotalDriftDTO;
+import com.example.backend.dto.StatusCountDTO;
 import com.example.backend.entity.Order;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author zhouhaoran
@@ -9,4 +18,60 @@ import com.example.backend.entity.Order;
  * @project Backend
  */
 public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 按状态分组统计订单数量，用于对账内存中的状态计数器。
+     */
+    @Select("SELECT status, COUNT(*) AS count FROM orders GROUP BY status")
+    List<StatusCountDTO> countByStatus();
+
+    /**
+     * 按订单详情的增减量调整已创建订单的总价，返回0表示订单不存在或已不在已创建状态。
+     */
+    @Update("UPDATE orders SET total_price = total_price + #{delta} WHERE order_id = #{orderId} AND status = '已创建'")
+    int addTotalPrice(@Param("orderId") Integer orderId, @Param("delta") BigDecimal delta);
+
+    /**
+     * 找出总价与订单详情合计不一致的已创建订单。
+     * 已确认的订单总价包含优惠券折扣，不参与比较。
+     */
+    @Select("SELECT o.order_id, o.total_price, COALESCE(SUM(d.price * d.quantity), 0) AS detail_total"
+            + " FROM orders o LEFT JOIN order_details d ON d.order_id = o.order_id"
+            + " WHERE o.status = '已创建'"
+            + " GROUP BY o.order_id, o.total_price"
+            + " HAVING o.total_price IS NULL OR o.total_price <> COALESCE(SUM(d.price * d.quantity), 0)")
+    List<OrderTotalDriftDTO> findTotalDrift();
+
+    /**
+     * 用订单详情合计重写已创建订单的总价。
+     */
+    @Update("UPDATE orders SET total_price = (SELECT COALESCE(SUM(d.price * d.quantity), 0)"
+            + " FROM order_details d WHERE d.order_id = #{orderId})"
+            + " WHERE order_id = #{orderId} AND status = '已创建'")
+    int repairTotalPrice(@Param("orderId") Integer orderId);
+
+    /**
+     * 为已创建且尚未冻结资金的订单记录冻结金额，返回0表示订单状态已变化或已冻结过。
+     */
+    @Update("UPDATE orders SET held_amount = #{amount} WHERE order_id = #{orderId} AND status = '已创建' AND held_amount = 0")
+    int placeHold(@Param("orderId") Integer orderId, @Param("amount") BigDecimal amount);
+
+    /**
+     * 清除订单的冻结金额，只有冻结金额仍为held时才成功，保证同一笔冻结只会被转为支付或释放一次。
+     */
+    @Update("UPDATE orders SET held_amount = 0 WHERE order_id = #{orderId} AND held_amount = #{held} AND held_amount > 0")
+    int clearHold(@Param("orderId") Integer orderId, @Param("held") BigDecimal held);
+
+    /**
+     * 锁住没有冻结资金的订单行直到事务结束，订单不存在或冻结着资金时返回null。
+     */
+    @Select("SELECT order_id FROM orders WHERE order_id = #{orderId} AND held_amount = 0 FOR UPDATE")
+    Integer lockUnheld(@Param("orderId") Integer orderId);
+
+    /**
+     * 在一批订单中查询已取消但仍有冻结金额的订单，用于超时取消后释放冻结资金。
+     */
+    @Select("<script>SELECT * FROM orders WHERE status = '已取消' AND held_amount > 0 AND order_id IN"
+            + "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<Order> selectCancelledWithHold(@Param("orderIds") Collection<Integer> orderIds);
 }
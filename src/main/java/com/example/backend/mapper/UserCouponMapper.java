@@ -1,8 +1,11 @@
 package com.example.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.example.backend.entity.Coupon;
 import com.example.backend.entity.UserCoupon;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 /**
  * @author zhouhaoran
@@ -10,4 +13,27 @@ import com.example.backend.entity.UserCoupon;
  * @project Backend
  */
 public interface UserCouponMapper extends BaseMapper<UserCoupon> {
+
+    /**
+     * 将属于下单用户且未使用的优惠券标记为已使用并关联订单，返回0表示优惠券已被使用或不属于该用户。
+     */
+    @Update("UPDATE user_coupons SET is_used = TRUE, order_id = #{orderId}"
+            + " WHERE user_coupon_id = #{userCouponId} AND is_used = FALSE"
+            + " AND user_id = (SELECT user_id FROM orders WHERE order_id = #{orderId})")
+    int claimForOrder(@Param("userCouponId") Integer userCouponId, @Param("orderId") Integer orderId);
+
+    /**
+     * 释放订单占用的所有优惠券，恢复为未使用。
+     */
+    @Update("UPDATE user_coupons SET is_used = FALSE, order_id = NULL WHERE order_id = #{orderId} AND is_used = TRUE")
+    int releaseByOrder(@Param("orderId") Integer orderId);
+
+    /**
+     * 释放一批订单中已取消订单占用的优惠券。
+     * 只看已取消的订单，批次中已被确认的订单保留其优惠券。
+     */
+    @Update("<script>UPDATE user_coupons SET is_used = FALSE, order_id = NULL WHERE is_used = TRUE AND order_id IN"
+            + " (SELECT order_id FROM orders WHERE status = '已取消' AND order_id IN"
+            + "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>)</script>")
+    int releaseByCancelledOrders(@Param("orderIds") Collection<Integer> orderIds);
 }
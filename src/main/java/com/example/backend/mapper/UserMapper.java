@@ -1,7 +1,15 @@
 package com.example.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.backend.dto.TokenVersionDTO;
 import com.example.backend.entity.User;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 
 /**
@@ -11,4 +19,59 @@ import com.example.backend.entity.User;
  */
 public interface UserMapper extends BaseMapper<User> {
 
+    /**
+     * 把水位线之后、upTo及之前的余额流水结算进users.balance并推进水位线，单条语句原子完成。
+     * 流水都在锁住用户行后写入，本语句会等待进行中的写入提交，结算区间内不会有未提交的流水。
+     */
+    @Update("UPDATE users SET balance = balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l"
+            + " WHERE l.user_id = #{userId} AND l.ledger_id > users.ledger_watermark AND l.ledger_id <= #{upTo}), 0),"
+            + " ledger_watermark = #{upTo} WHERE user_id = #{userId} AND ledger_watermark < #{upTo}")
+    int settleLedger(@Param("userId") Integer userId, @Param("upTo") Long upTo);
+
+    /**
+     * 锁住用户行直到事务结束，同一用户的余额流水写入和结算由此串行，多个实例之间同样有效。
+     * 用户不存在时返回null。
+     */
+    @Select("SELECT user_id FROM users WHERE user_id = #{userId} FOR UPDATE")
+    Integer lockForBalance(@Param("userId") Integer userId);
+
+    /**
+     * 查询令牌版本不为0的用户。从未修改过密码或角色的用户版本为0，不需要加载。
+     */
+    @Select("SELECT user_id, phone, token_version FROM users WHERE token_version > 0")
+    List<TokenVersionDTO> selectTokenVersions();
+
+    /**
+     * 将用户的令牌版本加一。
+     */
+    @Update("UPDATE users SET token_version = token_version + 1 WHERE user_id = #{userId}")
+    int bumpTokenVersion(@Param("userId") Integer userId);
+
+    /**
+     * 查询用户当前的令牌版本。
+     */
+    @Select("SELECT token_version FROM users WHERE user_id = #{userId}")
+    Integer selectTokenVersion(@Param("userId") Integer userId);
+
+    /**
+     * 按用户ID键集分批读取手机号，每批只返回user_id和phone，逐批扫描全表时内存占用与用户数无关。
+     *
+     * @param afterUserId 上一批最后一个用户ID，第一批传0
+     * @param limit 每批行数
+     */
+    @Select("SELECT user_id, phone FROM users WHERE user_id > #{afterUserId} ORDER BY user_id LIMIT #{limit}")
+    List<User> selectPhonesAfter(@Param("afterUserId") int afterUserId, @Param("limit") int limit);
+
+    /**
+     * 调整用户的冻结金额，delta为正表示冻结、为负表示转为支付或释放；冻结金额不会被减为负数。
+     */
+    @Update("UPDATE users SET held_balance = held_balance + #{delta} WHERE user_id = #{userId} AND held_balance + #{delta} >= 0")
+    int addHeldBalance(@Param("userId") Integer userId, @Param("delta") BigDecimal delta);
+
+    /**
+     * 在给定手机号中查询已注册的手机号。
+     */
+    @Select("<script>SELECT phone FROM users WHERE phone IN"
+            + "<foreach collection='phones' item='phone' open='(' separator=',' close=')'>#{phone}</foreach></script>")
+    List<String> selectExistingPhones(@Param("phones") Collection<String> phones);
 }
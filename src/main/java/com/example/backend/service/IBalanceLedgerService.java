@@ -0,0 +1,80 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.BalanceChangeType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 余额流水服务。
+ * 余额变动只追加流水，不再读取-修改-写回users行；写入前锁住用户行直到所在事务结束，
+ * 扣款的透支检查与流水写入在同一条SQL中完成。当前余额在内存中缓存，只用于读取。
+ * 流水定期结算进users.balance。
+ * 未确认的订单可以预先冻结资金：冻结时扣除可用余额并记入users.held_balance和orders.held_amount，
+ * 确认时转为支付，取消或超时时退回。
+ */
+public interface IBalanceLedgerService {
+
+    /**
+     * 获取用户当前余额，用户不存在时返回null。
+     */
+    BigDecimal balanceOf(Integer userId);
+
+    /**
+     * 批量获取用户当前余额，不存在的用户不出现在结果中。
+     */
+    Map<Integer, BigDecimal> balancesOf(Collection<Integer> userIds);
+
+    /**
+     * 入账。
+     *
+     * @param orderId 关联的订单ID，可以为null
+     */
+    void credit(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId);
+
+    /**
+     * 余额充足时扣款。
+     *
+     * @return 余额不足或用户不存在时返回false，不写入流水
+     */
+    boolean debit(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId);
+
+    /**
+     * 为已创建的订单冻结资金。
+     *
+     * @return 余额不足时返回false，不写入流水
+     * @throws com.example.backend.exception.BusinessException 订单不是已创建状态或已冻结过、用户不存在时抛出
+     */
+    boolean hold(Integer userId, Integer orderId, BigDecimal amount);
+
+    /**
+     * 将订单的冻结金额转为支付：冻结金额多于实付金额时退回差额，少于实付金额时补扣差额。
+     *
+     * @param held 订单当前的冻结金额
+     * @param payable 订单实付金额
+     * @return 需要补扣而余额不足时返回false
+     * @throws com.example.backend.exception.BusinessException 冻结已被转为支付或释放、用户不存在，
+     *         或users.held_balance与订单冻结金额不一致时抛出
+     */
+    boolean capture(Integer userId, Integer orderId, BigDecimal held, BigDecimal payable);
+
+    /**
+     * 释放订单的冻结金额并退回可用余额。
+     *
+     * @param held 订单当前的冻结金额
+     * @return 冻结已被转为支付或释放时返回false
+     * @throws com.example.backend.exception.BusinessException 用户不存在或users.held_balance与订单冻结金额不一致时抛出
+     */
+    boolean release(Integer userId, Integer orderId, BigDecimal held);
+
+    /**
+     * 将未结算流水达到阈值的用户结算进users.balance，返回结算的用户数。
+     */
+    int compact();
+
+    /**
+     * 获取入账、扣款、透支拒绝、结算次数以及待结算用户数等指标。
+     */
+    Map<String, Object> metrics();
+}
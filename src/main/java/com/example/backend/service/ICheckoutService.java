@@ -0,0 +1,58 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Order;
+
+import java.util.Collection;
+
+/**
+ * 订单结算服务。
+ * 确认、取消和退款都由带条件的集合更新语句在同一个事务中完成，
+ * 并发操作不会丢失对库存、余额和订单状态的更新。
+ */
+public interface ICheckoutService {
+
+    /**
+     * 为已创建的订单按当前菜品原价冻结资金，确认时转为支付，取消或超时时退回。
+     *
+     * @param orderId 订单ID
+     * @return 冻结后的订单
+     * @throws com.example.backend.exception.BusinessException 订单不存在、金额为0、状态不允许、已冻结过或余额不足时抛出
+     */
+    Order hold(Integer orderId);
+
+    /**
+     * 确认订单：扣减库存、扣除余额（考虑优惠券折扣）并将订单从已创建改为进行中。
+     * 已冻结资金的订单把冻结金额转为支付，只需补扣或退回与实付金额的差额。
+     *
+     * @param orderId 订单ID
+     * @param userCouponId 用户优惠券ID，可为null
+     * @return 确认后的订单
+     * @throws com.example.backend.exception.BusinessException 订单不存在、状态不允许、优惠券无效、库存或余额不足时抛出，事务整体回滚
+     */
+    Order confirm(Integer orderId, Integer userCouponId);
+
+    /**
+     * 取消订单。进行中的订单会退还库存、余额并释放优惠券；已创建的订单释放优惠券和冻结资金。
+     *
+     * @param orderId 订单ID
+     * @return 取消后的订单
+     */
+    Order cancel(Integer orderId);
+
+    /**
+     * 对已完成的订单退款：退还库存、按实付金额退还余额并释放优惠券。
+     *
+     * @param orderId 订单ID
+     * @return 退款后的订单
+     */
+    Order refund(Integer orderId);
+
+    /**
+     * 取消一批超时未确认的订单，并释放它们占用的优惠券和冻结资金。
+     * 只有仍处于已创建状态的订单会被取消；没有冻结资金时整批只执行两条UPDATE语句。
+     *
+     * @param orderIds 订单ID
+     * @return 实际取消的订单数
+     */
+    int expire(Collection<Integer> orderIds);
+}
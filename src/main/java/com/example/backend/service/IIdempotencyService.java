@@ -0,0 +1,31 @@
+package com.example.backend.service;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键服务。
+ * 客户端在超时重试时携带相同的Idempotency-Key请求头，重复请求直接返回第一次的结果，
+ * 第一次请求仍在处理时等待其结果，都不会再访问数据库。
+ */
+public interface IIdempotencyService {
+
+    /**
+     * 以幂等方式执行操作。
+     *
+     * @param idempotencyKey 客户端提供的幂等键，为空时直接执行操作
+     * @param principal 当前用户标识，不同用户的相同幂等键互不影响
+     * @param operation 操作标识（如 "confirm:12"），同一个幂等键用于不同操作时互不影响
+     * @param action 实际执行的操作
+     * @return 操作结果；重复请求返回第一次的结果（5xx、409、429结果不缓存，会重新执行）；等待第一次请求超时返回409
+     */
+    ResponseEntity<?> execute(String idempotencyKey, String principal, String operation,
+                              Supplier<ResponseEntity<?>> action);
+
+    /**
+     * 获取命中、等待、执行次数和当前缓存的结果数。
+     */
+    Map<String, Object> metrics();
+}
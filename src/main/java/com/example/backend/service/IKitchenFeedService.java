@@ -0,0 +1,51 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Order;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 店铺后厨订单推送服务。
+ * 为每个店铺在内存中维护进行中订单的索引，由订单确认、完成、取消操作增量更新，
+ * 并通过Server-Sent Events推送给订阅该店铺的平板。
+ */
+public interface IKitchenFeedService {
+
+    /**
+     * 订阅某店铺的订单事件。
+     * 如果resumeToken仍在事件缓冲区范围内，只补发断线期间错过的事件；否则先推送一份进行中订单的快照。
+     *
+     * @param storeId 店铺ID
+     * @param resumeToken 客户端最后收到的事件ID（即Last-Event-ID），首次连接时为null
+     * @return SSE连接
+     */
+    SseEmitter subscribe(Integer storeId, String resumeToken);
+
+    /**
+     * 订单确认后调用，推送 order-added 事件。
+     */
+    void orderAdded(Order order);
+
+    /**
+     * 订单完成后调用，推送 order-completed 事件。
+     */
+    void orderCompleted(Order order);
+
+    /**
+     * 订单取消后调用，推送 order-cancelled 事件。
+     */
+    void orderCancelled(Order order);
+
+    /**
+     * 订单被直接修改后调用（如修改状态或店铺），按修改后的状态放入或移出进行中订单：
+     * 仍在进行中时推送 order-updated（新进入时为 order-added），离开进行中时推送对应的完成、取消或 order-removed 事件。
+     *
+     * @param order 修改后的订单
+     * @param previousStoreId 修改前的店铺ID，店铺变化时从原店铺移除
+     */
+    void orderUpdated(Order order, Integer previousStoreId);
+
+    /**
+     * 订单被删除后调用，如果它在进行中订单里，推送 order-removed 事件。
+     */
+    void orderDeleted(Order order);
+}
@@ -0,0 +1,24 @@
+package com.example.backend.service;
+
+import java.util.Map;
+
+/**
+ * 登录限流。
+ * 按手机号和客户端IP分别做滑动窗口计数，在查询用户和计算BCrypt之前拒绝过多的登录尝试。
+ */
+public interface ILoginThrottleService {
+
+    /**
+     * 记录一次登录尝试。
+     *
+     * @param phone 提交的手机号
+     * @param clientIp 客户端IP，反向代理之后为从受信任代理的X-Forwarded-For还原的地址
+     * @return 手机号和IP都未超过限制时返回true
+     */
+    boolean tryAcquire(String phone, String clientIp);
+
+    /**
+     * 获取按手机号和按IP的放行、拒绝和淘汰次数。
+     */
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,36 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MenuCatalog;
+
+import java.util.Map;
+
+/**
+ * 内存中的菜单目录。
+ * 读取只取当前快照的引用，不加锁也不访问数据库；菜品增删改在事务提交后以写时复制的方式换入新快照。
+ * 库存由确认和取消订单直接在数据库中增减，快照中的库存只用于展示和预检查，定期刷新，
+ * 最终以确认订单时的条件更新为准。
+ */
+public interface IMenuCatalogService {
+
+    /**
+     * 获取当前快照。
+     */
+    MenuCatalog current();
+
+    /**
+     * 菜品被新增、修改或删除后调用：在当前事务提交后（没有事务时立即）重新读取该菜品并换入新快照。
+     */
+    void itemChanged(Integer itemId);
+
+    /**
+     * 从数据库重新加载全部菜品，内容有变化时换入新快照。
+     *
+     * @return 加载后的当前快照
+     */
+    MenuCatalog refresh();
+
+    /**
+     * 获取快照版本、菜品数、店铺数、搜索索引规模、读取次数、增量更新和全量刷新次数等指标。
+     */
+    Map<String, Object> metrics();
+}
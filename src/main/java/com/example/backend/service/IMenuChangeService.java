@@ -0,0 +1,23 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MenuChangesDTO;
+
+import java.util.Map;
+
+/**
+ * 店铺菜单的变更日志，供客户端增量同步。
+ * 菜单目录每换入新快照，按店铺对比新旧菜品，把新增、修改和删除记入店铺的日志，版本号为店铺版本。
+ * 每个菜品在日志中只保留最近一次变化，超过上限时丢弃最早的记录，早于被丢弃记录的版本只能返回完整菜单。
+ */
+public interface IMenuChangeService {
+
+    /**
+     * 获取店铺自since以来的变化。since为空、早于日志保留的范围或不是本店铺发出过的版本时返回完整菜单。
+     */
+    MenuChangesDTO changesSince(Integer storeId, Long since);
+
+    /**
+     * 获取记录的店铺数、日志条数以及增量和完整响应次数等指标。
+     */
+    Map<String, Object> metrics();
+}
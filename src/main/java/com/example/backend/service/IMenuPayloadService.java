@@ -0,0 +1,22 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MenuPayload;
+
+import java.util.Map;
+
+/**
+ * 店铺菜单响应的序列化缓存。
+ * 按店铺缓存序列化好的响应字节，店铺版本不变时直接复用，条件请求可以不经序列化就判断是否返回304。
+ */
+public interface IMenuPayloadService {
+
+    /**
+     * 获取店铺当前菜单的响应，店铺版本变化后重新序列化。
+     */
+    MenuPayload storeMenu(Integer storeId);
+
+    /**
+     * 获取缓存的店铺数、字节数、命中和序列化次数等指标。
+     */
+    Map<String, Object> metrics();
+}
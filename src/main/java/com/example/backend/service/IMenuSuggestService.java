@@ -0,0 +1,33 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.MenuItem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 菜名联想。
+ * 以菜名、全拼和拼音首字母为键构造前缀树，每个前缀预存销量最高的若干菜品，查询不访问数据库。
+ * 菜单目录换入新快照后，下一次查询时只对变化的菜品更新前缀树；销量定期重新统计并整体重建。
+ */
+public interface IMenuSuggestService {
+
+    /**
+     * 按前缀联想菜品，按销量从高到低排列。
+     *
+     * @param prefix 输入的前缀，可以是汉字、全拼或首字母，忽略大小写、空白和标点
+     * @param storeId 只联想该店铺的菜品，为null时联想全部店铺
+     * @param limit 最多返回的条数，超过每个前缀预存的条数时按预存条数返回
+     */
+    List<MenuItem> suggest(String prefix, Integer storeId, int limit);
+
+    /**
+     * 重新统计销量并重建前缀树。
+     */
+    void rebuild();
+
+    /**
+     * 获取键数、店铺数、查询次数、增量更新和重建次数等指标。
+     */
+    Map<String, Object> metrics();
+}
@@ -1,12 +1,48 @@
 package com.example.backend.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.example.backend.dto.OrderTotalDriftDTO;
 import com.example.backend.entity.OrderDetail;
 
+import java.util.List;
+
 /**
  * @author zhouhaoran
  * @date 2024/3/28
  * @project Backend
  */
 public interface IOrderDetailService extends IService<OrderDetail> {
+
+    /**
+     * 添加订单详情，并按该行金额增量调整订单总价。
+     *
+     * @param orderDetail 已定价的订单详情
+     * @throws com.example.backend.exception.BusinessException 订单已不在已创建状态时抛出，事务回滚
+     */
+    void addLine(OrderDetail orderDetail);
+
+    /**
+     * 用新的订单详情替换原有的一行，并按两行金额之差调整订单总价。
+     *
+     * @param existing 数据库中原有的订单详情
+     * @param updated 已定价的新订单详情
+     * @throws com.example.backend.exception.BusinessException 该行在读取后已被并发修改或删除时抛出409，事务回滚
+     */
+    void replaceLine(OrderDetail existing, OrderDetail updated);
+
+    /**
+     * 删除订单详情，并从订单总价中扣除该行金额。
+     *
+     * @param existing 数据库中原有的订单详情
+     * @throws com.example.backend.exception.BusinessException 该行在读取后已被并发修改时抛出409
+     */
+    void removeLine(OrderDetail existing);
+
+    /**
+     * 核对所有已创建订单的总价与订单详情合计。
+     *
+     * @param repair 为true时用订单详情合计修正不一致的订单
+     * @return 不一致的订单列表（修正前的值）
+     */
+    List<OrderTotalDriftDTO> checkTotals(boolean repair);
 }
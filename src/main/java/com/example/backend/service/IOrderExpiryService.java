@@ -0,0 +1,25 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Order;
+
+import java.util.Map;
+
+/**
+ * 未确认订单超时取消服务。
+ * 已创建的订单在时间轮中登记到期时间，到期后成批取消并释放占用的优惠券，不轮询订单表。
+ */
+public interface IOrderExpiryService {
+
+    /**
+     * 登记一个已创建的订单，超时未确认时自动取消。
+     * 订单在到期前被确认或取消不需要注销，到期处理只会取消仍处于已创建状态的订单。
+     *
+     * @param order 已创建的订单
+     */
+    void track(Order order);
+
+    /**
+     * 获取等待到期的订单数、已自动取消的订单数和失败批次数。
+     */
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,22 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Order;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单关系图加载服务。
+ * 将一批订单连同下单用户、订单详情及详情对应的菜单项一次性装配成响应所需的Map结构，
+ * 查询次数固定，不随订单数量增长。
+ */
+public interface IOrderGraphService {
+
+    /**
+     * 批量装配订单关系图。
+     *
+     * @param orders 需要装配的订单列表，返回结果保持该列表的顺序。
+     * @return 每个订单对应一个Map，包含订单字段、userInfo以及带menuItemInfo的orderDetails。
+     */
+    List<Map<String, Object>> loadOrderGraphs(List<Order> orders);
+}
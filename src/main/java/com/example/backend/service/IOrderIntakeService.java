@@ -0,0 +1,22 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.BatchOrderDTO;
+import com.example.backend.entity.Order;
+
+import java.util.List;
+
+/**
+ * 批量下单服务，供收银终端一次同步一个班次的订单。
+ */
+public interface IOrderIntakeService {
+
+    /**
+     * 在一个事务中批量创建订单及其订单详情。
+     * 菜品一次性查出后在内存中定价，订单和订单详情分别以批量INSERT写入。
+     *
+     * @param batch 订单列表
+     * @return 已创建的订单，顺序与请求一致，包含生成的订单ID和总价
+     * @throws com.example.backend.exception.BusinessException 菜品不存在、规格无效或库存不足时抛出，整批回滚
+     */
+    List<Order> createOrders(List<BatchOrderDTO> batch);
+}
@@ -1,12 +1,21 @@
 package com.example.backend.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.example.backend.dto.OrderCursor;
+import com.example.backend.dto.OrderPageDTO;
 import com.example.backend.entity.Order;
 
+import java.util.function.Consumer;
+
 /**
  * @author zhouhaoran
  * @date 2024/3/28
  * @project Backend
  */
 public interface IOrderService extends IService<Order> {
+    OrderPageDTO listPage(Integer userId, OrderCursor cursor, int size);
+
+    void streamOrders(Integer userId, Consumer<Order> consumer);
+
+    boolean removeUnheld(Integer orderId);
 }
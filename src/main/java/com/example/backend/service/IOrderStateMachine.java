@@ -0,0 +1,59 @@
+package com.example.backend.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderEvent;
+import com.example.backend.entity.OrderStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 订单状态机。
+ * 按事件查找转换表，每次转换都是一条 UPDATE orders SET status=? WHERE order_id=? AND status=? 语句，
+ * 不需要事先读取订单，也不会与并发请求互相覆盖。
+ */
+public interface IOrderStateMachine {
+
+    /**
+     * 触发订单事件。
+     *
+     * @param orderId 订单ID
+     * @param event 事件
+     * @return 转换前的状态
+     * @throws com.example.backend.exception.BusinessException 订单不存在（404）、当前状态不允许该事件（400）
+     *         或状态持续被并发修改、重试后仍未成功（409）
+     */
+    OrderStatus fire(Integer orderId, OrderEvent event);
+
+    /**
+     * 触发订单事件，并在同一条UPDATE语句中设置其他字段。
+     *
+     * @param orderId 订单ID
+     * @param event 事件
+     * @param extraSets 追加到UPDATE语句中的SET子句，例如总价、下单时间
+     * @return 转换前的状态
+     */
+    OrderStatus fire(Integer orderId, OrderEvent event, Consumer<LambdaUpdateWrapper<Order>> extraSets);
+
+    /**
+     * 对一批订单触发同一个事件，整批是一条 UPDATE ... WHERE order_id IN (...) AND status=? 语句。
+     * 只支持只有一个原状态的事件；已不在原状态的订单不受影响，也不计为CAS冲突。
+     *
+     * @param orderIds 订单ID
+     * @param event 事件
+     * @return 实际完成转换的订单数
+     */
+    int fireBatch(Collection<Integer> orderIds, OrderEvent event);
+
+    /**
+     * 判断某状态下是否允许该事件。
+     */
+    boolean canFire(OrderStatus from, OrderEvent event);
+
+    /**
+     * 获取每种转换的成功次数、每个事件的CAS冲突次数和被拒绝次数。
+     */
+    Map<String, Object> metrics();
+}
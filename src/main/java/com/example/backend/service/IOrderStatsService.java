@@ -0,0 +1,47 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.OrderStatus;
+
+import java.util.Map;
+
+/**
+ * 订单状态计数服务。
+ * 在内存中按OrderStatus维护分段计数器，由订单的每次状态变化增量更新，
+ * 并定期用 GROUP BY status 查询与数据库对账，统计接口无需扫描订单表。
+ */
+public interface IOrderStatsService {
+
+    /**
+     * 记录新建订单。
+     *
+     * @param status 新订单的状态
+     * @param count 新建的订单数量
+     */
+    void recordCreated(OrderStatus status, long count);
+
+    /**
+     * 记录订单状态变化。在事务中调用时，计数会在事务提交后才生效。
+     *
+     * @param from 原状态
+     * @param to 新状态
+     * @param count 发生该变化的订单数量
+     */
+    void recordTransition(OrderStatus from, OrderStatus to, long count);
+
+    /**
+     * 记录订单被删除。
+     *
+     * @param status 被删除订单的状态
+     */
+    void recordRemoved(OrderStatus status);
+
+    /**
+     * 立即与数据库对账，以 GROUP BY status 的结果校正计数器并记录偏差。
+     */
+    void reconcile();
+
+    /**
+     * 获取当前统计信息：各状态订单数、订单总数以及最近一次对账的偏差。
+     */
+    Map<String, Object> snapshot();
+}
@@ -0,0 +1,25 @@
+package com.example.backend.service;
+
+import java.util.Map;
+
+/**
+ * 已注册手机号的布隆过滤器。
+ * 注册时先查过滤器，判定不存在的手机号跳过数据库计数查询，最终以users.phone的唯一约束为准。
+ */
+public interface IPhoneFilterService {
+
+    /**
+     * 手机号是否可能已注册。返回false时一定未注册。
+     */
+    boolean mightBeRegistered(String phone);
+
+    /**
+     * 记录一个已注册的手机号。
+     */
+    void markRegistered(String phone);
+
+    /**
+     * 获取过滤器大小、哈希函数个数、已加载数量、跳过和执行计数查询的次数以及当前估算误判率。
+     */
+    Map<String, Object> metrics();
+}
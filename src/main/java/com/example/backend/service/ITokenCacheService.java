@@ -0,0 +1,46 @@
+package com.example.backend.service;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 已验证令牌缓存。
+ * 以令牌摘要为键缓存验签并加载用户之后得到的Authentication，直到令牌过期，
+ * 命中时既不重新验签也不查询用户表。
+ */
+public interface ITokenCacheService {
+
+    /**
+     * 获取令牌对应的认证信息，未缓存或令牌已过期返回null。
+     * 条目记录的令牌版本与用户当前版本不一致时删除该条目并返回null，
+     * 避免缓存写入晚于吊销时被吊销的令牌继续通过认证。
+     *
+     * @param currentVersion 按用户ID查询当前令牌版本，只做内存查找
+     */
+    Authentication get(String token, ToIntFunction<Integer> currentVersion);
+
+    /**
+     * 缓存令牌对应的认证信息。
+     *
+     * @param token 原始令牌
+     * @param phone 令牌所属用户的手机号，用于按用户失效
+     * @param userId 令牌中的用户ID，旧令牌没有用户ID时为null，命中时不比较版本
+     * @param version 令牌中的令牌版本
+     * @param expiration 令牌过期时间
+     * @param authentication 认证信息
+     */
+    void put(String token, String phone, Integer userId, Integer version, Date expiration, Authentication authentication);
+
+    /**
+     * 使某个用户的所有缓存令牌失效，在用户密码或角色变化时调用。
+     */
+    void invalidateUser(String phone);
+
+    /**
+     * 获取命中次数、未命中次数、命中率和当前缓存数量。
+     */
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,29 @@
+package com.example.backend.service;
+
+import java.util.Map;
+
+/**
+ * 令牌版本表。
+ * 令牌中携带签发时用户的令牌版本，认证时与内存中的当前版本比较，不一致说明用户已修改密码或角色，令牌被吊销。
+ */
+public interface ITokenVersionService {
+
+    /**
+     * 获取用户当前的令牌版本，不查询数据库。
+     */
+    int currentVersion(Integer userId);
+
+    /**
+     * 将用户的令牌版本加一，使该用户已签发的令牌全部失效。
+     *
+     * @param userId 用户ID
+     * @param phone 用户手机号，用于清除已验证令牌缓存
+     * @return 新的令牌版本
+     */
+    int bump(Integer userId, String phone);
+
+    /**
+     * 获取内存中记录的版本数和最近一次从数据库刷新的时间。
+     */
+    Map<String, Object> metrics();
+}
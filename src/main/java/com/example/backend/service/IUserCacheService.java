@@ -0,0 +1,47 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 用户缓存，同时按用户ID和手机号索引。
+ * 写入和读取都做防御性拷贝，调用方修改返回的对象不会影响缓存；
+ * 用户信息变化时由写入方回写或失效。
+ */
+public interface IUserCacheService {
+
+    /**
+     * 按用户ID获取用户，未命中时调用loader加载并缓存。
+     */
+    User getById(Integer userId, Supplier<User> loader);
+
+    /**
+     * 按手机号获取用户，未命中时调用loader加载并缓存。
+     */
+    User getByPhone(String phone, Supplier<User> loader);
+
+    /**
+     * 批量按用户ID获取用户，未命中的ID一次交给loader加载。
+     */
+    Map<Integer, User> getByIds(Collection<Integer> userIds, Function<Collection<Integer>, List<User>> loader);
+
+    /**
+     * 用户写入数据库之后回写缓存，user必须包含完整字段。
+     */
+    void put(User user);
+
+    /**
+     * 使用户缓存失效；处于事务中时在提交后再失效一次，避免并发读取把提交前的旧值放回缓存。
+     */
+    void invalidate(Integer userId);
+
+    /**
+     * 获取命中、未命中、淘汰次数和当前缓存数量。
+     */
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,30 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 批量导入用户服务。
+ * 按行流式读取CSV（姓名,手机号,密码），在专用的ForkJoin线程池上并行计算密码哈希，
+ * 在内存中对手机号去重，分批写入数据库。
+ */
+public interface IUserImportService {
+
+    /**
+     * 导入一个CSV文件。同一时间只允许一个导入任务。
+     * 首行第二列为phone时视为表头；密码列已是BCrypt哈希时直接保存，不再哈希。
+     *
+     * @param csv UTF-8编码的CSV输入流，读取完毕后关闭
+     * @return 导入结果统计
+     * @throws com.example.backend.exception.BusinessException 已有导入任务在进行时抛出409
+     */
+    UserImportResultDTO importCsv(InputStream csv) throws IOException;
+
+    /**
+     * 获取当前或最近一次导入的进度，以及哈希线程数等指标。
+     */
+    Map<String, Object> metrics();
+}
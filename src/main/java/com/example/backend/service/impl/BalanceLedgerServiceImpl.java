@@ -0,0 +1,397 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.LedgerBacklogDTO;
+import com.example.backend.dto.UserBalanceDTO;
+import com.example.backend.entity.BalanceChangeType;
+import com.example.backend.entity.BalanceLedger;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.mapper.BalanceLedgerMapper;
+import com.example.backend.mapper.OrderMapper;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.IBalanceLedgerService;
+import com.example.backend.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 余额流水服务实现。
+ * <p>
+ * 每次写流水先以SELECT ... FOR UPDATE锁住用户行，锁由数据库持有到事务结束，
+ * 同一用户的写入和结算因此串行，多个实例或直接写库时同样成立。扣款和冻结的透支检查由条件插入完成：
+ * 只有users.balance加未结算流水之和足以承担时才写入流水，检查不依赖缓存。
+ * <p>
+ * 加锁顺序固定为订单行、用户行、菜品行，调用方在扣减或退还库存之前完成余额操作，避免互相等待。
+ * <p>
+ * 缓存只用于读取：写入的事务结束后删除该用户的缓存余额，不在事务中的读取才会把加载结果放入缓存。
+ * 填充和删除在同一把分段锁内进行，提交前加载的旧值不会在删除之后再被放回。
+ * 其他实例的写入不会删除本实例的缓存，由缓存存活时间限制读到旧值的时长。
+ * <p>
+ * 预授权冻结时写一条负数流水并记录到users.held_balance和orders.held_amount，
+ * 确认时由orders.held_amount上的条件更新保证同一笔冻结只被转为支付或释放一次，
+ * 冻结金额恰好等于实付金额时不需要检查余额也不再写流水。
+ */
+@Service
+public class BalanceLedgerServiceImpl implements IBalanceLedgerService {
+    private static final Logger log = LoggerFactory.getLogger(BalanceLedgerServiceImpl.class);
+
+    @Value("${balance.ledger.lock-stripes:1024}")
+    private int lockStripes;
+    @Value("${balance.ledger.cache-max-entries:100000}")
+    private int cacheMaxEntries;
+    @Value("${balance.ledger.cache-ttl-ms:60000}")
+    private long cacheTtlMs;
+    @Value("${balance.ledger.compaction-min-rows:20}")
+    private int compactionMinRows;
+
+    @Autowired
+    private BalanceLedgerMapper balanceLedgerMapper;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    private ReentrantLock[] locks;
+    private LruCache<Integer, BigDecimal> balances;
+    private final Map<Integer, AtomicInteger> unsettled = new ConcurrentHashMap<>();
+
+    private final LongAdder credits = new LongAdder();
+    private final LongAdder debits = new LongAdder();
+    private final LongAdder overdraftRejections = new LongAdder();
+    private final LongAdder holds = new LongAdder();
+    private final LongAdder captures = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder settledUsers = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        locks = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        balances = new LruCache<>(cacheMaxEntries, cacheTtlMs);
+    }
+
+    /**
+     * 启动完成后恢复待结算用户列表，数据库不可用时只记录警告，新写入的流水仍会被记录。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBacklog() {
+        try {
+            for (LedgerBacklogDTO backlog : balanceLedgerMapper.selectBacklog()) {
+                unsettled.computeIfAbsent(backlog.getUserId(), id -> new AtomicInteger())
+                        .addAndGet(backlog.getPendingRows());
+            }
+        } catch (RuntimeException e) {
+            log.warn("加载待结算余额流水失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public BigDecimal balanceOf(Integer userId) {
+        BigDecimal cached = balances.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 事务中可能读到本事务未提交的流水，不放入缓存
+            return balanceLedgerMapper.selectBalance(userId);
+        }
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            BigDecimal balance = balances.get(userId);
+            if (balance == null) {
+                balance = balanceLedgerMapper.selectBalance(userId);
+                if (balance != null) {
+                    balances.put(userId, balance);
+                }
+            }
+            return balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, BigDecimal> balancesOf(Collection<Integer> userIds) {
+        Map<Integer, BigDecimal> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer userId : userIds) {
+            BigDecimal cached = balances.get(userId);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // 批量读取的结果不放入缓存
+            for (UserBalanceDTO row : balanceLedgerMapper.selectBalances(missing)) {
+                result.put(row.getUserId(), row.getBalance());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void credit(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId) {
+        requirePositive(amount);
+        if (!lockUser(userId)) {
+            throw new BusinessException(HttpStatus.NOT_FOUND, "用户不存在");
+        }
+        append(userId, amount, type, orderId);
+        credits.increment();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean debit(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId) {
+        requirePositive(amount);
+        if (!lockUser(userId) || !appendIfCovered(userId, amount.negate(), type, orderId)) {
+            overdraftRejections.increment();
+            return false;
+        }
+        debits.increment();
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean hold(Integer userId, Integer orderId, BigDecimal amount) {
+        requirePositive(amount);
+        // 先锁订单行：只有已创建且未冻结过的订单能记录冻结金额，重复冻结在这里被拒绝
+        if (orderMapper.placeHold(orderId, amount) == 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "订单状态不允许冻结或已冻结");
+        }
+        requireUser(userId);
+        if (!appendIfCovered(userId, amount.negate(), BalanceChangeType.HOLD, orderId)) {
+            orderMapper.clearHold(orderId, amount);
+            overdraftRejections.increment();
+            return false;
+        }
+        addHeldBalance(userId, amount);
+        holds.increment();
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean capture(Integer userId, Integer orderId, BigDecimal held, BigDecimal payable) {
+        requirePositive(held);
+        requireUser(userId);
+        if (orderMapper.clearHold(orderId, held) == 0) {
+            throw new BusinessException(HttpStatus.CONFLICT, "订单冻结金额已变化，请重试");
+        }
+        addHeldBalance(userId, held.negate());
+        int diff = held.compareTo(payable);
+        if (diff > 0) {
+            // 使用优惠券等导致实付少于冻结金额，退回差额
+            append(userId, held.subtract(payable), BalanceChangeType.HOLD_RELEASE, orderId);
+        } else if (diff < 0) {
+            // 冻结后又加了菜品，余额足够时补扣差额
+            if (!appendIfCovered(userId, held.subtract(payable), BalanceChangeType.ORDER_PAYMENT, orderId)) {
+                overdraftRejections.increment();
+                return false;
+            }
+        }
+        captures.increment();
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean release(Integer userId, Integer orderId, BigDecimal held) {
+        requirePositive(held);
+        requireUser(userId);
+        if (orderMapper.clearHold(orderId, held) == 0) {
+            return false;
+        }
+        addHeldBalance(userId, held.negate());
+        append(userId, held, BalanceChangeType.HOLD_RELEASE, orderId);
+        releases.increment();
+        return true;
+    }
+
+    /**
+     * 定期结算流水，避免每次加载余额时累加的流水条数无限增长。
+     */
+    @Scheduled(fixedDelayString = "${balance.ledger.compaction-interval-ms:60000}",
+            initialDelayString = "${balance.ledger.compaction-interval-ms:60000}")
+    public void scheduledCompact() {
+        try {
+            int settled = compact();
+            if (settled > 0) {
+                log.info("结算余额流水：{}个用户", settled);
+            }
+        } catch (RuntimeException e) {
+            log.warn("结算余额流水失败，将在下次定时任务重试: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int compact() {
+        int settled = 0;
+        for (Map.Entry<Integer, AtomicInteger> entry : unsettled.entrySet()) {
+            AtomicInteger counter = entry.getValue();
+            // 先记下条数再查询最大流水ID，之后追加的流水在upTo之上，其条数留在计数中
+            int pending = counter.get();
+            if (pending < compactionMinRows) {
+                continue;
+            }
+            Integer userId = entry.getKey();
+            // 结算语句更新用户行，会等待持有该行锁的写入提交，水位线条件保证多个实例重复结算无害
+            Long upTo = balanceLedgerMapper.selectMaxLedgerId(userId);
+            if (upTo != null) {
+                userMapper.settleLedger(userId, upTo);
+            }
+            counter.addAndGet(-pending);
+            // 与追加流水时的compute在同一个键上互斥，计数归零后才移除
+            unsettled.computeIfPresent(userId, (id, c) -> c.get() <= 0 ? null : c);
+            settled++;
+        }
+        settledUsers.add(settled);
+        return settled;
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("credits", credits.sum());
+        metrics.put("debits", debits.sum());
+        metrics.put("overdraftRejections", overdraftRejections.sum());
+        metrics.put("holds", holds.sum());
+        metrics.put("captures", captures.sum());
+        metrics.put("releases", releases.sum());
+        metrics.put("rollbacks", rollbacks.sum());
+        metrics.put("settledUsers", settledUsers.sum());
+        metrics.put("usersPendingSettlement", unsettled.size());
+        metrics.put("cachedBalances", balances.size());
+        metrics.put("cacheEvictions", balances.evictions());
+        return metrics;
+    }
+
+    private void append(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId) {
+        balanceLedgerMapper.insert(entry(userId, amount, type, orderId));
+        appended(userId);
+    }
+
+    /**
+     * 余额足以承担时追加扣款流水，amount为负。
+     */
+    private boolean appendIfCovered(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId) {
+        if (balanceLedgerMapper.insertIfCovered(entry(userId, amount, type, orderId)) == 0) {
+            return false;
+        }
+        appended(userId);
+        return true;
+    }
+
+    private static BalanceLedger entry(Integer userId, BigDecimal amount, BalanceChangeType type, Integer orderId) {
+        BalanceLedger entry = new BalanceLedger();
+        entry.setUserId(userId);
+        entry.setAmount(amount);
+        entry.setType(type.toString());
+        entry.setOrderId(orderId);
+        entry.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        return entry;
+    }
+
+    /**
+     * 记录待结算流水，并在事务结束后删除该用户的缓存余额。
+     */
+    private void appended(Integer userId) {
+        unsettled.compute(userId, (id, counter) -> {
+            AtomicInteger pending = counter != null ? counter : new AtomicInteger();
+            pending.incrementAndGet();
+            return pending;
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    rollbacks.increment();
+                }
+                evict(userId);
+            }
+        });
+    }
+
+    private void evict(Integer userId) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            balances.remove(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 锁住用户行直到事务结束。
+     *
+     * @return 用户不存在时返回false
+     */
+    private boolean lockUser(Integer userId) {
+        return userMapper.lockForBalance(userId) != null;
+    }
+
+    /**
+     * 锁住用户行，用户不存在时抛出异常使事务回滚。
+     */
+    private void requireUser(Integer userId) {
+        if (!lockUser(userId)) {
+            throw new BusinessException(HttpStatus.NOT_FOUND, "用户不存在");
+        }
+    }
+
+    /**
+     * 调整users.held_balance，使其始终等于该用户所有订单的orders.held_amount之和。
+     * 条件更新不成功说明两者已不一致，抛出异常使事务回滚，不在不一致的基础上继续修改。
+     */
+    private void addHeldBalance(Integer userId, BigDecimal delta) {
+        if (userMapper.addHeldBalance(userId, delta) == 0) {
+            log.error("用户{}的冻结金额与订单冻结金额不一致，调整{}失败", userId, delta);
+            throw new BusinessException(HttpStatus.INTERNAL_SERVER_ERROR, "冻结金额不一致，请联系管理员");
+        }
+    }
+
+    private ReentrantLock lockFor(Integer userId) {
+        return locks[Math.floorMod(userId.hashCode(), locks.length)];
+    }
+
+    private static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "金额必须大于0");
+        }
+    }
+}
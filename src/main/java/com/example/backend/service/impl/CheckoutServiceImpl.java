@@ -0,0 +1,204 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.OrderAmountDTO;
+import com.example.backend.entity.BalanceChangeType;
+import com.example.backend.entity.Coupon;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderEvent;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.entity.UserCoupon;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.mapper.MenuItemMapper;
+import com.example.backend.mapper.OrderDetailMapper;
+import com.example.backend.mapper.OrderMapper;
+import com.example.backend.mapper.UserCouponMapper;
+import com.example.backend.service.IBalanceLedgerService;
+import com.example.backend.service.ICheckoutService;
+import com.example.backend.service.ICouponService;
+import com.example.backend.service.IOrderStateMachine;
+import com.example.backend.service.IOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * 订单结算服务实现。
+ * 状态切换交给订单状态机完成，不事先读取订单；库存依赖UPDATE语句中的条件 size_stock >= 数量，
+ * 余额由余额流水服务以条件插入检查透支，预先冻结的资金在确认时直接转为支付。
+ * 各操作按订单行、用户行、菜品行的顺序加锁：先切换订单状态，再处理余额，最后扣减或退还库存。
+ * 任一条件不满足时抛出BusinessException，整个事务回滚。
+ */
+@Service
+public class CheckoutServiceImpl implements ICheckoutService {
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private ICouponService couponService;
+    @Autowired
+    private IOrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private MenuItemMapper menuItemMapper;
+    @Autowired
+    private UserCouponMapper userCouponMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private IBalanceLedgerService balanceLedgerService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Order hold(Integer orderId) {
+        Order order = orderService.getById(orderId);
+        if (order == null) {
+            throw new BusinessException(HttpStatus.NOT_FOUND, "订单未找到");
+        }
+        BigDecimal total = orderDetailMapper.sumByOrder(orderId).getTotal();
+        if (total == null || total.signum() <= 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "订单金额为0，无需冻结");
+        }
+        // 订单状态和是否已冻结由冻结金额的条件更新检查
+        if (!balanceLedgerService.hold(order.getUserId(), orderId, total)) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "用户余额不足");
+        }
+        order.setHeldAmount(total);
+        return order;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Order confirm(Integer orderId, Integer userCouponId) {
+        // 一次查询得到订单原价和涉及的不同菜品数量
+        OrderAmountDTO amount = orderDetailMapper.sumByOrder(orderId);
+        BigDecimal totalOrderPrice = amount.getTotal();
+
+        // 如果提供了优惠券ID，则校验优惠券并以条件更新占用它
+        BigDecimal discount = BigDecimal.ZERO;
+        if (userCouponId != null) {
+            discount = claimCoupon(userCouponId, orderId, totalOrderPrice);
+        }
+        BigDecimal newTotalPrice = totalOrderPrice.subtract(discount).max(BigDecimal.ZERO);
+
+        // 状态从已创建改为进行中，同一条语句写入实付金额和下单时间，只有一个并发请求能成功
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        orderStateMachine.fire(orderId, OrderEvent.CONFIRM, update -> update
+                .set(Order::getTotalPrice, newTotalPrice)
+                .set(Order::getOrderTime, now));
+
+        // 已冻结资金时把冻结转为支付，否则锁住用户行后以条件插入追加支付流水，须在扣减库存之前
+        Order order = orderService.getById(orderId);
+        BigDecimal held = order.getHeldAmount();
+        boolean paid;
+        if (held != null && held.signum() > 0) {
+            paid = balanceLedgerService.capture(order.getUserId(), orderId, held, newTotalPrice);
+            order.setHeldAmount(BigDecimal.ZERO);
+        } else {
+            paid = newTotalPrice.signum() <= 0
+                    || balanceLedgerService.debit(order.getUserId(), newTotalPrice, BalanceChangeType.ORDER_PAYMENT, orderId);
+        }
+        if (!paid) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "用户余额不足");
+        }
+
+        // 一条语句扣减全部菜品库存，受影响行数少于菜品数说明有菜品库存不足
+        if (amount.getItemCount() > 0 && menuItemMapper.deductStockByOrder(orderId) < amount.getItemCount()) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "库存不足");
+        }
+        return order;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Order cancel(Integer orderId) {
+        OrderStatus from = orderStateMachine.fire(orderId, OrderEvent.CANCEL);
+        Order order = orderService.getById(orderId);
+        if (from == OrderStatus.IN_PROGRESS) {
+            // 进行中的订单已扣过库存和余额，需要补偿
+            compensate(order);
+        } else {
+            // 已创建的订单尚未扣款扣库存，只需释放可能占用的优惠券和冻结资金
+            userCouponMapper.releaseByOrder(orderId);
+            releaseHold(order);
+        }
+        return order;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Order refund(Integer orderId) {
+        orderStateMachine.fire(orderId, OrderEvent.REFUND);
+        Order order = orderService.getById(orderId);
+        compensate(order);
+        return order;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int expire(Collection<Integer> orderIds) {
+        int cancelled = orderStateMachine.fireBatch(orderIds, OrderEvent.EXPIRE);
+        if (cancelled > 0) {
+            // 已创建的订单尚未扣款扣库存，只需释放优惠券和冻结资金
+            userCouponMapper.releaseByCancelledOrders(orderIds);
+            for (Order order : orderMapper.selectCancelledWithHold(orderIds)) {
+                releaseHold(order);
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * 退回订单的冻结资金。
+     */
+    private void releaseHold(Order order) {
+        if (order.getHeldAmount() != null && order.getHeldAmount().signum() > 0
+                && balanceLedgerService.release(order.getUserId(), order.getOrderId(), order.getHeldAmount())) {
+            order.setHeldAmount(BigDecimal.ZERO);
+        }
+    }
+
+    /**
+     * 按订单实付金额退还余额、退还库存并释放优惠券。先退余额后退库存，与确认订单的加锁顺序一致。
+     */
+    private void compensate(Order order) {
+        if (order.getTotalPrice() != null && order.getTotalPrice().signum() > 0) {
+            balanceLedgerService.credit(order.getUserId(), order.getTotalPrice(), BalanceChangeType.ORDER_REFUND, order.getOrderId());
+        }
+        menuItemMapper.restoreStockByOrder(order.getOrderId());
+        userCouponMapper.releaseByOrder(order.getOrderId());
+    }
+
+    /**
+     * 校验用户优惠券并以条件更新将其占用到订单上。
+     *
+     * @return 优惠券折扣金额
+     */
+    private BigDecimal claimCoupon(Integer userCouponId, Integer orderId, BigDecimal totalOrderPrice) {
+        UserCoupon userCoupon = userCouponMapper.selectById(userCouponId);
+        if (userCoupon == null || userCoupon.getIsUsed()) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "无效的用户优惠券");
+        }
+
+        Coupon coupon = couponService.getById(userCoupon.getCouponId());
+        if (coupon == null || !coupon.getIsActive() || coupon.getExpirationDate().before(new Date())) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "无效或过期的优惠券");
+        }
+
+        // 检查订单总价是否满足优惠券的最低消费金额
+        if (coupon.getMinPurchase() != null && totalOrderPrice.compareTo(coupon.getMinPurchase()) < 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "订单总价未达到优惠券的最低消费金额");
+        }
+
+        // 只有未使用且属于下单用户的优惠券才能被占用
+        if (userCouponMapper.claimForOrder(userCouponId, orderId) == 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "无效的用户优惠券");
+        }
+        return coupon.getDiscount();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.service.IIdempotencyService;
+import com.example.backend.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键服务实现。
+ * 已完成的结果保存在有容量上限、按时间过期的LRU缓存中；正在处理的请求登记在in-flight表中，
+ * 重复请求通过CompletableFuture等待第一次请求的结果。
+ * 5xx、409和429结果不缓存，客户端可以用同一个幂等键重试。
+ */
+@Service
+public class IdempotencyServiceImpl implements IIdempotencyService {
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+    @Value("${idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+    @Value("${idempotency.wait-ms:10000}")
+    private long waitMs;
+
+    private LruCache<String, ResponseEntity<?>> completed;
+    private final Map<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        completed = new LruCache<>(maxEntries, ttlMs);
+    }
+
+    @Override
+    public ResponseEntity<?> execute(String idempotencyKey, String principal, String operation,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null || idempotencyKey.trim().isEmpty()) {
+            return action.get();
+        }
+        String key = principal + "|" + operation + "|" + idempotencyKey.trim();
+
+        ResponseEntity<?> cached = completed.get(key);
+        if (cached != null) {
+            replayed.increment();
+            return cached;
+        }
+
+        CompletableFuture<ResponseEntity<?>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            joined.increment();
+            return await(existing);
+        }
+
+        try {
+            // 登记in-flight之前，上一个请求可能刚好完成并写入缓存
+            ResponseEntity<?> result = completed.get(key);
+            if (result == null) {
+                executed.increment();
+                result = action.get();
+                if (isReplayable(result.getStatusCode())) {
+                    completed.put(key, result);
+                }
+            }
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 每分钟清理过期的结果，避免长时间不被访问的条目占用容量。
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        completed.evictExpired();
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("executed", executed.sum());
+        metrics.put("replayed", replayed.sum());
+        metrics.put("joined", joined.sum());
+        metrics.put("waitTimeouts", waitTimeouts.sum());
+        metrics.put("cachedResults", completed.size());
+        metrics.put("inFlight", inFlight.size());
+        return metrics;
+    }
+
+    /**
+     * 判断结果是否可以缓存并重放。
+     * 5xx、409（并发冲突）和429（限流）都是暂时性的失败，缓存后同一个幂等键在有效期内将永远无法成功。
+     *
+     * @param status 响应状态码
+     * @return 可以缓存时返回true
+     */
+    private static boolean isReplayable(HttpStatus status) {
+        return !status.is5xxServerError()
+                && status != HttpStatus.CONFLICT
+                && status != HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> future) {
+        try {
+            return future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            waitTimeouts.increment();
+            return conflict("相同幂等键的请求正在处理中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return conflict("相同幂等键的请求正在处理中，请稍后重试");
+        } catch (ExecutionException e) {
+            // 第一次请求因异常失败，没有可复用的结果
+            return conflict("相同幂等键的请求处理失败，请重试");
+        }
+    }
+
+    private static ResponseEntity<?> conflict(String message) {
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("status", HttpStatus.CONFLICT.value() + " " + HttpStatus.CONFLICT.getReasonPhrase());
+        responseBody.put("message", message);
+        responseBody.put("data", null);
+        return new ResponseEntity<>(responseBody, HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.service.IKitchenFeedService;
+import com.example.backend.service.IOrderGraphService;
+import com.example.backend.service.IOrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 店铺后厨订单推送服务实现。
+ * 每个店铺的进行中订单索引只在首次订阅时从数据库加载一次，之后完全由订单状态变化增量维护，
+ * 无论有多少平板在线，都不会再因为刷新而查询数据库。
+ * 事件ID形如 "纪元:序号"，纪元在服务启动时生成，用于识别服务重启后失效的续传令牌。
+ * 每个连接有自己的待发送队列，同一时刻至多一个线程在向它发送，发送线程数有上限；
+ * 积压过多或单次发送超时的连接会被断开并释放线程，客户端凭最后的事件ID重连后补发或重新获取快照。
+ */
+@Service
+public class KitchenFeedServiceImpl implements IKitchenFeedService {
+    private static final Logger log = LoggerFactory.getLogger(KitchenFeedServiceImpl.class);
+
+    private static final String EVENT_SNAPSHOT = "snapshot";
+    private static final String EVENT_ORDER_ADDED = "order-added";
+    private static final String EVENT_ORDER_COMPLETED = "order-completed";
+    private static final String EVENT_ORDER_CANCELLED = "order-cancelled";
+    private static final String EVENT_ORDER_UPDATED = "order-updated";
+    private static final String EVENT_ORDER_REMOVED = "order-removed";
+
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private IOrderGraphService orderGraphService;
+
+    @Value("${kitchen.feed.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+    @Value("${kitchen.feed.replay-buffer-size:512}")
+    private int replayBufferSize;
+    @Value("${kitchen.feed.max-pending-events:256}")
+    private int maxPendingEvents;
+    @Value("${kitchen.feed.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    @Value("${kitchen.feed.sender-threads:32}")
+    private int senderThreadCount;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Integer, StoreFeed> feeds = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor sender;
+
+    /**
+     * 创建发送线程池。每个连接同一时刻至多有一个发送任务，所以排队的任务数不超过连接数；
+     * 线程都阻塞在慢连接上时，其余连接的任务排队等待，直到心跳把发送超时的连接断开。
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        sender = new ThreadPoolExecutor(senderThreadCount, senderThreadCount, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "kitchen-feed-sender-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public SseEmitter subscribe(Integer storeId, String resumeToken) {
+        StoreFeed feed = loadedFeed(storeId);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(feed, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        synchronized (feed) {
+            List<FeedEvent> missed = feed.eventsAfter(parseSequence(resumeToken));
+            if (missed != null) {
+                // 续传：只补发断线期间的事件
+                for (FeedEvent event : missed) {
+                    subscriber.offer(event.toSse());
+                }
+            } else {
+                // 无法续传：推送当前进行中订单的快照，事件ID即为新的续传令牌
+                List<Map<String, Object>> orders = new ArrayList<>(feed.inProgress.values());
+                subscriber.offer(SseEmitter.event().id(token(feed.sequence)).name(EVENT_SNAPSHOT).data(orders));
+            }
+            // 在锁内入队并注册，保证快照之后的事件不会遗漏，也不会排到快照之前
+            feed.subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void orderAdded(Order order) {
+        upsert(order);
+    }
+
+    @Override
+    public void orderCompleted(Order order) {
+        removeAndPublish(order.getStoreId(), order, EVENT_ORDER_COMPLETED);
+    }
+
+    @Override
+    public void orderCancelled(Order order) {
+        removeAndPublish(order.getStoreId(), order, EVENT_ORDER_CANCELLED);
+    }
+
+    @Override
+    public void orderUpdated(Order order, Integer previousStoreId) {
+        if (previousStoreId != null && !previousStoreId.equals(order.getStoreId())) {
+            removeAndPublish(previousStoreId, order, EVENT_ORDER_REMOVED);
+        }
+        String status = order.getStatus();
+        if (OrderStatus.IN_PROGRESS.toString().equals(status)) {
+            upsert(order);
+        } else if (OrderStatus.COMPLETED.toString().equals(status)) {
+            removeAndPublish(order.getStoreId(), order, EVENT_ORDER_COMPLETED);
+        } else if (OrderStatus.CANCELLED.toString().equals(status)) {
+            removeAndPublish(order.getStoreId(), order, EVENT_ORDER_CANCELLED);
+        } else {
+            removeAndPublish(order.getStoreId(), order, EVENT_ORDER_REMOVED);
+        }
+    }
+
+    @Override
+    public void orderDeleted(Order order) {
+        removeAndPublish(order.getStoreId(), order, EVENT_ORDER_REMOVED);
+    }
+
+    /**
+     * 定期发送SSE注释行作为心跳，防止代理因空闲断开连接；单次发送超过超时时间仍未完成的连接被断开。
+     */
+    @Scheduled(fixedDelayString = "${kitchen.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (StoreFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                if (subscriber.stalled(now)) {
+                    subscriber.drop("单次发送超过" + sendTimeoutMs + "毫秒");
+                } else {
+                    subscriber.offer(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (StoreFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                if (subscriber.close()) {
+                    subscriber.emitter.complete();
+                }
+            }
+        }
+    }
+
+    /**
+     * 把进行中的订单放入店铺索引并推送，已在索引中时推送 order-updated。
+     */
+    private void upsert(Order order) {
+        StoreFeed feed = feeds.get(order.getStoreId());
+        if (feed == null) {
+            return; // 该店铺尚无订阅者，首次订阅时会从数据库加载
+        }
+        Long removedBefore;
+        synchronized (feed) {
+            removedBefore = feed.removedAt.get(order.getOrderId());
+        }
+        // 数据库读取和关系图加载都在锁外进行，不阻塞同一店铺的其他事件和新订阅
+        Order current = orderService.getById(order.getOrderId());
+        if (current == null || !OrderStatus.IN_PROGRESS.toString().equals(current.getStatus())
+                || !order.getStoreId().equals(current.getStoreId())) {
+            return;
+        }
+        List<Map<String, Object>> graphs = orderGraphService.loadOrderGraphs(Collections.singletonList(order));
+        Map<String, Object> graph = graphs.get(0);
+        synchronized (feed) {
+            // 读取之后订单可能已被完成或取消并移出索引，此时放回去会留下一个永远不会移除的订单
+            if (!Objects.equals(feed.removedAt.get(order.getOrderId()), removedBefore)) {
+                return;
+            }
+            boolean present = feed.inProgress.put(order.getOrderId(), graph) != null;
+            publish(feed, present ? EVENT_ORDER_UPDATED : EVENT_ORDER_ADDED, graph);
+        }
+    }
+
+    private void removeAndPublish(Integer storeId, Order order, String eventName) {
+        StoreFeed feed = feeds.get(storeId);
+        if (feed == null) {
+            return;
+        }
+        synchronized (feed) {
+            feed.removedAt.put(order.getOrderId(), ++feed.removals);
+            if (feed.inProgress.remove(order.getOrderId()) == null) {
+                return; // 不在进行中索引里（如取消的是已创建订单），后厨无需关心
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("orderId", order.getOrderId());
+            data.put("status", order.getStatus());
+            publish(feed, eventName, data);
+        }
+    }
+
+    /**
+     * 生成下一个事件，写入续传缓冲区并放入每个订阅者的发送队列。调用方必须持有feed锁。
+     */
+    private void publish(StoreFeed feed, String name, Object data) {
+        FeedEvent event = new FeedEvent(++feed.sequence, name, data);
+        feed.recent.addLast(event);
+        while (feed.recent.size() > replayBufferSize) {
+            feed.recent.removeFirst();
+        }
+        for (Subscriber subscriber : feed.subscribers) {
+            subscriber.offer(event.toSse());
+        }
+    }
+
+    /**
+     * 获取店铺的推送状态，首次访问时从数据库加载进行中订单作为初始索引。
+     */
+    private StoreFeed loadedFeed(Integer storeId) {
+        StoreFeed feed = feeds.computeIfAbsent(storeId, id -> new StoreFeed(id, replayBufferSize));
+        synchronized (feed) {
+            if (!feed.loaded) {
+                List<Order> orders = orderService.lambdaQuery()
+                        .eq(Order::getStoreId, storeId)
+                        .eq(Order::getStatus, OrderStatus.IN_PROGRESS.toString())
+                        .list();
+                for (Map<String, Object> graph : orderGraphService.loadOrderGraphs(orders)) {
+                    feed.inProgress.put((Integer) graph.get("orderId"), graph);
+                }
+                feed.loaded = true;
+                log.info("店铺{}后厨推送索引已加载，进行中订单{}个", storeId, feed.inProgress.size());
+            }
+        }
+        return feed;
+    }
+
+    private String token(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    /**
+     * 解析续传令牌中的序号，令牌为空、格式错误或来自上一次启动时返回-1。
+     */
+    private long parseSequence(String resumeToken) {
+        if (resumeToken == null) {
+            return -1;
+        }
+        int separator = resumeToken.indexOf(':');
+        if (separator < 0 || !epoch.equals(resumeToken.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(resumeToken.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 单个店铺的推送状态，所有字段都在对象锁内访问（subscribers除外）。
+     */
+    private static class StoreFeed {
+        private final Integer storeId;
+        private final Map<Integer, Map<String, Object>> inProgress = new LinkedHashMap<>();
+        private final ArrayDeque<FeedEvent> recent = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final Map<Integer, Long> removedAt; // 最近被移除的订单及其移除序号，upsert据此判断锁外读取期间订单是否被移除
+        private long sequence;
+        private long removals;
+        private boolean loaded;
+
+        private StoreFeed(Integer storeId, int maxRemovedEntries) {
+            this.storeId = storeId;
+            this.removedAt = new LinkedHashMap<Integer, Long>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                    return size() > maxRemovedEntries;
+                }
+            };
+        }
+
+        /**
+         * 返回序号大于lastSequence的缓冲事件；如果令牌无效或缓冲区已不包含所需事件则返回null。
+         */
+        private List<FeedEvent> eventsAfter(long lastSequence) {
+            if (lastSequence < 0 || lastSequence > sequence) {
+                return null;
+            }
+            long oldestRetained = recent.isEmpty() ? sequence + 1 : recent.peekFirst().sequence;
+            if (lastSequence + 1 < oldestRetained) {
+                return null;
+            }
+            List<FeedEvent> missed = new ArrayList<>();
+            for (FeedEvent event : recent) {
+                if (event.sequence > lastSequence) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    /**
+     * 一个SSE连接及其待发送队列。入队不阻塞；队列非空时由一个发送任务按顺序发完，发送任务在sender线程池中运行。
+     */
+    private class Subscriber {
+        private final StoreFeed feed;
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        private volatile long sendingSince; // 当前这次发送的开始时间，没有在发送时为0
+
+        private Subscriber(StoreFeed feed, SseEmitter emitter) {
+            this.feed = feed;
+            this.emitter = emitter;
+        }
+
+        /**
+         * 放入发送队列，积压超过上限时断开连接。
+         */
+        private void offer(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() < maxPendingEvents) {
+                    pending.addLast(event);
+                    if (!draining) {
+                        draining = true;
+                        try {
+                            sender.execute(this::drain);
+                        } catch (RejectedExecutionException e) {
+                            draining = false; // 服务正在关闭
+                        }
+                    }
+                    return;
+                }
+            }
+            drop("积压超过" + maxPendingEvents + "个事件");
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = pending.pollFirst();
+                    if (next == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                    sendingSince = System.currentTimeMillis();
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开，移除连接
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    if (close()) {
+                        emitter.completeWithError(e);
+                    }
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        private boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutMs;
+        }
+
+        /**
+         * 断开发送过慢的连接。阻塞中的写操作由容器的写超时结束，此后该连接不再收到任何事件。
+         */
+        private void drop(String reason) {
+            if (close()) {
+                log.warn("店铺{}的后厨推送连接{}，已断开，客户端可凭最后的事件ID重连", feed.storeId, reason);
+                emitter.complete();
+            }
+        }
+
+        /**
+         * 标记关闭并从店铺移除，返回false表示之前已经关闭。
+         */
+        private boolean close() {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                pending.clear();
+            }
+            feed.subscribers.remove(this);
+            return true;
+        }
+    }
+
+    private class FeedEvent {
+        private final long sequence;
+        private final String name;
+        private final Object data;
+
+        private FeedEvent(long sequence, String name, Object data) {
+            this.sequence = sequence;
+            this.name = name;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(token(sequence)).name(name).data(data);
+        }
+    }
+}
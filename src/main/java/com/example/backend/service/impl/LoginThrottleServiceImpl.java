@@ -0,0 +1,64 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.service.ILoginThrottleService;
+import com.example.backend.util.SlidingWindowCounter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 登录限流实现。
+ * 先检查IP再检查手机号，两个计数器各自容量固定，撞库时大量不同的手机号只会淘汰计数最少的键。
+ */
+@Service
+public class LoginThrottleServiceImpl implements ILoginThrottleService {
+
+    @Value("${login.throttle.capacity:262144}")
+    private int capacity;
+    @Value("${login.throttle.stripes:64}")
+    private int stripes;
+    @Value("${login.throttle.window-ms:60000}")
+    private long windowMs;
+    @Value("${login.throttle.phone-limit:10}")
+    private int phoneLimit;
+    @Value("${login.throttle.ip-limit:100}")
+    private int ipLimit;
+
+    private SlidingWindowCounter byPhone;
+    private SlidingWindowCounter byIp;
+
+    @PostConstruct
+    public void init() {
+        byPhone = new SlidingWindowCounter(capacity, stripes, phoneLimit, windowMs);
+        byIp = new SlidingWindowCounter(capacity, stripes, ipLimit, windowMs);
+    }
+
+    @Override
+    public boolean tryAcquire(String phone, String clientIp) {
+        long now = System.currentTimeMillis();
+        return byIp.tryAcquire(clientIp == null ? "" : clientIp, now)
+                && byPhone.tryAcquire(phone == null ? "" : phone, now);
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("windowMs", windowMs);
+        metrics.put("phone", counterMetrics(byPhone, phoneLimit));
+        metrics.put("ip", counterMetrics(byIp, ipLimit));
+        return metrics;
+    }
+
+    private Map<String, Object> counterMetrics(SlidingWindowCounter counter, int limit) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("limit", limit);
+        metrics.put("capacity", counter.capacity());
+        metrics.put("allowed", counter.getAllowed());
+        metrics.put("rejected", counter.getRejected());
+        metrics.put("evictions", counter.getEvictions());
+        return metrics;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.MenuCatalog;
+import com.example.backend.entity.MenuItem;
+import com.example.backend.mapper.MenuItemMapper;
+import com.example.backend.service.IMenuCatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 菜单目录服务实现。
+ * 当前快照保存在volatile字段中，读取只是一次引用读取；所有写入在同一把锁内基于当前快照构造新快照再替换，
+ * 写入之间不会互相覆盖。首次读取时若启动加载尚未完成（或数据库当时不可用），在锁内同步加载一次。
+ */
+@Service
+public class MenuCatalogServiceImpl implements IMenuCatalogService {
+    private static final Logger log = LoggerFactory.getLogger(MenuCatalogServiceImpl.class);
+
+    @Autowired
+    private MenuItemMapper menuItemMapper;
+
+    private volatile MenuCatalog catalog;
+    private final Object writeLock = new Object();
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder incrementalUpdates = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder unchangedRefreshes = new LongAdder();
+
+    /**
+     * 启动完成后加载菜单，数据库不可用时只记录警告，首次读取时再加载。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            MenuCatalog loaded = refresh();
+            log.info("已加载菜单目录：{}个菜品，{}个店铺", loaded.getItems().size(), loaded.getStoreCount());
+        } catch (RuntimeException e) {
+            log.warn("加载菜单目录失败，将在首次读取时重试: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public MenuCatalog current() {
+        reads.increment();
+        MenuCatalog snapshot = catalog;
+        if (snapshot == null) {
+            synchronized (writeLock) {
+                snapshot = catalog;
+                if (snapshot == null) {
+                    snapshot = reload();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void itemChanged(Integer itemId) {
+        if (itemId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 未提交的修改不能进入快照，回滚时快照保持不变
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(itemId);
+                }
+            });
+        } else {
+            apply(itemId);
+        }
+    }
+
+    /**
+     * 定期全量刷新，使快照中的库存和绕过服务写入的菜品保持最新。
+     */
+    @Scheduled(fixedDelayString = "${menu.catalog.refresh-interval-ms:30000}",
+            initialDelayString = "${menu.catalog.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("刷新菜单目录失败，继续使用旧快照: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public MenuCatalog refresh() {
+        synchronized (writeLock) {
+            return reload();
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        MenuCatalog snapshot = catalog;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", snapshot != null);
+        metrics.put("version", snapshot != null ? snapshot.getVersion() : 0);
+        metrics.put("items", snapshot != null ? snapshot.getItems().size() : 0);
+        metrics.put("stores", snapshot != null ? snapshot.getStoreCount() : 0);
+        metrics.put("searchTerms", snapshot != null ? snapshot.getIndex().getTermCount() : 0);
+        metrics.put("searchPostings", snapshot != null ? snapshot.getIndex().getEntryCount() : 0);
+        metrics.put("snapshotAgeMs", snapshot != null ? System.currentTimeMillis() - snapshot.getBuiltAt() : 0);
+        metrics.put("reads", reads.sum());
+        metrics.put("incrementalUpdates", incrementalUpdates.sum());
+        metrics.put("refreshes", refreshes.sum());
+        metrics.put("unchangedRefreshes", unchangedRefreshes.sum());
+        return metrics;
+    }
+
+    /**
+     * 持有写锁时全量加载；内容与当前快照相同时保留当前快照和版本号。
+     */
+    private MenuCatalog reload() {
+        List<MenuItem> items = menuItemMapper.selectList(null);
+        MenuCatalog base = catalog;
+        // 首个版本取当前毫秒时间戳，重启后的版本号大于重启前客户端持有的版本号
+        MenuCatalog next = base != null ? new MenuCatalog(base.getVersion() + 1, items, base)
+                : new MenuCatalog(System.currentTimeMillis(), items);
+        refreshes.increment();
+        if (base != null && base.getItems().equals(next.getItems())) {
+            unchangedRefreshes.increment();
+            return base;
+        }
+        catalog = next;
+        return next;
+    }
+
+    /**
+     * 重新读取一个菜品，以写时复制的方式换入新快照。
+     */
+    private void apply(Integer itemId) {
+        MenuItem fresh = menuItemMapper.selectById(itemId);
+        synchronized (writeLock) {
+            MenuCatalog base = catalog;
+            if (base == null) {
+                reload(); // 尚未加载过，全量加载即包含本次修改
+                return;
+            }
+            long nextVersion = base.getVersion() + 1;
+            catalog = fresh != null ? base.with(nextVersion, fresh) : base.without(nextVersion, itemId);
+            incrementalUpdates.increment();
+        }
+    }
+}
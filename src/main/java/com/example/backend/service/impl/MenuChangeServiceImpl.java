@@ -0,0 +1,171 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.MenuCatalog;
+import com.example.backend.dto.MenuChangesDTO;
+import com.example.backend.entity.MenuItem;
+import com.example.backend.service.IMenuCatalogService;
+import com.example.backend.service.IMenuChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 菜单变更日志实现。
+ * 与菜名联想一样在读取时跟上菜单目录：对比上次见到的快照和当前快照中店铺版本有变化的店铺，
+ * 两边的菜品都按ID排序，一次归并即可找出新增、修改和删除。日志和上次见到的快照都在同一把锁内读写。
+ */
+@Service
+public class MenuChangeServiceImpl implements IMenuChangeService {
+    @Value("${menu.changes.max-per-store:500}")
+    private int maxPerStore;
+
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+
+    private final Object lock = new Object();
+    private MenuCatalog seen;
+    private final Map<Integer, StoreLog> logs = new HashMap<>();
+
+    private final LongAdder deltaResponses = new LongAdder();
+    private final LongAdder fullResponses = new LongAdder();
+
+    @Override
+    public MenuChangesDTO changesSince(Integer storeId, Long since) {
+        MenuCatalog catalog = menuCatalogService.current();
+        synchronized (lock) {
+            sync(catalog);
+            long version = seen.getStoreVersion(storeId);
+            StoreLog log = logs.get(storeId);
+            long floor = log != null ? log.floor : version; // 没有日志的店铺只知道当前版本
+            if (since == null || since < floor || since > version) {
+                fullResponses.increment();
+                return new MenuChangesDTO(storeId, version, true, seen.getStoreItems(storeId), Collections.emptyList());
+            }
+            List<MenuItem> items = new ArrayList<>();
+            List<Integer> deleted = new ArrayList<>();
+            if (log != null && since < version) {
+                for (Change change : log.changes.values()) {
+                    if (change.version <= since) {
+                        continue;
+                    }
+                    if (change.deleted) {
+                        deleted.add(change.itemId);
+                    } else {
+                        items.add(seen.getItem(change.itemId));
+                    }
+                }
+            }
+            deltaResponses.increment();
+            return new MenuChangesDTO(storeId, version, false, items, deleted);
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (lock) {
+            long entries = 0;
+            for (StoreLog log : logs.values()) {
+                entries += log.changes.size();
+            }
+            metrics.put("catalogVersion", seen != null ? seen.getVersion() : 0);
+            metrics.put("stores", logs.size());
+            metrics.put("entries", entries);
+        }
+        metrics.put("maxPerStore", maxPerStore);
+        metrics.put("deltaResponses", deltaResponses.sum());
+        metrics.put("fullResponses", fullResponses.sum());
+        return metrics;
+    }
+
+    /**
+     * 持有锁时把当前快照与上次见到的快照之间的变化记入日志。
+     */
+    private void sync(MenuCatalog catalog) {
+        if (seen == null) {
+            seen = catalog;
+            return;
+        }
+        if (catalog.getVersion() <= seen.getVersion()) {
+            return;
+        }
+        for (Integer storeId : catalog.getStoreIds()) {
+            long version = catalog.getStoreVersion(storeId);
+            long before = seen.getStoreVersion(storeId);
+            if (version != before) {
+                StoreLog log = logs.computeIfAbsent(storeId, id -> new StoreLog(before));
+                diff(seen.getStoreItems(storeId), catalog.getStoreItems(storeId), version, log);
+            }
+        }
+        seen = catalog;
+    }
+
+    /**
+     * 归并两个按ID排序的菜品列表，记录新增、修改和删除。
+     */
+    private void diff(List<MenuItem> before, List<MenuItem> after, long version, StoreLog log) {
+        int i = 0;
+        int j = 0;
+        while (i < before.size() || j < after.size()) {
+            MenuItem old = i < before.size() ? before.get(i) : null;
+            MenuItem fresh = j < after.size() ? after.get(j) : null;
+            int cmp = old == null ? 1 : fresh == null ? -1 : old.getItemId().compareTo(fresh.getItemId());
+            if (cmp < 0) {
+                log.record(old.getItemId(), version, true);
+                i++;
+            } else if (cmp > 0) {
+                log.record(fresh.getItemId(), version, false);
+                j++;
+            } else {
+                if (!old.equals(fresh)) {
+                    log.record(fresh.getItemId(), version, false);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static final class Change {
+        final int itemId;
+        final long version;
+        final boolean deleted;
+
+        Change(int itemId, long version, boolean deleted) {
+            this.itemId = itemId;
+            this.version = version;
+            this.deleted = deleted;
+        }
+    }
+
+    /**
+     * 一个店铺的日志，按版本从旧到新排列，每个菜品只保留最近一次变化。
+     */
+    private final class StoreLog {
+        final LinkedHashMap<Integer, Change> changes = new LinkedHashMap<>();
+        long floor; // 日志覆盖 (floor, 当前版本]
+
+        StoreLog(long floor) {
+            this.floor = floor;
+        }
+
+        void record(int itemId, long version, boolean deleted) {
+            changes.remove(itemId); // 重新插入到末尾，保持按版本排序
+            changes.put(itemId, new Change(itemId, version, deleted));
+            Iterator<Change> oldest = changes.values().iterator();
+            while (changes.size() > maxPerStore) {
+                floor = Math.max(floor, oldest.next().version);
+                oldest.remove();
+            }
+        }
+    }
+}
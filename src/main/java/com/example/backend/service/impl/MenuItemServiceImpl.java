@@ -3,9 +3,13 @@ package com.example.backend.service.impl;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.entity.MenuItem;
 import com.example.backend.mapper.MenuItemMapper;
+import com.example.backend.service.IMenuCatalogService;
 import com.example.backend.service.IMenuItemService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+
 /**
  * @author zhouhaoran
  * @date 2024/3/28
@@ -13,4 +17,42 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class MenuItemServiceImpl extends ServiceImpl<MenuItemMapper, MenuItem> implements IMenuItemService {
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+
+    /**
+     * 新增菜品，提交后换入菜单目录。
+     */
+    @Override
+    public boolean save(MenuItem entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            menuCatalogService.itemChanged(entity.getItemId());
+        }
+        return saved;
+    }
+
+    /**
+     * 修改菜品，提交后以数据库中的完整记录换入菜单目录。
+     */
+    @Override
+    public boolean updateById(MenuItem entity) {
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            menuCatalogService.itemChanged(entity.getItemId());
+        }
+        return updated;
+    }
+
+    /**
+     * 删除菜品，提交后从菜单目录移除。
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed && id instanceof Number) {
+            menuCatalogService.itemChanged(((Number) id).intValue());
+        }
+        return removed;
+    }
 }
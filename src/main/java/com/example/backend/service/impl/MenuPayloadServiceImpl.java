@@ -0,0 +1,110 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.MenuCatalog;
+import com.example.backend.dto.MenuPayload;
+import com.example.backend.entity.MenuItem;
+import com.example.backend.service.IMenuCatalogService;
+import com.example.backend.service.IMenuPayloadService;
+import com.example.backend.util.Hashing;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 店铺菜单响应缓存实现。
+ * 响应体与控制器createResponse的结构相同（status、message、data），用Spring配置的ObjectMapper序列化，日期格式与其他接口一致。
+ * 没有菜品的店铺不缓存，避免随意的店铺ID占用内存。
+ */
+@Service
+public class MenuPayloadServiceImpl implements IMenuPayloadService {
+    private static final int GZIP_MIN_BYTES = 1024; // 小于此大小的响应不压缩
+
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<Integer, MenuPayload> payloads = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder serializations = new LongAdder();
+
+    @Override
+    public MenuPayload storeMenu(Integer storeId) {
+        MenuCatalog catalog = menuCatalogService.current();
+        long version = catalog.getStoreVersion(storeId);
+        MenuPayload cached = payloads.get(storeId);
+        if (cached != null && cached.getVersion() == version) {
+            hits.increment();
+            return cached;
+        }
+        List<MenuItem> items = catalog.getStoreItems(storeId);
+        MenuPayload payload = serialize(version, items);
+        if (items.isEmpty()) {
+            payloads.remove(storeId);
+        } else {
+            // 持有旧快照的并发请求不能用旧版本覆盖新版本
+            payloads.merge(storeId, payload, (old, fresh) -> fresh.getVersion() >= old.getVersion() ? fresh : old);
+        }
+        return payload;
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long bytes = 0;
+        long gzippedBytes = 0;
+        for (MenuPayload payload : payloads.values()) {
+            bytes += payload.getBody().length;
+            gzippedBytes += payload.getGzipped() != null ? payload.getGzipped().length : 0;
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stores", payloads.size());
+        metrics.put("bytes", bytes);
+        metrics.put("gzippedBytes", gzippedBytes);
+        metrics.put("hits", hits.sum());
+        metrics.put("serializations", serializations.sum());
+        return metrics;
+    }
+
+    private MenuPayload serialize(long version, List<MenuItem> items) {
+        Map<String, Object> responseBody = new LinkedHashMap<>();
+        responseBody.put("status", HttpStatus.OK.value() + " " + HttpStatus.OK.getReasonPhrase());
+        responseBody.put("message", "获取店铺菜单项成功");
+        responseBody.put("data", items);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(responseBody);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化店铺菜单失败", e);
+        }
+        serializations.increment();
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String hash = Long.toHexString(Hashing.hash64(json));
+        byte[] gzipped = body.length >= GZIP_MIN_BYTES ? gzip(body) : null;
+        return new MenuPayload(version, "\"" + hash + "\"", body,
+                gzipped != null ? "\"" + hash + "-gzip\"" : null, gzipped);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.ItemSalesDTO;
+import com.example.backend.dto.MenuCatalog;
+import com.example.backend.entity.MenuItem;
+import com.example.backend.mapper.OrderDetailMapper;
+import com.example.backend.service.IMenuCatalogService;
+import com.example.backend.service.IMenuSuggestService;
+import com.example.backend.util.Pinyin;
+import com.example.backend.util.SuggestTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntToLongFunction;
+
+/**
+ * 菜名联想服务实现。
+ * 全部店铺共用一棵前缀树，每个店铺另有一棵。当前状态保存在volatile字段中，查询时若菜单目录已有更新的快照，
+ * 在锁内对比新旧快照，只对新增、删除、改名或换店的菜品做路径复制的插入和删除；其他查询继续使用旧状态。
+ */
+@Service
+public class MenuSuggestServiceImpl implements IMenuSuggestService {
+    private static final Logger log = LoggerFactory.getLogger(MenuSuggestServiceImpl.class);
+
+    static final int MAX_SUGGESTIONS = 20; // 每个前缀预存的菜品数
+
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+
+    private volatile Suggestions suggestions;
+    private final Object writeLock = new Object();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder incrementalUpdates = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * 启动完成后构造前缀树，失败时只记录警告，首次查询时再构造。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("构造菜名联想失败，将在首次查询时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期重新统计销量并重建。
+     */
+    @Scheduled(fixedDelayString = "${menu.suggest.rebuild-interval-ms:600000}",
+            initialDelayString = "${menu.suggest.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("重建菜名联想失败，继续使用旧的前缀树: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<MenuItem> suggest(String prefix, Integer storeId, int limit) {
+        lookups.increment();
+        String key = Pinyin.normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        MenuCatalog catalog = menuCatalogService.current();
+        Suggestions current = suggestions;
+        if (current == null || current.catalog.getVersion() < catalog.getVersion()) {
+            current = sync(catalog);
+        }
+        SuggestTrie trie = storeId == null ? current.all : current.byStore.get(storeId);
+        if (trie == null) {
+            return Collections.emptyList();
+        }
+        int[] ids = trie.lookup(key);
+        List<MenuItem> items = new ArrayList<>(Math.min(limit, ids.length));
+        for (int i = 0; i < ids.length && items.size() < limit; i++) {
+            items.add(current.catalog.getItem(ids[i]));
+        }
+        return items;
+    }
+
+    @Override
+    public void rebuild() {
+        synchronized (writeLock) {
+            Map<Integer, Long> sales = new HashMap<>();
+            for (ItemSalesDTO row : orderDetailMapper.selectItemSales()) {
+                sales.put(row.getItemId(), row.getSold());
+            }
+            long start = System.currentTimeMillis();
+            Suggestions built = Suggestions.build(menuCatalogService.current(), sales);
+            suggestions = built;
+            rebuilds.increment();
+            log.info("已构造菜名联想：{}个键，{}个店铺，耗时{}ms", built.all.size(), built.byStore.size(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Suggestions current = suggestions;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", current != null);
+        metrics.put("catalogVersion", current != null ? current.catalog.getVersion() : 0);
+        metrics.put("keys", current != null ? current.all.size() : 0);
+        metrics.put("stores", current != null ? current.byStore.size() : 0);
+        metrics.put("salesAgeMs", current != null ? System.currentTimeMillis() - current.salesLoadedAt : 0);
+        metrics.put("lookups", lookups.sum());
+        metrics.put("incrementalUpdates", incrementalUpdates.sum());
+        metrics.put("rebuilds", rebuilds.sum());
+        return metrics;
+    }
+
+    /**
+     * 跟上菜单目录的新快照；没有构造过时整体构造。
+     */
+    private Suggestions sync(MenuCatalog catalog) {
+        Suggestions current = suggestions;
+        if (current == null) {
+            rebuild();
+            return suggestions;
+        }
+        synchronized (writeLock) {
+            current = suggestions;
+            if (current.catalog.getVersion() < catalog.getVersion()) {
+                current = current.update(catalog);
+                suggestions = current;
+                incrementalUpdates.increment();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 菜名的联想键：菜名本身、全拼和首字母。
+     */
+    static Set<String> keys(MenuItem item) {
+        Set<String> keys = new LinkedHashSet<>(4);
+        if (item.getName() != null) {
+            keys.add(Pinyin.normalize(item.getName()));
+            keys.add(Pinyin.full(item.getName()));
+            keys.add(Pinyin.initials(item.getName()));
+            keys.remove("");
+        }
+        return keys;
+    }
+
+    /**
+     * 某一版菜单目录对应的前缀树，不可变。
+     */
+    private static final class Suggestions {
+        final MenuCatalog catalog;
+        final SuggestTrie all;
+        final Map<Integer, SuggestTrie> byStore;
+        final Map<Integer, Long> sales;
+        final IntToLongFunction score;
+        final long salesLoadedAt;
+
+        Suggestions(MenuCatalog catalog, SuggestTrie all, Map<Integer, SuggestTrie> byStore,
+                    Map<Integer, Long> sales, long salesLoadedAt) {
+            this.catalog = catalog;
+            this.all = all;
+            this.byStore = byStore;
+            this.sales = sales;
+            this.score = id -> sales.getOrDefault(id, 0L);
+            this.salesLoadedAt = salesLoadedAt;
+        }
+
+        static Suggestions build(MenuCatalog catalog, Map<Integer, Long> sales) {
+            IntToLongFunction score = id -> sales.getOrDefault(id, 0L);
+            List<String> keys = new ArrayList<>();
+            List<Integer> ids = new ArrayList<>();
+            Map<Integer, List<String>> storeKeys = new HashMap<>();
+            Map<Integer, List<Integer>> storeIds = new HashMap<>();
+            for (MenuItem item : catalog.getItems()) {
+                for (String key : keys(item)) {
+                    keys.add(key);
+                    ids.add(item.getItemId());
+                    storeKeys.computeIfAbsent(item.getStoreId(), s -> new ArrayList<>()).add(key);
+                    storeIds.computeIfAbsent(item.getStoreId(), s -> new ArrayList<>()).add(item.getItemId());
+                }
+            }
+            Map<Integer, SuggestTrie> byStore = new HashMap<>(storeKeys.size() * 2);
+            for (Map.Entry<Integer, List<String>> entry : storeKeys.entrySet()) {
+                byStore.put(entry.getKey(), SuggestTrie.build(entry.getValue(), toArray(storeIds.get(entry.getKey())),
+                        MAX_SUGGESTIONS, score));
+            }
+            return new Suggestions(catalog, SuggestTrie.build(keys, toArray(ids), MAX_SUGGESTIONS, score),
+                    byStore, sales, System.currentTimeMillis());
+        }
+
+        /**
+         * 对比新旧快照，只更新名称或店铺有变化的菜品，新菜品按当前销量统计（通常为0）排序。
+         */
+        Suggestions update(MenuCatalog next) {
+            SuggestTrie nextAll = all;
+            Map<Integer, SuggestTrie> nextByStore = new HashMap<>(byStore);
+            for (MenuItem item : next.getItems()) {
+                MenuItem old = catalog.getItem(item.getItemId());
+                if (old == item || old != null && Objects.equals(old.getName(), item.getName())
+                        && Objects.equals(old.getStoreId(), item.getStoreId())) {
+                    continue;
+                }
+                if (old != null) {
+                    nextAll = remove(nextAll, nextByStore, old);
+                }
+                for (String key : keys(item)) {
+                    nextAll = nextAll.insert(key, item.getItemId());
+                    SuggestTrie store = nextByStore.get(item.getStoreId());
+                    nextByStore.put(item.getStoreId(), store != null ? store.insert(key, item.getItemId())
+                            : SuggestTrie.build(Collections.singletonList(key), new int[]{item.getItemId()},
+                            MAX_SUGGESTIONS, score));
+                }
+            }
+            for (MenuItem old : catalog.getItems()) {
+                if (next.getItem(old.getItemId()) == null) {
+                    nextAll = remove(nextAll, nextByStore, old);
+                }
+            }
+            return new Suggestions(next, nextAll, nextByStore, sales, salesLoadedAt);
+        }
+
+        private static SuggestTrie remove(SuggestTrie all, Map<Integer, SuggestTrie> byStore, MenuItem old) {
+            SuggestTrie store = byStore.get(old.getStoreId());
+            for (String key : keys(old)) {
+                all = all.remove(key, old.getItemId());
+                if (store != null) {
+                    store = store.remove(key, old.getItemId());
+                }
+            }
+            if (store != null) {
+                if (store.size() == 0) {
+                    byStore.remove(old.getStoreId());
+                } else {
+                    byStore.put(old.getStoreId(), store);
+                }
+            }
+            return all;
+        }
+
+        private static int[] toArray(List<Integer> ids) {
+            return ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.example.backend.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.backend.dto.OrderTotalDriftDTO;
 import com.example.backend.entity.OrderDetail;
+import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.OrderDetailMapper;
+import com.example.backend.mapper.OrderMapper;
 import com.example.backend.service.IOrderDetailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * @author zhouhaoran
@@ -13,4 +24,77 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class OrderDetailServiceImpl extends ServiceImpl<OrderDetailMapper,OrderDetail> implements IOrderDetailService {
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void addLine(OrderDetail orderDetail) {
+        save(orderDetail);
+        adjustTotal(orderDetail.getOrderId(), lineAmount(orderDetail));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void replaceLine(OrderDetail existing, OrderDetail updated) {
+        updated.setDetailId(existing.getDetailId());
+        updated.setOrderId(existing.getOrderId());
+        // existing在事务外读取，只有该行的单价和数量仍是读取时的值才写入，否则增量会按旧金额计算
+        boolean replaced = update(updated, new LambdaUpdateWrapper<OrderDetail>()
+                .eq(OrderDetail::getDetailId, existing.getDetailId())
+                .eq(OrderDetail::getOrderId, existing.getOrderId())
+                .eq(OrderDetail::getPrice, existing.getPrice())
+                .eq(OrderDetail::getQuantity, existing.getQuantity()));
+        if (!replaced) {
+            throw new BusinessException(HttpStatus.CONFLICT, "订单详情已被修改，请重试");
+        }
+        adjustTotal(existing.getOrderId(), lineAmount(updated).subtract(lineAmount(existing)));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void removeLine(OrderDetail existing) {
+        // 同样只删除单价和数量未被并发修改的行，扣除的金额与删除的行一致
+        boolean removed = remove(new LambdaQueryWrapper<OrderDetail>()
+                .eq(OrderDetail::getDetailId, existing.getDetailId())
+                .eq(OrderDetail::getPrice, existing.getPrice())
+                .eq(OrderDetail::getQuantity, existing.getQuantity()));
+        if (removed) {
+            adjustTotal(existing.getOrderId(), lineAmount(existing).negate());
+        } else if (getById(existing.getDetailId()) != null) {
+            throw new BusinessException(HttpStatus.CONFLICT, "订单详情已被修改，请重试");
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<OrderTotalDriftDTO> checkTotals(boolean repair) {
+        List<OrderTotalDriftDTO> drift = orderMapper.findTotalDrift();
+        if (repair) {
+            for (OrderTotalDriftDTO row : drift) {
+                orderMapper.repairTotalPrice(row.getOrderId());
+            }
+        }
+        return drift;
+    }
+
+    /**
+     * 以一条UPDATE语句把增量加到订单总价上。
+     * 订单在此期间已被确认或取消时更新不到任何行，抛出异常使订单详情的修改一起回滚。
+     */
+    private void adjustTotal(Integer orderId, BigDecimal delta) {
+        if (orderMapper.addTotalPrice(orderId, delta) == 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "订单状态不允许此操作");
+        }
+    }
+
+    /**
+     * 计算一行订单详情的金额（单价乘以数量）。
+     */
+    private static BigDecimal lineAmount(OrderDetail detail) {
+        if (detail.getPrice() == null || detail.getQuantity() == null) {
+            return BigDecimal.ZERO;
+        }
+        return detail.getPrice().multiply(new BigDecimal(detail.getQuantity()));
+    }
 }
@@ -0,0 +1,130 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.service.ICheckoutService;
+import com.example.backend.service.IOrderExpiryService;
+import com.example.backend.service.IOrderService;
+import com.example.backend.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 未确认订单超时取消服务实现。
+ * 时间轮最底层每格tickMs毫秒、每层60格，超时时间再长也只增加层数，登记和到期都是O(1)。
+ * 启动时从数据库中的已创建订单重建时间轮，已经超时的订单在第一次处理时立即取消。
+ * 到期的订单按batchSize分批，每批在一个事务中以集合更新取消并释放优惠券。
+ */
+@Service
+public class OrderExpiryServiceImpl implements IOrderExpiryService {
+    private static final Logger log = LoggerFactory.getLogger(OrderExpiryServiceImpl.class);
+
+    private static final int WHEEL_SIZE = 60;
+    private static final long RETRY_DELAY_MS = 60000; // 批次失败（如数据库不可用）后重试的间隔
+
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private ICheckoutService checkoutService;
+
+    @Value("${order.expiry.timeout-ms:900000}")
+    private long timeoutMs;
+    @Value("${order.expiry.tick-ms:1000}")
+    private long tickMs;
+    @Value("${order.expiry.batch-size:500}")
+    private int batchSize;
+
+    private TimingWheel<Integer> wheel;
+    private Thread worker;
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    @Override
+    public void track(Order order) {
+        long createdAt = order.getOrderTime() != null ? order.getOrderTime().getTime() : System.currentTimeMillis();
+        wheel.add(order.getOrderId(), createdAt + timeoutMs);
+    }
+
+    /**
+     * 启动完成后从数据库重建时间轮并启动到期处理线程。数据库不可用时只启动线程，之后新建的订单照常登记。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            List<Order> pending = orderService.lambdaQuery()
+                    .select(Order::getOrderId, Order::getOrderTime)
+                    .eq(Order::getStatus, OrderStatus.CREATED.toString())
+                    .list();
+            pending.forEach(this::track);
+            log.info("已从数据库恢复{}个待超时取消的订单", pending.size());
+        } catch (RuntimeException e) {
+            log.warn("重建订单超时时间轮失败，已有的未确认订单不会自动取消: {}", e.getMessage());
+        }
+
+        worker = new Thread(this::run, "order-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", wheel.size());
+        metrics.put("expired", expiredCount.sum());
+        metrics.put("failedBatches", failedBatches.sum());
+        metrics.put("timeoutMs", timeoutMs);
+        return metrics;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Integer> expired;
+            try {
+                expired = wheel.poll(tickMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (int from = 0; from < expired.size(); from += batchSize) {
+                expireBatch(expired.subList(from, Math.min(from + batchSize, expired.size())));
+            }
+        }
+    }
+
+    private void expireBatch(List<Integer> orderIds) {
+        try {
+            expiredCount.add(checkoutService.expire(orderIds));
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.warn("超时取消{}个订单失败，稍后重试: {}", orderIds.size(), e.getMessage());
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            for (Integer orderId : orderIds) {
+                wheel.add(orderId, retryAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.backend.entity.MenuItem;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.entity.User;
+import com.example.backend.mapper.MenuItemMapper;
+import com.example.backend.mapper.OrderDetailMapper;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.IBalanceLedgerService;
+import com.example.backend.service.IOrderGraphService;
+import com.example.backend.service.IUserCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 订单关系图加载服务实现。
+ * 无论订单数量多少，最多只执行四条集合查询：用户、用户当前余额、订单详情、菜单项各一次（IN列表），
+ * 用户和余额缓存命中时相应的查询会省略。
+ */
+@Service
+public class OrderGraphServiceImpl implements IOrderGraphService {
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private MenuItemMapper menuItemMapper;
+    @Autowired
+    private IUserCacheService userCacheService;
+    @Autowired
+    private IBalanceLedgerService balanceLedgerService;
+
+    @Override
+    public List<Map<String, Object>> loadOrderGraphs(List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 第一次查询：批量加载下单用户，用户缓存命中的不再查询
+        Set<Integer> userIds = collectIds(orders, Order::getUserId);
+        Map<Integer, User> users = userIds.isEmpty() ? Collections.emptyMap()
+                : userCacheService.getByIds(userIds, userMapper::selectBatchIds);
+        // users.balance只是已结算余额，展示时使用包含未结算流水的当前余额
+        Map<Integer, BigDecimal> balances = users.isEmpty() ? Collections.emptyMap()
+                : balanceLedgerService.balancesOf(users.keySet());
+
+        // 第二次查询：批量加载所有订单的详情，并按订单ID分组
+        Set<Integer> orderIds = collectIds(orders, Order::getOrderId);
+        List<OrderDetail> allDetails = orderIds.isEmpty() ? Collections.emptyList()
+                : orderDetailMapper.selectList(new QueryWrapper<OrderDetail>().in("order_id", orderIds));
+        Map<Integer, List<OrderDetail>> detailsByOrder = allDetails.stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+
+        // 第三次查询：批量加载详情涉及的菜单项
+        Set<Integer> itemIds = collectIds(allDetails, OrderDetail::getItemId);
+        Map<Integer, MenuItem> menuItems = itemIds.isEmpty() ? Collections.emptyMap()
+                : menuItemMapper.selectBatchIds(itemIds).stream()
+                .collect(Collectors.toMap(MenuItem::getItemId, Function.identity()));
+
+        // 在内存中按原有响应格式装配
+        return orders.stream().map(order -> {
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("orderId", order.getOrderId());
+            detail.put("userId", order.getUserId());
+            detail.put("storeId", order.getStoreId());
+            detail.put("status", order.getStatus());
+            detail.put("totalPrice", order.getTotalPrice());
+            detail.put("orderTime", order.getOrderTime());
+            detail.put("notes", order.getNotes());
+            detail.put("dineOption", order.getDineOption());
+            detail.put("updateTime", order.getUpdateTime());
+
+            User user = users.get(order.getUserId());
+            if (user != null) {
+                Map<String, Object> userInfo = new HashMap<>();
+                userInfo.put("userId", user.getUserId());
+                userInfo.put("name", user.getName());
+                userInfo.put("phone", user.getPhone());
+                userInfo.put("registrationDate", user.getRegistrationDate());
+                userInfo.put("balance", balances.getOrDefault(user.getUserId(), user.getBalance()));
+                userInfo.put("role", user.getRole());
+                detail.put("userInfo", userInfo);
+            }
+
+            List<OrderDetail> orderDetailsList = detailsByOrder.getOrDefault(order.getOrderId(), Collections.emptyList());
+            List<Map<String, Object>> orderDetailsInfo = orderDetailsList.stream().map(orderDetail -> {
+                Map<String, Object> detailInfo = new HashMap<>();
+                detailInfo.put("detailId", orderDetail.getDetailId());
+                detailInfo.put("orderId", orderDetail.getOrderId());
+                detailInfo.put("itemId", orderDetail.getItemId());
+                detailInfo.put("quantity", orderDetail.getQuantity());
+                detailInfo.put("price", orderDetail.getPrice());
+                detailInfo.put("size", orderDetail.getSize());
+                detailInfo.put("specialRequests", orderDetail.getSpecialRequests());
+
+                MenuItem menuItem = menuItems.get(orderDetail.getItemId());
+                if (menuItem != null) {
+                    Map<String, Object> menuItemInfo = new HashMap<>();
+                    menuItemInfo.put("itemId", menuItem.getItemId());
+                    menuItemInfo.put("storeId", menuItem.getStoreId());
+                    menuItemInfo.put("name", menuItem.getName());
+                    menuItemInfo.put("description", menuItem.getDescription());
+                    menuItemInfo.put("imageUrl", menuItem.getImageUrl());
+                    menuItemInfo.put("category", menuItem.getCategory());
+                    menuItemInfo.put("smallSizePrice", menuItem.getSmallSizePrice());
+                    menuItemInfo.put("largeSizePrice", menuItem.getLargeSizePrice());
+                    menuItemInfo.put("sizeStock", menuItem.getSizeStock());
+                    detailInfo.put("menuItemInfo", menuItemInfo);
+                }
+
+                return detailInfo;
+            }).collect(Collectors.toList());
+            detail.put("orderDetails", orderDetailsInfo);
+
+            return detail;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 收集去重后的非空ID，保持首次出现的顺序。
+     */
+    private <T> Set<Integer> collectIds(List<T> source, Function<T, Integer> idGetter) {
+        return source.stream()
+                .map(idGetter)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.BatchOrderDTO;
+import com.example.backend.entity.MenuItem;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.entity.Store;
+import com.example.backend.entity.User;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.service.IMenuItemService;
+import com.example.backend.service.IOrderDetailService;
+import com.example.backend.service.IOrderIntakeService;
+import com.example.backend.service.IOrderService;
+import com.example.backend.service.IOrderStatsService;
+import com.example.backend.service.IStoreService;
+import com.example.backend.service.IUserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 批量下单服务实现。
+ * 整批只查询一次菜单、一次用户和一次店铺，之后的校验和定价都在内存中完成；
+ * 写入使用saveBatch，配合MySQL连接参数rewriteBatchedStatements=true合并为多行INSERT。
+ */
+@Service
+public class OrderIntakeServiceImpl implements IOrderIntakeService {
+    private static final int INSERT_BATCH_SIZE = 1000; // 每批提交的行数
+
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private IOrderDetailService orderDetailService;
+    @Autowired
+    private IMenuItemService menuItemService;
+    @Autowired
+    private IOrderStatsService orderStatsService;
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private IStoreService storeService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Order> createOrders(List<BatchOrderDTO> batch) {
+        Map<Integer, MenuItem> menu = loadMenu(batch);
+        Set<Integer> userIds = existingUserIds(batch);
+        Set<Integer> storeIds = existingStoreIds(batch);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        // 在内存中校验用户和店铺，为每条订单详情定价并计算订单总价
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            BatchOrderDTO request = batch.get(i);
+            if (!userIds.contains(request.getUserId())) {
+                throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (i + 1) + "个订单的用户不存在");
+            }
+            if (!storeIds.contains(request.getStoreId())) {
+                throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (i + 1) + "个订单的店铺不存在");
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (OrderDetail detail : details(request)) {
+                total = total.add(price(i, request.getStoreId(), detail, menu));
+            }
+
+            Order order = new Order();
+            order.setUserId(request.getUserId());
+            order.setStoreId(request.getStoreId());
+            order.setNotes(request.getNotes());
+            order.setDineOption(request.getDineOption());
+            order.setStatus(OrderStatus.CREATED.toString());
+            order.setTotalPrice(total);
+            order.setUpdateTime(now);
+            orders.add(order);
+        }
+
+        // 先批量写入订单以取得生成的订单ID，再批量写入订单详情
+        orderService.saveBatch(orders, INSERT_BATCH_SIZE);
+        List<OrderDetail> allDetails = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Integer orderId = orders.get(i).getOrderId();
+            for (OrderDetail detail : details(batch.get(i))) {
+                detail.setDetailId(null);
+                detail.setOrderId(orderId);
+                allDetails.add(detail);
+            }
+        }
+        orderDetailService.saveBatch(allDetails, INSERT_BATCH_SIZE);
+
+        orderStatsService.recordCreated(OrderStatus.CREATED, orders.size());
+        return orders;
+    }
+
+    /**
+     * 一次查询出整批订单涉及的所有菜品。
+     */
+    private Map<Integer, MenuItem> loadMenu(List<BatchOrderDTO> batch) {
+        Set<Integer> itemIds = new HashSet<>();
+        for (BatchOrderDTO request : batch) {
+            for (OrderDetail detail : details(request)) {
+                itemIds.add(detail.getItemId());
+            }
+        }
+        itemIds.remove(null);
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return menuItemService.listByIds(itemIds).stream()
+                .collect(Collectors.toMap(MenuItem::getItemId, Function.identity()));
+    }
+
+    /**
+     * 一次查询出整批订单涉及的用户中实际存在的用户ID。
+     */
+    private Set<Integer> existingUserIds(List<BatchOrderDTO> batch) {
+        Set<Integer> ids = batch.stream().map(BatchOrderDTO::getUserId).collect(Collectors.toSet());
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        return userService.lambdaQuery().select(User::getUserId).in(User::getUserId, ids).list().stream()
+                .map(User::getUserId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 一次查询出整批订单涉及的店铺中实际存在的店铺ID。
+     */
+    private Set<Integer> existingStoreIds(List<BatchOrderDTO> batch) {
+        Set<Integer> ids = batch.stream().map(BatchOrderDTO::getStoreId).collect(Collectors.toSet());
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        return storeService.lambdaQuery().select(Store::getStoreId).in(Store::getStoreId, ids).list().stream()
+                .map(Store::getStoreId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 按菜品和规格设置订单详情的单价，返回该行金额。
+     * 校验规则与单条添加订单详情一致：菜品必须存在且属于订单的店铺、规格有效、库存不少于数量。
+     */
+    private BigDecimal price(int index, Integer storeId, OrderDetail detail, Map<Integer, MenuItem> menu) {
+        MenuItem item = menu.get(detail.getItemId());
+        if (item == null) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (index + 1) + "个订单中的菜品不存在");
+        }
+        if (!storeId.equals(item.getStoreId())) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (index + 1) + "个订单中的菜品不属于该店铺");
+        }
+        if (detail.getQuantity() == null || detail.getQuantity() <= 0) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (index + 1) + "个订单中的数量无效");
+        }
+        if (item.getSizeStock() == null || item.getSizeStock() < detail.getQuantity()) {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (index + 1) + "个订单中的菜品库存不足");
+        }
+
+        if ("小份".equals(detail.getSize())) {
+            detail.setPrice(item.getSmallSizePrice());
+        } else if ("大份".equals(detail.getSize())) {
+            detail.setPrice(item.getLargeSizePrice());
+        } else {
+            throw new BusinessException(HttpStatus.BAD_REQUEST, "第" + (index + 1) + "个订单中的规格无效");
+        }
+        return detail.getPrice().multiply(BigDecimal.valueOf(detail.getQuantity()));
+    }
+
+    private static List<OrderDetail> details(BatchOrderDTO request) {
+        return request.getDetails() == null ? Collections.emptyList() : request.getDetails();
+    }
+}
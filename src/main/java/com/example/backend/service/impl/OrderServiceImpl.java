@@ -1,10 +1,20 @@
 package com.example.backend.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.backend.dto.OrderCursor;
+import com.example.backend.dto.OrderPageDTO;
 import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.mapper.OrderDetailMapper;
 import com.example.backend.mapper.OrderMapper;
 import com.example.backend.service.IOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author zhouhaoran
@@ -13,4 +23,71 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements IOrderService {
+
+    /**
+     * 流式输出时每批读取的订单数。
+     */
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+
+    /**
+     * 按订单ID倒序进行键集分页查询。订单ID自增且不可修改，新订单排在最前，确认或修改订单不会让它在页之间移动。
+     * 多查一条用于判断是否还有下一页，避免额外的count查询。
+     *
+     * @param userId 只查询该用户的订单，为null时查询全部订单
+     * @param cursor 上一页返回的游标，为null时从第一页开始
+     * @param size 每页条数
+     * @return 当前页订单及下一页游标
+     */
+    @Override
+    public OrderPageDTO listPage(Integer userId, OrderCursor cursor, int size) {
+        List<Order> orders = lambdaQuery()
+                .eq(userId != null, Order::getUserId, userId)
+                .lt(cursor != null, Order::getOrderId, cursor == null ? null : cursor.getOrderId())
+                .orderByDesc(Order::getOrderId)
+                .last("LIMIT " + (size + 1))
+                .list();
+
+        String next = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            next = OrderCursor.encode(orders.get(size - 1));
+        }
+        return new OrderPageDTO(orders, next);
+    }
+
+    /**
+     * 按订单ID倒序逐批读取订单并交给consumer处理，内存中最多只有一批订单，与表大小无关。
+     * 每批是一次独立的键集查询，不依赖特定数据库驱动的流式结果集，也不会在输出期间一直占用连接。
+     *
+     * @param userId 只查询该用户的订单，为null时查询全部订单
+     * @param consumer 每读到一行订单时调用
+     */
+    @Override
+    public void streamOrders(Integer userId, Consumer<Order> consumer) {
+        OrderCursor cursor = null;
+        do {
+            OrderPageDTO page = listPage(userId, cursor, STREAM_BATCH_SIZE);
+            List<Order> orders = page.getOrders();
+            orders.forEach(consumer);
+            cursor = page.getNext() == null ? null : new OrderCursor(orders.get(orders.size() - 1).getOrderId());
+        } while (cursor != null);
+    }
+
+    /**
+     * 删除没有冻结资金的订单及其订单详情。先锁住订单行，删除期间订单不会被并发冻结资金。
+     *
+     * @return 订单不存在或冻结着资金时返回false，不删除任何数据
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeUnheld(Integer orderId) {
+        if (baseMapper.lockUnheld(orderId) == null) {
+            return false;
+        }
+        orderDetailMapper.delete(new LambdaQueryWrapper<OrderDetail>().eq(OrderDetail::getOrderId, orderId));
+        return removeById(orderId);
+    }
 }
@@ -0,0 +1,178 @@
+package com.example.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderEvent;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.mapper.OrderMapper;
+import com.example.backend.service.IOrderStateMachine;
+import com.example.backend.service.IOrderStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.backend.util.TransactionHooks.afterCommit;
+
+/**
+ * 订单状态机实现。
+ * 转换表以OrderEvent为键，值为按尝试顺序排列的“原状态 -> 新状态”。
+ * 一个事件有多个原状态时（如取消），依次尝试CAS，命中的原状态返回给调用方用于决定补偿动作。
+ * 全部CAS失败后读取一次订单：当前状态仍是该事件允许的原状态，说明状态在两次尝试之间被并发修改，记为冲突并重试；
+ * 否则是本就不允许的转换，记为拒绝。转换次数在事务提交后才计入，回滚的转换不计数。
+ */
+@Service
+public class OrderStateMachineImpl implements IOrderStateMachine {
+    private static final Map<OrderEvent, Map<OrderStatus, OrderStatus>> TRANSITIONS = new EnumMap<>(OrderEvent.class);
+
+    static {
+        transition(OrderEvent.CONFIRM, OrderStatus.CREATED, OrderStatus.IN_PROGRESS);
+        transition(OrderEvent.COMPLETE, OrderStatus.IN_PROGRESS, OrderStatus.COMPLETED);
+        transition(OrderEvent.CANCEL, OrderStatus.IN_PROGRESS, OrderStatus.CANCELLED);
+        transition(OrderEvent.CANCEL, OrderStatus.CREATED, OrderStatus.CANCELLED);
+        transition(OrderEvent.REFUND, OrderStatus.COMPLETED, OrderStatus.REFUNDED);
+        transition(OrderEvent.EXPIRE, OrderStatus.CREATED, OrderStatus.CANCELLED);
+    }
+
+    // 状态在两次尝试之间被并发修改时最多重试的轮数
+    private static final int MAX_CAS_ROUNDS = 3;
+
+    private static void transition(OrderEvent event, OrderStatus from, OrderStatus to) {
+        TRANSITIONS.computeIfAbsent(event, e -> new LinkedHashMap<>()).put(from, to);
+    }
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private IOrderStatsService orderStatsService;
+
+    // 每种转换的成功次数，键为 "原状态->新状态"
+    private final Map<String, LongAdder> transitionCounts = new LinkedHashMap<>();
+    // 每个事件因状态在两次尝试之间被并发修改而CAS失败的次数
+    private final Map<OrderEvent, LongAdder> conflictCounts = new EnumMap<>(OrderEvent.class);
+    // 每个事件因当前状态本就不允许而被拒绝的次数
+    private final Map<OrderEvent, LongAdder> rejectedCounts = new EnumMap<>(OrderEvent.class);
+
+    public OrderStateMachineImpl() {
+        TRANSITIONS.forEach((event, table) -> {
+            conflictCounts.put(event, new LongAdder());
+            rejectedCounts.put(event, new LongAdder());
+            table.forEach((from, to) -> transitionCounts.putIfAbsent(key(from, to), new LongAdder()));
+        });
+    }
+
+    @Override
+    public OrderStatus fire(Integer orderId, OrderEvent event) {
+        return fire(orderId, event, null);
+    }
+
+    @Override
+    public OrderStatus fire(Integer orderId, OrderEvent event, Consumer<LambdaUpdateWrapper<Order>> extraSets) {
+        Map<OrderStatus, OrderStatus> table = TRANSITIONS.get(event);
+        for (int round = 1; ; round++) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (Map.Entry<OrderStatus, OrderStatus> entry : table.entrySet()) {
+                OrderStatus from = entry.getKey();
+                OrderStatus to = entry.getValue();
+
+                LambdaUpdateWrapper<Order> update = Wrappers.<Order>lambdaUpdate()
+                        .set(Order::getStatus, to.toString())
+                        .set(Order::getUpdateTime, now)
+                        .eq(Order::getOrderId, orderId)
+                        .eq(Order::getStatus, from.toString());
+                if (extraSets != null) {
+                    extraSets.accept(update);
+                }
+                if (orderMapper.update(null, update) == 1) {
+                    afterCommit(() -> transitionCounts.get(key(from, to)).increment());
+                    orderStatsService.recordTransition(from, to, 1);
+                    return from;
+                }
+            }
+
+            // 只有在失败时才查询订单，用于区分404、并发修改和不允许的转换
+            Order current = orderMapper.selectById(orderId);
+            if (current == null) {
+                throw new BusinessException(HttpStatus.NOT_FOUND, "订单未找到");
+            }
+            if (!table.containsKey(parse(current.getStatus()))) {
+                rejectedCounts.get(event).increment();
+                throw new BusinessException(HttpStatus.BAD_REQUEST, "订单状态不允许此操作");
+            }
+            // 当前状态允许该事件，却没有一次CAS命中：状态在两次尝试之间变了
+            conflictCounts.get(event).increment();
+            if (round == MAX_CAS_ROUNDS) {
+                throw new BusinessException(HttpStatus.CONFLICT, "订单状态正在被并发修改，请重试");
+            }
+        }
+    }
+
+    @Override
+    public int fireBatch(Collection<Integer> orderIds, OrderEvent event) {
+        Map<OrderStatus, OrderStatus> table = TRANSITIONS.get(event);
+        if (table.size() != 1) {
+            throw new IllegalArgumentException("批量转换只支持单一原状态的事件: " + event.name());
+        }
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        Map.Entry<OrderStatus, OrderStatus> entry = table.entrySet().iterator().next();
+        OrderStatus from = entry.getKey();
+        OrderStatus to = entry.getValue();
+
+        // 已不在原状态的订单（如超时前已确认）直接跳过，不属于CAS冲突，也不计数
+        int updated = orderMapper.update(null, Wrappers.<Order>lambdaUpdate()
+                .set(Order::getStatus, to.toString())
+                .set(Order::getUpdateTime, new Timestamp(System.currentTimeMillis()))
+                .in(Order::getOrderId, orderIds)
+                .eq(Order::getStatus, from.toString()));
+        if (updated > 0) {
+            afterCommit(() -> transitionCounts.get(key(from, to)).add(updated));
+            orderStatsService.recordTransition(from, to, updated);
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean canFire(OrderStatus from, OrderEvent event) {
+        return TRANSITIONS.getOrDefault(event, Collections.emptyMap()).containsKey(from);
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Long> transitions = new LinkedHashMap<>();
+        transitionCounts.forEach((key, count) -> transitions.put(key, count.sum()));
+        Map<String, Long> conflicts = new LinkedHashMap<>();
+        conflictCounts.forEach((event, count) -> conflicts.put(event.name(), count.sum()));
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        rejectedCounts.forEach((event, count) -> rejected.put(event.name(), count.sum()));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("transitions", transitions);
+        metrics.put("casConflicts", conflicts);
+        metrics.put("rejected", rejected);
+        return metrics;
+    }
+
+    private static OrderStatus parse(String status) {
+        try {
+            return OrderStatus.fromString(status);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static String key(OrderStatus from, OrderStatus to) {
+        return from + "->" + to;
+    }
+}
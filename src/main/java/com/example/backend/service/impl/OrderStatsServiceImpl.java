@@ -0,0 +1,161 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.StatusCountDTO;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.mapper.OrderMapper;
+import com.example.backend.service.IOrderStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.backend.util.TransactionHooks.afterCommit;
+
+/**
+ * 订单状态计数服务实现。
+ * 计数器使用LongAdder（内部按CPU分段累加），高并发下的状态变化不会在同一个计数器上争用。
+ * 数据库中不属于OrderStatus枚举的历史状态值只在对账时更新。
+ */
+@Service
+public class OrderStatsServiceImpl implements IOrderStatsService {
+    private static final Logger log = LoggerFactory.getLogger(OrderStatsServiceImpl.class);
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    private final Map<OrderStatus, LongAdder> counters = new EnumMap<>(OrderStatus.class);
+    private final Map<String, Long> legacyCounts = new ConcurrentHashMap<>();
+
+    private volatile boolean reconciled;
+    private volatile Timestamp lastReconcileTime;
+    private volatile Map<String, Long> lastDrift = new HashMap<>();
+
+    public OrderStatsServiceImpl() {
+        for (OrderStatus status : OrderStatus.values()) {
+            counters.put(status, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordCreated(OrderStatus status, long count) {
+        afterCommit(() -> counters.get(status).add(count));
+    }
+
+    @Override
+    public void recordTransition(OrderStatus from, OrderStatus to, long count) {
+        afterCommit(() -> {
+            counters.get(from).add(-count);
+            counters.get(to).add(count);
+        });
+    }
+
+    @Override
+    public void recordRemoved(OrderStatus status) {
+        afterCommit(() -> counters.get(status).decrement());
+    }
+
+    /**
+     * 启动完成后做一次初始对账，数据库不可用时等待下一次定时对账。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("订单状态计数初始对账失败，将在下次定时对账时重试: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.stats.reconcile-interval-ms:300000}",
+            initialDelayString = "${order.stats.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("订单状态计数对账失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void reconcile() {
+        // 先记下计数器的值再查询数据库：查询期间提交并计入的增量不会被下面的校正抵消
+        Map<OrderStatus, Long> before = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            before.put(status, counters.get(status).sum());
+        }
+        List<StatusCountDTO> rows = orderMapper.countByStatus();
+
+        Map<OrderStatus, Long> actual = new EnumMap<>(OrderStatus.class);
+        Map<String, Long> legacy = new HashMap<>();
+        for (StatusCountDTO row : rows) {
+            OrderStatus status = parse(row.getStatus());
+            if (status != null) {
+                actual.put(status, row.getCount());
+            } else {
+                legacy.put(String.valueOf(row.getStatus()), row.getCount());
+            }
+        }
+
+        // 按查询前的计数计算偏差并以差值校正，保留查询期间计入的增量。
+        // 在查询之前已提交、但在记下计数器之后才计入的增量会被重复计算一次，由下一次对账校正
+        Map<String, Long> drift = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            long delta = actual.getOrDefault(status, 0L) - before.get(status);
+            if (delta != 0) {
+                counters.get(status).add(delta);
+            }
+            drift.put(status.toString(), delta);
+        }
+        legacyCounts.keySet().retainAll(legacy.keySet());
+        legacyCounts.putAll(legacy);
+
+        if (reconciled && drift.values().stream().anyMatch(d -> d != 0)) {
+            log.info("订单状态计数对账发现偏差: {}", drift);
+        }
+        lastDrift = drift;
+        lastReconcileTime = new Timestamp(System.currentTimeMillis());
+        reconciled = true;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        if (!reconciled) {
+            reconcile(); // 启动时数据库不可用，计数器尚未初始化
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long total = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            long count = counters.get(status).sum();
+            stats.put(status.toString(), count);
+            total += count;
+        }
+        for (Map.Entry<String, Long> entry : legacyCounts.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        stats.put("总共", total);
+        stats.put("drift", lastDrift);
+        stats.put("lastReconcileTime", lastReconcileTime);
+        return stats;
+    }
+
+    private OrderStatus parse(String status) {
+        try {
+            return OrderStatus.fromString(status);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+}
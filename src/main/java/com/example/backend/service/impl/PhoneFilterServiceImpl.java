@@ -0,0 +1,113 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.User;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.IPhoneFilterService;
+import com.example.backend.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已注册手机号布隆过滤器实现。
+ * 按预计用户数和误判率分配位数组，1000万用户、1%误判率时约为9585万位（约11.4MB），7个哈希函数。
+ * 启动完成后按用户ID分批扫描users表加载，加载完成前判定为不存在的手机号同样交给唯一约束兜底。
+ * 分批扫描每批是一条独立的主键范围查询，不需要驱动的游标或流式结果集，也就不用为此修改整个连接池的连接参数。
+ */
+@Service
+public class PhoneFilterServiceImpl implements IPhoneFilterService {
+    private static final Logger log = LoggerFactory.getLogger(PhoneFilterServiceImpl.class);
+    private static final int LOAD_BATCH_SIZE = 10000; // 加载时每批读取的用户数
+
+    @Value("${registration.phone-filter.expected-insertions:10000000}")
+    private long expectedInsertions;
+    @Value("${registration.phone-filter.fpp:0.01}")
+    private double fpp;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    private BloomFilter filter;
+    private volatile boolean loaded;
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder definitelyNew = new LongAdder();
+    private final LongAdder maybeRegistered = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedInsertions, fpp);
+    }
+
+    /**
+     * 启动完成后加载所有已注册的手机号，数据库不可用时只记录警告。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try {
+            int afterUserId = 0;
+            List<User> batch;
+            do {
+                batch = userMapper.selectPhonesAfter(afterUserId, LOAD_BATCH_SIZE);
+                for (User user : batch) {
+                    markRegistered(user.getPhone());
+                }
+                if (!batch.isEmpty()) {
+                    afterUserId = batch.get(batch.size() - 1).getUserId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+            loaded = true;
+            log.info("手机号布隆过滤器加载完成：{}个手机号，耗时{}ms，占用{}字节",
+                    inserted.sum(), System.currentTimeMillis() - start, filter.memoryBytes());
+        } catch (RuntimeException e) {
+            log.warn("加载手机号布隆过滤器失败，注册将依赖唯一约束判重: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean mightBeRegistered(String phone) {
+        if (phone != null && filter.mightContain(phone)) {
+            maybeRegistered.increment();
+            return true;
+        }
+        definitelyNew.increment();
+        return false;
+    }
+
+    @Override
+    public void markRegistered(String phone) {
+        if (phone != null) {
+            filter.put(phone);
+            inserted.increment();
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long skipped = definitelyNew.sum();
+        long checked = maybeRegistered.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", loaded);
+        metrics.put("expectedInsertions", filter.expectedInsertions());
+        metrics.put("configuredFpp", fpp);
+        metrics.put("bitSize", filter.bitSize());
+        metrics.put("memoryBytes", filter.memoryBytes());
+        metrics.put("hashFunctions", filter.hashFunctions());
+        metrics.put("inserted", inserted.sum());
+        metrics.put("currentFpp", filter.currentFpp());
+        metrics.put("countQueriesSkipped", skipped);
+        metrics.put("countQueriesRun", checked);
+        metrics.put("skipRate", skipped + checked == 0 ? 0.0 : (double) skipped / (skipped + checked));
+        return metrics;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.service.ITokenCacheService;
+import com.example.backend.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * 已验证令牌缓存实现。
+ * 键为令牌的SHA-256摘要，内存中不保存原始令牌；每个条目记录令牌自身的过期时间和令牌版本，
+ * 过期或版本已落后于用户当前版本时读取视为未命中。按用户失效时扫描整个缓存，只在修改密码或角色时发生。
+ */
+@Service
+public class TokenCacheServiceImpl implements ITokenCacheService {
+
+    @Value("${security.token-cache.max-entries:50000}")
+    private int maxEntries;
+
+    private LruCache<String, CachedAuthentication> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = new LruCache<>(maxEntries, 0);
+    }
+
+    @Override
+    public Authentication get(String token, ToIntFunction<Integer> currentVersion) {
+        String key = digest(token);
+        CachedAuthentication cached = cache.get(key);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            cache.remove(key);
+            misses.increment();
+            return null;
+        }
+        if (cached.userId != null && cached.version != currentVersion.applyAsInt(cached.userId)) {
+            // 条目写入前后用户已修改密码或角色，令牌已被吊销
+            invalidations.increment();
+            cache.remove(key);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.authentication;
+    }
+
+    @Override
+    public void put(String token, String phone, Integer userId, Integer version, Date expiration, Authentication authentication) {
+        if (expiration == null || (userId != null && version == null)) {
+            return; // 没有过期时间或缺少版本的令牌不缓存
+        }
+        cache.put(digest(token), new CachedAuthentication(phone, userId, version == null ? 0 : version,
+                expiration.getTime(), authentication));
+    }
+
+    @Override
+    public void invalidateUser(String phone) {
+        invalidations.add(cache.removeIf(cached -> cached.phone.equals(phone)));
+    }
+
+    /**
+     * 每分钟清理已过期的令牌。
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.removeIf(cached -> cached.expiresAt <= now);
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        metrics.put("invalidations", invalidations.sum());
+        metrics.put("size", cache.size());
+        return metrics;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+        private final String phone;
+        private final Integer userId;
+        private final int version;
+        private final long expiresAt;
+        private final Authentication authentication;
+
+        private CachedAuthentication(String phone, Integer userId, int version, long expiresAt, Authentication authentication) {
+            this.phone = phone;
+            this.userId = userId;
+            this.version = version;
+            this.expiresAt = expiresAt;
+            this.authentication = authentication;
+        }
+    }
+}
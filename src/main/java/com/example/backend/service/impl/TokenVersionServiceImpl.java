@@ -0,0 +1,99 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.TokenVersionDTO;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.ITokenCacheService;
+import com.example.backend.service.ITokenVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.backend.util.TransactionHooks.afterCommit;
+
+/**
+ * 令牌版本表实现。
+ * 只记录版本不为0的用户（即修改过密码或角色的用户），其余用户版本为0，因此表很小。
+ * 版本持久化在users.token_version列中，启动时加载，并定期刷新以获取其他实例上的修改。
+ * 内存中的版本只升不降：刷新读到的旧值不会覆盖并发提升的新版本，提升在事务提交后才写入内存。
+ */
+@Service
+public class TokenVersionServiceImpl implements ITokenVersionService {
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionServiceImpl.class);
+
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private ITokenCacheService tokenCacheService;
+
+    private final Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+    private volatile Timestamp lastRefreshTime;
+
+    @Override
+    public int currentVersion(Integer userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    @Override
+    public int bump(Integer userId, String phone) {
+        userMapper.bumpTokenVersion(userId);
+        Integer version = userMapper.selectTokenVersion(userId);
+        if (version == null) {
+            return currentVersion(userId);
+        }
+        // 修改密码或角色的事务回滚时内存中的版本不变，否则它会一直领先于数据库
+        afterCommit(() -> {
+            versions.merge(userId, version, Math::max);
+            tokenCacheService.invalidateUser(phone);
+        });
+        return version;
+    }
+
+    /**
+     * 启动完成后加载令牌版本，数据库不可用时等待下一次定时刷新。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialLoad() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("加载令牌版本失败，将在下次定时刷新时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库刷新令牌版本，只升不降。版本升高的用户同时清除其已验证令牌缓存。
+     * 查询按users.token_version上的索引只读取版本不为0的用户。
+     */
+    @Scheduled(fixedDelayString = "${security.token-version.refresh-interval-ms:60000}",
+            initialDelayString = "${security.token-version.refresh-interval-ms:60000}")
+    public void refresh() {
+        List<TokenVersionDTO> rows = userMapper.selectTokenVersions();
+        for (TokenVersionDTO row : rows) {
+            // 查询开始后提交的提升可能已写入内存，用较大值合并避免把版本降回去
+            Integer previous = versions.get(row.getUserId());
+            if (previous == null || previous < row.getTokenVersion()) {
+                versions.merge(row.getUserId(), row.getTokenVersion(), Math::max);
+                tokenCacheService.invalidateUser(row.getPhone());
+            }
+        }
+        lastRefreshTime = new Timestamp(System.currentTimeMillis());
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("trackedUsers", versions.size());
+        metrics.put("lastRefreshTime", lastRefreshTime);
+        return metrics;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.User;
+import com.example.backend.service.IUserCacheService;
+import com.example.backend.util.LruCache;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 用户缓存实现。
+ * 主缓存以用户ID为键保存用户，手机号索引只保存手机号到用户ID的映射，按手机号命中时再校验手机号一致。
+ * 未命中加载前记下失效代数，加载期间若有失效发生则不缓存加载结果，避免把旧值放回缓存。
+ */
+@Service
+public class UserCacheServiceImpl implements IUserCacheService {
+
+    @Value("${user-cache.max-entries:10000}")
+    private int maxEntries;
+    @Value("${user-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private LruCache<Integer, User> byId;
+    private LruCache<String, Integer> byPhone;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        byId = new LruCache<>(maxEntries, ttlMs);
+        byPhone = new LruCache<>(maxEntries, ttlMs);
+    }
+
+    @Override
+    public User getById(Integer userId, Supplier<User> loader) {
+        User cached = userId == null ? null : byId.get(userId);
+        if (cached != null) {
+            hits.increment();
+            return copy(cached);
+        }
+        misses.increment();
+        long stamp = generation.get();
+        User loaded = loader.get();
+        putIfUnchanged(loaded, stamp);
+        return loaded;
+    }
+
+    @Override
+    public User getByPhone(String phone, Supplier<User> loader) {
+        Integer userId = phone == null ? null : byPhone.get(phone);
+        User cached = userId == null ? null : byId.get(userId);
+        if (cached != null && phone.equals(cached.getPhone())) {
+            hits.increment();
+            return copy(cached);
+        }
+        misses.increment();
+        long stamp = generation.get();
+        User loaded = loader.get();
+        putIfUnchanged(loaded, stamp);
+        return loaded;
+    }
+
+    @Override
+    public Map<Integer, User> getByIds(Collection<Integer> userIds, Function<Collection<Integer>, List<User>> loader) {
+        Map<Integer, User> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer userId : userIds) {
+            User cached = byId.get(userId);
+            if (cached != null) {
+                result.put(userId, copy(cached));
+            } else {
+                missing.add(userId);
+            }
+        }
+        hits.add(result.size());
+        misses.add(missing.size());
+        if (!missing.isEmpty()) {
+            long stamp = generation.get();
+            for (User user : loader.apply(missing)) {
+                putIfUnchanged(user, stamp);
+                result.put(user.getUserId(), user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(User user) {
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        User stored = copy(user);
+        byId.put(stored.getUserId(), stored);
+        if (stored.getPhone() != null) {
+            byPhone.put(stored.getPhone(), stored.getUserId());
+        }
+    }
+
+    @Override
+    public void invalidate(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        metrics.put("evictions", byId.evictions());
+        metrics.put("size", byId.size());
+        metrics.put("maxEntries", maxEntries);
+        return metrics;
+    }
+
+    private synchronized void evict(Integer userId) {
+        generation.incrementAndGet();
+        User removed = byId.remove(userId);
+        if (removed != null && removed.getPhone() != null) {
+            byPhone.remove(removed.getPhone());
+        }
+    }
+
+    private synchronized void putIfUnchanged(User user, long stamp) {
+        if (user != null && generation.get() == stamp) {
+            put(user);
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
@@ -4,19 +4,26 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.dto.UserLoginDTO;
 import com.example.backend.dto.UserRegisterDTO;
+import com.example.backend.entity.BalanceChangeType;
 import com.example.backend.entity.User;
 import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.IBalanceLedgerService;
+import com.example.backend.service.IPhoneFilterService;
+import com.example.backend.service.ITokenVersionService;
+import com.example.backend.service.IUserCacheService;
 import com.example.backend.service.IUserService;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.Collections;
@@ -31,8 +38,17 @@ import java.util.Date;
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IUserService, UserDetailsService {
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private ITokenVersionService tokenVersionService;
+    @Autowired
+    private IUserCacheService userCacheService;
+    @Autowired
+    private IPhoneFilterService phoneFilterService;
+    @Autowired
+    private IBalanceLedgerService balanceLedgerService;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordEncoder passwordEncoder; // 在专用线程池上执行BCrypt，繁忙时抛出503
 
     /**
      * 注册用户。
@@ -42,12 +58,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
      */
     @Override
     public boolean register(UserRegisterDTO userRegisterDTO, String role) {
-        // 检查手机号是否已存在
-        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("phone", userRegisterDTO.getPhone());
-        Long count = userMapper.selectCount(queryWrapper);
-        if (count > 0) {
-            return false; // 手机号已存在
+        // 布隆过滤器判定可能已注册时才查询数据库，判定不存在的手机号直接插入
+        if (phoneFilterService.mightBeRegistered(userRegisterDTO.getPhone())) {
+            QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("phone", userRegisterDTO.getPhone());
+            Long count = userMapper.selectCount(queryWrapper);
+            if (count > 0) {
+                return false; // 手机号已存在
+            }
         }
 
         // 加密密码并保存用户信息
@@ -56,10 +74,17 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         user.setPhone(userRegisterDTO.getPhone());
         user.setPassword(passwordEncoder.encode(userRegisterDTO.getPassword())); // 加密密码
         user.setRegistrationDate(new Timestamp(System.currentTimeMillis()));
-        System.out.println("注册成功: " + user);
         user.setBalance(java.math.BigDecimal.ZERO); // 设置初始余额为0
         user.setRole(role); // 设置用户角色
-        userMapper.insert(user);
+        try {
+            userMapper.insert(user);
+        } catch (DuplicateKeyException e) {
+            // 唯一约束是最终判重依据：并发注册同一手机号，或过滤器加载完成前的重复注册
+            phoneFilterService.markRegistered(user.getPhone());
+            return false;
+        }
+        phoneFilterService.markRegistered(user.getPhone());
+        userCacheService.put(user);
         return true;
     }
 
@@ -72,14 +97,40 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     public boolean validateUser(UserLoginDTO userLoginDTO) {
         // 根据手机号查询用户信息
-        User user = userMapper.selectOne(new QueryWrapper<User>().eq("phone", userLoginDTO.getPhone()));
+        User user = lookupByPhone(userLoginDTO.getPhone());
         // 判断用户是否存在且密码匹配
         return user != null && passwordEncoder.matches(userLoginDTO.getPassword(), user.getPassword());
     }
 
     public User findById(Integer userId) {
-        // 使用MyBatis Plus提供的selectById方法来查询用户
-        return userMapper.selectById(userId);
+        return getById(userId);
+    }
+
+    /**
+     * 按用户ID查询用户，优先读取用户缓存，余额为包含未结算流水的当前余额。
+     */
+    @Override
+    public User getById(Serializable id) {
+        if (!(id instanceof Integer)) {
+            return super.getById(id);
+        }
+        return withBalance(userCacheService.getById((Integer) id, () -> userMapper.selectById(id)));
+    }
+
+    @Override
+    public boolean updateById(User entity) {
+        boolean updated = super.updateById(entity);
+        userCacheService.invalidate(entity.getUserId());
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (id instanceof Integer) {
+            userCacheService.invalidate((Integer) id);
+        }
+        return removed;
     }
 
 
@@ -92,8 +143,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
      */
     @Override
     public UserDetails loadUserByUsername(String phone) throws UsernameNotFoundException {
-        // 通过手机号查询用户信息
-        User user = userMapper.selectOne(new QueryWrapper<User>().eq("phone", phone));
+        // 通过手机号查询用户信息，认证只需要密码和角色，不读取余额
+        User user = lookupByPhone(phone);
 
         // 如果未找到对应用户，抛出异常
         if (user == null) {
@@ -106,51 +157,78 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     }
 
     public User findByPhone(String phone) {
-        return userMapper.selectOne(new QueryWrapper<User>().eq("phone", phone));
+        return withBalance(lookupByPhone(phone));
+    }
+
+    /**
+     * 按手机号查询用户，余额字段为已结算余额。
+     */
+    private User lookupByPhone(String phone) {
+        return userCacheService.getByPhone(phone, () -> userMapper.selectOne(new QueryWrapper<User>().eq("phone", phone)));
+    }
+
+    /**
+     * 用余额流水中的当前余额覆盖users.balance中的已结算余额。
+     */
+    private User withBalance(User user) {
+        if (user != null) {
+            BigDecimal balance = balanceLedgerService.balanceOf(user.getUserId());
+            if (balance != null) {
+                user.setBalance(balance);
+            }
+        }
+        return user;
     }
 
 
     @Override
     public boolean recharge(String phone, BigDecimal amount) {
         // 查找用户
-        User user = findByPhone(phone);
+        User user = lookupByPhone(phone);
         if (user == null) {
             return false;
         }
-        // 更新余额
-        user.setBalance(user.getBalance().add(amount));
-        int result = userMapper.updateById(user);
-        return result > 0;
+        // 追加一条充值流水
+        balanceLedgerService.credit(user.getUserId(), amount, BalanceChangeType.RECHARGE, null);
+        return true;
     }
 
     @Override
     public boolean placeOrder(String phone, BigDecimal orderAmount) {
         // 查找用户
-        User user = findByPhone(phone);
+        User user = lookupByPhone(phone);
         if (user == null) {
             return false;
         }
-        // 检查余额是否足够
-        if (user.getBalance().compareTo(orderAmount) < 0) {
-            return false; // 余额不足
-        }
-        // 扣除金额
-        user.setBalance(user.getBalance().subtract(orderAmount));
-        int result = userMapper.updateById(user);
-        return result > 0;
+        // 以条件插入检查余额并追加消费流水，余额不足返回false
+        return balanceLedgerService.debit(user.getUserId(), orderAmount, BalanceChangeType.PURCHASE, null);
     }
 
     @Override
     public boolean resetPassword(String phone, String newPassword) {
-        User user = findByPhone(phone);
+        User user = lookupByPhone(phone);
         if (user != null) {
             String encodedPassword = passwordEncoder.encode(newPassword);
             user.setPassword(encodedPassword);
-            return updateUser(user); // 实现更新用户信息的逻辑
+            if (updateUser(user)) { // 实现更新用户信息的逻辑
+                userCacheService.put(user); // 用户字段完整，直接回写缓存
+                return true;
+            }
+            return false;
         }
         return false;
     }
     public boolean updateUser(User user) {
-        return userMapper.updateById(user) > 0;
+        boolean updated = userMapper.updateById(user) > 0;
+        if (updated && user.getPhone() != null) {
+            phoneFilterService.markRegistered(user.getPhone()); // 修改了手机号时记录新号码
+        }
+        userCacheService.invalidate(user.getUserId()); // 传入的可能只有部分字段，失效而不回写
+        if (updated && (user.getPassword() != null || user.getRole() != null)) {
+            // 密码或角色变化后，提升令牌版本使该用户已签发的令牌全部失效
+            String phone = user.getPhone() != null ? user.getPhone() : findById(user.getUserId()).getPhone();
+            tokenVersionService.bump(user.getUserId(), phone);
+        }
+        return updated;
     }
 }
@@ -0,0 +1,103 @@
+package com.example.backend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的布隆过滤器。
+ * 位数组大小 m = -n·ln(p) / (ln2)²，哈希函数个数 k = m/n·ln2，
+ * k 个位置由一次64位哈希的高低32位按 h1 + i·h2 双重哈希生成。
+ * 只支持添加，不支持删除；返回false时元素一定不存在，返回true时可能误判。
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+
+    /**
+     * @param expectedInsertions 预计插入的元素数量
+     * @param fpp 达到预计数量时期望的误判率
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) ((m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        this.expectedInsertions = n;
+    }
+
+    public void put(CharSequence key) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = indexOf(h1 + i * h2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = indexOf(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 已置位的位数，遍历整个位数组，只用于指标统计。
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            count += Long.bitCount(bits.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * 按当前置位比例估算的误判率：(置位数 / m)^k。
+     */
+    public double currentFpp() {
+        return Math.pow((double) bitCount() / bitSize, hashFunctions);
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * 位数组占用的字节数。
+     */
+    public long memoryBytes() {
+        return bitSize / 8;
+    }
+
+    private long indexOf(int combined) {
+        // 取非负值后对位数组大小取模
+        return (combined & 0x7fffffffL) % bitSize;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 中文和拉丁文混合文本的分词。
+ * 连续的汉字切成单字和相邻两字（bigram），连续的字母和数字作为一个小写的词，其他字符视为分隔符。
+ * 索引时同时保留单字和双字，查询时两个字及以上的汉字串只用双字，使查询词的双字都命中近似于子串匹配。
+ */
+public final class CjkTokenizer {
+
+    private CjkTokenizer() {
+    }
+
+    /**
+     * 索引用：返回文本中的全部单字、双字和拉丁词，去重。
+     */
+    public static Set<String> indexTokens(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            int end = runEnd(lower, i);
+            if (end == i) {
+                i++;
+            } else if (isHan(lower.charAt(i))) {
+                for (int j = i; j < end; j++) {
+                    tokens.add(lower.substring(j, j + 1));
+                    if (j + 1 < end) {
+                        tokens.add(lower.substring(j, j + 2));
+                    }
+                }
+                i = end;
+            } else {
+                tokens.add(lower.substring(i, end));
+                i = end;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 查询用：单个汉字作为单字，两个以上的汉字串切成双字，拉丁词原样保留。
+     * 查询以字母或数字结尾时，最后一个拉丁词标记为前缀，输入框逐字输入时也能命中。
+     */
+    public static List<Term> queryTerms(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        String lower = query.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            int end = runEnd(lower, i);
+            if (end == i) {
+                i++;
+            } else if (isHan(lower.charAt(i))) {
+                if (end - i == 1) {
+                    terms.add(new Term(lower.substring(i, end), false));
+                }
+                for (int j = i; j + 1 < end; j++) {
+                    terms.add(new Term(lower.substring(j, j + 2), false));
+                }
+                i = end;
+            } else {
+                terms.add(new Term(lower.substring(i, end), end == lower.length()));
+                i = end;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 从start开始的同类字符（汉字或字母数字）的结束位置，start处是分隔符时返回start。
+     */
+    private static int runEnd(String text, int start) {
+        char first = text.charAt(start);
+        if (isHan(first)) {
+            int end = start + 1;
+            while (end < text.length() && isHan(text.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+        if (!Character.isLetterOrDigit(first)) {
+            return start;
+        }
+        int end = start + 1;
+        while (end < text.length() && Character.isLetterOrDigit(text.charAt(end)) && !isHan(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    /**
+     * 查询词，prefix为true时匹配以该词开头的所有拉丁词。
+     */
+    public static final class Term {
+        private final String text;
+        private final boolean prefix;
+
+        Term(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isPrefix() {
+            return prefix;
+        }
+    }
+}
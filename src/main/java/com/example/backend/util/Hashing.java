@@ -0,0 +1,27 @@
+package com.example.backend.util;
+
+/**
+ * 内存数据结构使用的非加密哈希函数。
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64位FNV-1a哈希，再经过一轮murmur3终结混淆，使高低32位都分布均匀；逐字符计算，不分配对象。
+     */
+    public static long hash64(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
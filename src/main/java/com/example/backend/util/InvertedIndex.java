@@ -0,0 +1,287 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不可变的倒排索引，分词见 {@link CjkTokenizer}。
+ * 每个词的倒排表是按文档ID排序的int数组，元素为 文档ID&lt;&lt;3 | 字段位，字段位记录该词出现在文档的哪些字段（最多3个），
+ * 文档ID须小于2^28。更新时复制词表并只重建受影响词的倒排表，其余数组与旧索引共享，旧索引可以继续被并发读取。
+ */
+public final class InvertedIndex {
+    private static final int FIELD_BITS = 3;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, int[]> postings;
+    private final String[] words; // 拉丁词按字典序排列，用于前缀查询
+    private final long entries;
+
+    private InvertedIndex(Map<String, int[]> postings, String[] words, long entries) {
+        this.postings = postings;
+        this.words = words;
+        this.entries = entries;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static int docId(int entry) {
+        return entry >>> FIELD_BITS;
+    }
+
+    public static int fields(int entry) {
+        return entry & FIELD_MASK;
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    public long getEntryCount() {
+        return entries;
+    }
+
+    /**
+     * 基于当前索引构造更新，apply后得到新索引，当前索引不变。
+     */
+    public Updater updater() {
+        return new Updater();
+    }
+
+    /**
+     * 查找包含全部查询词的文档。
+     *
+     * @return 按文档ID排序的元素，字段位为全部查询词都出现的字段；各词分散在不同字段时字段位为0
+     */
+    public int[] search(List<CjkTokenizer.Term> terms) {
+        if (terms.isEmpty()) {
+            return EMPTY;
+        }
+        List<int[]> lists = new ArrayList<>(terms.size());
+        for (CjkTokenizer.Term term : terms) {
+            int[] list = term.isPrefix() ? prefixPostings(term.getText()) : postings.get(term.getText());
+            if (list == null || list.length == 0) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+        // 从最短的倒排表开始求交，中间结果只会越来越短
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 以prefix开头的全部拉丁词的倒排表之并，同一文档的字段位取或。
+     */
+    private int[] prefixPostings(String prefix) {
+        int from = Arrays.binarySearch(words, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int[] single = null;
+        List<int[]> lists = new ArrayList<>();
+        int total = 0;
+        for (int i = from; i < words.length && words[i].startsWith(prefix); i++) {
+            single = postings.get(words[i]);
+            lists.add(single);
+            total += single.length;
+        }
+        if (lists.size() <= 1) {
+            return single;
+        }
+        int[] merged = new int[total];
+        int pos = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, merged, pos, list.length);
+            pos += list.length;
+        }
+        Arrays.sort(merged);
+        int out = 0;
+        for (int entry : merged) {
+            if (out > 0 && docId(merged[out - 1]) == docId(entry)) {
+                merged[out - 1] |= entry;
+            } else {
+                merged[out++] = entry;
+            }
+        }
+        return Arrays.copyOf(merged, out);
+    }
+
+    /**
+     * 按文档ID求交，字段位取与。一方远短于另一方时对长表二分查找，否则顺序归并。
+     */
+    private static int[] intersect(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int out = 0;
+        if (small.length * 16 < large.length) {
+            int from = 0;
+            for (int entry : small) {
+                int pos = Arrays.binarySearch(large, from, large.length, entry & ~FIELD_MASK);
+                if (pos < 0) {
+                    pos = -pos - 1;
+                }
+                if (pos < large.length && docId(large[pos]) == docId(entry)) {
+                    result[out++] = entry & ~FIELD_MASK | fields(entry) & fields(large[pos]);
+                }
+                from = pos;
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                int a = docId(small[i]);
+                int b = docId(large[j]);
+                if (a < b) {
+                    i++;
+                } else if (a > b) {
+                    j++;
+                } else {
+                    result[out++] = small[i] & ~FIELD_MASK | fields(small[i]) & fields(large[j]);
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return out == result.length ? result : Arrays.copyOf(result, out);
+    }
+
+    private static String[] words(Map<String, int[]> postings) {
+        List<String> words = new ArrayList<>();
+        for (String term : postings.keySet()) {
+            if (!CjkTokenizer.isHan(term.charAt(0))) {
+                words.add(term);
+            }
+        }
+        Collections.sort(words);
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * 全量构造索引。同一文档的各字段应连续添加。
+     */
+    public static final class Builder {
+        private final Map<String, IntList> lists = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param field 字段序号，0到2
+         */
+        public Builder add(int docId, int field, String text) {
+            int entry = docId << FIELD_BITS | 1 << field;
+            for (String token : CjkTokenizer.indexTokens(text)) {
+                lists.computeIfAbsent(token, t -> new IntList()).addOrMerge(entry);
+            }
+            return this;
+        }
+
+        public InvertedIndex build() {
+            Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+            long entries = 0;
+            for (Map.Entry<String, IntList> entry : lists.entrySet()) {
+                int[] list = entry.getValue().toSortedArray();
+                postings.put(entry.getKey(), list);
+                entries += list.length;
+            }
+            return new InvertedIndex(postings, words(postings), entries);
+        }
+    }
+
+    /**
+     * 增量更新：先remove文档的旧字段文本，再add新的，apply时只重建受影响的词。一次更新中每个文档只能修改一次。
+     */
+    public final class Updater {
+        // 词 -> (文档ID -> 新的字段位，0表示从该词的倒排表中删除)
+        private final Map<String, Map<Integer, Integer>> changes = new HashMap<>();
+
+        private Updater() {
+        }
+
+        public Updater remove(int docId, int field, String text) {
+            for (String token : CjkTokenizer.indexTokens(text)) {
+                changes.computeIfAbsent(token, t -> new HashMap<>()).putIfAbsent(docId, 0);
+            }
+            return this;
+        }
+
+        public Updater add(int docId, int field, String text) {
+            for (String token : CjkTokenizer.indexTokens(text)) {
+                changes.computeIfAbsent(token, t -> new HashMap<>()).merge(docId, 1 << field, (a, b) -> a | b);
+            }
+            return this;
+        }
+
+        public InvertedIndex apply() {
+            if (changes.isEmpty()) {
+                return InvertedIndex.this;
+            }
+            Map<String, int[]> next = new HashMap<>(postings);
+            long nextEntries = entries;
+            boolean wordsChanged = false;
+            for (Map.Entry<String, Map<Integer, Integer>> change : changes.entrySet()) {
+                String token = change.getKey();
+                Map<Integer, Integer> docs = change.getValue();
+                int[] old = postings.getOrDefault(token, EMPTY);
+                int[] list = new int[old.length + docs.size()];
+                int out = 0;
+                for (int entry : old) {
+                    if (!docs.containsKey(docId(entry))) {
+                        list[out++] = entry;
+                    }
+                }
+                for (Map.Entry<Integer, Integer> doc : docs.entrySet()) {
+                    if (doc.getValue() != 0) {
+                        list[out++] = doc.getKey() << FIELD_BITS | doc.getValue();
+                    }
+                }
+                Arrays.sort(list, 0, out);
+                nextEntries += out - old.length;
+                if (out == 0) {
+                    next.remove(token);
+                } else {
+                    next.put(token, out == list.length ? list : Arrays.copyOf(list, out));
+                }
+                if (!CjkTokenizer.isHan(token.charAt(0)) && (old.length == 0) != (out == 0)) {
+                    wordsChanged = true;
+                }
+            }
+            return new InvertedIndex(next, wordsChanged ? words(next) : words, nextEntries);
+        }
+    }
+
+    /**
+     * 构造时使用的可增长int数组，同一文档连续添加时合并字段位。
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addOrMerge(int entry) {
+            if (size > 0 && docId(values[size - 1]) == docId(entry)) {
+                values[size - 1] |= entry;
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = entry;
+        }
+
+        int[] toSortedArray() {
+            int[] array = Arrays.copyOf(values, size);
+            Arrays.sort(array);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的延迟直方图（毫秒）。
+ * 记录只做一次桶查找和一次LongAdder累加，可以在高并发的请求路径上使用；
+ * 百分位取所在桶的上界，精度由分桶决定。
+ */
+public class LatencyHistogram {
+    private static final long[] BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMs = new LongAdder();
+    private final LongAccumulator maxMs = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时。
+     */
+    public void record(long elapsedMs) {
+        int i = 0;
+        while (i < BOUNDS_MS.length && elapsedMs > BOUNDS_MS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sumMs.add(elapsedMs);
+        maxMs.accumulate(elapsedMs);
+    }
+
+    /**
+     * 获取次数、平均值、最大值、p50/p95/p99以及各桶的计数。
+     */
+    public Map<String, Object> snapshot() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("avgMs", total == 0 ? 0.0 : (double) sumMs.sum() / count.sum());
+        snapshot.put("maxMs", maxMs.get());
+        snapshot.put("p50Ms", percentile(counts, total, 0.50));
+        snapshot.put("p95Ms", percentile(counts, total, 0.95));
+        snapshot.put("p99Ms", percentile(counts, total, 0.99));
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            histogram.put("<=" + BOUNDS_MS[i], counts[i]);
+        }
+        histogram.put(">" + BOUNDS_MS[BOUNDS_MS.length - 1], counts[BOUNDS_MS.length]);
+        snapshot.put("buckets", histogram);
+        return snapshot;
+    }
+
+    private long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MS.length ? BOUNDS_MS[i] : maxMs.get();
+            }
+        }
+        return maxMs.get();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 有容量上限、按存活时间过期的LRU缓存。
+ * 超过容量时淘汰最久未访问的条目；读取到过期条目时将其删除并视为未命中。
+ * 所有方法在缓存对象上同步，适合读写都很短的场景。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entry<V>> map;
+    private long evictions;
+
+    /**
+     * @param maxEntries 最多缓存的条目数
+     * @param ttlMs 条目写入后的存活毫秒数，小于等于0表示不过期
+     */
+    public LruCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，不存在或已过期返回null。
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long expireAt = ttlMs > 0 ? System.currentTimeMillis() + ttlMs : Long.MAX_VALUE;
+        map.put(key, new Entry<>(value, expireAt));
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = map.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * 删除所有满足条件的条目，返回删除的数量。
+     */
+    public synchronized int removeIf(Predicate<V> predicate) {
+        int removed = 0;
+        Iterator<Entry<V>> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next().value)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 清理所有已过期的条目，返回清理的数量。
+     */
+    public synchronized int evictExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry<V>> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * 因超过容量而被淘汰的条目数。
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expireAt;
+
+        private Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
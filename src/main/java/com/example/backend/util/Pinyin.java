@@ -0,0 +1,82 @@
+package com.example.backend.util;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 汉字转拼音，用于联想输入。
+ * 不带声调、小写，ü写作v；多音字取第一个读音。字母和数字转小写保留，其他字符丢弃。
+ * 每个汉字的读音查询一次后缓存。
+ */
+public final class Pinyin {
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+    private static final ConcurrentHashMap<Character, String> READINGS = new ConcurrentHashMap<>();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private Pinyin() {
+    }
+
+    /**
+     * 去掉空白和标点并转小写，联想的键和输入的前缀都先经过这一步。
+     */
+    public static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+            }
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 全拼，如“宫保鸡丁”为“gongbaojiding”。
+     */
+    public static String full(String text) {
+        return convert(text, false);
+    }
+
+    /**
+     * 汉字取拼音首字母，如“宫保鸡丁”为“gbjd”。
+     */
+    public static String initials(String text) {
+        return convert(text, true);
+    }
+
+    private static String convert(String text, boolean initialsOnly) {
+        String normalized = normalize(text);
+        StringBuilder out = new StringBuilder(normalized.length() * 4);
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            String reading = CjkTokenizer.isHan(c) ? READINGS.computeIfAbsent(c, Pinyin::reading) : null;
+            if (reading == null) {
+                out.append(c);
+            } else if (!reading.isEmpty()) {
+                out.append(initialsOnly ? reading.substring(0, 1) : reading);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String reading(char c) {
+        try {
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            return readings != null && readings.length > 0 ? readings[0] : "";
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.backend.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分段加锁、容量固定的滑动窗口计数器。
+ * 时间按窗口长度对齐切分，每个键记录上一窗口和当前窗口的次数，
+ * 估算值 = 上一窗口次数 × 上一窗口仍落在滑动窗口内的比例 + 当前窗口次数。
+ * <p>
+ * 所有槽位在构造时一次性分配为基本类型数组，检查过程不分配对象；
+ * 键只保存64位哈希，同一段内线性探测若干槽位，找不到空闲或过期槽位时淘汰估算值最小的键，
+ * 因此无论有多少不同的键，内存占用都固定为 capacity × 24 字节。
+ */
+public class SlidingWindowCounter {
+    private static final int PROBES = 8;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int slotMask;
+    private final int limit;
+    private final long windowMs;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity 最多同时跟踪的键数量，向上取整为2的幂
+     * @param stripeCount 锁分段数量，向上取整为2的幂
+     * @param limit 滑动窗口内允许的最大次数
+     * @param windowMs 窗口长度（毫秒）
+     */
+    public SlidingWindowCounter(int capacity, int stripeCount, int limit, long windowMs) {
+        int stripeTotal = powerOfTwo(stripeCount);
+        int slotsPerStripe = Math.max(PROBES, powerOfTwo(capacity) / stripeTotal);
+        this.stripes = new Stripe[stripeTotal];
+        for (int i = 0; i < stripeTotal; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+        this.stripeMask = stripeTotal - 1;
+        this.slotMask = slotsPerStripe - 1;
+        this.limit = limit;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * 记录一次尝试，超过限制时返回false且不计数。
+     */
+    public boolean tryAcquire(CharSequence key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 以指定时间记录一次尝试，超过限制时返回false且不计数。
+     */
+    public boolean tryAcquire(CharSequence key, long nowMs) {
+        long hash = Hashing.hash64(key);
+        if (hash == 0) {
+            hash = 1; // 0保留为空槽标记
+        }
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        long window = nowMs / windowMs;
+        // 上一窗口仍落在滑动窗口内的比例，以千分比表示以避免浮点运算
+        long prevWeight = (windowMs - nowMs % windowMs) * 1000 / windowMs;
+
+        boolean ok;
+        synchronized (stripe) {
+            int slot = stripe.find(hash, (int) hash & slotMask, window, prevWeight);
+            stripe.roll(slot, window);
+            ok = stripe.estimate(slot, prevWeight) < (long) limit * 1000;
+            if (ok) {
+                stripe.current[slot]++;
+            }
+        }
+        if (ok) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return ok;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 可同时跟踪的键数量。
+     */
+    public int capacity() {
+        return stripes.length * (slotMask + 1);
+    }
+
+    private static int powerOfTwo(int n) {
+        int p = 1;
+        while (p < n) {
+            p <<= 1;
+        }
+        return p;
+    }
+
+    private final class Stripe {
+        final long[] keys;
+        final long[] windows;
+        final int[] previous;
+        final int[] current;
+
+        Stripe(int slots) {
+            keys = new long[slots];
+            windows = new long[slots];
+            previous = new int[slots];
+            current = new int[slots];
+        }
+
+        /**
+         * 依次探测：命中同一个键直接返回；否则取第一个空闲或已过期的槽位；都没有时淘汰估算值最小的键。
+         */
+        int find(long hash, int start, long window, long prevWeight) {
+            int free = -1;
+            int victim = start;
+            long victimEstimate = Long.MAX_VALUE;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (start + i) & slotMask;
+                if (keys[slot] == hash) {
+                    return slot;
+                }
+                if (free < 0) {
+                    if (keys[slot] == 0 || windows[slot] < window - 1) {
+                        free = slot;
+                    } else {
+                        roll(slot, window);
+                        long estimate = estimate(slot, prevWeight);
+                        if (estimate < victimEstimate) {
+                            victimEstimate = estimate;
+                            victim = slot;
+                        }
+                    }
+                }
+            }
+            int slot = free;
+            if (slot < 0) {
+                slot = victim;
+                evictions.increment();
+            }
+            keys[slot] = hash;
+            windows[slot] = window;
+            previous[slot] = 0;
+            current[slot] = 0;
+            return slot;
+        }
+
+        void roll(int slot, long window) {
+            long gap = window - windows[slot];
+            if (gap == 0) {
+                return;
+            }
+            previous[slot] = gap == 1 ? current[slot] : 0;
+            current[slot] = 0;
+            windows[slot] = window;
+        }
+
+        long estimate(int slot, long prevWeight) {
+            return previous[slot] * prevWeight + current[slot] * 1000L;
+        }
+    }
+}
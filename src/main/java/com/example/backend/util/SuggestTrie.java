@@ -0,0 +1,350 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+/**
+ * 不可变的前缀联想树（基数树，单子节点的链压缩为一条边）。
+ * 每个节点预先保存子树中得分最高的k个ID，查询只需沿前缀走到对应节点，直接返回该数组，不遍历子树。
+ * 得分在构造时固定；插入和删除复制从根到改动节点的路径并重算路径上各节点的前k个，其余节点与旧树共享。
+ * 同一ID可以挂在多个键下（如菜名、全拼和首字母），前k个中不会重复。
+ */
+public final class SuggestTrie {
+    private static final int[] NO_IDS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+    private final int k;
+    private final IntToLongFunction score;
+    private final int size;
+
+    private SuggestTrie(Node root, int k, IntToLongFunction score, int size) {
+        this.root = root;
+        this.k = k;
+        this.score = score;
+        this.size = size;
+    }
+
+    /**
+     * 由键和ID构造，keys.get(i) 对应 ids[i]。
+     *
+     * @param k 每个节点保留的ID数，也是单次查询最多返回的条数
+     * @param score ID的得分，越高越靠前，得分相同时ID小的在前
+     */
+    public static SuggestTrie build(List<String> keys, int[] ids, int k, IntToLongFunction score) {
+        Entry[] entries = new Entry[keys.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(keys.get(i), ids[i]);
+        }
+        Arrays.sort(entries, Comparator.comparing((Entry e) -> e.key).thenComparingInt(e -> e.id));
+        // 去掉重复的键和ID对
+        int distinct = 0;
+        for (Entry entry : entries) {
+            if (entry.key.isEmpty()) {
+                continue;
+            }
+            if (distinct == 0 || !entries[distinct - 1].key.equals(entry.key) || entries[distinct - 1].id != entry.id) {
+                entries[distinct++] = entry;
+            }
+        }
+        SuggestTrie empty = new SuggestTrie(null, k, score, 0);
+        Node root = distinct == 0 ? new Node("", NO_CHILDREN, NO_IDS, NO_IDS) : empty.build(entries, 0, distinct, 0, 0, true);
+        return new SuggestTrie(root, k, score, distinct);
+    }
+
+    /**
+     * 键和ID对的数量。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 以prefix开头的键下得分最高的ID，按得分从高到低排列；返回的数组属于树本身，调用方不得修改。
+     */
+    public int[] lookup(String prefix) {
+        if (prefix.isEmpty()) {
+            return NO_IDS;
+        }
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            Node child = child(node, prefix.charAt(pos));
+            if (child == null) {
+                return NO_IDS;
+            }
+            int length = Math.min(child.label.length(), prefix.length() - pos);
+            if (!prefix.regionMatches(pos, child.label, 0, length)) {
+                return NO_IDS;
+            }
+            pos += length;
+            node = child;
+        }
+        return node.top;
+    }
+
+    /**
+     * 插入一个键和ID，返回新树。
+     */
+    public SuggestTrie insert(String key, int id) {
+        if (key.isEmpty() || contains(key, id)) {
+            return this;
+        }
+        return new SuggestTrie(insert(root, key, 0, id, true), k, score, size + 1);
+    }
+
+    /**
+     * 删除一个键和ID，不存在时返回当前树。
+     */
+    public SuggestTrie remove(String key, int id) {
+        if (key.isEmpty() || !contains(key, id)) {
+            return this;
+        }
+        return new SuggestTrie(remove(root, key, 0, id, true), k, score, size - 1);
+    }
+
+    private boolean contains(String key, int id) {
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            node = child(node, key.charAt(pos));
+            if (node == null || !key.startsWith(node.label, pos)) {
+                return false;
+            }
+            pos += node.label.length();
+        }
+        for (int existing : node.ids) {
+            if (existing == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 由排好序的entries[lo, hi)构造子树，这些键的前depth个字符相同，节点的边从labelStart开始。
+     */
+    private Node build(Entry[] entries, int lo, int hi, int depth, int labelStart, boolean isRoot) {
+        if (!isRoot) {
+            // 有序区间的公共前缀就是首尾两个键的公共前缀
+            String first = entries[lo].key;
+            String last = entries[hi - 1].key;
+            while (depth < first.length() && depth < last.length() && first.charAt(depth) == last.charAt(depth)) {
+                depth++;
+            }
+        }
+        int i = lo;
+        List<Integer> terminal = new ArrayList<>();
+        while (i < hi && entries[i].key.length() == depth) {
+            terminal.add(entries[i++].id);
+        }
+        List<Node> children = new ArrayList<>();
+        while (i < hi) {
+            char c = entries[i].key.charAt(depth);
+            int j = i + 1;
+            while (j < hi && entries[j].key.charAt(depth) == c) {
+                j++;
+            }
+            children.add(build(entries, i, j, depth + 1, depth, false));
+            i = j;
+        }
+        int[] ids = terminal.stream().sorted(this::compare).mapToInt(Integer::intValue).toArray();
+        String label = isRoot ? "" : entries[lo].key.substring(labelStart, depth);
+        return node(label, children.toArray(NO_CHILDREN), ids, isRoot);
+    }
+
+    private Node insert(Node node, String key, int pos, int id, boolean isRoot) {
+        if (pos == key.length()) {
+            return node(node.label, node.children, addRanked(node.ids, id), isRoot);
+        }
+        int index = indexOf(node.children, key.charAt(pos));
+        Node[] children;
+        if (index < 0) {
+            Node leaf = node(key.substring(pos), NO_CHILDREN, new int[]{id}, false);
+            index = -index - 1;
+            children = new Node[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            children[index] = leaf;
+            System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        } else {
+            Node child = node.children[index];
+            int common = 0;
+            while (common < child.label.length() && pos + common < key.length()
+                    && child.label.charAt(common) == key.charAt(pos + common)) {
+                common++;
+            }
+            Node replaced;
+            if (common == child.label.length()) {
+                replaced = insert(child, key, pos + common, id, false);
+            } else {
+                // 新键在边的中间分叉，把边拆成两段
+                Node tail = new Node(child.label.substring(common), child.children, child.ids, child.top);
+                Node middle = node(child.label.substring(0, common), new Node[]{tail}, NO_IDS, false);
+                replaced = insert(middle, key, pos + common, id, false);
+            }
+            children = node.children.clone();
+            children[index] = replaced;
+        }
+        return node(node.label, children, node.ids, isRoot);
+    }
+
+    /**
+     * 删除后节点为空时返回null；非根节点只剩一个子节点且自身没有ID时与子节点合并。
+     */
+    private Node remove(Node node, String key, int pos, int id, boolean isRoot) {
+        int[] ids = node.ids;
+        Node[] children = node.children;
+        if (pos == key.length()) {
+            ids = removeId(ids, id);
+        } else {
+            int index = indexOf(children, key.charAt(pos));
+            Node child = children[index];
+            Node replaced = remove(child, key, pos + child.label.length(), id, false);
+            if (replaced == null) {
+                Node[] fewer = new Node[children.length - 1];
+                System.arraycopy(children, 0, fewer, 0, index);
+                System.arraycopy(children, index + 1, fewer, index, fewer.length - index);
+                children = fewer;
+            } else {
+                children = children.clone();
+                children[index] = replaced;
+            }
+        }
+        if (!isRoot && ids.length == 0) {
+            if (children.length == 0) {
+                return null;
+            }
+            if (children.length == 1) {
+                Node only = children[0];
+                return new Node(node.label + only.label, only.children, only.ids, only.top);
+            }
+        }
+        return node(node.label, children, ids, isRoot);
+    }
+
+    /**
+     * 构造节点并计算子树的前k个ID。根节点不对应任何前缀，不计算。
+     */
+    private Node node(String label, Node[] children, int[] ids, boolean isRoot) {
+        if (isRoot) {
+            return new Node(label, children, ids, NO_IDS);
+        }
+        if (children.length == 0 && ids.length <= k) {
+            return new Node(label, children, ids, ids);
+        }
+        int[] top = new int[k];
+        int count = merge(top, 0, ids);
+        for (Node child : children) {
+            count = merge(top, count, child.top);
+        }
+        return new Node(label, children, ids, count == k ? top : Arrays.copyOf(top, count));
+    }
+
+    /**
+     * 把按得分排好序的candidates并入top[0, count)，保持有序、去重、至多k个，返回新的个数。
+     */
+    private int merge(int[] top, int count, int[] candidates) {
+        for (int candidate : candidates) {
+            if (count == k && compare(candidate, top[k - 1]) >= 0) {
+                break; // 候选有序，后面的更低
+            }
+            boolean present = false;
+            for (int i = 0; i < count; i++) {
+                if (top[i] == candidate) {
+                    present = true;
+                    break;
+                }
+            }
+            if (present) {
+                continue;
+            }
+            int pos = count == k ? k - 1 : count++;
+            while (pos > 0 && compare(candidate, top[pos - 1]) < 0) {
+                top[pos] = top[pos - 1];
+                pos--;
+            }
+            top[pos] = candidate;
+        }
+        return count;
+    }
+
+    private int compare(int a, int b) {
+        int byScore = Long.compare(score.applyAsLong(b), score.applyAsLong(a));
+        return byScore != 0 ? byScore : Integer.compare(a, b);
+    }
+
+    private int[] addRanked(int[] ids, int id) {
+        int pos = 0;
+        while (pos < ids.length && compare(ids[pos], id) < 0) {
+            pos++;
+        }
+        int[] next = new int[ids.length + 1];
+        System.arraycopy(ids, 0, next, 0, pos);
+        next[pos] = id;
+        System.arraycopy(ids, pos, next, pos + 1, ids.length - pos);
+        return next;
+    }
+
+    private static int[] removeId(int[] ids, int id) {
+        int[] next = new int[ids.length - 1];
+        int out = 0;
+        for (int existing : ids) {
+            if (existing != id) {
+                next[out++] = existing;
+            }
+        }
+        return next;
+    }
+
+    private static Node child(Node node, char c) {
+        int index = indexOf(node.children, c);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    /**
+     * 按边的首字符二分查找子节点，找不到时返回 -(插入位置) - 1。
+     */
+    private static int indexOf(Node[] children, char c) {
+        int lo = 0;
+        int hi = children.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char first = children[mid].label.charAt(0);
+            if (first < c) {
+                lo = mid + 1;
+            } else if (first > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    private static final class Node {
+        final String label;    // 从父节点到本节点的边
+        final Node[] children; // 按边的首字符排序
+        final int[] ids;       // 键恰好在本节点结束的ID，按得分排序
+        final int[] top;       // 子树中得分最高的至多k个ID
+
+        Node(String label, Node[] children, int[] ids, int[] top) {
+            this.label = label;
+            this.children = children;
+            this.ids = ids;
+            this.top = top;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final int id;
+
+        Entry(String key, int id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+}
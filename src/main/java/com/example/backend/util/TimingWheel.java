@@ -0,0 +1,178 @@
+package com.example.backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分层时间轮。
+ * 最底层每格tickMs毫秒、共wheelSize格；超出本层范围的任务放入上一层（每格为下一层的一整圈），按需创建。
+ * 只有非空的格子会放入DelayQueue，取出到期格子时推进时钟，把其中的任务重新放入下层，
+ * 真正到期的任务返回给调用方。因此空闲时不会有任何轮询，添加任务为O(1)。
+ *
+ * @param <T> 任务负载类型
+ */
+public class TimingWheel<T> {
+    private final DelayQueue<Bucket<T>> queue = new DelayQueue<>();
+    private final Level<T> root;
+    private final List<T> expiredOnAdd = new ArrayList<>();
+    private int size;
+
+    /**
+     * @param tickMs 最底层每格的毫秒数
+     * @param wheelSize 每层的格数
+     * @param startMs 起始时间（毫秒）
+     */
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.root = new Level<>(tickMs, wheelSize, startMs, queue);
+    }
+
+    /**
+     * 添加一个在expireAtMs到期的任务。已经到期的任务会在下一次poll时直接返回。
+     */
+    public synchronized void add(T item, long expireAtMs) {
+        size++;
+        if (!root.add(new Entry<>(item, expireAtMs))) {
+            expiredOnAdd.add(item);
+        }
+    }
+
+    /**
+     * 等待最多timeoutMs毫秒，返回这段时间内到期的所有任务。
+     */
+    public List<T> poll(long timeoutMs) throws InterruptedException {
+        Bucket<T> bucket = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            if (bucket == null && expiredOnAdd.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<T> expired = new ArrayList<>(expiredOnAdd);
+            expiredOnAdd.clear();
+            while (bucket != null) {
+                root.advanceClock(bucket.getExpiration());
+                for (Entry<T> entry : bucket.flush()) {
+                    // 高层格子到期后，任务重新放入更精细的下层；放不进去说明已经到期
+                    if (!root.add(entry)) {
+                        expired.add(entry.item);
+                    }
+                }
+                bucket = queue.poll();
+            }
+            size -= expired.size();
+            return expired;
+        }
+    }
+
+    /**
+     * 尚未到期返回的任务数。
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long expireAtMs;
+
+        private Entry(T item, long expireAtMs) {
+            this.item = item;
+            this.expireAtMs = expireAtMs;
+        }
+    }
+
+    /**
+     * 时间轮的一层。
+     */
+    private static final class Level<T> {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private final DelayQueue<Bucket<T>> queue;
+        private long currentTime;
+        private Level<T> overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs, int wheelSize, long startMs, DelayQueue<Bucket<T>> queue) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.queue = queue;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        /**
+         * 放入任务，返回false表示任务已经到期。
+         */
+        private boolean add(Entry<T> entry) {
+            long expiration = entry.expireAtMs;
+            if (expiration < currentTime + tickMs) {
+                return false;
+            }
+            if (expiration < currentTime + interval) {
+                long virtualId = expiration / tickMs;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.entries.add(entry);
+                // 格子的到期时间变化说明它是新一圈的格子，需要重新放入延迟队列
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime, queue);
+            }
+            return overflow.add(entry);
+        }
+
+        private void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * 时间轮的一格，到期时间为该格覆盖的起始时间。
+     */
+    private static final class Bucket<T> implements Delayed {
+        private final AtomicLong expiration = new AtomicLong(-1L);
+        private final List<Entry<T>> entries = new ArrayList<>();
+
+        private boolean setExpiration(long expirationMs) {
+            return expiration.getAndSet(expirationMs) != expirationMs;
+        }
+
+        private long getExpiration() {
+            return expiration.get();
+        }
+
+        private List<Entry<T>> flush() {
+            List<Entry<T>> flushed = new ArrayList<>(entries);
+            entries.clear();
+            expiration.set(-1L);
+            return flushed;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket<?>) other).getExpiration());
+        }
+    }
+}
@@ -7,9 +7,15 @@ CREATE TABLE users (
                        password VARCHAR(255) NOT NULL, -- 密码，加密存储
                        registration_date DATE NOT NULL, -- 注册日期
                        balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00, -- 预存款金额
-                       role VARCHAR(20) NOT NULL DEFAULT 'CUSTOMER' -- 用户角色，例如ADMIN或CUSTOMER
+                       role VARCHAR(20) NOT NULL DEFAULT 'CUSTOMER', -- 用户角色，例如ADMIN或CUSTOMER
+                       token_version INT NOT NULL DEFAULT 0, -- 令牌版本，修改密码或角色时加一，使旧令牌失效
+                       ledger_watermark BIGINT NOT NULL DEFAULT 0, -- 已结算进balance的最大余额流水ID
+                       held_balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00 -- 为未确认订单冻结的金额，已从可用余额中扣除
 );
 
+-- 定期加载修改过密码或角色的用户的令牌版本
+CREATE INDEX idx_users_token_version ON users (token_version);
+
 -- 2. 店铺表（stores）
 CREATE TABLE stores (
                         store_id INT PRIMARY KEY AUTO_INCREMENT, -- 店铺ID，唯一标识
@@ -41,9 +47,14 @@ CREATE TABLE orders (
                         order_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 下单时间
                         notes TEXT, -- 备注
                         dine_option VARCHAR(20) NOT NULL, -- 就餐选项（堂食/自提）
+                        held_amount DECIMAL(10, 2) NOT NULL DEFAULT 0.00, -- 为该订单冻结的金额，确认时转为支付，取消或超时时退回
                         FOREIGN KEY (user_id) REFERENCES users(user_id),
                         FOREIGN KEY (store_id) REFERENCES stores(store_id)
 );
+-- 订单列表按 order_id 键集分页，全部订单直接使用主键
+CREATE INDEX idx_orders_user_id_id ON orders (user_id, order_id);
+-- 启动时按状态恢复未确认订单的超时时间轮
+CREATE INDEX idx_orders_status_time ON orders (status, order_time);
 
 -- 5. 订单详情表（order_details）
 CREATE TABLE order_details (
@@ -86,6 +97,20 @@ CREATE TABLE user_coupons (
                               user_id INT NOT NULL, -- 用户ID，外键
                               coupon_id INT NOT NULL, -- 优惠券ID，外键
                               is_used BOOLEAN NOT NULL DEFAULT FALSE, -- 是否已使用
+                              order_id INT NULL, -- 使用优惠券的订单ID
                               FOREIGN KEY (user_id) REFERENCES users(user_id),
                               FOREIGN KEY (coupon_id) REFERENCES coupons(coupon_id)
-);
\ No newline at end of file
+);
+
+-- 9. 余额流水表（balance_ledger），只追加不修改；用户余额 = users.balance + 流水ID大于ledger_watermark的流水之和
+CREATE TABLE balance_ledger (
+                                ledger_id BIGINT PRIMARY KEY AUTO_INCREMENT, -- 流水ID，递增
+                                user_id INT NOT NULL, -- 用户ID，外键
+                                amount DECIMAL(10, 2) NOT NULL, -- 变动金额，入账为正，扣款为负
+                                type VARCHAR(20) NOT NULL, -- 变动类型（充值/消费/订单支付/订单退款/预授权冻结/预授权释放）
+                                order_id INT NULL, -- 关联的订单ID
+                                created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 记账时间
+                                FOREIGN KEY (user_id) REFERENCES users(user_id)
+);
+-- 按用户汇总未结算流水
+CREATE INDEX idx_balance_ledger_user_id ON balance_ledger (user_id, ledger_id);
@@ -0,0 +1,87 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.entity.BalanceChangeType;
+import com.example.backend.service.IBalanceLedgerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 32个线程在同一个用户上并发充值和扣款（H2内存库）的每毫秒余额变动数。
+ * 四分之一的线程充值，其余扣款，使余额经常触底；被拒绝的扣款同样计为一次操作。
+ * 正确性校验见 BalanceLedgerConcurrencyTest。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class BalanceLedgerBenchmark {
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("50.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private ConfigurableApplicationContext context;
+    private IBalanceLedgerService balanceLedgerService;
+    private int userId;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = H2Context.start();
+        balanceLedgerService = context.getBean(IBalanceLedgerService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        H2Context.clean(context);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('热点用户', '13500000000', 'x', CURRENT_DATE, ?, 'ROLE_CUSTOMER')", INITIAL_BALANCE);
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private boolean recharging;
+
+        @Setup(Level.Trial)
+        public void assignRole(ThreadParams threadParams) {
+            recharging = threadParams.getThreadIndex() % 4 == 0;
+        }
+    }
+
+    @Benchmark
+    public boolean creditOrDebit(Client client) {
+        if (client.recharging) {
+            balanceLedgerService.credit(userId, AMOUNT, BalanceChangeType.RECHARGE, null);
+            return true;
+        }
+        return balanceLedgerService.debit(userId, AMOUNT, BalanceChangeType.PURCHASE, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BalanceLedgerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.exception.BusinessException;
+import com.example.backend.service.ICheckoutService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64个并发客户端各确认40个订单（H2内存库），所有订单争抢同一个菜品的库存，部分因库存或余额不足被拒绝。
+ * 每次调用确认全部2560个订单，每秒确认数约为 2560 / 单次耗时；正确性校验见 CheckoutConcurrencyTest。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+    private static final int CLIENTS = 64;
+    private static final int ORDERS_PER_CLIENT = 40;
+    private static final int INITIAL_STOCK = 1500;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("30.00");
+    private static final BigDecimal PRICE = new BigDecimal("1.00");
+
+    private ConfigurableApplicationContext context;
+    private ICheckoutService checkoutService;
+    private JdbcTemplate jdbcTemplate;
+    private ExecutorService pool;
+    private final List<List<Integer>> ordersByClient = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = H2Context.start();
+        checkoutService = context.getBean(ICheckoutService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        pool = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @Setup(Level.Invocation)
+    public void seed() {
+        H2Context.clean(context);
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('压测店', '一楼')");
+        int storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '宫保鸡丁', '川菜', ?, ?, ?)", storeId, PRICE, PRICE, INITIAL_STOCK);
+        int itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+
+        ordersByClient.clear();
+        for (int c = 0; c < CLIENTS; c++) {
+            jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                    + " VALUES (?, ?, 'x', CURRENT_DATE, ?, 'ROLE_CUSTOMER')", "user" + c, "1390000" + String.format("%04d", c), INITIAL_BALANCE);
+            int userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+
+            List<Integer> orders = new ArrayList<>();
+            for (int o = 0; o < ORDERS_PER_CLIENT; o++) {
+                jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                        + " VALUES (?, ?, '已创建', ?, '堂食')", userId, storeId, PRICE);
+                int orderId = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+                jdbcTemplate.update("INSERT INTO order_details (order_id, item_id, quantity, size, price)"
+                        + " VALUES (?, ?, 1, '小份', ?)", orderId, itemId, PRICE);
+                orders.add(orderId);
+            }
+            ordersByClient.add(orders);
+        }
+    }
+
+    /**
+     * 并发确认全部订单，返回成功确认的订单数。
+     */
+    @Benchmark
+    public int confirmAll() throws Exception {
+        List<Callable<Integer>> clients = new ArrayList<>();
+        for (List<Integer> orders : ordersByClient) {
+            clients.add(() -> {
+                int confirmed = 0;
+                for (Integer orderId : orders) {
+                    try {
+                        checkoutService.confirm(orderId, null);
+                        confirmed++;
+                    } catch (BusinessException e) {
+                        // 库存或余额不足，整体回滚
+                    }
+                }
+                return confirmed;
+            });
+        }
+        int confirmed = 0;
+        for (Future<Integer> result : pool.invokeAll(clients)) {
+            confirmed += result.get();
+        }
+        return confirmed;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        pool.shutdownNow();
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CheckoutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
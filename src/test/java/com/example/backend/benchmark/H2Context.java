@@ -0,0 +1,34 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+/**
+ * 以h2配置启动完整的应用上下文，供需要经过服务层和数据库的基准使用。
+ * 安全配置依赖Spring MVC，所以仍以Web应用启动，端口随机分配。
+ */
+final class H2Context {
+
+    private H2Context() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("h2")
+                .properties("server.port=0")
+                .run();
+    }
+
+    /**
+     * 执行与测试相同的cleanup.sql，清空所有表。
+     */
+    static void clean(ApplicationContext context) {
+        new ResourceDatabasePopulator(new ClassPathResource("cleanup.sql")).execute(context.getBean(DataSource.class));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.MenuCatalog;
+import com.example.backend.entity.MenuItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10万个菜品上的搜索延迟：原先的三列 LIKE '%query%' OR 查询（H2内存库，全表扫描）对比内存倒排索引。
+ * LIKE的耗时不含网络往返，实际MySQL上的差距更大。另测一次增量更新（修改一个菜品名称后换入新快照）的耗时。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuSearchBenchmark {
+    private static final String[] DISHES = {"宫保鸡丁", "鱼香肉丝", "麻婆豆腐", "回锅肉", "水煮鱼", "红烧排骨", "酸菜鱼", "干锅花菜",
+            "番茄炒蛋", "地三鲜", "糖醋里脊", "辣子鸡", "蒜蓉西兰花", "黑椒牛柳", "清蒸鲈鱼", "扬州炒饭"};
+    private static final String[] STYLES = {"招牌", "秘制", "香辣", "家常", "特色", "老式", "小份", "双拼"};
+    private static final String[] CATEGORIES = {"川菜", "粤菜", "湘菜", "家常菜", "主食", "汤品", "凉菜", "饮品"};
+    private static final String[] DESCRIPTIONS = {"选用新鲜食材现点现做", "微辣下饭", "口感鲜嫩", "酱香浓郁", "Spicy and savory",
+            "店长推荐", "Served with rice", "少油少盐"};
+
+    @Param({"100000"})
+    public int items;
+
+    @Param({"宫保鸡丁", "鱼", "Spicy"})
+    public String query;
+
+    private Connection connection;
+    private PreparedStatement like;
+    private MenuCatalog catalog;
+    private MenuItem renamed;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        List<MenuItem> menu = new ArrayList<>(items);
+        for (int id = 1; id <= items; id++) {
+            MenuItem item = new MenuItem();
+            item.setItemId(id);
+            item.setStoreId(1 + random.nextInt(200));
+            item.setName(STYLES[random.nextInt(STYLES.length)] + DISHES[random.nextInt(DISHES.length)]);
+            item.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            item.setDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] + "，" + DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+            item.setSmallSizePrice(new BigDecimal(10 + random.nextInt(40)));
+            item.setLargeSizePrice(new BigDecimal(20 + random.nextInt(40)));
+            item.setSizeStock(100);
+            menu.add(item);
+        }
+        catalog = new MenuCatalog(1, menu);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:menu_search;MODE=MySQL", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE menu_items (item_id INT PRIMARY KEY, store_id INT, name VARCHAR(255),"
+                    + " description TEXT, image_url VARCHAR(255), category VARCHAR(255), small_size_price DECIMAL(10,2),"
+                    + " large_size_price DECIMAL(10,2), size_stock INT)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO menu_items VALUES (?, ?, ?, ?, NULL, ?, ?, ?, ?)")) {
+            for (MenuItem item : menu) {
+                insert.setInt(1, item.getItemId());
+                insert.setInt(2, item.getStoreId());
+                insert.setString(3, item.getName());
+                insert.setString(4, item.getDescription());
+                insert.setString(5, item.getCategory());
+                insert.setBigDecimal(6, item.getSmallSizePrice());
+                insert.setBigDecimal(7, item.getLargeSizePrice());
+                insert.setInt(8, item.getSizeStock());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        like = connection.prepareStatement("SELECT * FROM menu_items WHERE name LIKE ? OR description LIKE ? OR category LIKE ?");
+
+        renamed = new MenuItem();
+        renamed.setItemId(items / 2);
+        renamed.setStoreId(1);
+        renamed.setName("新品椒麻鸡");
+        renamed.setCategory("川菜");
+        renamed.setDescription("限时供应");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int likeQuery() throws SQLException {
+        String pattern = "%" + query + "%";
+        like.setString(1, pattern);
+        like.setString(2, pattern);
+        like.setString(3, pattern);
+        int count = 0;
+        try (ResultSet rows = like.executeQuery()) {
+            while (rows.next()) {
+                MenuItem item = new MenuItem();
+                item.setItemId(rows.getInt("item_id"));
+                item.setName(rows.getString("name"));
+                item.setDescription(rows.getString("description"));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int invertedIndex() {
+        return catalog.search(query, null, Integer.MAX_VALUE).size();
+    }
+
+    @Benchmark
+    public int invertedIndexTop100() {
+        return catalog.search(query, null, 100).size();
+    }
+
+    @Benchmark
+    public MenuCatalog incrementalUpdate() {
+        return catalog.with(2, renamed);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MenuSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
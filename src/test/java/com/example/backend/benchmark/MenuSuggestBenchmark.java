@@ -0,0 +1,98 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.util.Pinyin;
+import com.example.backend.util.SuggestTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10万个菜品的联想前缀树：单线程每毫秒的查询次数，以及改名一个菜品（删除旧键、插入新键）的耗时。
+ * 查询前缀混合了汉字、全拼和首字母，长度从1到6。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuSuggestBenchmark {
+    private static final String[] DISHES = {"宫保鸡丁", "鱼香肉丝", "麻婆豆腐", "回锅肉", "水煮鱼", "红烧排骨", "酸菜鱼", "干锅花菜",
+            "番茄炒蛋", "地三鲜", "糖醋里脊", "辣子鸡", "蒜蓉西兰花", "黑椒牛柳", "清蒸鲈鱼", "扬州炒饭"};
+    private static final String[] STYLES = {"招牌", "秘制", "香辣", "家常", "特色", "老式", "小份", "双拼"};
+    private static final String[] PREFIXES = {"宫", "宫保", "g", "gb", "gongbao", "yx", "yuxiang", "招牌", "zp", "zhaopai",
+            "x", "xl", "xiangla", "h", "hsp", "mapo"};
+
+    @Param({"100000"})
+    public int items;
+
+    private SuggestTrie trie;
+    private long[] sales;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        sales = new long[items + 1];
+        names = new String[items + 1];
+        List<String> keys = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= items; id++) {
+            // 加上编号使多数菜名各不相同，接近多店铺菜单的实际情况
+            names[id] = STYLES[random.nextInt(STYLES.length)] + DISHES[random.nextInt(DISHES.length)] + random.nextInt(1000);
+            sales[id] = random.nextInt(5000);
+            for (String key : keys(names[id])) {
+                keys.add(key);
+                ids.add(id);
+            }
+        }
+        long start = System.nanoTime();
+        trie = SuggestTrie.build(keys, ids.stream().mapToInt(Integer::intValue).toArray(), 20, id -> sales[id]);
+        System.out.printf("%nbuilt %d keys in %d ms%n", trie.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Benchmark
+    public int lookup() {
+        next = (next + 1) % PREFIXES.length;
+        return trie.lookup(Pinyin.normalize(PREFIXES[next])).length;
+    }
+
+    @Benchmark
+    public SuggestTrie rename() {
+        next = next % items + 1;
+        SuggestTrie updated = trie;
+        for (String key : keys(names[next])) {
+            updated = updated.remove(key, next);
+        }
+        for (String key : keys("新品" + names[next])) {
+            updated = updated.insert(key, next);
+        }
+        return updated;
+    }
+
+    private static String[] keys(String name) {
+        return new String[]{Pinyin.normalize(name), Pinyin.full(name), Pinyin.initials(name)};
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MenuSuggestBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.BatchOrderDTO;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.service.IOrderIntakeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量同步一个班次的订单（每单3行详情，H2内存库）的耗时，每次调用写入全部订单，调用之间清空订单表。
+ * 正确性校验见 OrderIntakeTest。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderIntakeBenchmark {
+    private static final BigDecimal SMALL_PRICE = new BigDecimal("12.00");
+    private static final BigDecimal LARGE_PRICE = new BigDecimal("18.00");
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private IOrderIntakeService orderIntakeService;
+    private JdbcTemplate jdbcTemplate;
+    private int storeId;
+    private int userId;
+    private int itemId;
+    private List<BatchOrderDTO> batch;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = H2Context.start();
+        orderIntakeService = context.getBean(IOrderIntakeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        H2Context.clean(context);
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('收银店', '二楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '鱼香肉丝', '川菜', ?, ?, 100)", storeId, SMALL_PRICE, LARGE_PRICE);
+        itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('收银员', '13800000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+    }
+
+    /**
+     * 每次调用前重新构造请求，构造时间不计入耗时。
+     */
+    @Setup(Level.Iteration)
+    public void buildBatch() {
+        batch = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            batch.add(order(detail("小份", 2), detail("大份", 1), detail("小份", 1)));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearOrders() {
+        jdbcTemplate.update("DELETE FROM order_details");
+        jdbcTemplate.update("DELETE FROM orders");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> syncShift() {
+        return orderIntakeService.createOrders(batch);
+    }
+
+    private BatchOrderDTO order(OrderDetail... details) {
+        BatchOrderDTO order = new BatchOrderDTO();
+        order.setUserId(userId);
+        order.setStoreId(storeId);
+        order.setDineOption("堂食");
+        order.setDetails(new ArrayList<>(Arrays.asList(details)));
+        return order;
+    }
+
+    private OrderDetail detail(String size, int quantity) {
+        OrderDetail detail = new OrderDetail();
+        detail.setItemId(itemId);
+        detail.setSize(size);
+        detail.setQuantity(quantity);
+        return detail;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderIntakeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.util.SlidingWindowCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录限流计数器单次检查的耗时。
+ * hotKey 为同一个手机号被反复尝试；distinctKeys 为撞库场景，键数量远超容量，持续触发淘汰。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SlidingWindowCounterBenchmark {
+    private static final int KEYS = 1 << 22;
+
+    private SlidingWindowCounter counter;
+    private String[] phones;
+
+    @Setup
+    public void setUp() {
+        counter = new SlidingWindowCounter(1 << 18, 64, Integer.MAX_VALUE, 60000);
+        phones = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            phones[i] = String.valueOf(13000000000L + i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) (Math.random() * KEYS);
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return counter.tryAcquire("13800000000");
+    }
+
+    @Benchmark
+    public boolean distinctKeys(Cursor cursor) {
+        cursor.next = (cursor.next + 1) & (KEYS - 1);
+        return counter.tryAcquire(phones[cursor.next]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SlidingWindowCounterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.config.HmacTokenCodec;
+import com.example.backend.config.JjwtTokenCodec;
+import com.example.backend.config.TokenCodec;
+import com.example.backend.dto.TokenClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两种令牌实现签发和校验的吞吐量，main方法附带GC分析器，输出中的 gc.alloc.rate.norm 即每次操作分配的字节数。
+ * 运行：mvn test-compile 后以测试类路径执行本类的main方法。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenCodecBenchmark {
+    @Param({"jjwt", "hmac"})
+    public String codec;
+
+    private TokenCodec tokenCodec;
+    private TokenClaims claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenCodec = "jjwt".equals(codec) ? new JjwtTokenCodec("SecretKey") : new HmacTokenCodec("SecretKey");
+        claims = new TokenClaims();
+        claims.setPhone("13800000000");
+        claims.setUserId(123456);
+        claims.setRole("ROLE_CUSTOMER");
+        claims.setVersion(2);
+        claims.setExpiration(new Date(System.currentTimeMillis() + 86400000));
+        token = tokenCodec.sign(claims);
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenCodec.sign(claims);
+    }
+
+    @Benchmark
+    public TokenClaims verify() {
+        return tokenCodec.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 令牌携带用户ID、角色和令牌版本；修改密码后旧令牌失效，新令牌可用。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class JwtTokenRevocationTest {
+    private static final String PHONE = "13500000000";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void seed() throws Exception {
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"测试\",\"phone\":\"" + PHONE + "\",\"password\":\"old-pass\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void passwordResetRevokesIssuedTokens() throws Exception {
+        String token = login("old-pass");
+        Claims claims = Jwts.parser().setSigningKey("SecretKey").parseClaimsJws(token).getBody();
+        assertEquals(PHONE, claims.getSubject());
+        assertNotNull(claims.get("uid", Integer.class));
+        assertEquals("ROLE_CUSTOMER", claims.get("role", String.class));
+        assertEquals(0, claims.get("ver", Integer.class));
+
+        mockMvc.perform(get("/api/users/info").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/users/password").header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"newPassword\":\"new-pass\"}"))
+                .andExpect(status().isOk());
+
+        // 旧令牌已被吊销，包括已缓存的认证信息
+        mockMvc.perform(get("/api/users/info").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        String newToken = login("new-pass");
+        assertEquals(1, Jwts.parser().setSigningKey("SecretKey").parseClaimsJws(newToken).getBody().get("ver", Integer.class));
+        mockMvc.perform(get("/api/users/info").header("Authorization", "Bearer " + newToken))
+                .andExpect(status().isOk());
+    }
+
+    private String login(String password) throws Exception {
+        String body = mockMvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phone\":\"" + PHONE + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readTree(body).get("token").asText();
+    }
+}
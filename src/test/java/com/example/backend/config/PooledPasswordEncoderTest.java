@@ -0,0 +1,136 @@
+package com.example.backend.config;
+
+import com.example.backend.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 校验专用BCrypt线程池的编码、校验、排队满时快速失败以及启动校准。
+ */
+class PooledPasswordEncoderTest {
+    private PooledPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new PooledPasswordEncoder();
+        ReflectionTestUtils.setField(encoder, "threads", 1);
+        ReflectionTestUtils.setField(encoder, "queueCapacity", 1);
+        ReflectionTestUtils.setField(encoder, "configuredStrength", 4);
+        ReflectionTestUtils.setField(encoder, "minStrength", 4);
+        ReflectionTestUtils.setField(encoder, "targetMs", 250L);
+        encoder.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodesAndMatchesOnPool() {
+        String hash = encoder.encode("secret");
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+
+        Map<String, Object> metrics = encoder.metrics();
+        assertEquals(4, metrics.get("strength"));
+        assertEquals(1L, ((Map<?, ?>) metrics.get("encode")).get("count"));
+        assertEquals(2L, ((Map<?, ?>) metrics.get("matches")).get("count"));
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableWhenQueueIsFull() throws Exception {
+        // 用一个阻塞任务占住唯一的线程，再塞满长度为1的队列
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        List<Future<?>> pending = new ArrayList<>();
+        try {
+            String hash = encoder.encode("secret");
+            ReflectionTestUtils.setField(encoder, "delegate", new BlockingEncoder(running, release));
+            pending.add(callers.submit(() -> encoder.matches("secret", hash)));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            pending.add(callers.submit(() -> encoder.matches("secret", hash)));
+            waitUntilQueued(1);
+
+            BusinessException e = assertThrows(BusinessException.class, () -> encoder.encode("other"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+            assertEquals(1L, encoder.metrics().get("rejected"));
+        } finally {
+            release.countDown();
+            for (Future<?> future : pending) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void calibrationPicksCostWithinBounds() {
+        PooledPasswordEncoder calibrated = new PooledPasswordEncoder();
+        ReflectionTestUtils.setField(calibrated, "threads", 1);
+        ReflectionTestUtils.setField(calibrated, "queueCapacity", 1);
+        ReflectionTestUtils.setField(calibrated, "configuredStrength", 0);
+        ReflectionTestUtils.setField(calibrated, "minStrength", 4);
+        ReflectionTestUtils.setField(calibrated, "targetMs", 20L);
+        calibrated.init();
+        try {
+            int strength = (Integer) calibrated.metrics().get("strength");
+            assertTrue(strength >= 4 && strength <= 16, "strength " + strength);
+            assertTrue(calibrated.matches("pw", calibrated.encode("pw")));
+        } finally {
+            calibrated.shutdown();
+        }
+    }
+
+    private void waitUntilQueued(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((Integer) encoder.metrics().get("queued")) < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "task was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 在校验时阻塞，用于模拟线程被长时间占用。
+     */
+    private static class BlockingEncoder extends org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder {
+        private final CountDownLatch running;
+        private final CountDownLatch release;
+
+        BlockingEncoder(CountDownLatch running, CountDownLatch release) {
+            super(4);
+            this.running = running;
+            this.release = release;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.matches(rawPassword, encodedPassword);
+        }
+    }
+}
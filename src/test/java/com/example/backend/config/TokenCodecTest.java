@@ -0,0 +1,61 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.TokenClaims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 两种令牌实现签发的令牌可以互相校验，篡改、过期和其他算法的令牌被拒绝。
+ */
+class TokenCodecTest {
+    private final TokenCodec hmac = new HmacTokenCodec("SecretKey");
+    private final TokenCodec jjwt = new JjwtTokenCodec("SecretKey");
+
+    @Test
+    void codecsAcceptEachOthersTokens() {
+        TokenClaims claims = claims(60000);
+        assertClaims(claims, jjwt.verify(hmac.sign(claims)));
+        assertClaims(claims, hmac.verify(jjwt.sign(claims)));
+        assertClaims(claims, hmac.verify(hmac.sign(claims)));
+
+        // 改造前签发的令牌额外带有roles声明，字段顺序也不同
+        String legacy = Jwts.builder().setSubject("13800000000").claim("roles", "ROLE_CUSTOMER")
+                .claim("uid", 7).claim("role", "ROLE_CUSTOMER").claim("ver", 3)
+                .setExpiration(claims.getExpiration()).signWith(SignatureAlgorithm.HS512, "SecretKey").compact();
+        assertClaims(claims, hmac.verify(legacy));
+    }
+
+    @Test
+    void rejectsTamperedExpiredAndForeignTokens() {
+        String token = hmac.sign(claims(60000));
+        char last = token.charAt(token.length() - 1);
+        assertNull(hmac.verify(token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A')));
+        assertNull(hmac.verify(token.substring(0, token.length() - 2)));
+        assertNull(hmac.verify(hmac.sign(claims(-1000))));
+        assertNull(hmac.verify(new HmacTokenCodec("OtherKey").sign(claims(60000))));
+        assertNull(hmac.verify(Jwts.builder().setSubject("13800000000").compact()));
+        assertNull(hmac.verify("not-a-token"));
+        assertNull(jjwt.verify(hmac.sign(claims(-1000))));
+    }
+
+    private static TokenClaims claims(long ttlMs) {
+        TokenClaims claims = new TokenClaims();
+        claims.setPhone("13800000000");
+        claims.setUserId(7);
+        claims.setRole("ROLE_CUSTOMER");
+        claims.setVersion(3);
+        // 令牌中的有效期精确到秒
+        claims.setExpiration(new Date((System.currentTimeMillis() + ttlMs) / 1000 * 1000));
+        return claims;
+    }
+
+    private static void assertClaims(TokenClaims expected, TokenClaims actual) {
+        assertEquals(expected, actual);
+    }
+}
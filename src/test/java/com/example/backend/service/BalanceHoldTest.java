@@ -0,0 +1,225 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Order;
+import com.example.backend.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 预授权冻结：冻结扣除可用余额，确认时转为支付，取消或超时时退回，同一笔冻结不会被重复使用；
+ * 直接删除或修改订单时同样退回冻结资金。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class BalanceHoldTest {
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("30.00");
+    private static final BigDecimal PRICE = new BigDecimal("12.00");
+
+    @Autowired
+    private ICheckoutService checkoutService;
+    @Autowired
+    private IBalanceLedgerService balanceLedgerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    private int storeId;
+    private int itemId;
+    private int userId;
+    private String token;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('冻结测试店', '一楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '鱼香肉丝', '川菜', ?, ?, 100)", storeId, PRICE, PRICE);
+        itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('冻结用户', '13600000000', 'x', CURRENT_DATE, ?, 'ROLE_CUSTOMER')", INITIAL_BALANCE);
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+    }
+
+    /**
+     * 注册并登录一个操作员，用于调用订单接口。
+     */
+    private String login() throws Exception {
+        String phone = "13600000001";
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"操作员\",\"phone\":\"" + phone + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phone\":\"" + phone + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readTree(body).get("token").asText();
+    }
+
+    @Test
+    void confirmCapturesHold() {
+        int orderId = createOrder(1);
+        Order held = checkoutService.hold(orderId);
+        assertEquals(0, PRICE.compareTo(held.getHeldAmount()));
+        assertBalances("18.00", "12.00");
+
+        checkoutService.confirm(orderId, null);
+        // 冻结金额恰好等于实付金额，确认不再写流水
+        assertBalances("18.00", "0.00");
+        assertEquals(0, BigDecimal.ZERO.compareTo(heldAmount(orderId)));
+        assertEquals(1, ledgerRows(orderId));
+    }
+
+    @Test
+    void confirmChargesDifferenceWhenItemsAddedAfterHold() {
+        int orderId = createOrder(1);
+        checkoutService.hold(orderId);
+        addItem(orderId);
+
+        checkoutService.confirm(orderId, null);
+        assertBalances("6.00", "0.00");
+        assertEquals(2, ledgerRows(orderId));
+    }
+
+    @Test
+    void cancelAndExpireReleaseHold() {
+        int cancelled = createOrder(1);
+        int expired = createOrder(1);
+        checkoutService.hold(cancelled);
+        checkoutService.hold(expired);
+        assertBalances("6.00", "24.00");
+
+        checkoutService.cancel(cancelled);
+        assertBalances("18.00", "12.00");
+        assertEquals(1, checkoutService.expire(Collections.singletonList(expired)));
+        assertBalances("30.00", "0.00");
+        assertEquals(0, BigDecimal.ZERO.compareTo(heldAmount(expired)));
+    }
+
+    @Test
+    void rejectsDoubleHoldAndOverdraft() {
+        int orderId = createOrder(1);
+        checkoutService.hold(orderId);
+        BusinessException twice = assertThrows(BusinessException.class, () -> checkoutService.hold(orderId));
+        assertEquals("订单状态不允许冻结或已冻结", twice.getMessage());
+
+        int large = createOrder(2);
+        BusinessException overdraft = assertThrows(BusinessException.class, () -> checkoutService.hold(large));
+        assertEquals("用户余额不足", overdraft.getMessage());
+        // 被拒绝的冻结不影响余额
+        assertBalances("18.00", "12.00");
+        assertEquals(0, BigDecimal.ZERO.compareTo(heldAmount(large)));
+    }
+
+    @Test
+    void deleteReleasesHold() throws Exception {
+        token = login();
+        int orderId = createOrder(1);
+        checkoutService.hold(orderId);
+        assertBalances("18.00", "12.00");
+
+        mockMvc.perform(delete("/api/orders/" + orderId).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        assertBalances("30.00", "0.00");
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE order_id = ?", Integer.class, orderId));
+        // 冻结流水和释放流水都保留
+        assertEquals(2, ledgerRows(orderId));
+    }
+
+    @Test
+    void directStatusChangeOnHeldOrderCancelsOrIsRejected() throws Exception {
+        token = login();
+        int orderId = createOrder(1);
+        checkoutService.hold(orderId);
+
+        // 绕过确认直接改为进行中会留下无法释放的冻结，被拒绝
+        mockMvc.perform(put("/api/orders/" + orderId).header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content(orderJson("进行中")))
+                .andExpect(status().isConflict());
+        assertBalances("18.00", "12.00");
+        assertEquals("已创建", orderStatus(orderId));
+
+        // 改为已取消经结算服务取消，退回冻结资金
+        mockMvc.perform(put("/api/orders/" + orderId).header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content(orderJson("已取消")))
+                .andExpect(status().isOk());
+        assertBalances("30.00", "0.00");
+        assertEquals("已取消", orderStatus(orderId));
+        assertEquals(0, BigDecimal.ZERO.compareTo(heldAmount(orderId)));
+    }
+
+    @Test
+    void releaseRollsBackWhenHeldBalanceIsOutOfSync() {
+        int orderId = createOrder(1);
+        checkoutService.hold(orderId);
+        // users.held_balance被直接改写，与订单的冻结金额不一致
+        jdbcTemplate.update("UPDATE users SET held_balance = 0 WHERE user_id = ?", userId);
+
+        BusinessException broken = assertThrows(BusinessException.class, () -> checkoutService.cancel(orderId));
+        assertEquals(500, broken.getStatus().value());
+        // 整个取消回滚，订单仍冻结着资金，没有写入释放流水
+        assertEquals("已创建", orderStatus(orderId));
+        assertEquals(0, PRICE.compareTo(heldAmount(orderId)));
+        assertEquals(1, ledgerRows(orderId));
+    }
+
+    private String orderJson(String status) {
+        return "{\"userId\":" + userId + ",\"storeId\":" + storeId + ",\"status\":\"" + status + "\","
+                + "\"totalPrice\":12,\"dineOption\":\"堂食\"}";
+    }
+
+    private String orderStatus(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE order_id = ?", String.class, orderId);
+    }
+
+    private int createOrder(int quantity) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, '已创建', 0, '堂食')", userId, storeId);
+        int orderId = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+        for (int i = 0; i < quantity; i++) {
+            addItem(orderId);
+        }
+        return orderId;
+    }
+
+    private void addItem(int orderId) {
+        jdbcTemplate.update("INSERT INTO order_details (order_id, item_id, quantity, size, price)"
+                + " VALUES (?, ?, 1, '小份', ?)", orderId, itemId, PRICE);
+    }
+
+    private void assertBalances(String available, String held) {
+        assertEquals(0, new BigDecimal(available).compareTo(balanceLedgerService.balanceOf(userId)));
+        assertEquals(0, new BigDecimal(held).compareTo(jdbcTemplate.queryForObject(
+                "SELECT held_balance FROM users WHERE user_id = ?", BigDecimal.class, userId)));
+    }
+
+    private BigDecimal heldAmount(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT held_amount FROM orders WHERE order_id = ?", BigDecimal.class, orderId);
+    }
+
+    private int ledgerRows(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance_ledger WHERE order_id = ?", Integer.class, orderId);
+    }
+}
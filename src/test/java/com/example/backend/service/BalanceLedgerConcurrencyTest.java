@@ -0,0 +1,128 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.BalanceChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 同一个用户上的并发充值和扣款：校验没有丢失更新、没有透支，结算前后余额一致；
+ * 透支检查以数据库为准，绕过本实例缓存的写入同样被计入。吞吐量见 benchmark.BalanceLedgerBenchmark。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class BalanceLedgerConcurrencyTest {
+    private static final int CLIENTS = 32;
+    private static final int OPS_PER_CLIENT = 200;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("50.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private IBalanceLedgerService balanceLedgerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int userId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('热点用户', '13500000000', 'x', CURRENT_DATE, ?, 'ROLE_CUSTOMER')", INITIAL_BALANCE);
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+    }
+
+    @Test
+    void concurrentChangesOnOneUserLoseNothing() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger credited = new AtomicInteger();
+        AtomicInteger debited = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int c = 0; c < CLIENTS; c++) {
+            // 四分之一的客户端充值，其余扣款，使余额经常触底以检验透支检查
+            boolean recharging = c % 4 == 0;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPS_PER_CLIENT; i++) {
+                    try {
+                        if (recharging) {
+                            balanceLedgerService.credit(userId, AMOUNT, BalanceChangeType.RECHARGE, null);
+                            credited.incrementAndGet();
+                        } else if (balanceLedgerService.debit(userId, AMOUNT, BalanceChangeType.PURCHASE, null)) {
+                            debited.incrementAndGet();
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    } catch (Throwable t) {
+                        unexpected.add(t);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+
+        int ops = CLIENTS * OPS_PER_CLIENT;
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertEquals(ops, credited.get() + debited.get() + rejected.get());
+
+        BigDecimal expected = INITIAL_BALANCE.add(AMOUNT.multiply(BigDecimal.valueOf(credited.get() - debited.get())));
+        assertEquals(0, expected.compareTo(balanceLedgerService.balanceOf(userId)));
+        assertEquals(0, expected.compareTo(ledgerBalance()));
+        assertTrue(expected.signum() >= 0);
+        // 流水条数等于成功的变动次数，被拒绝的扣款没有写入
+        assertEquals(credited.get() + debited.get(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance_ledger WHERE user_id = ?", Integer.class, userId));
+
+        // 结算后users.balance即为当前余额，流水保留
+        assertTrue(balanceLedgerService.compact() >= 1);
+        assertEquals(0, expected.compareTo(jdbcTemplate.queryForObject(
+                "SELECT balance FROM users WHERE user_id = ?", BigDecimal.class, userId)));
+        assertEquals(0, expected.compareTo(ledgerBalance()));
+        balanceLedgerService.credit(userId, AMOUNT, BalanceChangeType.RECHARGE, null);
+        assertEquals(0, expected.add(AMOUNT).compareTo(ledgerBalance()));
+    }
+
+    @Test
+    void overdraftCheckIgnoresStaleCache() {
+        assertEquals(0, INITIAL_BALANCE.compareTo(balanceLedgerService.balanceOf(userId)));
+        // 模拟另一个实例的扣款：直接写入流水，本实例的缓存余额仍是50
+        jdbcTemplate.update("INSERT INTO balance_ledger (user_id, amount, type, created_at)"
+                + " VALUES (?, -45, '消费', CURRENT_TIMESTAMP)", userId);
+        assertEquals(0, INITIAL_BALANCE.compareTo(balanceLedgerService.balanceOf(userId)));
+
+        assertEquals(false, balanceLedgerService.debit(userId, new BigDecimal("10.00"), BalanceChangeType.PURCHASE, null));
+        assertEquals(true, balanceLedgerService.debit(userId, new BigDecimal("5.00"), BalanceChangeType.PURCHASE, null));
+        // 写入后缓存被删除，重新读取的是数据库中的余额
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceLedgerService.balanceOf(userId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledgerBalance()));
+    }
+
+    private BigDecimal ledgerBalance() {
+        return jdbcTemplate.queryForObject("SELECT u.balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l"
+                + " WHERE l.user_id = u.user_id AND l.ledger_id > u.ledger_watermark), 0) FROM users u WHERE u.user_id = ?",
+                BigDecimal.class, userId);
+    }
+}
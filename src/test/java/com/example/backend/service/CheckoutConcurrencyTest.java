@@ -0,0 +1,138 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64个并发客户端同时确认订单，校验库存和余额没有丢失更新。
+ * 每个客户端对应一个用户，所有订单争抢同一个菜品的库存。吞吐量见 benchmark.CheckoutBenchmark。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class CheckoutConcurrencyTest {
+    private static final int CLIENTS = 64;
+    private static final int ORDERS_PER_CLIENT = 40;
+    private static final int INITIAL_STOCK = 1500;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("30.00");
+    private static final BigDecimal PRICE = new BigDecimal("1.00");
+
+    @Autowired
+    private ICheckoutService checkoutService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int itemId;
+    private final List<Integer> userIds = new ArrayList<>();
+    private final List<List<Integer>> ordersByClient = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('压测店', '一楼')");
+        int storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '宫保鸡丁', '川菜', ?, ?, ?)", storeId, PRICE, PRICE, INITIAL_STOCK);
+        itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+
+        userIds.clear();
+        ordersByClient.clear();
+        for (int c = 0; c < CLIENTS; c++) {
+            jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                    + " VALUES (?, ?, 'x', CURRENT_DATE, ?, 'ROLE_CUSTOMER')", "user" + c, "1390000" + String.format("%04d", c), INITIAL_BALANCE);
+            int userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+            userIds.add(userId);
+
+            List<Integer> orders = new ArrayList<>();
+            for (int o = 0; o < ORDERS_PER_CLIENT; o++) {
+                jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                        + " VALUES (?, ?, '已创建', ?, '堂食')", userId, storeId, PRICE);
+                int orderId = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+                jdbcTemplate.update("INSERT INTO order_details (order_id, item_id, quantity, size, price)"
+                        + " VALUES (?, ?, 1, '小份', ?)", orderId, itemId, PRICE);
+                orders.add(orderId);
+            }
+            ordersByClient.add(orders);
+        }
+    }
+
+    @Test
+    void concurrentConfirmsLoseNoUpdates() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (List<Integer> orders : ordersByClient) {
+            pool.submit(() -> {
+                start.await();
+                for (Integer orderId : orders) {
+                    try {
+                        checkoutService.confirm(orderId, null);
+                        confirmed.incrementAndGet();
+                    } catch (BusinessException e) {
+                        rejected.incrementAndGet(); // 库存或余额不足，整体回滚
+                    } catch (Throwable t) {
+                        unexpected.add(t);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+
+        int attempts = CLIENTS * ORDERS_PER_CLIENT;
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertEquals(attempts, confirmed.get() + rejected.get());
+
+        // 库存：初始库存 - 成功确认的订单数，不能为负
+        int inProgress = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE status = '进行中'", Integer.class);
+        int stock = jdbcTemplate.queryForObject("SELECT size_stock FROM menu_items WHERE item_id = ?", Integer.class, itemId);
+        assertEquals(confirmed.get(), inProgress);
+        assertEquals(INITIAL_STOCK - confirmed.get(), stock);
+        assertTrue(stock >= 0);
+
+        // 余额：每个用户的余额（已结算余额加未结算流水）= 初始余额 - 该用户成功确认的订单金额，不能为负
+        for (Integer userId : userIds) {
+            Map<String, Object> row = jdbcTemplate.queryForMap("SELECT u.balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l"
+                    + " WHERE l.user_id = u.user_id AND l.ledger_id > u.ledger_watermark), 0) AS balance,"
+                    + " (SELECT COUNT(*) FROM orders o WHERE o.user_id = u.user_id AND o.status = '进行中') AS paid"
+                    + " FROM users u WHERE u.user_id = ?", userId);
+            BigDecimal balance = (BigDecimal) row.get("BALANCE");
+            long paid = ((Number) row.get("PAID")).longValue();
+            assertEquals(0, INITIAL_BALANCE.subtract(PRICE.multiply(BigDecimal.valueOf(paid))).compareTo(balance),
+                    "user " + userId + " balance mismatch");
+            assertTrue(balance.signum() >= 0);
+        }
+
+        // 被拒绝的订单保持已创建状态，没有残留的部分更新
+        int created = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE status = '已创建'", Integer.class);
+        assertEquals(rejected.get(), created);
+        assertEquals(Collections.emptyList(), new ArrayList<>(unexpected));
+    }
+}
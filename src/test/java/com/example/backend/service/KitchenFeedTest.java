@@ -0,0 +1,221 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Order;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 后厨推送：首次连接收到快照，之后收到增删事件；凭事件ID续传只补发错过的事件；
+ * 关系图加载期间已离开进行中的订单不会被放回；直接修改和删除订单也会更新推送。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE) // 打印结果时会遍历响应头，与发送线程写出事件并发
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class KitchenFeedTest {
+    private static final String PHONE = "13600000000";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private IKitchenFeedService kitchenFeedService;
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private int userId;
+    private int storeId;
+
+    @BeforeEach
+    void seed() throws Exception {
+        // 每个用例使用新店铺，避免上一个用例留下的推送状态
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('后厨测试店', '七楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"后厨\",\"phone\":\"" + PHONE + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phone\":\"" + PHONE + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = new ObjectMapper().readTree(body).get("token").asText();
+        userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE phone = ?", Integer.class, PHONE);
+    }
+
+    @Test
+    void snapshotThenEventsThenResume() throws Exception {
+        int existing = insertOrder("进行中");
+        MockHttpServletResponse first = subscribe(null);
+        List<Event> events = awaitEvents(first, 1);
+        assertEquals("snapshot", events.get(0).name);
+        assertEquals(1, events.get(0).data.size());
+        assertEquals(existing, events.get(0).data.get(0).get("orderId").asInt());
+        String snapshotId = events.get(0).id;
+
+        int added = insertOrder("进行中");
+        kitchenFeedService.orderAdded(orderService.getById(added));
+        setStatus(added, "已完成");
+        kitchenFeedService.orderCompleted(orderService.getById(added));
+        setStatus(existing, "已取消");
+        kitchenFeedService.orderCancelled(orderService.getById(existing));
+
+        events = awaitEvents(first, 4);
+        assertEquals("order-added", events.get(1).name);
+        assertEquals(added, events.get(1).data.get("orderId").asInt());
+        assertEquals("order-completed", events.get(2).name);
+        assertEquals(added, events.get(2).data.get("orderId").asInt());
+        assertEquals("order-cancelled", events.get(3).name);
+        assertEquals(existing, events.get(3).data.get("orderId").asInt());
+
+        // 凭快照的事件ID重连，只补发之后的三个事件，不再推送快照
+        List<Event> resumed = awaitEvents(subscribe(snapshotId), 3);
+        assertEquals("order-added", resumed.get(0).name);
+        assertEquals("order-cancelled", resumed.get(2).name);
+        assertEquals(events.get(3).id, resumed.get(2).id);
+
+        // 令牌无效或来自上一次启动时重新推送快照，此时已没有进行中订单
+        List<Event> fresh = awaitEvents(subscribe("stale:1"), 1);
+        assertEquals("snapshot", fresh.get(0).name);
+        assertEquals(0, fresh.get(0).data.size());
+    }
+
+    @Test
+    void staleAddIsNotPutBack() throws Exception {
+        MockHttpServletResponse response = subscribe(null);
+        awaitEvents(response, 1);
+
+        // 模拟加载关系图期间订单已被完成：推送的订单对象仍是进行中，但数据库中已是已完成
+        int orderId = insertOrder("进行中");
+        Order stale = orderService.getById(orderId);
+        setStatus(orderId, "已完成");
+        kitchenFeedService.orderAdded(stale);
+
+        int other = insertOrder("进行中");
+        kitchenFeedService.orderAdded(orderService.getById(other));
+        List<Event> events = awaitEvents(response, 2);
+        assertEquals("order-added", events.get(1).name);
+        assertEquals(other, events.get(1).data.get("orderId").asInt());
+
+        List<Event> snapshot = awaitEvents(subscribe(null), 1);
+        assertEquals(1, snapshot.get(0).data.size());
+        assertEquals(other, snapshot.get(0).data.get(0).get("orderId").asInt());
+    }
+
+    @Test
+    void directUpdateAndDeleteReachTheFeed() throws Exception {
+        int created = insertOrder("已创建");
+        int inProgress = insertOrder("进行中");
+        MockHttpServletResponse response = subscribe(null);
+        awaitEvents(response, 1);
+
+        // 直接把已创建的订单改为进行中
+        mockMvc.perform(put("/api/orders/" + created)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"storeId\":" + storeId + ",\"status\":\"进行中\","
+                                + "\"totalPrice\":10,\"dineOption\":\"堂食\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/orders/" + inProgress)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        List<Event> events = awaitEvents(response, 3);
+        assertEquals("order-added", events.get(1).name);
+        assertEquals(created, events.get(1).data.get("orderId").asInt());
+        assertEquals("order-removed", events.get(2).name);
+        assertEquals(inProgress, events.get(2).data.get("orderId").asInt());
+    }
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        if (lastEventId != null) {
+            headers.set("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(get("/api/orders/store/" + storeId + "/feed").headers(headers))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    /**
+     * 事件由发送线程异步写出，等待响应中至少出现count个事件。
+     */
+    private List<Event> awaitEvents(MockHttpServletResponse response, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            List<Event> events = parse(response.getContentAsString(StandardCharsets.UTF_8));
+            if (events.size() >= count) {
+                return events;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                fail("5秒内只收到" + events.size() + "个事件: " + response.getContentAsString(StandardCharsets.UTF_8));
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<Event> parse(String body) throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (String block : body.split("\n\n")) {
+            Event event = new Event();
+            for (String line : block.split("\n")) {
+                if (line.startsWith("id:")) {
+                    event.id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    event.name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    event.data = new ObjectMapper().readTree(line.substring(5));
+                }
+            }
+            if (event.name != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private int insertOrder(String status) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, ?, 10, '堂食')", userId, storeId, status);
+        return jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+    }
+
+    private void setStatus(int orderId, String status) {
+        jdbcTemplate.update("UPDATE orders SET status = ? WHERE order_id = ?", status, orderId);
+    }
+
+    private static class Event {
+        private String id;
+        private String name;
+        private JsonNode data;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MenuCatalog;
+import com.example.backend.entity.MenuItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 菜单目录：菜品增删改后换入新快照，旧快照不受影响；全量刷新只在内容变化时产生新版本。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class MenuCatalogTest {
+    @Autowired
+    private IMenuItemService menuItemService;
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int storeId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('目录测试店', '二楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        menuCatalogService.refresh();
+    }
+
+    @Test
+    void writesSwapInNewSnapshots() {
+        MenuCatalog empty = menuCatalogService.current();
+        assertTrue(empty.getStoreItems(storeId).isEmpty());
+
+        MenuItem item = item("回锅肉", "18.00");
+        menuItemService.save(item);
+        MenuCatalog added = menuCatalogService.current();
+        assertEquals(empty.getVersion() + 1, added.getVersion());
+        assertEquals("回锅肉", added.getItem(item.getItemId()).getName());
+        assertEquals(1, added.getStoreItems(storeId).size());
+
+        MenuItem change = new MenuItem();
+        change.setItemId(item.getItemId());
+        change.setSmallSizePrice(new BigDecimal("20.00"));
+        menuItemService.updateById(change);
+        MenuCatalog updated = menuCatalogService.current();
+        // 快照中是数据库里的完整记录，旧快照保持不变
+        assertEquals(0, new BigDecimal("20.00").compareTo(updated.getItem(item.getItemId()).getSmallSizePrice()));
+        assertEquals("回锅肉", updated.getItem(item.getItemId()).getName());
+        assertEquals(0, new BigDecimal("18.00").compareTo(added.getItem(item.getItemId()).getSmallSizePrice()));
+
+        menuItemService.removeById(item.getItemId().longValue());
+        assertNull(menuCatalogService.current().getItem(item.getItemId()));
+        assertTrue(menuCatalogService.current().getStoreItems(storeId).isEmpty());
+    }
+
+    @Test
+    void refreshOnlyBumpsVersionOnChange() {
+        MenuCatalog before = menuCatalogService.current();
+        assertSame(before, menuCatalogService.refresh());
+
+        // 绕过服务直接写入的菜品由全量刷新载入
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '水煮鱼', '川菜', 30, 45, 10)", storeId);
+        MenuCatalog refreshed = menuCatalogService.refresh();
+        assertEquals(before.getVersion() + 1, refreshed.getVersion());
+        assertEquals("水煮鱼", refreshed.getStoreItems(storeId).get(0).getName());
+    }
+
+    @Test
+    void searchRanksNameHitsAndFollowsWrites() {
+        MenuItem byDescription = item("招牌盖饭", "15.00");
+        byDescription.setDescription("宫保鸡丁浇头");
+        menuItemService.save(byDescription);
+        MenuItem byName = item("宫保鸡丁", "22.00");
+        menuItemService.save(byName);
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('另一家店', '三楼')");
+        int otherStore = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        MenuItem elsewhere = item("宫保虾球", "30.00");
+        elsewhere.setStoreId(otherStore);
+        menuItemService.save(elsewhere);
+
+        List<MenuItem> hits = menuCatalogService.current().search("宫保鸡丁", null, 10);
+        assertEquals(Arrays.asList(byName.getItemId(), byDescription.getItemId()), ids(hits));
+        assertEquals(Arrays.asList(elsewhere.getItemId()), ids(menuCatalogService.current().search("宫保", otherStore, 10)));
+        assertEquals(1, menuCatalogService.current().search("宫保", null, 1).size());
+
+        MenuItem rename = new MenuItem();
+        rename.setItemId(byName.getItemId());
+        rename.setName("辣子鸡");
+        menuItemService.updateById(rename);
+        assertEquals(Arrays.asList(byDescription.getItemId()), ids(menuCatalogService.current().search("宫保鸡丁", null, 10)));
+        assertEquals(Arrays.asList(byName.getItemId()), ids(menuCatalogService.current().search("辣子", null, 10)));
+    }
+
+    private static List<Integer> ids(List<MenuItem> items) {
+        return items.stream().map(MenuItem::getItemId).collect(Collectors.toList());
+    }
+
+    private MenuItem item(String name, String price) {
+        MenuItem item = new MenuItem();
+        item.setStoreId(storeId);
+        item.setName(name);
+        item.setCategory("川菜");
+        item.setSmallSizePrice(new BigDecimal(price));
+        item.setLargeSizePrice(new BigDecimal(price));
+        item.setSizeStock(10);
+        return item;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MenuChangesDTO;
+import com.example.backend.entity.MenuItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 菜单增量同步：只返回since之后变化的本店铺菜品和删除的ID，日志被压缩或版本未知时返回完整菜单。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class MenuChangeTest {
+    @Autowired
+    private IMenuChangeService menuChangeService;
+    @Autowired
+    private IMenuItemService menuItemService;
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Object maxPerStore;
+    private int storeId;
+    private int otherStoreId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('同步测试店', '六楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('隔壁店', '六楼')");
+        otherStoreId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                    + " VALUES (?, ?, '川菜', 20, 30, 50)", storeId, "菜品" + i);
+        }
+        menuCatalogService.refresh();
+
+        Object target = AopTestUtils.getTargetObject(menuChangeService);
+        maxPerStore = ReflectionTestUtils.getField(target, "maxPerStore");
+    }
+
+    @AfterEach
+    void restore() {
+        Object target = AopTestUtils.getTargetObject(menuChangeService);
+        ReflectionTestUtils.setField(target, "maxPerStore", maxPerStore);
+    }
+
+    @Test
+    void returnsOnlyChangesSinceVersion() {
+        MenuChangesDTO initial = menuChangeService.changesSince(storeId, null);
+        assertTrue(initial.isFull());
+        assertEquals(5, initial.getItems().size());
+        MenuChangesDTO unchanged = menuChangeService.changesSince(storeId, initial.getVersion());
+        assertFalse(unchanged.isFull());
+        assertTrue(unchanged.getItems().isEmpty());
+
+        MenuItem added = item(storeId, "新菜");
+        menuItemService.save(added);
+        MenuItem rename = new MenuItem();
+        rename.setItemId(initial.getItems().get(0).getItemId());
+        rename.setName("改名菜");
+        menuItemService.updateById(rename);
+        menuItemService.removeById(initial.getItems().get(1).getItemId());
+        menuItemService.save(item(otherStoreId, "隔壁菜")); // 其他店铺的修改不出现，也不改变本店铺版本
+
+        MenuChangesDTO delta = menuChangeService.changesSince(storeId, initial.getVersion());
+        assertFalse(delta.isFull());
+        assertEquals(new HashSet<>(Arrays.asList(added.getItemId(), rename.getItemId())), new HashSet<>(ids(delta.getItems())));
+        assertEquals("改名菜", delta.getItems().stream().filter(i -> i.getItemId().equals(rename.getItemId()))
+                .findFirst().get().getName());
+        assertEquals(Collections.singletonList(initial.getItems().get(1).getItemId()), delta.getDeletedItemIds());
+        assertTrue(delta.getVersion() > initial.getVersion());
+        assertEquals(delta.getVersion(), menuChangeService.changesSince(storeId, delta.getVersion()).getVersion());
+        assertTrue(menuChangeService.changesSince(storeId, delta.getVersion()).getItems().isEmpty());
+
+        // 未知的版本（如重启前的或伪造的）返回完整菜单
+        assertTrue(menuChangeService.changesSince(storeId, delta.getVersion() + 1).isFull());
+    }
+
+    @Test
+    void fallsBackToFullMenuAfterCompaction() {
+        Object target = AopTestUtils.getTargetObject(menuChangeService);
+        ReflectionTestUtils.setField(target, "maxPerStore", 2);
+        long start = menuChangeService.changesSince(storeId, null).getVersion();
+
+        for (int i = 0; i < 3; i++) {
+            menuItemService.save(item(storeId, "加菜" + i));
+            menuChangeService.changesSince(storeId, start); // 每次修改后同步一次，使三次修改分别记录
+        }
+        MenuChangesDTO compacted = menuChangeService.changesSince(storeId, start);
+        assertTrue(compacted.isFull());
+        assertEquals(8, compacted.getItems().size());
+    }
+
+    private static List<Integer> ids(List<MenuItem> items) {
+        return items.stream().map(MenuItem::getItemId).collect(Collectors.toList());
+    }
+
+    private static MenuItem item(int storeId, String name) {
+        MenuItem item = new MenuItem();
+        item.setStoreId(storeId);
+        item.setName(name);
+        item.setCategory("川菜");
+        item.setSmallSizePrice(new BigDecimal("12.00"));
+        item.setLargeSizePrice(new BigDecimal("18.00"));
+        item.setSizeStock(10);
+        return item;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.MenuItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 店铺菜单响应：带ETag的条件请求返回304且不重新序列化，gzip编码单独标记，只有本店铺的修改才会改变ETag。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class MenuPayloadTest {
+    private static final String PHONE = "13400000000";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private IMenuItemService menuItemService;
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+    @Autowired
+    private IMenuPayloadService menuPayloadService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private int storeId;
+    private int otherStoreId;
+
+    @BeforeEach
+    void seed() throws Exception {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('缓存测试店', '五楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('隔壁店', '五楼')");
+        otherStoreId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        for (int i = 0; i < 30; i++) {
+            jdbcTemplate.update("INSERT INTO menu_items (store_id, name, description, category, small_size_price,"
+                    + " large_size_price, size_stock) VALUES (?, ?, '现点现做，口感鲜嫩', '川菜', 20, 30, 50)", storeId, "招牌菜" + i);
+        }
+        menuCatalogService.refresh();
+
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"缓存\",\"phone\":\"" + PHONE + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phone\":\"" + PHONE + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = new ObjectMapper().readTree(body).get("token").asText();
+    }
+
+    @Test
+    void conditionalAndCompressedResponses() throws Exception {
+        MockHttpServletResponse first = fetch(null, null, 200);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        JsonNode json = new ObjectMapper().readTree(first.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("获取店铺菜单项成功", json.get("message").asText());
+        assertEquals(30, json.get("data").size());
+
+        long serializations = (Long) menuPayloadService.metrics().get("serializations");
+        assertEquals(0, fetch(etag, null, 304).getContentAsByteArray().length);
+        assertEquals(serializations, menuPayloadService.metrics().get("serializations"));
+
+        MockHttpServletResponse gzipped = fetch(null, "gzip, deflate", 200);
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(etag, gzipped.getHeader(HttpHeaders.ETAG));
+        byte[] inflated = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray())));
+        assertEquals(first.getContentAsString(StandardCharsets.UTF_8), new String(inflated, StandardCharsets.UTF_8));
+        fetch(gzipped.getHeader(HttpHeaders.ETAG), "gzip", 304);
+
+        // 其他店铺的修改不影响本店铺的ETag
+        menuItemService.save(item(otherStoreId, "隔壁菜"));
+        fetch(etag, null, 304);
+
+        menuItemService.save(item(storeId, "新菜"));
+        MockHttpServletResponse changed = fetch(etag, null, 200);
+        assertNotEquals(etag, changed.getHeader(HttpHeaders.ETAG));
+        assertEquals(31, new ObjectMapper().readTree(changed.getContentAsString(StandardCharsets.UTF_8)).get("data").size());
+    }
+
+    private MockHttpServletResponse fetch(String ifNoneMatch, String acceptEncoding, int expectedStatus) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return mockMvc.perform(get("/api/menu/items/store/" + storeId).headers(headers))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse();
+    }
+
+    private static MenuItem item(int storeId, String name) {
+        MenuItem item = new MenuItem();
+        item.setStoreId(storeId);
+        item.setName(name);
+        item.setCategory("川菜");
+        item.setSmallSizePrice(new BigDecimal("12.00"));
+        item.setLargeSizePrice(new BigDecimal("18.00"));
+        item.setSizeStock(10);
+        return item;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.MenuItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 菜名联想：汉字、全拼和首字母前缀都能命中，按有效订单的销量排序，菜品改名后下一次联想即生效。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class MenuSuggestTest {
+    @Autowired
+    private IMenuSuggestService menuSuggestService;
+    @Autowired
+    private IMenuCatalogService menuCatalogService;
+    @Autowired
+    private IMenuItemService menuItemService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int storeId;
+    private int gongbao;
+    private int shrimp;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('联想测试店', '四楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        gongbao = insertItem("宫保鸡丁");
+        shrimp = insertItem("宫保虾球");
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " SELECT '联想用户', '13500000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER'"
+                + " WHERE NOT EXISTS (SELECT 1 FROM users WHERE phone = '13500000000')");
+        int userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE phone = '13500000000'", Integer.class);
+        // 虾球有效销量3份，鸡丁已完成1份、已取消5份
+        sell(userId, shrimp, "已完成", 3);
+        sell(userId, gongbao, "已完成", 1);
+        sell(userId, gongbao, "已取消", 5);
+
+        menuCatalogService.refresh();
+        menuSuggestService.rebuild();
+    }
+
+    @Test
+    void suggestsByHanziPinyinAndInitials() {
+        assertEquals(Arrays.asList(shrimp, gongbao), ids(menuSuggestService.suggest("宫保", null, 10)));
+        assertEquals(Arrays.asList(shrimp, gongbao), ids(menuSuggestService.suggest("Gong Bao", storeId, 10)));
+        assertEquals(Collections.singletonList(gongbao), ids(menuSuggestService.suggest("gbj", storeId, 10)));
+        assertEquals(Collections.singletonList(shrimp), ids(menuSuggestService.suggest("g", null, 1)));
+        assertEquals(Collections.emptyList(), ids(menuSuggestService.suggest("g", storeId + 1, 10)));
+    }
+
+    @Test
+    void followsMenuWrites() {
+        MenuItem rename = new MenuItem();
+        rename.setItemId(gongbao);
+        rename.setName("辣子鸡");
+        menuItemService.updateById(rename);
+        assertEquals(Collections.singletonList(shrimp), ids(menuSuggestService.suggest("gb", null, 10)));
+        assertEquals(Collections.singletonList(gongbao), ids(menuSuggestService.suggest("lazi", null, 10)));
+
+        MenuItem added = new MenuItem();
+        added.setStoreId(storeId);
+        added.setName("宫保豆腐");
+        added.setCategory("川菜");
+        added.setSmallSizePrice(new BigDecimal("16.00"));
+        added.setLargeSizePrice(new BigDecimal("24.00"));
+        added.setSizeStock(10);
+        menuItemService.save(added);
+        // 新菜品没有销量，排在后面
+        assertEquals(Arrays.asList(shrimp, added.getItemId()), ids(menuSuggestService.suggest("gb", storeId, 10)));
+
+        menuItemService.removeById(added.getItemId());
+        assertEquals(Collections.singletonList(shrimp), ids(menuSuggestService.suggest("gb", storeId, 10)));
+    }
+
+    private int insertItem(String name) {
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, ?, '川菜', 20, 30, 50)", storeId, name);
+        return jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+    }
+
+    private void sell(int userId, int itemId, String status, int quantity) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, ?, 0, '堂食')", userId, storeId, status);
+        int orderId = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+        jdbcTemplate.update("INSERT INTO order_details (order_id, item_id, quantity, size, price) VALUES (?, ?, ?, '小份', ?)",
+                orderId, itemId, quantity, new BigDecimal("20.00"));
+    }
+
+    private static List<Integer> ids(List<MenuItem> items) {
+        return items.stream().map(MenuItem::getItemId).collect(Collectors.toList());
+    }
+}
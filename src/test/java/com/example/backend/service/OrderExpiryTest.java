@@ -0,0 +1,67 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 超时订单的批量取消：只取消仍为已创建的订单，并只释放这些订单占用的优惠券。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class OrderExpiryTest {
+    @Autowired
+    private ICheckoutService checkoutService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('夜宵店', '一楼')");
+        int storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('顾客', '13600000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+        jdbcTemplate.update("INSERT INTO coupons (code, discount, expiration_date) VALUES ('NIGHT5', 5.00, DATE '2099-12-31')");
+        int couponId = jdbcTemplate.queryForObject("SELECT MAX(coupon_id) FROM coupons", Integer.class);
+
+        // 前两个订单仍为已创建，第三个已被确认；每个订单都占用了一张优惠券
+        String[] statuses = {"已创建", "已创建", "进行中"};
+        orderIds.clear();
+        for (String status : statuses) {
+            jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                    + " VALUES (?, ?, ?, 0, '堂食')", userId, storeId, status);
+            int orderId = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+            jdbcTemplate.update("INSERT INTO user_coupons (user_id, coupon_id, is_used, order_id) VALUES (?, ?, TRUE, ?)",
+                    userId, couponId, orderId);
+            orderIds.add(orderId);
+        }
+    }
+
+    @Test
+    void expireCancelsOnlyCreatedOrdersAndReleasesTheirCoupons() {
+        assertEquals(2, checkoutService.expire(orderIds));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE status = '已取消'", Integer.class));
+        assertEquals("进行中", jdbcTemplate.queryForObject("SELECT status FROM orders WHERE order_id = ?",
+                String.class, orderIds.get(2)));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_coupons WHERE is_used = TRUE", Integer.class));
+        assertEquals(orderIds.get(2), jdbcTemplate.queryForObject("SELECT order_id FROM user_coupons WHERE is_used = TRUE",
+                Integer.class));
+
+        // 重复到期不会产生任何影响
+        assertEquals(0, checkoutService.expire(orderIds));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.BatchOrderDTO;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 批量同步订单（每单3行，跨越多个写入批次），校验生成的ID、定价和行数；整批校验失败时全部回滚。
+ * 一个班次10000个订单的耗时见 benchmark.OrderIntakeBenchmark。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class OrderIntakeTest {
+    private static final int ORDERS = 2500;
+    private static final BigDecimal SMALL_PRICE = new BigDecimal("12.00");
+    private static final BigDecimal LARGE_PRICE = new BigDecimal("18.00");
+
+    @Autowired
+    private IOrderIntakeService orderIntakeService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int storeId;
+    private int userId;
+    private int itemId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('收银店', '二楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '鱼香肉丝', '川菜', ?, ?, 100)", storeId, SMALL_PRICE, LARGE_PRICE);
+        itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('收银员', '13800000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+    }
+
+    @Test
+    void syncShiftOfOrders() {
+        List<BatchOrderDTO> batch = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            batch.add(order(detail("小份", 2), detail("大份", 1), detail("小份", 1)));
+        }
+
+        List<Order> orders = orderIntakeService.createOrders(batch);
+
+        // 3*12 + 18 = 54
+        BigDecimal expectedTotal = new BigDecimal("54.00");
+        assertEquals(ORDERS, orders.size());
+        for (Order order : orders) {
+            assertNotNull(order.getOrderId());
+            assertEquals(0, expectedTotal.compareTo(order.getTotalPrice()));
+        }
+        assertEquals(ORDERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class));
+        assertEquals(ORDERS * 3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_details", Integer.class));
+        assertEquals(0, expectedTotal.multiply(BigDecimal.valueOf(ORDERS)).compareTo(
+                jdbcTemplate.queryForObject("SELECT SUM(price * quantity) FROM order_details", BigDecimal.class)));
+        // 每个订单的详情都关联到了它自己生成的ID
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_details WHERE order_id = ?",
+                Integer.class, orders.get(ORDERS - 1).getOrderId()));
+    }
+
+    @Test
+    void invalidLineRollsBackWholeBatch() {
+        List<BatchOrderDTO> batch = Arrays.asList(order(detail("小份", 1)), order(detail("中份", 1)));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> orderIntakeService.createOrders(batch));
+        assertEquals("第2个订单中的规格无效", e.getMessage());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class));
+    }
+
+    @Test
+    void rejectsUnknownUserStoreAndForeignItems() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('别家店', '一楼')");
+        int otherStoreId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+
+        BatchOrderDTO foreignItem = order(detail("小份", 1));
+        foreignItem.setStoreId(otherStoreId);
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> orderIntakeService.createOrders(Arrays.asList(order(detail("小份", 1)), foreignItem)));
+        assertEquals("第2个订单中的菜品不属于该店铺", e.getMessage());
+
+        BatchOrderDTO unknownUser = order(detail("小份", 1));
+        unknownUser.setUserId(userId + 1000);
+        e = assertThrows(BusinessException.class, () -> orderIntakeService.createOrders(Arrays.asList(unknownUser)));
+        assertEquals("第1个订单的用户不存在", e.getMessage());
+
+        BatchOrderDTO missingStore = order(detail("小份", 1));
+        missingStore.setStoreId(null);
+        e = assertThrows(BusinessException.class, () -> orderIntakeService.createOrders(Arrays.asList(missingStore)));
+        assertEquals("第1个订单的店铺不存在", e.getMessage());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class));
+    }
+
+    private BatchOrderDTO order(OrderDetail... details) {
+        BatchOrderDTO order = new BatchOrderDTO();
+        order.setUserId(userId);
+        order.setStoreId(storeId);
+        order.setDineOption("堂食");
+        order.setDetails(new ArrayList<>(Arrays.asList(details)));
+        return order;
+    }
+
+    private OrderDetail detail(String size, int quantity) {
+        OrderDetail detail = new OrderDetail();
+        detail.setItemId(itemId);
+        detail.setSize(size);
+        detail.setQuantity(quantity);
+        return detail;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 订单状态计数：事务提交后才计入，回滚不计入；对账按数据库校正计数器并报告偏差，包括枚举外的历史状态。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class OrderStatsTest {
+
+    @Autowired
+    private IOrderStatsService orderStatsService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private int userId;
+    private int storeId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('统计测试店', '八楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('统计', '13700000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+        orderStatsService.reconcile();
+    }
+
+    @Test
+    void countsApplyOnlyAfterCommit() {
+        transactionTemplate.execute(tx -> {
+            int orderId = insertOrder(OrderStatus.CREATED);
+            orderStatsService.recordCreated(OrderStatus.CREATED, 1);
+            // 提交前不可见
+            assertEquals(0L, count(OrderStatus.CREATED));
+
+            jdbcTemplate.update("UPDATE orders SET status = ? WHERE order_id = ?", OrderStatus.IN_PROGRESS.toString(), orderId);
+            orderStatsService.recordTransition(OrderStatus.CREATED, OrderStatus.IN_PROGRESS, 1);
+            return null;
+        });
+        assertEquals(0L, count(OrderStatus.CREATED));
+        assertEquals(1L, count(OrderStatus.IN_PROGRESS));
+        assertEquals(1L, orderStatsService.snapshot().get("总共"));
+
+        // 计数与数据库一致，对账没有偏差
+        orderStatsService.reconcile();
+        assertEquals(0L, drift(OrderStatus.IN_PROGRESS));
+        assertEquals(0L, drift(OrderStatus.CREATED));
+    }
+
+    @Test
+    void rollbackLeavesCountsUnchanged() {
+        transactionTemplate.execute(tx -> {
+            insertOrder(OrderStatus.CREATED);
+            orderStatsService.recordCreated(OrderStatus.CREATED, 1);
+            orderStatsService.recordTransition(OrderStatus.CREATED, OrderStatus.CANCELLED, 1);
+            tx.setRollbackOnly();
+            return null;
+        });
+        assertEquals(0L, count(OrderStatus.CREATED));
+        assertEquals(0L, count(OrderStatus.CANCELLED));
+
+        orderStatsService.reconcile();
+        assertEquals(0L, drift(OrderStatus.CREATED));
+        assertEquals(0L, drift(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void reconcileCorrectsAndReportsDrift() {
+        // 绕过计数器直接写库
+        insertOrder(OrderStatus.CREATED);
+        insertOrder(OrderStatus.CREATED);
+        insertOrder(OrderStatus.COMPLETED);
+        jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, '待支付', 10, '堂食')", userId, storeId);
+        // 计数器多记了一个不存在的已取消订单
+        orderStatsService.recordCreated(OrderStatus.CANCELLED, 1);
+        assertEquals(0L, count(OrderStatus.CREATED));
+
+        orderStatsService.reconcile();
+        assertEquals(2L, drift(OrderStatus.CREATED));
+        assertEquals(1L, drift(OrderStatus.COMPLETED));
+        assertEquals(-1L, drift(OrderStatus.CANCELLED));
+        assertEquals(2L, count(OrderStatus.CREATED));
+        assertEquals(0L, count(OrderStatus.CANCELLED));
+        Map<String, Object> snapshot = orderStatsService.snapshot();
+        assertEquals(1L, snapshot.get("待支付"));
+        assertEquals(4L, snapshot.get("总共"));
+
+        // 校正后的下一次对账不再有偏差
+        orderStatsService.reconcile();
+        assertEquals(0L, drift(OrderStatus.CREATED));
+    }
+
+    private int insertOrder(OrderStatus status) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, ?, 10, '堂食')", userId, storeId, status.toString());
+        return jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+    }
+
+    private long count(OrderStatus status) {
+        return (Long) orderStatsService.snapshot().get(status.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long drift(OrderStatus status) {
+        return ((Map<String, Long>) orderStatsService.snapshot().get("drift")).get(status.toString());
+    }
+}
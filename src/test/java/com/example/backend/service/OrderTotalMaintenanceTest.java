@@ -0,0 +1,120 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.OrderTotalDriftDTO;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单详情增删改按增量维护订单总价，以及总价一致性核对。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class OrderTotalMaintenanceTest {
+    @Autowired
+    private IOrderDetailService orderDetailService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int orderId;
+    private int itemId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('外卖店', '三楼')");
+        int storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+        jdbcTemplate.update("INSERT INTO menu_items (store_id, name, category, small_size_price, large_size_price, size_stock)"
+                + " VALUES (?, '麻婆豆腐', '川菜', 8.00, 10.00, 1000)", storeId);
+        itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('顾客', '13700000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+        jdbcTemplate.update("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, '已创建', 0, '外带')", userId, storeId);
+        orderId = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders", Integer.class);
+    }
+
+    @Test
+    void addReplaceRemoveKeepTotalInSync() {
+        OrderDetail first = line(3, "8.00");
+        OrderDetail second = line(1, "10.00");
+        orderDetailService.addLine(first);
+        orderDetailService.addLine(second);
+        assertTotal("34.00");
+
+        OrderDetail updated = line(2, "10.00");
+        orderDetailService.replaceLine(orderDetailService.getById(first.getDetailId()), updated);
+        assertTotal("30.00");
+
+        orderDetailService.removeLine(orderDetailService.getById(second.getDetailId()));
+        assertTotal("20.00");
+        assertTrue(orderDetailService.checkTotals(false).isEmpty());
+    }
+
+    @Test
+    void staleLineIsRejectedInsteadOfDriftingTotal() {
+        OrderDetail first = line(1, "8.00");
+        orderDetailService.addLine(first);
+        OrderDetail seenByA = orderDetailService.getById(first.getDetailId());
+        OrderDetail seenByB = orderDetailService.getById(first.getDetailId());
+
+        // 两个请求读到同一行后先后修改，后一个按旧金额计算的增量被拒绝
+        orderDetailService.replaceLine(seenByA, line(3, "8.00"));
+        BusinessException conflict = assertThrows(BusinessException.class,
+                () -> orderDetailService.replaceLine(seenByB, line(2, "8.00")));
+        assertEquals(409, conflict.getStatus().value());
+        assertThrows(BusinessException.class, () -> orderDetailService.removeLine(seenByB));
+        assertTotal("24.00");
+        assertTrue(orderDetailService.checkTotals(false).isEmpty());
+    }
+
+    @Test
+    void lineIsRolledBackWhenOrderIsNoLongerCreated() {
+        jdbcTemplate.update("UPDATE orders SET status = '进行中' WHERE order_id = ?", orderId);
+
+        assertThrows(BusinessException.class, () -> orderDetailService.addLine(line(1, "8.00")));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_details", Integer.class));
+    }
+
+    @Test
+    void checkerReportsAndRepairsDrift() {
+        orderDetailService.addLine(line(2, "8.00"));
+        jdbcTemplate.update("UPDATE orders SET total_price = 99 WHERE order_id = ?", orderId);
+
+        List<OrderTotalDriftDTO> drift = orderDetailService.checkTotals(true);
+        assertEquals(1, drift.size());
+        assertEquals(orderId, drift.get(0).getOrderId());
+        assertEquals(0, new BigDecimal("16.00").compareTo(drift.get(0).getDetailTotal()));
+        assertTotal("16.00");
+        assertTrue(orderDetailService.checkTotals(false).isEmpty());
+    }
+
+    private OrderDetail line(int quantity, String price) {
+        OrderDetail detail = new OrderDetail();
+        detail.setOrderId(orderId);
+        detail.setItemId(itemId);
+        detail.setQuantity(quantity);
+        detail.setSize("小份");
+        detail.setPrice(new BigDecimal(price));
+        return detail;
+    }
+
+    private void assertTotal(String expected) {
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT total_price FROM orders WHERE order_id = ?", BigDecimal.class, orderId);
+        assertEquals(0, new BigDecimal(expected).compareTo(total));
+    }
+}
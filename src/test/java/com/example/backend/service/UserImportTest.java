@@ -0,0 +1,91 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserImportResultDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量导入用户：跨块去重、跳过已注册和无效的行，明文密码被哈希，已哈希的密码原样保存。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class UserImportTest {
+    private static final int HASHED_ROWS = 1200;
+
+    @Autowired
+    private IUserImportService userImportService;
+    @Autowired
+    private IPhoneFilterService phoneFilterService;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Object chunkSize;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('已注册', '13700000000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        phoneFilterService.markRegistered("13700000000");
+
+        // 缩小块大小，使导入跨越多个块
+        Object target = AopTestUtils.getTargetObject(userImportService);
+        chunkSize = ReflectionTestUtils.getField(target, "chunkSize");
+        ReflectionTestUtils.setField(target, "chunkSize", 100);
+    }
+
+    @AfterEach
+    void restore() {
+        Object target = AopTestUtils.getTargetObject(userImportService);
+        ReflectionTestUtils.setField(target, "chunkSize", chunkSize);
+    }
+
+    @Test
+    void importsStreamedCsv() throws Exception {
+        String hash = passwordEncoder.encode("imported");
+        StringBuilder csv = new StringBuilder("name,phone,password\n");
+        for (int i = 0; i < HASHED_ROWS; i++) {
+            csv.append("用户").append(i).append(',').append(13710000000L + i).append(',').append(hash).append('\n');
+        }
+        csv.append("\"张,三\",13720000000,plain-pass\n");   // 带引号的字段和需要哈希的明文密码
+        csv.append("重复,13710000005,").append(hash).append('\n'); // 与前面的块重复
+        csv.append("已注册,13700000000,").append(hash).append('\n');
+        csv.append("缺少密码,13730000000\n");
+        csv.append("\n");
+
+        UserImportResultDTO result = userImportService.importCsv(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(HASHED_ROWS + 4, result.getProcessed());
+        assertEquals(HASHED_ROWS + 1, result.getImported());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(1, result.getExisting());
+        assertEquals(1, result.getInvalid());
+        assertEquals(HASHED_ROWS + 2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+
+        assertEquals(hash, jdbcTemplate.queryForObject(
+                "SELECT password FROM users WHERE phone = '13710000042'", String.class));
+        String plain = jdbcTemplate.queryForObject("SELECT password FROM users WHERE phone = '13720000000'", String.class);
+        assertTrue(passwordEncoder.matches("plain-pass", plain));
+        assertEquals("张,三", jdbcTemplate.queryForObject("SELECT name FROM users WHERE phone = '13720000000'", String.class));
+        assertTrue(phoneFilterService.mightBeRegistered("13720000000"));
+        assertEquals(false, userImportService.metrics().get("running"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserRegisterDTO;
+import com.example.backend.service.impl.PhoneFilterServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.Map;
+
+import static com.example.backend.entity.Roles.CUSTOMER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 注册判重：布隆过滤器判定不存在时跳过计数查询，唯一约束兜底。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class UserRegistrationTest {
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private IPhoneFilterService phoneFilterService;
+    @Autowired
+    private PhoneFilterServiceImpl phoneFilterLoader;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicatePhoneIsRejectedWithOrWithoutFilterHit() {
+        long skippedBefore = (Long) phoneFilterService.metrics().get("countQueriesSkipped");
+        assertTrue(userService.register(dto("13611110000"), CUSTOMER));
+        Map<String, Object> metrics = phoneFilterService.metrics();
+        assertEquals(skippedBefore + 1, metrics.get("countQueriesSkipped"), "新手机号跳过计数查询");
+
+        // 过滤器已记录该手机号，第二次注册走计数查询
+        assertFalse(userService.register(dto("13611110000"), CUSTOMER));
+
+        // 绕过服务直接写入的手机号不在过滤器中，由唯一约束拒绝
+        jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                + " VALUES ('外部导入', '13622220000', 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')");
+        assertFalse(userService.register(dto("13622220000"), CUSTOMER));
+        assertTrue(phoneFilterService.mightBeRegistered("13622220000"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE phone = '13622220000'", Integer.class));
+    }
+
+    @Test
+    void startupLoadReadsExistingPhones() {
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (name, phone, password, registration_date, balance, role)"
+                    + " VALUES ('存量用户', ?, 'x', CURRENT_DATE, 0, 'ROLE_CUSTOMER')", "1363333000" + i);
+        }
+        phoneFilterLoader.load();
+
+        assertEquals(true, phoneFilterService.metrics().get("loaded"));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(phoneFilterService.mightBeRegistered("1363333000" + i));
+        }
+    }
+
+    private UserRegisterDTO dto(String phone) {
+        UserRegisterDTO dto = new UserRegisterDTO();
+        dto.setName("新用户");
+        dto.setPhone(phone);
+        dto.setPassword("password");
+        return dto;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.BalanceChangeType;
+import com.example.backend.mapper.BalanceLedgerMapper;
+import com.example.backend.mapper.OrderMapper;
+import com.example.backend.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 结算期间追加的流水仍计入待结算条数，不会因为结算移除了该用户而被遗漏。
+ */
+@ExtendWith(MockitoExtension.class)
+class BalanceLedgerServiceImplTest {
+    private static final Integer USER_ID = 5;
+
+    @Mock
+    private BalanceLedgerMapper balanceLedgerMapper;
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private OrderMapper orderMapper;
+    @InjectMocks
+    private BalanceLedgerServiceImpl balanceLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceLedgerService, "lockStripes", 4);
+        ReflectionTestUtils.setField(balanceLedgerService, "cacheMaxEntries", 16);
+        ReflectionTestUtils.setField(balanceLedgerService, "compactionMinRows", 2);
+        balanceLedgerService.init();
+        when(userMapper.lockForBalance(USER_ID)).thenReturn(USER_ID);
+        when(balanceLedgerMapper.insert(any())).thenReturn(1);
+    }
+
+    @Test
+    void appendDuringCompactionStaysPending() {
+        credit();
+        credit();
+        // 查询最大流水ID之后又追加了一条，它在结算区间之外
+        when(balanceLedgerMapper.selectMaxLedgerId(USER_ID)).thenAnswer(invocation -> {
+            credit();
+            return 2L;
+        });
+        assertEquals(1, balanceLedgerService.compact());
+        verify(userMapper).settleLedger(USER_ID, 2L);
+        assertEquals(1, balanceLedgerService.metrics().get("usersPendingSettlement"));
+
+        // 再追加一条即达到结算阈值
+        doReturn(4L).when(balanceLedgerMapper).selectMaxLedgerId(USER_ID);
+        credit();
+        assertEquals(1, balanceLedgerService.compact());
+        verify(userMapper).settleLedger(USER_ID, 4L);
+        assertEquals(0, balanceLedgerService.metrics().get("usersPendingSettlement"));
+    }
+
+    private void credit() {
+        balanceLedgerService.credit(USER_ID, BigDecimal.ONE, BalanceChangeType.RECHARGE, null);
+    }
+}
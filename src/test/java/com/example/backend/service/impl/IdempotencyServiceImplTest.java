@@ -0,0 +1,103 @@
+package com.example.backend.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IdempotencyServiceImplTest {
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl();
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 100);
+        ReflectionTestUtils.setField(idempotencyService, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(idempotencyService, "waitMs", 5000L);
+        idempotencyService.init();
+    }
+
+    @Test
+    void concurrentDuplicatesRunActionOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<ResponseEntity<?>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> idempotencyService.execute("k1", "13800000000", "confirm:1", () -> {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEntity.ok("done");
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        ResponseEntity<?> first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<ResponseEntity<?>> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(1, calls.get());
+
+        // 完成后的重试直接返回缓存的结果
+        assertSame(first, idempotencyService.execute("k1", "13800000000", "confirm:1", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok("again");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void keysAreScopedAndServerErrorsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("k2", "userA", "refund:1", () -> ResponseEntity.ok(calls.incrementAndGet()));
+        idempotencyService.execute("k2", "userB", "refund:1", () -> ResponseEntity.ok(calls.incrementAndGet()));
+        idempotencyService.execute("k2", "userA", "cancel:1", () -> ResponseEntity.ok(calls.incrementAndGet()));
+        assertEquals(3, calls.get());
+
+        idempotencyService.execute("k3", "userA", "refund:2",
+                () -> new ResponseEntity<>(calls.incrementAndGet(), HttpStatus.SERVICE_UNAVAILABLE));
+        idempotencyService.execute("k3", "userA", "refund:2", () -> ResponseEntity.ok(calls.incrementAndGet()));
+        assertEquals(5, calls.get());
+
+        // 没有幂等键时每次都执行
+        idempotencyService.execute(null, "userA", "refund:3", () -> ResponseEntity.ok(calls.incrementAndGet()));
+        idempotencyService.execute("", "userA", "refund:3", () -> ResponseEntity.ok(calls.incrementAndGet()));
+        assertEquals(7, calls.get());
+    }
+
+    @Test
+    void conflictsAndRateLimitsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("k4", "userA", "confirm:4",
+                () -> new ResponseEntity<>(calls.incrementAndGet(), HttpStatus.CONFLICT));
+        idempotencyService.execute("k4", "userA", "confirm:4",
+                () -> new ResponseEntity<>(calls.incrementAndGet(), HttpStatus.TOO_MANY_REQUESTS));
+        ResponseEntity<?> success = idempotencyService.execute("k4", "userA", "confirm:4",
+                () -> ResponseEntity.ok(calls.incrementAndGet()));
+        assertEquals(3, calls.get());
+
+        // 成功后的重试返回缓存的结果
+        assertSame(success, idempotencyService.execute("k4", "userA", "confirm:4",
+                () -> ResponseEntity.ok(calls.incrementAndGet())));
+        assertEquals(3, calls.get());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.backend.service.impl;
+
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.service.IOrderGraphService;
+import com.example.backend.service.IOrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 锁外读取订单期间的移除：被移除的订单不会被放回索引，其他订单的移除不影响新订单加入。
+ */
+@ExtendWith(MockitoExtension.class)
+class KitchenFeedServiceImplTest {
+    private static final int STORE_ID = 1;
+
+    @Mock
+    private IOrderService orderService;
+    @Mock
+    private IOrderGraphService orderGraphService;
+    @InjectMocks
+    private KitchenFeedServiceImpl kitchenFeedService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(kitchenFeedService, "emitterTimeoutMs", 60000L);
+        ReflectionTestUtils.setField(kitchenFeedService, "replayBufferSize", 16);
+        ReflectionTestUtils.setField(kitchenFeedService, "maxPendingEvents", 16);
+        ReflectionTestUtils.setField(kitchenFeedService, "sendTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(kitchenFeedService, "senderThreadCount", 2);
+        kitchenFeedService.init();
+        // 首次订阅加载店铺索引，数据库中没有进行中订单
+        when(orderService.lambdaQuery()).thenReturn(mock(LambdaQueryChainWrapper.class, Answers.RETURNS_SELF));
+        kitchenFeedService.subscribe(STORE_ID, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        kitchenFeedService.shutdown();
+    }
+
+    @Test
+    void orderRemovedDuringGraphLoadIsNotPutBack() {
+        Order order = order(10, OrderStatus.IN_PROGRESS);
+        when(orderService.getById(10)).thenReturn(order);
+        // 数据库读到进行中之后、加锁之前，订单被完成并移除
+        when(orderGraphService.loadOrderGraphs(Collections.singletonList(order))).thenAnswer(invocation -> {
+            kitchenFeedService.orderCompleted(order(10, OrderStatus.COMPLETED));
+            return Collections.singletonList(graph(10));
+        });
+
+        kitchenFeedService.orderAdded(order);
+
+        assertFalse(inProgress().containsKey(10));
+    }
+
+    @Test
+    void otherRemovalDoesNotBlockAdd() {
+        Order order = order(11, OrderStatus.IN_PROGRESS);
+        when(orderService.getById(11)).thenReturn(order);
+        when(orderGraphService.loadOrderGraphs(Collections.singletonList(order))).thenAnswer(invocation -> {
+            kitchenFeedService.orderCancelled(order(12, OrderStatus.CANCELLED));
+            return Collections.singletonList(graph(11));
+        });
+
+        kitchenFeedService.orderAdded(order);
+
+        assertTrue(inProgress().containsKey(11));
+        assertEquals(1, inProgress().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Map<String, Object>> inProgress() {
+        Map<Integer, Object> feeds = (Map<Integer, Object>) ReflectionTestUtils.getField(kitchenFeedService, "feeds");
+        return (Map<Integer, Map<String, Object>>) ReflectionTestUtils.getField(feeds.get(STORE_ID), "inProgress");
+    }
+
+    private static Order order(int orderId, OrderStatus status) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStoreId(STORE_ID);
+        order.setStatus(status.toString());
+        return order;
+    }
+
+    private static Map<String, Object> graph(int orderId) {
+        Map<String, Object> graph = new HashMap<>();
+        graph.put("orderId", orderId);
+        return graph;
+    }
+}
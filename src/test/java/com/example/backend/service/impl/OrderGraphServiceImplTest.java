@@ -0,0 +1,150 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.MenuItem;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderDetail;
+import com.example.backend.entity.User;
+import com.example.backend.mapper.MenuItemMapper;
+import com.example.backend.mapper.OrderDetailMapper;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.IBalanceLedgerService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 验证订单关系图加载的查询次数固定，不随订单数量增长。
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderGraphServiceImplTest {
+    private static final int DETAILS_PER_ORDER = 3;
+    private static final int MENU_ITEMS = 20;
+
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private OrderDetailMapper orderDetailMapper;
+    @Mock
+    private MenuItemMapper menuItemMapper;
+    @Mock
+    private IBalanceLedgerService balanceLedgerService;
+    @Spy
+    private UserCacheServiceImpl userCacheService = newUserCache();
+    @InjectMocks
+    private OrderGraphServiceImpl orderGraphService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 200})
+    void queryCountStaysConstant(int orderCount) {
+        List<Order> orders = buildOrders(orderCount);
+        List<OrderDetail> details = buildDetails(orders);
+
+        when(userMapper.selectBatchIds(anyCollection())).thenAnswer(inv -> {
+            Collection<?> ids = inv.getArgument(0);
+            return ids.stream().map(id -> user((Integer) id)).collect(Collectors.toList());
+        });
+        when(orderDetailMapper.selectList(any())).thenReturn(details);
+        when(menuItemMapper.selectBatchIds(anyCollection())).thenAnswer(inv -> {
+            Collection<?> ids = inv.getArgument(0);
+            return ids.stream().map(id -> menuItem((Integer) id)).collect(Collectors.toList());
+        });
+
+        List<Map<String, Object>> graphs = orderGraphService.loadOrderGraphs(orders);
+
+        assertEquals(orderCount, graphs.size());
+        assertEquals(1, mockingDetails(userMapper).getInvocations().size());
+        assertEquals(1, mockingDetails(orderDetailMapper).getInvocations().size());
+        assertEquals(1, mockingDetails(menuItemMapper).getInvocations().size());
+
+        // 装配结果与原先逐条查询的结构一致
+        Map<String, Object> first = graphs.get(0);
+        assertEquals(orders.get(0).getOrderId(), first.get("orderId"));
+        assertTrue(first.containsKey("userInfo"));
+        List<?> firstDetails = (List<?>) first.get("orderDetails");
+        assertEquals(DETAILS_PER_ORDER, firstDetails.size());
+        assertTrue(((Map<?, ?>) firstDetails.get(0)).containsKey("menuItemInfo"));
+    }
+
+    @Test
+    void emptyOrderListRunsNoQuery() {
+        assertTrue(orderGraphService.loadOrderGraphs(Collections.emptyList()).isEmpty());
+        verifyNoInteractions(userMapper, orderDetailMapper, menuItemMapper);
+    }
+
+    private List<Order> buildOrders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Order order = new Order();
+            order.setOrderId(i);
+            order.setUserId(i % 50 + 1);
+            order.setStoreId(1);
+            order.setTotalPrice(BigDecimal.TEN);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private List<OrderDetail> buildDetails(List<Order> orders) {
+        List<OrderDetail> details = new ArrayList<>();
+        int detailId = 1;
+        for (Order order : orders) {
+            for (int i = 0; i < DETAILS_PER_ORDER; i++) {
+                OrderDetail detail = new OrderDetail();
+                detail.setDetailId(detailId++);
+                detail.setOrderId(order.getOrderId());
+                detail.setItemId(detailId % MENU_ITEMS + 1);
+                detail.setQuantity(1);
+                detail.setPrice(BigDecimal.ONE);
+                detail.setSize("小份");
+                details.add(detail);
+            }
+        }
+        return details;
+    }
+
+    private static UserCacheServiceImpl newUserCache() {
+        UserCacheServiceImpl cache = new UserCacheServiceImpl();
+        ReflectionTestUtils.setField(cache, "maxEntries", 1000);
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+        cache.init();
+        return cache;
+    }
+
+    private User user(Integer userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName("user" + userId);
+        user.setBalance(BigDecimal.ZERO);
+        return user;
+    }
+
+    private MenuItem menuItem(Integer itemId) {
+        MenuItem item = new MenuItem();
+        item.setItemId(itemId);
+        item.setStoreId(1);
+        item.setName("item" + itemId);
+        return item;
+    }
+}
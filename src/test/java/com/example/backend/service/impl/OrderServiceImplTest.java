@@ -0,0 +1,150 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.OrderCursor;
+import com.example.backend.dto.OrderPageDTO;
+import com.example.backend.entity.Order;
+import com.example.backend.service.IOrderService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 订单列表的键集分页和流式输出：游标编解码、逐页翻到最后一页、翻页期间确认订单不移动、流式输出跨多批读取。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Sql("/cleanup.sql")
+class OrderServiceImplTest {
+    private static final String PHONE = "13500000000";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int storeId;
+    private int userId;
+    private String token;
+
+    @BeforeEach
+    void seed() throws Exception {
+        jdbcTemplate.update("INSERT INTO stores (name, location) VALUES ('分页测试店', '六楼')");
+        storeId = jdbcTemplate.queryForObject("SELECT MAX(store_id) FROM stores", Integer.class);
+
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"分页\",\"phone\":\"" + PHONE + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phone\":\"" + PHONE + "\",\"password\":\"pass\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = new ObjectMapper().readTree(body).get("token").asText();
+        userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE phone = ?", Integer.class, PHONE);
+    }
+
+    @Test
+    void cursorRoundTrip() {
+        Order order = new Order();
+        order.setOrderId(12345);
+        String encoded = OrderCursor.encode(order);
+        assertEquals(12345, OrderCursor.decode(encoded).getOrderId());
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("不是游标"));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("YWJj"));
+    }
+
+    @Test
+    void pagesByOrderIdAndEndsWithNullCursor() {
+        List<Integer> ids = insertOrders(userId, 7);
+
+        OrderPageDTO first = orderService.listPage(userId, null, 3);
+        assertEquals(descending(ids).subList(0, 3), orderIds(first));
+        assertNotNull(first.getNext());
+
+        // 翻页期间确认第二页的一条订单，下单时间被改为当前时间，它仍留在原来的位置
+        jdbcTemplate.update("UPDATE orders SET status = '进行中', order_time = DATEADD('DAY', 1, CURRENT_TIMESTAMP)"
+                + " WHERE order_id = ?", descending(ids).get(4));
+
+        OrderPageDTO second = orderService.listPage(userId, OrderCursor.decode(first.getNext()), 3);
+        assertEquals(descending(ids).subList(3, 6), orderIds(second));
+        assertNotNull(second.getNext());
+
+        OrderPageDTO last = orderService.listPage(userId, OrderCursor.decode(second.getNext()), 3);
+        assertEquals(descending(ids).subList(6, 7), orderIds(last));
+        assertNull(last.getNext());
+
+        // 恰好整页时不会多返回一个指向空页的游标
+        OrderPageDTO exact = orderService.listPage(userId, OrderCursor.decode(first.getNext()), 4);
+        assertEquals(4, exact.getOrders().size());
+        assertNull(exact.getNext());
+    }
+
+    @Test
+    void streamsEveryOrderAcrossBatches() throws Exception {
+        List<Integer> ids = insertOrders(userId, 1203);
+
+        MvcResult started = mockMvc.perform(get("/api/orders/user/" + userId).param("stream", "true")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        JsonNode json = new ObjectMapper().readTree(body);
+        assertEquals("用户订单列表获取成功", json.get("message").asText());
+        assertEquals(true, json.get("data").get("next").isNull());
+        List<Integer> streamed = new ArrayList<>();
+        json.get("data").get("orders").forEach(order -> streamed.add(order.get("orderId").asInt()));
+        assertEquals(descending(ids), streamed);
+    }
+
+    private List<Integer> insertOrders(int userId, int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{userId, storeId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (user_id, store_id, status, total_price, dine_option)"
+                + " VALUES (?, ?, '已创建', 10, '堂食')", rows);
+        return jdbcTemplate.queryForList("SELECT order_id FROM orders WHERE user_id = ? ORDER BY order_id",
+                Integer.class, userId);
+    }
+
+    private static List<Integer> descending(List<Integer> ids) {
+        List<Integer> result = new ArrayList<>(ids);
+        result.sort((a, b) -> Integer.compare(b, a));
+        return result;
+    }
+
+    private static List<Integer> orderIds(OrderPageDTO page) {
+        return page.getOrders().stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+}
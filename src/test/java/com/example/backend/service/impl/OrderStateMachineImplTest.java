@@ -0,0 +1,173 @@
+package com.example.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.backend.entity.Order;
+import com.example.backend.entity.OrderEvent;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.mapper.OrderMapper;
+import com.example.backend.service.IOrderStatsService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单状态机：转换表、按顺序尝试CAS、冲突与拒绝的区分，以及转换次数在提交后才计入。
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderStateMachineImplTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private IOrderStatsService orderStatsService;
+    @InjectMocks
+    private OrderStateMachineImpl stateMachine;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda条件构造器需要实体的表信息，不启动Spring时手动初始化。
+        // 表信息是全局缓存，同一JVM中已启动的Spring上下文初始化过时不能覆盖，否则其中的saveBatch找不到SqlSessionFactory
+        if (TableInfoHelper.getTableInfo(Order.class) == null) {
+            TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Order.class);
+        }
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void transitionTable() {
+        assertAllowed(OrderEvent.CONFIRM, OrderStatus.CREATED);
+        assertAllowed(OrderEvent.COMPLETE, OrderStatus.IN_PROGRESS);
+        assertAllowed(OrderEvent.CANCEL, OrderStatus.CREATED, OrderStatus.IN_PROGRESS);
+        assertAllowed(OrderEvent.REFUND, OrderStatus.COMPLETED);
+        assertAllowed(OrderEvent.EXPIRE, OrderStatus.CREATED);
+    }
+
+    @Test
+    void cancelTriesInProgressThenCreated() {
+        when(orderMapper.update(isNull(), any())).thenReturn(0, 1);
+
+        assertEquals(OrderStatus.CREATED, stateMachine.fire(1, OrderEvent.CANCEL));
+        verify(orderMapper, times(2)).update(isNull(), any());
+        verify(orderStatsService).recordTransition(OrderStatus.CREATED, OrderStatus.CANCELLED, 1);
+        assertEquals(1L, transitions().get("已创建->已取消"));
+        assertEquals(0L, conflicts(OrderEvent.CANCEL));
+    }
+
+    @Test
+    void invalidTransitionIsRejectedNotConflict() {
+        when(orderMapper.update(isNull(), any())).thenReturn(0);
+        when(orderMapper.selectById(1)).thenReturn(order(OrderStatus.COMPLETED));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stateMachine.fire(1, OrderEvent.CONFIRM));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        assertEquals(0L, conflicts(OrderEvent.CONFIRM));
+        assertEquals(1L, rejected(OrderEvent.CONFIRM));
+    }
+
+    @Test
+    void missingOrderIsNotFound() {
+        when(orderMapper.update(isNull(), any())).thenReturn(0);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stateMachine.fire(1, OrderEvent.COMPLETE));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+        assertEquals(0L, rejected(OrderEvent.COMPLETE));
+    }
+
+    @Test
+    void statusChangedBetweenAttemptsCountsConflictAndRetries() {
+        // 尝试进行中时订单还是已创建，尝试已创建时它已被确认为进行中；重试时按进行中命中
+        when(orderMapper.update(isNull(), any())).thenReturn(0, 0, 1);
+        when(orderMapper.selectById(1)).thenReturn(order(OrderStatus.IN_PROGRESS));
+
+        assertEquals(OrderStatus.IN_PROGRESS, stateMachine.fire(1, OrderEvent.CANCEL));
+        assertEquals(1L, conflicts(OrderEvent.CANCEL));
+        assertEquals(1L, transitions().get("进行中->已取消"));
+    }
+
+    @Test
+    void transitionCountsWaitForCommit() {
+        when(orderMapper.update(isNull(), any())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        stateMachine.fire(1, OrderEvent.CONFIRM);
+        assertEquals(0L, transitions().get("已创建->进行中"));
+        // 回滚：同步回调被丢弃，计数不变
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(0L, transitions().get("已创建->进行中"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        stateMachine.fire(2, OrderEvent.CONFIRM);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1L, transitions().get("已创建->进行中"));
+    }
+
+    @Test
+    void batchSkipsOrdersNoLongerInSourceStatus() {
+        when(orderMapper.update(isNull(), any())).thenReturn(2);
+
+        assertEquals(2, stateMachine.fireBatch(Arrays.asList(1, 2, 3), OrderEvent.EXPIRE));
+        assertEquals(2L, transitions().get("已创建->已取消"));
+        assertEquals(0L, conflicts(OrderEvent.EXPIRE));
+        verify(orderStatsService).recordTransition(OrderStatus.CREATED, OrderStatus.CANCELLED, 2);
+        assertThrows(IllegalArgumentException.class, () -> stateMachine.fireBatch(Arrays.asList(1), OrderEvent.CANCEL));
+    }
+
+    private void assertAllowed(OrderEvent event, OrderStatus... allowed) {
+        Set<OrderStatus> expected = EnumSet.noneOf(OrderStatus.class);
+        expected.addAll(Arrays.asList(allowed));
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(expected.contains(status), stateMachine.canFire(status, event), event + " from " + status);
+        }
+    }
+
+    private static Order order(OrderStatus status) {
+        Order order = new Order();
+        order.setOrderId(1);
+        order.setStatus(status.toString());
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> transitions() {
+        return (Map<String, Long>) stateMachine.metrics().get("transitions");
+    }
+
+    @SuppressWarnings("unchecked")
+    private long conflicts(OrderEvent event) {
+        return ((Map<String, Long>) stateMachine.metrics().get("casConflicts")).get(event.name());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long rejected(OrderEvent event) {
+        return ((Map<String, Long>) stateMachine.metrics().get("rejected")).get(event.name());
+    }
+}
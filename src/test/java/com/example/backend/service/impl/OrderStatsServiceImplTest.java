@@ -0,0 +1,69 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.StatusCountDTO;
+import com.example.backend.entity.OrderStatus;
+import com.example.backend.mapper.OrderMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * 对账与并发增量：查询期间计入的状态变化不会被校正抵消。
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderStatsServiceImplTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+    @InjectMocks
+    private OrderStatsServiceImpl orderStatsService;
+
+    @Test
+    void reconcileKeepsTransitionCountedDuringQuery() {
+        when(orderMapper.countByStatus()).thenReturn(Collections.singletonList(row(OrderStatus.CREATED, 1)));
+        orderStatsService.reconcile();
+        assertEquals(1L, count(OrderStatus.CREATED));
+
+        // 查询读到的还是转换前的数据，转换在查询返回前提交并计入
+        when(orderMapper.countByStatus()).thenAnswer(invocation -> {
+            orderStatsService.recordTransition(OrderStatus.CREATED, OrderStatus.IN_PROGRESS, 1);
+            return rows(row(OrderStatus.CREATED, 1));
+        });
+        orderStatsService.reconcile();
+        assertEquals(0L, count(OrderStatus.CREATED));
+        assertEquals(1L, count(OrderStatus.IN_PROGRESS));
+        assertEquals(0L, drift(OrderStatus.IN_PROGRESS));
+    }
+
+    private long count(OrderStatus status) {
+        return (Long) orderStatsService.snapshot().get(status.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long drift(OrderStatus status) {
+        return ((Map<String, Long>) orderStatsService.snapshot().get("drift")).get(status.toString());
+    }
+
+    private static List<StatusCountDTO> rows(StatusCountDTO... rows) {
+        List<StatusCountDTO> list = new ArrayList<>();
+        Collections.addAll(list, rows);
+        return list;
+    }
+
+    private static StatusCountDTO row(OrderStatus status, long count) {
+        StatusCountDTO row = new StatusCountDTO();
+        row.setStatus(status.toString());
+        row.setCount(count);
+        return row;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.backend.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TokenCacheServiceImplTest {
+    private static final ToIntFunction<Integer> NO_VERSIONS = userId -> 0;
+
+    private TokenCacheServiceImpl tokenCacheService;
+
+    @BeforeEach
+    void setUp() {
+        tokenCacheService = new TokenCacheServiceImpl();
+        ReflectionTestUtils.setField(tokenCacheService, "maxEntries", 2);
+        tokenCacheService.init();
+    }
+
+    @Test
+    void cachesUntilTokenExpires() {
+        Authentication auth = authentication("13800000000");
+        tokenCacheService.put("live", "13800000000", null, null, new Date(System.currentTimeMillis() + 60000), auth);
+        tokenCacheService.put("expired", "13800000000", null, null, new Date(System.currentTimeMillis() - 1), auth);
+
+        assertSame(auth, tokenCacheService.get("live", NO_VERSIONS));
+        assertNull(tokenCacheService.get("expired", NO_VERSIONS));
+        assertNull(tokenCacheService.get("unknown", NO_VERSIONS));
+        assertEquals(1L, tokenCacheService.metrics().get("hits"));
+        assertEquals(2L, tokenCacheService.metrics().get("misses"));
+    }
+
+    @Test
+    void invalidatesOnlyTheChangedUser() {
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        tokenCacheService.put("a", "13800000001", null, null, expiration, authentication("13800000001"));
+        tokenCacheService.put("b", "13800000002", null, null, expiration, authentication("13800000002"));
+
+        tokenCacheService.invalidateUser("13800000001");
+        assertNull(tokenCacheService.get("a", NO_VERSIONS));
+        assertEquals("13800000002", tokenCacheService.get("b", NO_VERSIONS).getName());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        tokenCacheService.put("a", "1", null, null, expiration, authentication("1"));
+        tokenCacheService.put("b", "2", null, null, expiration, authentication("2"));
+        tokenCacheService.get("a", NO_VERSIONS);
+        tokenCacheService.put("c", "3", null, null, expiration, authentication("3"));
+
+        assertNull(tokenCacheService.get("b", NO_VERSIONS));
+        assertEquals("1", tokenCacheService.get("a", NO_VERSIONS).getName());
+        assertEquals("3", tokenCacheService.get("c", NO_VERSIONS).getName());
+    }
+
+    @Test
+    void dropsEntryWrittenAfterRevocation() {
+        Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        Authentication auth = authentication("13800000003");
+        // 请求按版本0验证了令牌，写入缓存前用户已修改密码，版本升为1且缓存已按用户清除
+        versions.put(7, 1);
+        tokenCacheService.invalidateUser("13800000003");
+        tokenCacheService.put("revoked", "13800000003", 7, 0, expiration, auth);
+        tokenCacheService.put("current", "13800000003", 7, 1, expiration, auth);
+
+        assertNull(tokenCacheService.get("revoked", userId -> versions.getOrDefault(userId, 0)));
+        assertEquals(1, tokenCacheService.metrics().get("size"));
+        assertSame(auth, tokenCacheService.get("current", userId -> versions.getOrDefault(userId, 0)));
+    }
+
+    private static Authentication authentication(String phone) {
+        return new UsernamePasswordAuthenticationToken(phone, null, Collections.emptyList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.TokenVersionDTO;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.service.ITokenCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 令牌版本：刷新读到的旧值不会降低内存中的版本，事务回滚时的提升不写入内存。
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenVersionServiceImplTest {
+
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private ITokenCacheService tokenCacheService;
+    @InjectMocks
+    private TokenVersionServiceImpl tokenVersionService;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void refreshNeverLowersVersion() {
+        when(userMapper.selectTokenVersion(7)).thenReturn(2);
+        tokenVersionService.bump(7, "13800000000");
+        assertEquals(2, tokenVersionService.currentVersion(7));
+
+        // 刷新的查询在提升提交前开始，读到的是旧版本1
+        when(userMapper.selectTokenVersions()).thenReturn(Collections.singletonList(row(7, "13800000000", 1)));
+        tokenVersionService.refresh();
+        assertEquals(2, tokenVersionService.currentVersion(7));
+        verify(tokenCacheService, times(1)).invalidateUser("13800000000");
+
+        when(userMapper.selectTokenVersions()).thenReturn(Collections.singletonList(row(7, "13800000000", 3)));
+        tokenVersionService.refresh();
+        assertEquals(3, tokenVersionService.currentVersion(7));
+        verify(tokenCacheService, times(2)).invalidateUser("13800000000");
+    }
+
+    @Test
+    void bumpAppliesOnlyAfterCommit() {
+        when(userMapper.selectTokenVersion(8)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(1, tokenVersionService.bump(8, "13800000001"));
+        assertEquals(0, tokenVersionService.currentVersion(8));
+
+        // 修改用户的事务回滚
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(0, tokenVersionService.currentVersion(8));
+        verify(tokenCacheService, never()).invalidateUser("13800000001");
+
+        // 再次提升并提交
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        tokenVersionService.bump(8, "13800000001");
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertEquals(1, tokenVersionService.currentVersion(8));
+        verify(tokenCacheService).invalidateUser("13800000001");
+    }
+
+    private static TokenVersionDTO row(int userId, String phone, int version) {
+        TokenVersionDTO row = new TokenVersionDTO();
+        row.setUserId(userId);
+        row.setPhone(phone);
+        row.setTokenVersion(version);
+        return row;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserCacheServiceImplTest {
+    private UserCacheServiceImpl cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCacheServiceImpl();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+        cache.init();
+    }
+
+    @Test
+    void indexesByIdAndPhoneAndReturnsCopies() {
+        User first = cache.getById(1, () -> load(1));
+        User byPhone = cache.getByPhone("13800000001", () -> load(1));
+        assertEquals(1, loads.get(), "按手机号命中按ID加载的条目");
+
+        // 修改返回的对象不影响缓存
+        byPhone.setBalance(new BigDecimal("99"));
+        assertNotSame(first, byPhone);
+        assertEquals(0, BigDecimal.ZERO.compareTo(cache.getById(1, () -> load(1)).getBalance()));
+
+        Map<String, Object> metrics = cache.metrics();
+        assertEquals(2L, metrics.get("hits"));
+        assertEquals(1L, metrics.get("misses"));
+    }
+
+    @Test
+    void writeThroughAndInvalidateKeepCacheCoherent() {
+        cache.getById(1, () -> load(1));
+        User updated = load(1);
+        updated.setBalance(new BigDecimal("10"));
+        cache.put(updated);
+        assertEquals(0, new BigDecimal("10").compareTo(cache.getByPhone("13800000001", () -> load(1)).getBalance()));
+
+        cache.invalidate(1);
+        assertEquals(0, BigDecimal.ZERO.compareTo(cache.getByPhone("13800000001", () -> load(1)).getBalance()));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void batchLoadsOnlyMissesAndEvictsBeyondCapacity() {
+        cache.getById(1, () -> load(1));
+        Map<Integer, User> users = cache.getByIds(Arrays.asList(1, 2, 3), ids -> {
+            assertEquals(Arrays.asList(2, 3), ids);
+            return Arrays.asList(load(2), load(3));
+        });
+        assertEquals(3, users.size());
+        assertEquals(1L, cache.metrics().get("evictions"));
+        assertNull(cache.getByIds(Collections.singletonList(4), ids -> Collections.emptyList()).get(4));
+    }
+
+    private User load(int userId) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setUserId(userId);
+        user.setPhone("1380000000" + userId);
+        user.setBalance(BigDecimal.ZERO);
+        return user;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void sizingForTenMillionPhonesAtOnePercent() {
+        BloomFilter filter = new BloomFilter(10_000_000L, 0.01);
+        assertEquals(7, filter.hashFunctions());
+        // m = -n·ln(0.01) / (ln2)² ≈ 95,850,584 位，约11.4MB
+        assertTrue(Math.abs(filter.bitSize() - 95_850_584L) < 64);
+        assertTrue(filter.memoryBytes() < 12_000_000L);
+    }
+
+    @Test
+    void noFalseNegativesAndFalsePositiveRateNearTarget() {
+        int n = 1_000_000;
+        BloomFilter filter = new BloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put(String.valueOf(13000000000L + i));
+        }
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain(String.valueOf(13000000000L + i)));
+        }
+
+        int probes = 1_000_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(String.valueOf(15000000000L + i))) {
+                falsePositives++;
+            }
+        }
+        double measured = (double) falsePositives / probes;
+        assertTrue(measured < 0.015, "measured fpp " + measured + ", estimated " + filter.currentFpp());
+        assertTrue(Math.abs(filter.currentFpp() - 0.01) < 0.003);
+    }
+}
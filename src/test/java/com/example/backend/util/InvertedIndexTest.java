@@ -0,0 +1,126 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+    private static final String[] WORDS = {"宫保", "鸡丁", "鱼香", "肉丝", "麻婆", "豆腐", "Kung", "Pao", "chicken", "spicy", "辣"};
+
+    @Test
+    void tokenizesHanBigramsAndLatinWords() {
+        assertEquals(new HashSet<>(Arrays.asList("宫", "保", "鸡", "丁", "宫保", "保鸡", "鸡丁", "kung", "pao")),
+                CjkTokenizer.indexTokens("宫保鸡丁 Kung-Pao"));
+        assertEquals(Arrays.asList("宫保", "保鸡"), terms("宫保鸡"));
+        assertEquals(Arrays.asList("鸡"), terms("鸡"));
+        // 以字母结尾的最后一个词按前缀匹配
+        assertTrue(CjkTokenizer.queryTerms("kung pa").get(1).isPrefix());
+        assertTrue(!CjkTokenizer.queryTerms("kung pa ").get(1).isPrefix());
+    }
+
+    @Test
+    void requiresAllTermsAndReportsSharedFields() {
+        InvertedIndex index = InvertedIndex.builder()
+                .add(1, 2, "宫保鸡丁").add(1, 0, "花生 chicken")
+                .add(2, 2, "鸡丁饭").add(2, 0, "宫保风味")
+                .add(3, 2, "麻婆豆腐")
+                .build();
+        int[] hits = index.search(CjkTokenizer.queryTerms("宫保"));
+        assertEquals(2, hits.length);
+        assertEquals(1, InvertedIndex.docId(hits[0]));
+        assertEquals(4, InvertedIndex.fields(hits[0]));
+        assertEquals(1, InvertedIndex.fields(hits[1]));
+        // 两个词分散在名称和描述中仍然命中，但没有共同字段
+        int[] split = index.search(CjkTokenizer.queryTerms("宫保 鸡丁"));
+        assertEquals(2, split.length);
+        assertEquals(0, InvertedIndex.fields(split[1]));
+        assertEquals(1, index.search(CjkTokenizer.queryTerms("chi")).length);
+        assertEquals(0, index.search(CjkTokenizer.queryTerms("宫保豆腐")).length);
+    }
+
+    @Test
+    void incrementalUpdatesMatchFullRebuild() {
+        Random random = new Random(7);
+        Map<Integer, String[]> docs = new HashMap<>();
+        for (int id = 1; id <= 300; id++) {
+            docs.put(id, randomDoc(random));
+        }
+        InvertedIndex index = build(docs);
+        InvertedIndex original = index;
+        int[] before = original.search(CjkTokenizer.queryTerms("鸡丁"));
+
+        for (int round = 0; round < 50; round++) {
+            InvertedIndex.Updater updater = index.updater();
+            Set<Integer> changed = new HashSet<>();
+            while (changed.size() < 5) {
+                changed.add(1 + random.nextInt(400));
+            }
+            for (int id : changed) {
+                String[] old = docs.remove(id);
+                if (old != null) {
+                    for (int field = 0; field < 3; field++) {
+                        updater.remove(id, field, old[field]);
+                    }
+                }
+                if (random.nextInt(4) > 0) {
+                    String[] doc = randomDoc(random);
+                    docs.put(id, doc);
+                    for (int field = 0; field < 3; field++) {
+                        updater.add(id, field, doc[field]);
+                    }
+                }
+            }
+            index = updater.apply();
+        }
+
+        InvertedIndex rebuilt = build(docs);
+        assertEquals(rebuilt.getTermCount(), index.getTermCount());
+        assertEquals(rebuilt.getEntryCount(), index.getEntryCount());
+        for (String query : new String[]{"宫保", "鸡丁", "鱼香肉丝", "kung pao", "chi", "辣", "spicy 豆腐"}) {
+            assertArrayEquals(rebuilt.search(CjkTokenizer.queryTerms(query)), index.search(CjkTokenizer.queryTerms(query)), query);
+        }
+        // 旧索引不受更新影响
+        assertArrayEquals(before, original.search(CjkTokenizer.queryTerms("鸡丁")));
+    }
+
+    private static List<String> terms(String query) {
+        List<String> texts = new ArrayList<>();
+        for (CjkTokenizer.Term term : CjkTokenizer.queryTerms(query)) {
+            texts.add(term.getText());
+        }
+        return texts;
+    }
+
+    private static String[] randomDoc(Random random) {
+        String[] doc = new String[3];
+        for (int field = 0; field < 3; field++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0, n = 1 + random.nextInt(3); i < n; i++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextBoolean() ? " " : "");
+            }
+            doc[field] = text.toString();
+        }
+        return doc;
+    }
+
+    private static InvertedIndex build(Map<Integer, String[]> docs) {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        docs.forEach((id, doc) -> {
+            for (int field = 0; field < 3; field++) {
+                builder.add(id, field, doc[field]);
+            }
+        });
+        return builder.build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void rejectsAttemptsOverLimitWithinWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1024, 4, 3, 1000);
+        long now = 10_000;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(counter.tryAcquire("13800000000", now + i));
+        }
+        assertFalse(counter.tryAcquire("13800000000", now + 10));
+        assertTrue(counter.tryAcquire("13900000000", now + 10), "其他键不受影响");
+        assertEquals(4, counter.getAllowed());
+        assertEquals(1, counter.getRejected());
+    }
+
+    @Test
+    void previousWindowDecaysAsWindowSlides() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1024, 4, 4, 1000);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(counter.tryAcquire("k", 10_000));
+        }
+        // 进入下一窗口的10%处，上一窗口仍计入 4 × 0.9 = 3.6 次，只剩一次余量
+        assertTrue(counter.tryAcquire("k", 11_100));
+        assertFalse(counter.tryAcquire("k", 11_100));
+        // 进入下一窗口的80%处，上一窗口只计入 0.8 次，加上当前窗口1次，还能再放行3次
+        assertTrue(counter.tryAcquire("k", 11_800));
+        assertTrue(counter.tryAcquire("k", 11_800));
+        assertTrue(counter.tryAcquire("k", 11_800));
+        assertFalse(counter.tryAcquire("k", 11_800));
+        // 两个窗口之后计数完全清零
+        for (int i = 0; i < 4; i++) {
+            assertTrue(counter.tryAcquire("k", 13_000));
+        }
+    }
+
+    @Test
+    void memoryStaysBoundedUnderManyDistinctKeys() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1024, 4, 5, 60_000);
+        assertEquals(1024, counter.capacity());
+        long now = 60_000;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(counter.tryAcquire("attacked", now));
+        }
+        for (int i = 0; i < 200_000; i++) {
+            counter.tryAcquire("1300000" + i, now);
+        }
+        assertTrue(counter.getEvictions() > 0);
+        // 淘汰优先选择计数最少的键，被集中尝试的键仍被限制
+        assertFalse(counter.tryAcquire("attacked", now));
+    }
+}
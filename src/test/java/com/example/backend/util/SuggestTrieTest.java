@@ -0,0 +1,97 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuggestTrieTest {
+    private static final String[] NAMES = {"宫保鸡丁", "宫保虾球", "鸡丁饭", "鱼香肉丝", "鱼香茄子", "麻婆豆腐", "可乐", "Cola", "豆浆"};
+
+    @Test
+    void pinyinKeys() {
+        assertEquals("gongbaojiding", Pinyin.full("宫保 鸡丁"));
+        assertEquals("gbjd", Pinyin.initials("宫保鸡丁"));
+        assertEquals("klcola", Pinyin.initials("可乐Cola!"));
+    }
+
+    @Test
+    void ranksByScoreWithoutDuplicates() {
+        Map<Integer, Long> sales = new HashMap<>();
+        sales.put(1, 5L);
+        sales.put(2, 50L);
+        sales.put(3, 5L);
+        SuggestTrie trie = SuggestTrie.build(
+                Arrays.asList("gongbaojiding", "gbjd", "gongbaoxiaqiu", "gbxq", "guobaorou", "gbr"),
+                new int[]{1, 1, 2, 2, 3, 3}, 2, id -> sales.getOrDefault(id, 0L));
+        // 同一菜品的全拼和首字母都以g开头，只出现一次；销量相同按ID
+        assertArrayEquals(new int[]{2, 1}, trie.lookup("g"));
+        assertArrayEquals(new int[]{2, 1}, trie.lookup("gongbao"));
+        assertArrayEquals(new int[]{1}, trie.lookup("gongbaoj"));
+        assertArrayEquals(new int[]{3}, trie.lookup("gbr"));
+        assertArrayEquals(new int[0], trie.lookup("gongbaoz"));
+        assertArrayEquals(new int[0], trie.lookup(""));
+    }
+
+    @Test
+    void incrementalUpdatesMatchFullRebuild() {
+        Random random = new Random(11);
+        IntToLongFunction score = id -> id % 7;
+        Map<Integer, String> names = new HashMap<>();
+        for (int id = 1; id <= 200; id++) {
+            names.put(id, NAMES[random.nextInt(NAMES.length)] + random.nextInt(3));
+        }
+        SuggestTrie trie = build(names, score);
+        SuggestTrie original = trie;
+        int[] before = original.lookup("yx");
+
+        for (int round = 0; round < 300; round++) {
+            int id = 1 + random.nextInt(260);
+            String old = names.remove(id);
+            if (old != null) {
+                for (String key : keys(old)) {
+                    trie = trie.remove(key, id);
+                }
+            }
+            if (random.nextInt(3) > 0) {
+                String name = NAMES[random.nextInt(NAMES.length)] + random.nextInt(3);
+                names.put(id, name);
+                for (String key : keys(name)) {
+                    trie = trie.insert(key, id);
+                }
+            }
+        }
+
+        SuggestTrie rebuilt = build(names, score);
+        assertEquals(rebuilt.size(), trie.size());
+        for (String prefix : new String[]{"g", "gb", "gongbao", "宫", "宫保鸡", "yx", "yuxiangr", "k", "cola", "d", "dj", "鸡丁饭1"}) {
+            assertArrayEquals(rebuilt.lookup(prefix), trie.lookup(prefix), prefix);
+        }
+        // 旧树不受影响
+        assertArrayEquals(before, original.lookup("yx"));
+    }
+
+    private static List<String> keys(String name) {
+        return Arrays.asList(Pinyin.normalize(name), Pinyin.full(name), Pinyin.initials(name));
+    }
+
+    private static SuggestTrie build(Map<Integer, String> names, IntToLongFunction score) {
+        List<String> keys = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        names.forEach((id, name) -> {
+            for (String key : keys(name)) {
+                keys.add(key);
+                ids.add(id);
+            }
+        });
+        return SuggestTrie.build(keys, ids.stream().mapToInt(Integer::intValue).toArray(), 5, score);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void tasksAcrossLevelsExpireOnTimeAndInOrder() throws InterruptedException {
+        // 每格10ms、每层4格：底层覆盖40ms，第二层160ms，第三层640ms
+        long start = System.currentTimeMillis();
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, start);
+        Map<Integer, Long> dueAt = new HashMap<>();
+        int[] delays = {5, 25, 90, 150, 300, 500};
+        for (int i = 0; i < delays.length; i++) {
+            dueAt.put(i, start + delays[i]);
+            wheel.add(i, start + delays[i]);
+        }
+        assertEquals(delays.length, wheel.size());
+
+        List<Integer> fired = new ArrayList<>();
+        long deadline = start + 2000;
+        while (fired.size() < delays.length && System.currentTimeMillis() < deadline) {
+            for (Integer id : wheel.poll(50)) {
+                long now = System.currentTimeMillis();
+                // 不会提前到期，且延迟不超过一个底层刻度加上调度误差
+                assertTrue(now >= dueAt.get(id) - 10, "任务" + id + "提前到期");
+                assertTrue(now <= dueAt.get(id) + 500, "任务" + id + "到期过晚");
+                fired.add(id);
+            }
+        }
+        assertEquals(delays.length, fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+            assertTrue(fired.get(i) > fired.get(i - 1));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void alreadyExpiredTaskIsReturnedByNextPoll() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 60, now);
+        wheel.add("overdue", now - 60000);
+
+        assertEquals(1, wheel.poll(10).size());
+        assertTrue(wheel.poll(10).isEmpty());
+    }
+}
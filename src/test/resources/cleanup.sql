@@ -0,0 +1,10 @@
+-- 每个用例开始前按外键顺序清空所有表，由测试类上的 @Sql("/cleanup.sql") 执行
+DELETE FROM user_coupons;
+DELETE FROM coupons;
+DELETE FROM order_details;
+DELETE FROM orders;
+DELETE FROM reviews;
+DELETE FROM menu_items;
+DELETE FROM balance_ledger;
+DELETE FROM users;
+DELETE FROM stores;
@@ -0,0 +1,117 @@
+-- H2（MySQL兼容模式）测试库结构，与 src/main/resources/schema.sql 保持一致
+-- 1. 用户表（users）
+CREATE TABLE IF NOT EXISTS users (
+                       user_id INT PRIMARY KEY AUTO_INCREMENT, -- 用户ID，唯一标识
+                       name VARCHAR(255) NOT NULL, -- 用户姓名
+                       phone VARCHAR(20) UNIQUE NOT NULL, -- 手机号，用于登录和联系
+                       password VARCHAR(255) NOT NULL, -- 密码，加密存储
+                       registration_date DATE NOT NULL, -- 注册日期
+                       balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00, -- 预存款金额
+                       role VARCHAR(20) NOT NULL DEFAULT 'CUSTOMER', -- 用户角色，例如ADMIN或CUSTOMER
+                       token_version INT NOT NULL DEFAULT 0, -- 令牌版本，修改密码或角色时加一，使旧令牌失效
+                       ledger_watermark BIGINT NOT NULL DEFAULT 0, -- 已结算进balance的最大余额流水ID
+                       held_balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00 -- 为未确认订单冻结的金额，已从可用余额中扣除
+);
+
+-- 定期加载修改过密码或角色的用户的令牌版本
+CREATE INDEX IF NOT EXISTS idx_users_token_version ON users (token_version);
+
+-- 2. 店铺表（stores）
+CREATE TABLE IF NOT EXISTS stores (
+                        store_id INT PRIMARY KEY AUTO_INCREMENT, -- 店铺ID，唯一标识
+                        name VARCHAR(255) NOT NULL, -- 店铺名称
+                        location VARCHAR(255) NOT NULL -- 店铺位置
+);
+
+-- 3. 菜单表（menu_items）
+CREATE TABLE IF NOT EXISTS menu_items (
+                            item_id INT PRIMARY KEY AUTO_INCREMENT, -- 菜品ID，唯一标识
+                            store_id INT NOT NULL, -- 店铺ID，外键
+                            name VARCHAR(255) NOT NULL, -- 菜品名称
+                            description TEXT, -- 介绍
+                            image_url VARCHAR(255), -- 图片URL
+                            category VARCHAR(50) NOT NULL, -- 类别
+                            small_size_price DECIMAL(10, 2) NOT NULL, -- 小份价格
+                            large_size_price DECIMAL(10, 2) NOT NULL, -- 大份价格
+                            size_stock INT NOT NULL DEFAULT 0, -- 库存
+                            FOREIGN KEY (store_id) REFERENCES stores(store_id)
+);
+
+-- 4. 订单表（orders）
+CREATE TABLE IF NOT EXISTS orders (
+                        order_id INT PRIMARY KEY AUTO_INCREMENT, -- 订单ID，唯一标识
+                        user_id INT NOT NULL, -- 用户ID，外键
+                        store_id INT NOT NULL, -- 店铺ID，外键
+                        status VARCHAR(50) NOT NULL, -- 订单状态(已创建、进行中、已完成、已取消)
+                        total_price DECIMAL(10, 2) NOT NULL, -- 总价
+                        order_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 下单时间
+                        notes TEXT, -- 备注
+                        dine_option VARCHAR(20) NOT NULL, -- 就餐选项（堂食/自提）
+                        held_amount DECIMAL(10, 2) NOT NULL DEFAULT 0.00, -- 为该订单冻结的金额，确认时转为支付，取消或超时时退回
+                        update_time TIMESTAMP NULL, -- 更新时间
+                        FOREIGN KEY (user_id) REFERENCES users(user_id),
+                        FOREIGN KEY (store_id) REFERENCES stores(store_id)
+);
+-- 订单列表按 order_id 键集分页，全部订单直接使用主键
+CREATE INDEX IF NOT EXISTS idx_orders_user_id_id ON orders (user_id, order_id);
+-- 启动时按状态恢复未确认订单的超时时间轮
+CREATE INDEX IF NOT EXISTS idx_orders_status_time ON orders (status, order_time);
+
+-- 5. 订单详情表（order_details）
+CREATE TABLE IF NOT EXISTS order_details (
+                               detail_id INT PRIMARY KEY AUTO_INCREMENT, -- 订单详情ID，唯一标识
+                               order_id INT NOT NULL, -- 订单ID，外键
+                               item_id INT NOT NULL, -- 菜品ID，外键
+                               quantity INT NOT NULL, -- 数量
+                               size VARCHAR(50) NOT NULL, -- 规格（小份/大份）
+                               price DECIMAL(10, 2) NOT NULL, -- 单价
+                               special_requests TEXT, -- 特殊需求备注
+                               FOREIGN KEY (order_id) REFERENCES orders(order_id),
+                               FOREIGN KEY (item_id) REFERENCES menu_items(item_id)
+);
+
+-- 6. 评价表（reviews）
+CREATE TABLE IF NOT EXISTS reviews (
+                         review_id INT PRIMARY KEY AUTO_INCREMENT, -- 评价ID，唯一标识
+                         user_id INT NOT NULL, -- 用户ID，外键
+                         item_id INT NOT NULL, -- 菜品ID，外键
+                         rating INT NOT NULL CHECK (rating BETWEEN 1 AND 5), -- 评分，1到5之间
+                         comment TEXT, -- 评论
+                         review_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 评价时间
+                         FOREIGN KEY (user_id) REFERENCES users(user_id),
+                         FOREIGN KEY (item_id) REFERENCES menu_items(item_id)
+);
+
+-- 7. 优惠券表（coupons）
+CREATE TABLE IF NOT EXISTS coupons (
+                         coupon_id INT PRIMARY KEY AUTO_INCREMENT, -- 优惠券ID，唯一标识
+                         code VARCHAR(50) UNIQUE NOT NULL, -- 优惠码
+                         discount DECIMAL(5, 2) NOT NULL, -- 折扣金额或百分比
+                         expiration_date DATE NOT NULL, -- 过期日期
+                         min_purchase DECIMAL(10, 2) DEFAULT 0.00, -- 最低消费金额
+                         is_active BOOLEAN NOT NULL DEFAULT TRUE -- 优惠券是否有效
+);
+
+-- 8. 用户优惠券表（user_coupons）
+CREATE TABLE IF NOT EXISTS user_coupons (
+                              user_coupon_id INT PRIMARY KEY AUTO_INCREMENT, -- 用户优惠券ID，唯一标识
+                              user_id INT NOT NULL, -- 用户ID，外键
+                              coupon_id INT NOT NULL, -- 优惠券ID，外键
+                              is_used BOOLEAN NOT NULL DEFAULT FALSE, -- 是否已使用
+                              order_id INT NULL, -- 使用优惠券的订单ID
+                              FOREIGN KEY (user_id) REFERENCES users(user_id),
+                              FOREIGN KEY (coupon_id) REFERENCES coupons(coupon_id)
+);
+
+-- 9. 余额流水表（balance_ledger），只追加不修改；用户余额 = users.balance + 流水ID大于ledger_watermark的流水之和
+CREATE TABLE IF NOT EXISTS balance_ledger (
+                                ledger_id BIGINT PRIMARY KEY AUTO_INCREMENT, -- 流水ID，递增
+                                user_id INT NOT NULL, -- 用户ID，外键
+                                amount DECIMAL(10, 2) NOT NULL, -- 变动金额，入账为正，扣款为负
+                                type VARCHAR(20) NOT NULL, -- 变动类型（充值/消费/订单支付/订单退款/预授权冻结/预授权释放）
+                                order_id INT NULL, -- 关联的订单ID
+                                created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 记账时间
+                                FOREIGN KEY (user_id) REFERENCES users(user_id)
+);
+-- 按用户汇总未结算流水
+CREATE INDEX IF NOT EXISTS idx_balance_ledger_user_id ON balance_ledger (user_id, ledger_id);